@@ -1,34 +1,211 @@
 package com.urlshortener;
 
+import com.sun.net.httpserver.HttpHandler;
+import com.urlshortener.analytics.ClickEventBuffer;
+import com.urlshortener.analytics.ClickStatistics;
+import com.urlshortener.analytics.HotLinks;
 import com.urlshortener.cli.CLI;
 import com.urlshortener.config.AppConfig;
+import com.urlshortener.http.ExportHandler;
+import com.urlshortener.http.ImportHandler;
+import com.urlshortener.http.NioRedirectServer;
+import com.urlshortener.http.RedirectEndpoint;
+import com.urlshortener.http.RedirectServer;
+import com.urlshortener.http.StatsHandler;
+import com.urlshortener.metrics.MetricsRegistry;
+import com.urlshortener.persistence.JournaledLinkRepository;
+import com.urlshortener.persistence.JournaledUserRepository;
+import com.urlshortener.persistence.SnapshotManager;
+import com.urlshortener.repository.BloomFilteredLinkRepository;
+import com.urlshortener.repository.CachingLinkRepository;
 import com.urlshortener.repository.InMemoryLinkRepository;
 import com.urlshortener.repository.InMemoryUserRepository;
 import com.urlshortener.repository.LinkRepository;
+import com.urlshortener.repository.LogStructuredLinkRepository;
+import com.urlshortener.repository.ShardedLinkRepository;
 import com.urlshortener.repository.UserRepository;
+import com.urlshortener.repository.WriteBehindLinkRepository;
 import com.urlshortener.service.*;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Главная точка входа для приложения сервиса сокращения URL.
+ *
+ * <p>По умолчанию запускается интерактивный CLI. С флагом {@code --server} вместо него
+ * запускается HTTP-сервер переходов на порту {@code http.port}, работающий до остановки
+ * процесса.
  */
 public class Main {
+    private static final String SERVER_FLAG = "--server";
+
     public static void main(String[] args) {
         // Загрузка конфигурации
         AppConfig config = AppConfig.load();
 
-        // Инициализация репозиториев
-        LinkRepository linkRepository = new InMemoryLinkRepository();
-        UserRepository userRepository = new InMemoryUserRepository();
+        // Инициализация репозиториев; ресурсы закрываются в обратном порядке
+        List<Object> resources = new ArrayList<>();
+        LinkRepository linkRepository;
+        UserRepository userRepository;
+        if ("snapshot".equalsIgnoreCase(config.getStorageType())) {
+            LinkRepository links = createInMemoryLinkRepository(config);
+            resources.add(links);
+            InMemoryUserRepository users = new InMemoryUserRepository();
+            SnapshotManager snapshotManager = restoreSnapshot(config, links, users);
+            resources.add(snapshotManager);
+            linkRepository =
+                    new JournaledLinkRepository(
+                            links, snapshotManager.wal(), config.isWalSyncCommit());
+            userRepository =
+                    new JournaledUserRepository(
+                            users, snapshotManager.wal(), config.isWalSyncCommit());
+        } else {
+            linkRepository = createLinkRepository(config);
+            userRepository = new InMemoryUserRepository();
+        }
+        if (config.isWriteBehindEnabled()) {
+            linkRepository =
+                    new WriteBehindLinkRepository(
+                            linkRepository,
+                            config.getWriteBehindBatchSize(),
+                            config.getWriteBehindFlushIntervalMillis());
+        }
+        MetricsRegistry metrics = new MetricsRegistry();
+        if (config.isBloomFilterEnabled()) {
+            BloomFilteredLinkRepository filtered =
+                    new BloomFilteredLinkRepository(
+                            linkRepository,
+                            config.getBloomFilterExpectedLinks(),
+                            config.getBloomFilterFalsePositiveRate());
+            metrics.gauge("bloom.fill.ratio", filtered::fillRatio);
+            metrics.gauge("bloom.fpp.estimated", filtered::estimatedFalsePositiveRate);
+            metrics.gauge("bloom.fpp.observed", filtered::observedFalsePositiveRate);
+            metrics.gauge("bloom.lookups.filtered", filtered::filteredLookupCount);
+            metrics.gauge("bloom.lookups.passed", filtered::passedLookupCount);
+            linkRepository = filtered;
+        }
+        if (config.getLinkCacheSize() > 0) {
+            CachingLinkRepository cached =
+                    new CachingLinkRepository(linkRepository, config.getLinkCacheSize());
+            metrics.gauge("link.cache.size", cached::size);
+            metrics.gauge("link.cache.hits", cached::hitCount);
+            metrics.gauge("link.cache.misses", cached::missCount);
+            metrics.gauge("link.cache.hit.rate", cached::hitRate);
+            metrics.gauge("link.cache.evictions", cached::evictionCount);
+            metrics.gauge("link.cache.memory.bytes", cached::memoryBytes);
+            linkRepository = cached;
+        }
+        resources.add(linkRepository);
 
         // Инициализация сервисов
-        ShortCodeGenerator codeGenerator = new ShortCodeGenerator(config.getShortCodeLength());
+        ShortCodeGenerator codeGenerator = createShortCodeGenerator(config);
+        CodeSpaceMonitor codeSpace =
+                CodeSpaceMonitor.forGenerator(
+                        codeGenerator, config.getShortCodeMaxExpectedProbes());
+        metrics.gauge("codespace.length", codeSpace::currentLength);
+        metrics.gauge("codespace.occupancy", () -> codeSpace.occupancy(codeSpace.currentLength()));
+        metrics.gauge(
+                "codespace.expected.probes",
+                () -> codeSpace.expectedProbes(codeSpace.currentLength()));
+        for (int retries = 0; retries <= CodeSpaceMonitor.MAX_RETRIES_BUCKET; retries++) {
+            int bucket = retries;
+            metrics.gauge("codespace.retries." + bucket, () -> codeSpace.retryCount(bucket));
+        }
         NotificationService notificationService =
                 new NotificationService(config.isNotificationsEnabled());
         UserService userService = new UserService(userRepository);
+        ShortCodePool codePool = null;
+        if (config.getShortCodePoolSize() > 0) {
+            codePool =
+                    new ShortCodePool(
+                            codeGenerator,
+                            linkRepository,
+                            config.getShortCodePoolSize(),
+                            config.getShortCodePoolRefillThreshold(),
+                            codeSpace);
+            resources.add(codePool);
+            metrics.gauge("codepool.size", codePool::size);
+            metrics.gauge("codepool.low.water.mark", codePool::lowWaterMark);
+            metrics.gauge("codepool.empty", codePool::emptyCount);
+            metrics.gauge("codepool.refilled", codePool::refilledCount);
+            metrics.gauge("codepool.refill.rate", codePool::refillRate);
+        }
         LinkService linkService =
-                new LinkService(linkRepository, codeGenerator, notificationService, config);
+                new LinkService(
+                        linkRepository,
+                        codeGenerator,
+                        notificationService,
+                        config,
+                        codePool,
+                        codeSpace);
+        metrics.gauge("link.negative.cache.hits", linkService::deadLinkHitCount);
+        ClickStatistics clickStatistics = null;
+        HotLinks hotLinks = null;
+        if (config.getClickBufferSize() > 0) {
+            ClickEventBuffer clickEvents =
+                    new ClickEventBuffer(config.getClickBufferSize(), config.getClickBatchSize());
+            clickStatistics =
+                    new ClickStatistics(
+                            config.getStatsRetentionMinutes(),
+                            config.getStatsRetentionHours(),
+                            config.getStatsRetentionDays(),
+                            config.getStatsHllPrecision(),
+                            ZoneId.systemDefault());
+            clickEvents.addAggregator(clickStatistics);
+            linkService.addDeletionListener(clickStatistics::remove);
+            metrics.gauge("analytics.stats.links", clickStatistics::trackedLinks);
+            metrics.gauge("analytics.stats.memory.bytes", clickStatistics::memoryBytes);
+            if (config.getHotLinksSize() > 0) {
+                hotLinks =
+                        new HotLinks(
+                                config.getHotLinksSize(),
+                                config.getHotLinksSketchWidth(),
+                                config.getHotLinksHalfLifeSeconds() * 1000L);
+                clickEvents.addAggregator(hotLinks);
+                linkService.addDeletionListener(hotLinks::remove);
+                metrics.gauge("analytics.hotlinks.tracked", hotLinks::trackedLinks);
+                metrics.gauge("analytics.hotlinks.memory.bytes", hotLinks::memoryBytes);
+            }
+            metrics.gauge("analytics.events.published", clickEvents::publishedCount);
+            metrics.gauge("analytics.events.consumed", clickEvents::consumedCount);
+            metrics.gauge("analytics.events.dropped", clickEvents::droppedCount);
+            metrics.gauge("analytics.events.backlog", clickEvents::backlog);
+            metrics.gauge("analytics.batches", clickEvents::batchCount);
+            metrics.gauge("analytics.failures", clickEvents::failureCount);
+            clickEvents.start();
+            linkService.setClickSink(clickEvents);
+            resources.add(clickEvents);
+        }
         BrowserService browserService = new BrowserService();
         CleanupService cleanupService = new CleanupService(linkService, config);
+        LinkImporter linkImporter =
+                new LinkImporter(
+                        linkService,
+                        config.getImportWorkers(),
+                        config.getImportBatchSize(),
+                        metrics);
+        LinkExporter linkExporter = new LinkExporter(linkService);
+
+        if (Arrays.asList(args).contains(SERVER_FLAG)) {
+            Map<String, HttpHandler> apiHandlers = new HashMap<>();
+            apiHandlers.put(ImportHandler.PATH, new ImportHandler(linkImporter, userService));
+            apiHandlers.put(ExportHandler.PATH, new ExportHandler(linkExporter, userService));
+            if (clickStatistics != null) {
+                apiHandlers.put(
+                        StatsHandler.PATH,
+                        new StatsHandler(clickStatistics, linkService, userService));
+            }
+            startServer(config, linkService, cleanupService, apiHandlers, metrics, resources);
+            return;
+        }
 
         // Инициализация и запуск CLI
         CLI cli =
@@ -38,8 +215,171 @@ public class Main {
                         browserService,
                         notificationService,
                         cleanupService,
-                        config);
+                        linkImporter,
+                        linkExporter,
+                        clickStatistics,
+                        hotLinks,
+                        config,
+                        metrics);
+
+        try {
+            cli.start();
+        } finally {
+            closeAll(resources);
+        }
+    }
+
+    /**
+     * Запускает HTTP-сервер переходов реализации {@code http.engine}. Потоки сервера
+     * удерживают процесс, а ресурсы освобождаются в обработчике завершения процесса.
+     * Массовый импорт, выгрузка и статистика по HTTP доступны только в сервере {@code jdk}:
+     * цикл событий {@code nio} обслуживает только переходы.
+     */
+    private static void startServer(
+            AppConfig config,
+            LinkService linkService,
+            CleanupService cleanupService,
+            Map<String, HttpHandler> apiHandlers,
+            MetricsRegistry metrics,
+            List<Object> resources) {
+        // Флаг запуска -Dsun.net.httpserver.nodelay имеет приоритет; HttpServer в процессе
+        // еще не создавался, поэтому значение по умолчанию вступит в силу
+        if (System.getProperty(RedirectServer.NO_DELAY_PROPERTY) == null) {
+            System.setProperty(RedirectServer.NO_DELAY_PROPERTY, "true");
+        }
+        RedirectEndpoint server;
+        try {
+            server =
+                    "nio".equalsIgnoreCase(config.getHttpEngine())
+                            ? new NioRedirectServer(
+                                    linkService,
+                                    config.getHttpPort(),
+                                    config.getHttpResponseCacheSize(),
+                                    metrics)
+                            : new RedirectServer(
+                                    linkService, config.getHttpPort(), metrics, apiHandlers);
+        } catch (IOException e) {
+            closeAll(resources);
+            throw new UncheckedIOException("Не удалось запустить HTTP-сервер", e);
+        }
+        Runtime.getRuntime()
+                .addShutdownHook(
+                        new Thread(
+                                () -> {
+                                    server.close();
+                                    cleanupService.stop();
+                                    linkService.flushPendingUpdates();
+                                    closeAll(resources);
+                                },
+                                "Shutdown"));
+        cleanupService.start();
+        server.start();
+        System.out.println("HTTP-сервер переходов запущен на порту " + server.port());
+    }
+
+    /**
+     * Создает хранилище ссылок согласно {@code storage.type}.
+     */
+    private static LinkRepository createLinkRepository(AppConfig config) {
+        if ("log".equalsIgnoreCase(config.getStorageType())) {
+            return new LogStructuredLinkRepository(
+                    Path.of(config.getStorageDirectory(), "links"),
+                    config.getStorageSegmentSizeMb() * 1024 * 1024,
+                    config.getStorageCompactionIntervalSeconds());
+        }
+        return createInMemoryLinkRepository(config);
+    }
+
+    /**
+     * Создает хранилище ссылок в памяти, разделенное на {@code repository.shards} секций.
+     */
+    private static LinkRepository createInMemoryLinkRepository(AppConfig config) {
+        int shards = config.getRepositoryShards();
+        return shards > 1 ? new ShardedLinkRepository(shards) : new InMemoryLinkRepository();
+    }
+
+    /**
+     * Загружает последний снимок и хвост журнала и запускает периодические снимки.
+     */
+    private static SnapshotManager restoreSnapshot(
+            AppConfig config, LinkRepository links, UserRepository users) {
+        try {
+            SnapshotManager.Restored restored =
+                    SnapshotManager.restore(
+                            Path.of(config.getStorageDirectory(), "snapshot"), links, users);
+            System.out.println(
+                    "Восстановлено из снимка: ссылок "
+                            + restored.snapshotLinks()
+                            + ", пользователей "
+                            + restored.snapshotUsers()
+                            + ", записей журнала "
+                            + restored.walRecords()
+                            + " за "
+                            + restored.elapsedMillis()
+                            + " мс");
+            SnapshotManager manager = restored.manager();
+            manager.start(config.getSnapshotIntervalSeconds());
+            return manager;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось восстановить данные из снимка", e);
+        }
+    }
+
+    /**
+     * Создает генератор коротких кодов согласно {@code link.short.code.strategy}.
+     * Счетчик хранится в файле, если хранилище ссылок переживает перезапуск, а при
+     * {@code link.short.code.counter.coordinator=file} блоки арендуются через общий файл.
+     */
+    private static ShortCodeGenerator createShortCodeGenerator(AppConfig config) {
+        if (!"counter".equalsIgnoreCase(config.getShortCodeStrategy())) {
+            return new ShortCodeGenerator(config.getShortCodeLength());
+        }
+        CounterBlockAllocator allocator;
+        if ("file".equalsIgnoreCase(config.getShortCodeCounterCoordinator())) {
+            String leaseFile = config.getShortCodeCounterLeaseFile();
+            Path path =
+                    leaseFile.isEmpty()
+                            ? Path.of(config.getStorageDirectory(), "short-code-leases")
+                            : Path.of(leaseFile);
+            String nodeId =
+                    config.getNodeId().isEmpty()
+                            ? "node-" + ProcessHandle.current().pid()
+                            : config.getNodeId();
+            try {
+                allocator =
+                        new LeasedCounterBlockAllocator(
+                                new FileLockCounterRangeCoordinator(path), nodeId);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось открыть координатор диапазонов", e);
+            }
+        } else if ("memory".equalsIgnoreCase(config.getStorageType())) {
+            allocator = new InMemoryCounterBlockAllocator();
+        } else {
+            try {
+                allocator =
+                        new FileCounterBlockAllocator(
+                                Path.of(config.getStorageDirectory(), "short-code-counter"));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось открыть счетчик коротких кодов", e);
+            }
+        }
+        return new CounterShortCodeGenerator(
+                config.getShortCodeLength(), allocator, config.getShortCodeCounterBlockSize());
+    }
+
+    private static void closeAll(List<Object> resources) {
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            closeQuietly(resources.get(i));
+        }
+    }
 
-        cli.start();
+    private static void closeQuietly(Object resource) {
+        if (resource instanceof Closeable) {
+            try {
+                ((Closeable) resource).close();
+            } catch (IOException e) {
+                System.err.println("Ошибка закрытия хранилища: " + e.getMessage());
+            }
+        }
     }
 }
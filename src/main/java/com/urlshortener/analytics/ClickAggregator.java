@@ -0,0 +1,15 @@
+package com.urlshortener.analytics;
+
+/**
+ * Агрегатор событий перехода, получающий их пачками от {@link ClickEventBuffer}.
+ *
+ * <p>Все пачки передаются из одного потока-потребителя, поэтому запись в состояние
+ * агрегатора не требует синхронизации между вызовами; чтение из других потоков
+ * агрегатор обеспечивает сам.
+ */
+public interface ClickAggregator {
+    /**
+     * Обрабатывает пачку событий. Пачка действительна только во время вызова.
+     */
+    void onBatch(ClickBatch batch);
+}
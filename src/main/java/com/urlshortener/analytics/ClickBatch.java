@@ -0,0 +1,62 @@
+package com.urlshortener.analytics;
+
+/**
+ * Пачка событий перехода, переиспользуемая потребителем {@link ClickEventBuffer}:
+ * события копируются в массивы пачки, поэтому их передача агрегаторам не создает объектов.
+ *
+ * <p>Все события пачки получают одно время — момент, когда потребитель забрал их
+ * из буфера. Событие ждет в буфере не дольше паузы потребителя и обработки предыдущих
+ * пачек, что много меньше минутной корзины статистики.
+ */
+public final class ClickBatch {
+    private final String[] shortCodes;
+    private final long[] visitors;
+    private long timestampMillis;
+    private int size;
+
+    ClickBatch(int capacity) {
+        this.shortCodes = new String[capacity];
+        this.visitors = new long[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String shortCode(int index) {
+        return shortCodes[index];
+    }
+
+    public long visitor(int index) {
+        return visitors[index];
+    }
+
+    /**
+     * Время переходов пачки.
+     */
+    public long timestampMillis() {
+        return timestampMillis;
+    }
+
+    int capacity() {
+        return shortCodes.length;
+    }
+
+    void add(String shortCode, long visitor) {
+        shortCodes[size] = shortCode;
+        visitors[size] = visitor;
+        size++;
+    }
+
+    void setTimestampMillis(long timestampMillis) {
+        this.timestampMillis = timestampMillis;
+    }
+
+    /** Освобождает ссылки на коды, чтобы пачка не удерживала удаленные ссылки. */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            shortCodes[i] = null;
+        }
+        size = 0;
+    }
+}
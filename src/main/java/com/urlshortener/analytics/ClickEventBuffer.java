@@ -0,0 +1,233 @@
+package com.urlshortener.analytics;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ограниченный кольцевой буфер событий перехода с несколькими производителями и одним
+ * потребителем, по образцу Disruptor.
+ *
+ * <p>Места буфера выделены заранее: код и посетитель хранятся в параллельных массивах,
+ * поэтому публикация не создает объектов. Производитель занимает номер последовательности
+ * CAS-операцией над курсором производителей, записывает поля места и публикует его,
+ * записывая номер в массив готовности с семантикой release. Потребитель читает места
+ * по порядку, пока номер в массиве готовности совпадает с ожидаемым, и передает события
+ * агрегаторам пачками до {@code batchSize} событий. Время назначается пачке при чтении
+ * ({@link ClickBatch#timestampMillis()}), так что поток перехода не читает часы.
+ *
+ * <p>Переходы никогда не ждут аналитику: если буфер заполнен, событие отбрасывается
+ * и учитывается в {@link #droppedCount()}. Потребитель, не найдя событий, засыпает
+ * на {@link #IDLE_PARK_NANOS}, а производители его не будят, чтобы публикация оставалась
+ * дешевой. Курсоры производителей и потребителя разнесены по разным строкам кеша.
+ */
+public class ClickEventBuffer implements ClickSink, Closeable {
+    /** Пауза потребителя при пустом буфере. */
+    static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+    // Индексы курсоров в массиве отступают друг от друга на 64 байта
+    private static final int PRODUCER = 7;
+    private static final int CONSUMER = 15;
+    private static final int CURSORS_LENGTH = 23;
+
+    private final int mask;
+    private final String[] shortCodes;
+    private final long[] visitors;
+    private final AtomicLongArray published;
+    private final AtomicLongArray cursors = new AtomicLongArray(CURSORS_LENGTH);
+    private final ClickBatch batch;
+    private final List<ClickAggregator> aggregators = new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final Thread consumer;
+    private volatile long consumed;
+    private volatile long batches;
+    private volatile boolean running;
+
+    /**
+     * @param capacity число мест; округляется вверх до степени двойки
+     * @param batchSize наибольшее число событий в пачке для агрегаторов
+     */
+    public ClickEventBuffer(int capacity, int batchSize) {
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Размер буфера событий и размер пачки должны быть положительными");
+        }
+        int length = Integer.highestOneBit(Math.min(capacity, 1 << 30) * 2 - 1);
+        this.mask = length - 1;
+        this.shortCodes = new String[length];
+        this.visitors = new long[length];
+        this.published = new AtomicLongArray(length);
+        for (int i = 0; i < length; i++) {
+            published.set(i, -1);
+        }
+        this.batch = new ClickBatch(Math.min(batchSize, length));
+        this.consumer = new Thread(this::consume, "ClickEvents");
+        consumer.setDaemon(true);
+    }
+
+    /**
+     * Регистрирует агрегатор. Агрегаторы добавляются до {@link #start()}.
+     */
+    public void addAggregator(ClickAggregator aggregator) {
+        aggregators.add(aggregator);
+    }
+
+    /**
+     * Запускает поток-потребитель.
+     */
+    public void start() {
+        running = true;
+        consumer.start();
+    }
+
+    @Override
+    public boolean publish(String shortCode, long visitor) {
+        long sequence;
+        do {
+            sequence = cursors.get(PRODUCER);
+            if (sequence - cursors.getAcquire(CONSUMER) > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!cursors.compareAndSet(PRODUCER, sequence, sequence + 1));
+        int index = (int) sequence & mask;
+        shortCodes[index] = shortCode;
+        visitors[index] = visitor;
+        published.setRelease(index, sequence);
+        return true;
+    }
+
+    /**
+     * Количество принятых в буфер событий.
+     */
+    public long publishedCount() {
+        return cursors.get(PRODUCER);
+    }
+
+    /**
+     * Количество событий, переданных агрегаторам.
+     */
+    public long consumedCount() {
+        return consumed;
+    }
+
+    /**
+     * Количество событий, отброшенных из-за заполненного буфера.
+     */
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Количество пачек, переданных агрегаторам.
+     */
+    public long batchCount() {
+        return batches;
+    }
+
+    /**
+     * Количество исключений, выброшенных агрегаторами.
+     */
+    public long failureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Число событий, ожидающих потребителя.
+     */
+    public long backlog() {
+        return Math.max(0, cursors.get(PRODUCER) - consumed);
+    }
+
+    /**
+     * Ждет, пока потребитель обработает все события, принятые до вызова.
+     *
+     * @return false, если время ожидания истекло
+     */
+    public boolean awaitConsumed(long timeoutMillis) throws InterruptedException {
+        long target = publishedCount();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (consumedCount() < target) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    /**
+     * Останавливает потребителя, передав агрегаторам уже принятые события.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void consume() {
+        while (true) {
+            // Флаг читается до опустошения: события, принятые до остановки, не теряются
+            boolean stopping = !running;
+            if (drainBatch() > 0) {
+                continue;
+            }
+            if (stopping) {
+                return;
+            }
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Переносит готовые события в пачку и передает ее агрегаторам.
+     *
+     * @return число переданных событий
+     */
+    private int drainBatch() {
+        long next = cursors.get(CONSUMER);
+        int limit = batch.capacity();
+        while (batch.size() < limit) {
+            int index = (int) next & mask;
+            if (published.getAcquire(index) != next) {
+                break;
+            }
+            batch.add(shortCodes[index], visitors[index]);
+            shortCodes[index] = null;
+            next++;
+        }
+        int count = batch.size();
+        if (count == 0) {
+            return 0;
+        }
+        // Места освобождаются до обработки пачки: производители не ждут агрегаторов
+        cursors.setRelease(CONSUMER, next);
+        batch.setTimestampMillis(System.currentTimeMillis());
+        for (ClickAggregator aggregator : aggregators) {
+            try {
+                aggregator.onBatch(batch);
+            } catch (RuntimeException e) {
+                failures.increment();
+                System.err.println("Ошибка агрегатора переходов: " + e.getMessage());
+            }
+        }
+        batch.clear();
+        // Пишет только поток-потребитель
+        consumed = next;
+        batches++;
+        return count;
+    }
+}
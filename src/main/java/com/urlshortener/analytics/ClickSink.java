@@ -0,0 +1,22 @@
+package com.urlshortener.analytics;
+
+/**
+ * Получатель событий перехода по короткой ссылке.
+ *
+ * <p>Вызывается из потоков, обслуживающих переходы, поэтому реализация не должна
+ * блокироваться и создавать объекты.
+ */
+public interface ClickSink {
+    /** Идентификатор посетителя, если источник перехода неизвестен. */
+    long UNKNOWN_VISITOR = 0;
+
+    /**
+     * Передает событие перехода. Время перехода назначает получатель: чтение часов
+     * в каждом переходе стоит дороже самой публикации.
+     *
+     * @param shortCode короткий код
+     * @param visitor хеш идентификатора посетителя ({@link VisitorId})
+     * @return false, если событие отброшено
+     */
+    boolean publish(String shortCode, long visitor);
+}
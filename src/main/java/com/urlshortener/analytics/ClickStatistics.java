@@ -0,0 +1,259 @@
+package com.urlshortener.analytics;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Статистика переходов по ссылкам в корзинах по минутам, часам и дням.
+ *
+ * <p>Каждый переход учитывается сразу в корзинах текущей минуты, часа и дня: часовая
+ * корзина — свертка минутных, суточная — часовых, но свертка выполняется при записи,
+ * а не пересчетом. Корзины одной детализации образуют кольцо из {@code retention} мест:
+ * место периода {@code n} — {@code n mod retention}, и корзина нового периода
+ * переиспользует место периода, вышедшего за время хранения. Поэтому память ссылки
+ * ограничена числом мест независимо от числа переходов: на корзину приходятся счетчик,
+ * номер периода и {@link HyperLogLog} не больше {@code 2^p} байтов, который создается
+ * при первом известном посетителе корзины.
+ *
+ * <p>Записывает только поток-потребитель {@link ClickEventBuffer}; чтение снимков
+ * из других потоков синхронизируется на статистике ссылки. Ссылки без переходов
+ * за все время хранения забываются раз в минуту.
+ */
+public class ClickStatistics implements ClickAggregator {
+    private static final int MINUTE = 0;
+    private static final int HOUR = 1;
+    private static final int DAY = 2;
+    private static final long[] PERIOD_MILLIS = {60_000L, 3_600_000L, 86_400_000L};
+    private static final long EMPTY = Long.MIN_VALUE;
+    // Оценки для 64-битной JVM со сжатыми указателями
+    private static final int OBJECT_HEADER_BYTES = 16;
+    private static final int SKETCH_OVERHEAD_BYTES = 48;
+
+    private final int[] slots = new int[3];
+    private final int[] offsets = new int[3];
+    private final int totalSlots;
+    private final int precision;
+    private final ZoneId zone;
+    /** Детализация, корзины которой охватывают самый длинный период. */
+    private final int widest;
+    private final long retentionMillis;
+    private final Map<String, LinkClicks> links = new ConcurrentHashMap<>();
+    private long lastPurgeMinute = EMPTY;
+
+    /**
+     * @param minutes число хранимых минутных корзин
+     * @param hours число хранимых часовых корзин
+     * @param days число хранимых суточных корзин
+     * @param precision точность HyperLogLog: {@code 2^precision} регистров
+     * @param zone часовой пояс границ часов и дней
+     */
+    public ClickStatistics(int minutes, int hours, int days, int precision, ZoneId zone) {
+        if (minutes < 0 || hours < 0 || days < 0 || minutes + hours + days == 0) {
+            throw new IllegalArgumentException(
+                    "Время хранения статистики не может быть отрицательным или нулевым");
+        }
+        HyperLogLog.checkPrecision(precision);
+        slots[MINUTE] = minutes;
+        slots[HOUR] = hours;
+        slots[DAY] = days;
+        offsets[HOUR] = minutes;
+        offsets[DAY] = minutes + hours;
+        this.totalSlots = minutes + hours + days;
+        this.precision = precision;
+        this.zone = zone;
+        int widest = MINUTE;
+        for (int g = HOUR; g <= DAY; g++) {
+            if (slots[g] * PERIOD_MILLIS[g] >= slots[widest] * PERIOD_MILLIS[widest]) {
+                widest = g;
+            }
+        }
+        this.widest = widest;
+        this.retentionMillis = slots[widest] * PERIOD_MILLIS[widest];
+    }
+
+    @Override
+    public void onBatch(ClickBatch batch) {
+        long local = localMillis(batch.timestampMillis());
+        long minute = Math.floorDiv(local, PERIOD_MILLIS[MINUTE]);
+        long hour = Math.floorDiv(local, PERIOD_MILLIS[HOUR]);
+        long day = Math.floorDiv(local, PERIOD_MILLIS[DAY]);
+        for (int i = 0; i < batch.size(); i++) {
+            String shortCode = batch.shortCode(i);
+            LinkClicks clicks = links.get(shortCode);
+            if (clicks == null) {
+                clicks = new LinkClicks(totalSlots);
+                LinkClicks existing = links.putIfAbsent(shortCode, clicks);
+                if (existing != null) {
+                    clicks = existing;
+                }
+            }
+            long visitor = batch.visitor(i);
+            synchronized (clicks) {
+                clicks.lastMinute = minute;
+                record(clicks, MINUTE, minute, visitor);
+                record(clicks, HOUR, hour, visitor);
+                record(clicks, DAY, day, visitor);
+            }
+        }
+        if (minute != lastPurgeMinute) {
+            lastPurgeMinute = minute;
+            purge(minute);
+        }
+    }
+
+    /**
+     * Снимок статистики ссылки на текущий момент.
+     *
+     * @return пустой результат, если переходов по ссылке за время хранения не было
+     */
+    public Optional<ClickStats> stats(String shortCode) {
+        return stats(shortCode, System.currentTimeMillis());
+    }
+
+    Optional<ClickStats> stats(String shortCode, long nowMillis) {
+        LinkClicks clicks = links.get(shortCode);
+        if (clicks == null) {
+            return Optional.empty();
+        }
+        long local = localMillis(nowMillis);
+        List<List<ClickStats.Bucket>> buckets = new ArrayList<>(3);
+        long total = 0;
+        byte[] union = new byte[1 << precision];
+        synchronized (clicks) {
+            for (int g = MINUTE; g <= DAY; g++) {
+                long current = Math.floorDiv(local, PERIOD_MILLIS[g]);
+                List<ClickStats.Bucket> list = new ArrayList<>();
+                // Корзины читаются от старых к новым
+                for (long period = current - slots[g] + 1; period <= current; period++) {
+                    int slot = slot(g, period);
+                    if (clicks.periods[slot] != period) {
+                        continue;
+                    }
+                    HyperLogLog visitors = clicks.visitors[slot];
+                    list.add(
+                            new ClickStats.Bucket(
+                                    LocalDateTime.ofEpochSecond(
+                                            period * PERIOD_MILLIS[g] / 1000, 0, ZoneOffset.UTC),
+                                    clicks.counts[slot],
+                                    visitors == null ? 0 : visitors.estimate()));
+                    if (g == widest) {
+                        total += clicks.counts[slot];
+                        if (visitors != null) {
+                            visitors.mergeInto(union);
+                        }
+                    }
+                }
+                buckets.add(List.copyOf(list));
+            }
+        }
+        if (total == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(
+                new ClickStats(
+                        total,
+                        HyperLogLog.estimate(union),
+                        buckets.get(MINUTE),
+                        buckets.get(HOUR),
+                        buckets.get(DAY)));
+    }
+
+    /**
+     * Забывает статистику ссылки, например после ее удаления.
+     */
+    public void remove(String shortCode) {
+        links.remove(shortCode);
+    }
+
+    /**
+     * Число ссылок со статистикой.
+     */
+    public int trackedLinks() {
+        return links.size();
+    }
+
+    /**
+     * Оценка памяти, занятой статистикой; обходит все ссылки.
+     */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (LinkClicks clicks : links.values()) {
+            synchronized (clicks) {
+                bytes += clicks.memoryBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private void record(LinkClicks clicks, int granularity, long period, long visitor) {
+        if (slots[granularity] == 0) {
+            return;
+        }
+        int slot = slot(granularity, period);
+        if (clicks.periods[slot] != period) {
+            // Место занимал период, вышедший за время хранения
+            clicks.periods[slot] = period;
+            clicks.counts[slot] = 0;
+            if (clicks.visitors[slot] != null) {
+                clicks.visitors[slot].clear();
+            }
+        }
+        clicks.counts[slot]++;
+        if (visitor != ClickSink.UNKNOWN_VISITOR) {
+            if (clicks.visitors[slot] == null) {
+                clicks.visitors[slot] = new HyperLogLog(precision);
+            }
+            clicks.visitors[slot].add(visitor);
+        }
+    }
+
+    private void purge(long minute) {
+        long oldest = minute - retentionMillis / PERIOD_MILLIS[MINUTE];
+        links.values().removeIf(clicks -> clicks.lastMinute < oldest);
+    }
+
+    private int slot(int granularity, long period) {
+        return offsets[granularity] + (int) Math.floorMod(period, (long) slots[granularity]);
+    }
+
+    private long localMillis(long epochMillis) {
+        int offsetSeconds =
+                zone.getRules().getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds();
+        return epochMillis + offsetSeconds * 1000L;
+    }
+
+    /** Корзины одной ссылки: минутные, затем часовые, затем суточные. */
+    private static final class LinkClicks {
+        final long[] periods;
+        final long[] counts;
+        final HyperLogLog[] visitors;
+        long lastMinute;
+
+        LinkClicks(int slots) {
+            this.periods = new long[slots];
+            this.counts = new long[slots];
+            this.visitors = new HyperLogLog[slots];
+            Arrays.fill(periods, EMPTY);
+        }
+
+        long memoryBytes() {
+            long bytes =
+                    OBJECT_HEADER_BYTES * 4L
+                            + periods.length * (2L * Long.BYTES + Integer.BYTES);
+            for (HyperLogLog sketch : visitors) {
+                if (sketch != null) {
+                    bytes += SKETCH_OVERHEAD_BYTES + sketch.memoryBytes();
+                }
+            }
+            return bytes;
+        }
+    }
+}
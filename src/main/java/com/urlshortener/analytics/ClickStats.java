@@ -0,0 +1,34 @@
+package com.urlshortener.analytics;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Снимок статистики переходов по ссылке за время хранения.
+ *
+ * <p>Списки корзин упорядочены по времени и содержат только корзины с переходами.
+ * Уникальные посетители корзин не складываются: итог {@link #uniqueVisitors()} — оценка
+ * объединения посетителей всех корзин самой длинной по охвату детализации.
+ *
+ * @param clicks переходы за время хранения
+ * @param uniqueVisitors оценка числа уникальных посетителей за время хранения
+ * @param minutes поминутные корзины
+ * @param hours почасовые корзины
+ * @param days посуточные корзины
+ */
+public record ClickStats(
+        long clicks,
+        long uniqueVisitors,
+        List<Bucket> minutes,
+        List<Bucket> hours,
+        List<Bucket> days) {
+
+    /**
+     * Корзина статистики.
+     *
+     * @param start начало периода по местному времени
+     * @param clicks переходы за период
+     * @param uniqueVisitors оценка числа уникальных посетителей за период
+     */
+    public record Bucket(LocalDateTime start, long clicks, long uniqueVisitors) {}
+}
@@ -0,0 +1,10 @@
+package com.urlshortener.analytics;
+
+/**
+ * Популярная ссылка из {@link HotLinks}.
+ *
+ * @param shortCode короткий код
+ * @param clicks оценка числа недавних переходов с учетом затухания; может быть завышена
+ *     на погрешность Count-Min Sketch, но не занижена
+ */
+public record HotLink(String shortCode, long clicks) {}
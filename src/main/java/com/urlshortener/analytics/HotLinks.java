@@ -0,0 +1,279 @@
+package com.urlshortener.analytics;
+
+import com.urlshortener.domain.ShortCodeCodec;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Самые популярные ссылки за последнее время (heavy hitters) без полного обхода хранилища.
+ *
+ * <p>Частоты кодов оцениваются Count-Min Sketch из четырех строк по {@code width}
+ * счетчиков с консервативным обновлением: переход увеличивает только счетчики, равные
+ * минимуму, поэтому оценка не занижена и завышена не больше чем на
+ * {@code e / width} от суммы недавних переходов с вероятностью около 98%. Строки
+ * индексируются 64-битным хешем кода (упакованный код base62 или FNV-1a по символам),
+ * а не {@link String#hashCode()}: коды с одинаковым 32-битным хешем, как «Aa» и «BB»,
+ * иначе делили бы счетчики во всех строках. Кандидаты в топ хранятся в min-куче
+ * из {@code capacity} кодов: код с оценкой больше минимальной вытесняет корень кучи.
+ * Переход стоит четырех счетчиков, поиска в таблице позиций и просеивания кучи — O(log K).
+ *
+ * <p>Затухание: раз в {@code halfLife} по времени пачек все счетчики и оценки кучи
+ * делятся пополам, так что переход весит тем меньше, чем он старше, и ссылка, переставшая
+ * быть популярной, уходит из топа. Деление монотонно и не нарушает порядок кучи.
+ *
+ * <p>Память фиксирована: {@code 4 × width} счетчиков и {@code capacity} мест кучи.
+ * Записывает только поток-потребитель {@link ClickEventBuffer}. Запрос копирует кучу
+ * за O(K) под блокировкой на время одной пачки и сортирует копию вне блокировки
+ * за O(K log K).
+ */
+public class HotLinks implements ClickAggregator {
+    private static final int DEPTH = 4;
+    private static final int MAX_WIDTH = 1 << 24;
+
+    private final long[] counters;
+    private final int width;
+    private final long halfLifeMillis;
+    private final String[] codes;
+    private final long[] counts;
+    private final Map<String, Integer> positions;
+    private int size;
+    private long nextDecayMillis = Long.MIN_VALUE;
+
+    /**
+     * @param capacity число отслеживаемых популярных ссылок (K)
+     * @param width число счетчиков в строке Count-Min Sketch; округляется вверх
+     *     до степени двойки
+     * @param halfLifeMillis период, за который вес перехода уменьшается вдвое
+     */
+    public HotLinks(int capacity, int width, long halfLifeMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                    "Число популярных ссылок должно быть положительным: " + capacity);
+        }
+        if (width <= 0 || width > MAX_WIDTH) {
+            throw new IllegalArgumentException(
+                    "Ширина Count-Min Sketch должна быть от 1 до " + MAX_WIDTH + ": " + width);
+        }
+        if (halfLifeMillis <= 0) {
+            throw new IllegalArgumentException(
+                    "Период полураспада должен быть положительным: " + halfLifeMillis);
+        }
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.counters = new long[DEPTH * this.width];
+        this.halfLifeMillis = halfLifeMillis;
+        this.codes = new String[capacity];
+        this.counts = new long[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    @Override
+    public synchronized void onBatch(ClickBatch batch) {
+        decay(batch.timestampMillis());
+        for (int i = 0; i < batch.size(); i++) {
+            String shortCode = batch.shortCode(i);
+            offer(shortCode, increment(shortCode));
+        }
+    }
+
+    /**
+     * Самые популярные ссылки по убыванию оценки переходов. Стоит O(K log K): копия кучи
+     * сортируется целиком.
+     *
+     * @param limit сколько ссылок вернуть, не больше {@link #capacity()}
+     */
+    public List<HotLink> top(int limit) {
+        List<HotLink> hot;
+        synchronized (this) {
+            hot = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                if (counts[i] > 0) {
+                    hot.add(new HotLink(codes[i], counts[i]));
+                }
+            }
+        }
+        // K элементов сортируются вне блокировки, чтобы не задерживать потребителя
+        hot.sort(Comparator.comparingLong(HotLink::clicks).reversed());
+        return List.copyOf(hot.size() > limit ? hot.subList(0, limit) : hot);
+    }
+
+    /**
+     * Оценка числа недавних переходов по коду, в том числе не попавшему в топ.
+     */
+    public synchronized long estimate(String shortCode) {
+        long hash = hash(shortCode);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters[index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Убирает ссылку из топа, например после ее удаления. Счетчики ссылки в Count-Min
+     * Sketch затухают сами.
+     */
+    public synchronized void remove(String shortCode) {
+        Integer position = positions.remove(shortCode);
+        if (position == null) {
+            return;
+        }
+        int last = --size;
+        if (position != last) {
+            move(last, position);
+            siftDown(position);
+            siftUp(position);
+        }
+        codes[last] = null;
+    }
+
+    /**
+     * Число отслеживаемых популярных ссылок (K).
+     */
+    public int capacity() {
+        return codes.length;
+    }
+
+    /**
+     * Число кодов в куче кандидатов.
+     */
+    public synchronized int trackedLinks() {
+        return size;
+    }
+
+    /**
+     * Размер счетчиков и кучи в байтах без учета таблицы позиций.
+     */
+    public long memoryBytes() {
+        return (long) counters.length * Long.BYTES
+                + (long) codes.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    /** Увеличивает минимальные счетчики кода и возвращает его новую оценку. */
+    private long increment(String shortCode) {
+        long hash = hash(shortCode);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters[index(hash, row)]);
+        }
+        estimate++;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            if (counters[index] < estimate) {
+                counters[index] = estimate;
+            }
+        }
+        return estimate;
+    }
+
+    private void offer(String shortCode, long estimate) {
+        Integer position = positions.get(shortCode);
+        if (position != null) {
+            // Оценка только выросла: в min-куче код может опуститься
+            counts[position] = estimate;
+            siftDown(position);
+        } else if (size < codes.length) {
+            codes[size] = shortCode;
+            counts[size] = estimate;
+            positions.put(shortCode, size);
+            siftUp(size++);
+        } else if (estimate > counts[0]) {
+            positions.remove(codes[0]);
+            codes[0] = shortCode;
+            counts[0] = estimate;
+            positions.put(shortCode, 0);
+            siftDown(0);
+        }
+    }
+
+    /** Делит счетчики пополам за каждый прошедший период полураспада. */
+    private void decay(long nowMillis) {
+        if (nextDecayMillis == Long.MIN_VALUE) {
+            nextDecayMillis = nowMillis + halfLifeMillis;
+            return;
+        }
+        if (nowMillis < nextDecayMillis) {
+            return;
+        }
+        long periods = (nowMillis - nextDecayMillis) / halfLifeMillis + 1;
+        nextDecayMillis += periods * halfLifeMillis;
+        int shift = (int) Math.min(periods, Long.SIZE - 1);
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] >>>= shift;
+        }
+        for (int i = 0; i < size; i++) {
+            counts[i] >>>= shift;
+        }
+    }
+
+    /**
+     * 64-битный хеш кода: упакованный код base62 различен для различных кодов, остальные
+     * коды хешируются FNV-1a по символам. Финализатор перемешивает биты для обеих половин.
+     */
+    private static long hash(String shortCode) {
+        long hash = ShortCodeCodec.pack(shortCode);
+        if (hash == ShortCodeCodec.NOT_PACKABLE) {
+            hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < shortCode.length(); i++) {
+                hash ^= shortCode.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+        }
+        return VisitorId.mix(hash);
+    }
+
+    /**
+     * Счетчик кода в строке {@code row}: индексы строк получаются из двух половин
+     * одного 64-битного хеша (схема Кирша — Митценмахера).
+     */
+    private int index(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return row * width + ((h1 + row * h2) & (width - 1));
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[parent] <= counts[position]) {
+                return;
+            }
+            swap(parent, position);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (counts[position] <= counts[child]) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    private void swap(int first, int second) {
+        String code = codes[first];
+        long count = counts[first];
+        move(second, first);
+        codes[second] = code;
+        counts[second] = count;
+        positions.put(code, second);
+    }
+
+    private void move(int from, int to) {
+        codes[to] = codes[from];
+        counts[to] = counts[from];
+        positions.put(codes[to], to);
+    }
+}
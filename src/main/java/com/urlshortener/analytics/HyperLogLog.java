@@ -0,0 +1,174 @@
+package com.urlshortener.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Оценка числа уникальных посетителей (HyperLogLog) с {@code 2^p} регистрами.
+ *
+ * <p>Пока посетителей мало, хранятся только непустые регистры: отсортированный массив
+ * пар «номер регистра, ранг» по 4 байта. Когда разреженное представление достигает
+ * размера плотного, оно заменяется массивом из {@code 2^p} байтов, так что память
+ * ограничена {@code 2^p} байтами независимо от числа переходов. Стандартная ошибка
+ * оценки — {@code 1.04 / sqrt(2^p)}, около 6.5% при {@code p = 8}. Малые значения
+ * оцениваются линейным подсчетом пустых регистров и близки к точным.
+ *
+ * <p>Хеш посетителя уже равномерно распределен ({@link VisitorId}), поэтому
+ * повторно не перемешивается. Не потокобезопасен.
+ */
+final class HyperLogLog {
+    static final int MIN_PRECISION = 4;
+    static final int MAX_PRECISION = 16;
+    private static final int[] EMPTY = new int[0];
+    private static final int INITIAL_SPARSE = 4;
+
+    private final int precision;
+    /** Плотные регистры или null, пока используется разреженное представление. */
+    private byte[] registers;
+    /** Пары {@code номер << 8 | ранг}, отсортированные по номеру регистра. */
+    private int[] sparse = EMPTY;
+    private int sparseSize;
+
+    HyperLogLog(int precision) {
+        checkPrecision(precision);
+        this.precision = precision;
+    }
+
+    static void checkPrecision(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(
+                    "Точность HyperLogLog должна быть от "
+                            + MIN_PRECISION
+                            + " до "
+                            + MAX_PRECISION
+                            + ": "
+                            + precision);
+        }
+    }
+
+    /**
+     * Учитывает посетителя.
+     */
+    void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Сторожевой бит ограничивает ранг, если оставшиеся биты нулевые
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (registers != null) {
+            if (registers[index] < rank) {
+                registers[index] = (byte) rank;
+            }
+            return;
+        }
+        int position = Arrays.binarySearch(sparse, 0, sparseSize, index << 8);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        if (position < sparseSize && (sparse[position] >>> 8) == index) {
+            if ((sparse[position] & 0xFF) < rank) {
+                sparse[position] = index << 8 | rank;
+            }
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            if (sparse.length * Integer.BYTES >= (1 << precision)) {
+                densify();
+                registers[index] = (byte) rank;
+                return;
+            }
+            sparse = Arrays.copyOf(sparse, Math.max(INITIAL_SPARSE, sparse.length * 2));
+        }
+        System.arraycopy(sparse, position, sparse, position + 1, sparseSize - position);
+        sparse[position] = index << 8 | rank;
+        sparseSize++;
+    }
+
+    /**
+     * Оценка числа различных посетителей.
+     */
+    long estimate() {
+        return estimate(registers());
+    }
+
+    /**
+     * Добавляет регистры этого счетчика в {@code union}: максимум по каждому регистру
+     * дает счетчик объединения множеств.
+     */
+    void mergeInto(byte[] union) {
+        if (registers != null) {
+            for (int i = 0; i < union.length; i++) {
+                union[i] = (byte) Math.max(union[i], registers[i]);
+            }
+            return;
+        }
+        for (int i = 0; i < sparseSize; i++) {
+            int index = sparse[i] >>> 8;
+            union[index] = (byte) Math.max(union[index], sparse[i] & 0xFF);
+        }
+    }
+
+    /** Очищает счетчик для повторного использования, сохраняя выделенную память. */
+    void clear() {
+        if (registers != null) {
+            Arrays.fill(registers, (byte) 0);
+        }
+        sparseSize = 0;
+    }
+
+    /**
+     * Занятая память в байтах без заголовка объекта.
+     */
+    long memoryBytes() {
+        return registers != null
+                ? registers.length
+                : (long) sparse.length * Integer.BYTES;
+    }
+
+    /**
+     * Оценка по плотным регистрам (формула Flajolet и др. с поправкой для малых значений).
+     */
+    static long estimate(byte[] registers) {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private byte[] registers() {
+        if (registers != null) {
+            return registers;
+        }
+        byte[] dense = new byte[1 << precision];
+        mergeInto(dense);
+        return dense;
+    }
+
+    private void densify() {
+        byte[] dense = new byte[1 << precision];
+        mergeInto(dense);
+        registers = dense;
+        sparse = EMPTY;
+        sparseSize = 0;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
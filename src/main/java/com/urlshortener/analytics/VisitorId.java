@@ -0,0 +1,45 @@
+package com.urlshortener.analytics;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * 64-битные хеши идентификаторов посетителей для событий перехода.
+ *
+ * <p>Хеш равномерно распределен по всем битам, как требуется для оценки числа
+ * уникальных посетителей, и никогда не равен {@link ClickSink#UNKNOWN_VISITOR}.
+ */
+public final class VisitorId {
+    private VisitorId() {}
+
+    /**
+     * Посетитель HTTP-сервера — адрес клиента.
+     */
+    public static long of(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        long hash = bytes.length;
+        for (byte b : bytes) {
+            hash = hash * 31 + (b & 0xFF);
+        }
+        return nonZero(mix(hash));
+    }
+
+    /**
+     * Посетитель CLI — пользователь.
+     */
+    public static long of(UUID userId) {
+        return nonZero(
+                mix(userId.getMostSignificantBits() ^ mix(userId.getLeastSignificantBits())));
+    }
+
+    /** Финализатор SplitMix64. */
+    static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    private static long nonZero(long hash) {
+        return hash == ClickSink.UNKNOWN_VISITOR ? 1 : hash;
+    }
+}
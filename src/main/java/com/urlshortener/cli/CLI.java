@@ -1,11 +1,25 @@
 package com.urlshortener.cli;
 
+import com.urlshortener.analytics.ClickStatistics;
+import com.urlshortener.analytics.ClickStats;
+import com.urlshortener.analytics.HotLink;
+import com.urlshortener.analytics.HotLinks;
+import com.urlshortener.analytics.VisitorId;
 import com.urlshortener.config.AppConfig;
 import com.urlshortener.domain.Link;
 import com.urlshortener.domain.User;
+import com.urlshortener.metrics.MetricsRegistry;
+import com.urlshortener.repository.LinkFilter;
 import com.urlshortener.service.*;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Scanner;
 import java.util.UUID;
 
@@ -18,7 +32,12 @@ public class CLI {
     private final BrowserService browserService;
     private final NotificationService notificationService;
     private final CleanupService cleanupService;
+    private final LinkImporter linkImporter;
+    private final LinkExporter linkExporter;
+    private final ClickStatistics clickStatistics;
+    private final HotLinks hotLinks;
     private final AppConfig config;
+    private final MetricsRegistry metrics;
     private final Scanner scanner;
 
     private User currentUser;
@@ -29,13 +48,23 @@ public class CLI {
             BrowserService browserService,
             NotificationService notificationService,
             CleanupService cleanupService,
-            AppConfig config) {
+            LinkImporter linkImporter,
+            LinkExporter linkExporter,
+            ClickStatistics clickStatistics,
+            HotLinks hotLinks,
+            AppConfig config,
+            MetricsRegistry metrics) {
         this.linkService = linkService;
         this.userService = userService;
         this.browserService = browserService;
         this.notificationService = notificationService;
         this.cleanupService = cleanupService;
+        this.linkImporter = linkImporter;
+        this.linkExporter = linkExporter;
+        this.clickStatistics = clickStatistics;
+        this.hotLinks = hotLinks;
         this.config = config;
+        this.metrics = metrics;
         this.scanner = new Scanner(System.in);
     }
 
@@ -84,6 +113,21 @@ public class CLI {
                     case DELETE:
                         handleDelete(args);
                         break;
+                    case IMPORT:
+                        handleImport(args);
+                        break;
+                    case EXPORT:
+                        handleExport(args);
+                        break;
+                    case STATS:
+                        handleStats(args);
+                        break;
+                    case TOP:
+                        handleTop(args);
+                        break;
+                    case METRICS:
+                        handleMetrics();
+                        break;
                     case HELP:
                         printHelp();
                         break;
@@ -129,7 +173,12 @@ public class CLI {
         System.out.println("  use <короткий_код>    - Открыть оригинальный URL в браузере");
         System.out.println("  info <короткий_код>   - Показать информацию о ссылке");
         System.out.println("  delete <короткий_код> - Удалить ссылку");
+        System.out.println("  import <файл>         - Создать ссылки из файла NDJSON");
+        System.out.println("  export <файл> [all]   - Выгрузить ссылки в CSV или NDJSON");
+        System.out.println("  stats <короткий_код>  - Показать статистику переходов по ссылке");
+        System.out.println("  top [число]           - Самые популярные ссылки (10 по умолчанию)");
         System.out.println("  list                  - Показать список всех ваших ссылок");
+        System.out.println("  metrics               - Показать метрики сервиса");
         System.out.println();
 
         System.out.println("Примеры:");
@@ -138,6 +187,10 @@ public class CLI {
         System.out.println("  use 3DZHeG");
         System.out.println("  info 3DZHeG");
         System.out.println("  delete 3DZHeG");
+        System.out.println("  import campaign.ndjson");
+        System.out.println("  export links.csv");
+        System.out.println("  stats 3DZHeG");
+        System.out.println("  top 20");
     }
 
     private void handleCreate(String args) {
@@ -185,15 +238,21 @@ public class CLI {
 
         String shortCode = args.trim();
 
+        UseResult result = linkService.tryUseLink(shortCode, VisitorId.of(currentUser.getId()));
+        if (result.status() == LinkStatus.NOT_FOUND) {
+            System.err.println("Ссылка не найдена: " + shortCode);
+            return;
+        }
+        if (!result.isOk()) {
+            System.err.println("Ссылка недоступна: " + result.status().getMessage());
+            return;
+        }
+
         try {
-            String originalUrl = linkService.useLink(shortCode);
+            String originalUrl = result.url();
             System.out.println("\n✓ Перенаправление на: " + originalUrl);
 
             browserService.openInBrowser(originalUrl);
-        } catch (IllegalStateException e) {
-            System.err.println("Ссылка недоступна: " + e.getMessage());
-        } catch (IllegalArgumentException e) {
-            System.err.println("Ссылка не найдена: " + shortCode);
         } catch (IOException e) {
             System.err.println("Не удалось открыть браузер: " + e.getMessage());
         }
@@ -266,8 +325,171 @@ public class CLI {
         }
     }
 
+    private void handleImport(String args) {
+        if (args.isEmpty()) {
+            System.out.println("Использование: import <файл>");
+            System.out.println(
+                    "Каждая строка файла: {\"url\": \"https://example.com\", \"clickLimit\": 20}");
+            return;
+        }
+
+        Path file = Path.of(args.trim());
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            LinkImporter.Summary summary =
+                    linkImporter.importLinks(
+                            reader,
+                            currentUser.getId(),
+                            result -> {
+                                if (!result.isSuccess()) {
+                                    System.err.println(
+                                            "  Строка " + result.line() + ": " + result.error());
+                                }
+                            });
+            System.out.println("\n✓ Импорт завершен");
+            System.out.println("  Создано ссылок: " + summary.created());
+            System.out.println("  Найдено существующих: " + summary.reused());
+            System.out.println("  Отклонено строк: " + summary.failed());
+        } catch (IOException e) {
+            System.err.println("Не удалось прочитать файл: " + e.getMessage());
+        }
+    }
+
+    private void handleExport(String args) {
+        String[] parts = args.trim().split("\\s+");
+        if (args.isBlank() || parts.length > 2 || (parts.length == 2 && !parts[1].equals("all"))) {
+            System.out.println("Использование: export <файл> [all]");
+            System.out.println("Файл с расширением .csv выгружается в CSV, остальные — в NDJSON");
+            return;
+        }
+
+        LinkFilter filter =
+                parts.length == 2
+                        ? LinkFilter.all()
+                        : LinkFilter.builder().ownerId(currentUser.getId()).build();
+        Path file = Path.of(parts[0]);
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            long count =
+                    linkExporter.export(
+                            filter, LinkExporter.Format.forFile(parts[0]), writer, true);
+            System.out.println("\n✓ Выгружено ссылок: " + count + " в " + file);
+        } catch (IOException e) {
+            System.err.println("Не удалось записать файл: " + e.getMessage());
+        }
+    }
+
+    private void handleStats(String args) {
+        if (args.isEmpty()) {
+            System.out.println("Использование: stats <короткий_код>");
+            System.out.println("Пример: stats 3DZHeG");
+            return;
+        }
+        if (clickStatistics == null) {
+            System.out.println("Статистика переходов отключена (analytics.buffer.size=0).");
+            return;
+        }
+
+        String shortCode = args.trim();
+        try {
+            if (!linkService.getLink(shortCode).isOwnedBy(currentUser.getId())) {
+                System.err.println("Статистика доступна только владельцу ссылки");
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ссылка не найдена: " + shortCode);
+            return;
+        }
+
+        Optional<ClickStats> found = clickStatistics.stats(shortCode);
+        if (found.isEmpty()) {
+            System.out.println(
+                    "\nПереходов по ссылке " + shortCode + " за время хранения не было.");
+            return;
+        }
+        ClickStats stats = found.get();
+        System.out.println("\nСтатистика переходов по ссылке " + shortCode + ":");
+        System.out.println("  Переходов:               " + stats.clicks());
+        System.out.println("  Уникальных посетителей: ~" + stats.uniqueVisitors());
+        printBuckets("По дням", stats.days(), "yyyy-MM-dd");
+        printBuckets("По часам", stats.hours(), "yyyy-MM-dd HH:00");
+        printBuckets("По минутам", stats.minutes(), "yyyy-MM-dd HH:mm");
+    }
+
+    private void handleTop(String args) {
+        if (hotLinks == null) {
+            System.out.println(
+                    "Отслеживание популярных ссылок отключено (analytics.hotlinks.size=0).");
+            return;
+        }
+        int limit = Math.min(10, hotLinks.capacity());
+        if (!args.isEmpty()) {
+            try {
+                limit = Integer.parseInt(args.trim());
+                if (limit <= 0) {
+                    System.out.println("Число ссылок должно быть положительным");
+                    return;
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("Неверное число ссылок: " + args.trim());
+                return;
+            }
+        }
+
+        List<HotLink> top = hotLinks.top(limit);
+        if (top.isEmpty()) {
+            System.out.println("\nНедавних переходов не было.");
+            return;
+        }
+        System.out.println(
+                "\nСамые популярные ссылки (оценка недавних переходов, вес перехода вдвое"
+                        + " меньше каждые "
+                        + config.getHotLinksHalfLifeSeconds()
+                        + " с):");
+        for (int i = 0; i < top.size(); i++) {
+            HotLink link = top.get(i);
+            System.out.printf("  %3d. %-12s ~%d%n", i + 1, link.shortCode(), link.clicks());
+        }
+        if (limit > hotLinks.capacity()) {
+            System.out.println(
+                    "  Отслеживается не больше " + hotLinks.capacity() + " ссылок.");
+        }
+    }
+
+    private static void printBuckets(
+            String title, List<ClickStats.Bucket> buckets, String pattern) {
+        if (buckets.isEmpty()) {
+            return;
+        }
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+        System.out.println("\n  " + title + ":");
+        for (ClickStats.Bucket bucket : buckets) {
+            System.out.printf(
+                    "    %-17s переходов: %-8d посетителей: ~%d%n",
+                    formatter.format(bucket.start()),
+                    bucket.clicks(),
+                    bucket.uniqueVisitors());
+        }
+    }
+
+    private void handleMetrics() {
+        Map<String, Number> values = metrics.snapshot();
+        if (values.isEmpty()) {
+            System.out.println("\nМетрики не зарегистрированы.");
+            return;
+        }
+        System.out.println();
+        for (Map.Entry<String, Number> entry : values.entrySet()) {
+            Number value = entry.getValue();
+            String formatted =
+                    value instanceof Double || value instanceof Float
+                            ? String.format("%.6f", value.doubleValue())
+                            : value.toString();
+            System.out.printf("  %-40s %s%n", entry.getKey(), formatted);
+        }
+    }
+
     private void shutdown() {
         cleanupService.stop();
+        linkService.flushPendingUpdates();
         scanner.close();
         System.out.println("\nСпасибо за использование Сервиса сокращения URL!");
         System.out.println("Ваш ID пользователя: " + currentUser.getId());
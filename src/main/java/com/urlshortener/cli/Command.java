@@ -9,6 +9,11 @@ public enum Command {
     LIST("list", "Показать список всех ваших ссылок"),
     INFO("info", "Показать информацию о конкретной ссылке"),
     DELETE("delete", "Удалить ссылку"),
+    IMPORT("import", "Создать ссылки из файла NDJSON"),
+    EXPORT("export", "Выгрузить ссылки в файл CSV или NDJSON"),
+    STATS("stats", "Показать статистику переходов по ссылке"),
+    TOP("top", "Показать самые популярные ссылки"),
+    METRICS("metrics", "Показать метрики сервиса"),
     HELP("help", "Показать справочное сообщение"),
     EXIT("exit", "Выйти из приложения");
 
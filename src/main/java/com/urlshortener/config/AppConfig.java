@@ -13,20 +13,122 @@ public class AppConfig {
     private final int linkTtlHours;
     private final int defaultClickLimit;
     private final int shortCodeLength;
+    private final String shortCodeStrategy;
+    private final int shortCodeCounterBlockSize;
+    private final String shortCodeCounterCoordinator;
+    private final String shortCodeCounterLeaseFile;
+    private final String nodeId;
+    private final int shortCodePoolSize;
+    private final int shortCodePoolRefillThreshold;
+    private final double shortCodeMaxExpectedProbes;
+    private final boolean deduplicationEnabled;
     private final String shortDomain;
     private final int cleanupIntervalMinutes;
     private final boolean notificationsEnabled;
+    private final int repositoryShards;
+    private final String storageType;
+    private final String storageDirectory;
+    private final int storageSegmentSizeMb;
+    private final int storageCompactionIntervalSeconds;
+    private final boolean writeBehindEnabled;
+    private final int writeBehindBatchSize;
+    private final int writeBehindFlushIntervalMillis;
+    private final int snapshotIntervalSeconds;
+    private final boolean bloomFilterEnabled;
+    private final int bloomFilterExpectedLinks;
+    private final double bloomFilterFalsePositiveRate;
+    private final int linkCacheSize;
+    private final int negativeCacheSize;
+    private final int negativeCacheTtlSeconds;
+    private final int clickBufferSize;
+    private final int clickBatchSize;
+    private final int statsRetentionMinutes;
+    private final int statsRetentionHours;
+    private final int statsRetentionDays;
+    private final int statsHllPrecision;
+    private final int hotLinksSize;
+    private final int hotLinksSketchWidth;
+    private final int hotLinksHalfLifeSeconds;
+    private final boolean walSyncCommit;
+    private final int httpPort;
+    private final String httpEngine;
+    private final int httpResponseCacheSize;
+    private final int importWorkers;
+    private final int importBatchSize;
 
     private AppConfig(Properties properties) {
         this.linkTtlHours = getIntProperty(properties, "link.ttl.hours", 24);
         this.defaultClickLimit = getIntProperty(properties, "link.default.click.limit", 10);
         this.shortCodeLength = getIntProperty(properties, "link.short.code.length", 6);
+        this.shortCodeStrategy = properties.getProperty("link.short.code.strategy", "hash");
+        this.shortCodeCounterBlockSize =
+                getIntProperty(properties, "link.short.code.counter.block.size", 1000);
+        this.shortCodeCounterCoordinator =
+                properties.getProperty("link.short.code.counter.coordinator", "local");
+        this.shortCodeCounterLeaseFile =
+                properties.getProperty("link.short.code.counter.lease.file", "");
+        this.nodeId = properties.getProperty("cluster.node.id", "");
+        this.shortCodePoolSize = getIntProperty(properties, "link.short.code.pool.size", 0);
+        int refillThreshold =
+                getIntProperty(properties, "link.short.code.pool.refill.threshold", 0);
+        // 0 — половина пула
+        this.shortCodePoolRefillThreshold =
+                refillThreshold > 0 ? refillThreshold : Math.max(1, shortCodePoolSize / 2);
+        this.shortCodeMaxExpectedProbes =
+                getDoubleProperty(properties, "link.short.code.max.expected.probes", 2.0);
+        this.deduplicationEnabled =
+                Boolean.parseBoolean(properties.getProperty("link.deduplicate", "true"));
         this.shortDomain = properties.getProperty("link.short.domain", "clck.ru");
         this.cleanupIntervalMinutes =
                 getIntProperty(properties, "cleanup.interval.minutes", 5);
         this.notificationsEnabled =
                 Boolean.parseBoolean(
                         properties.getProperty("notifications.enabled", "true"));
+        int shards = getIntProperty(properties, "repository.shards", 1);
+        // 0 — по числу ядер
+        this.repositoryShards = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        this.storageType = properties.getProperty("storage.type", "memory");
+        this.storageDirectory = properties.getProperty("storage.dir", "data");
+        this.storageSegmentSizeMb = getIntProperty(properties, "storage.segment.size.mb", 64);
+        this.storageCompactionIntervalSeconds =
+                getIntProperty(properties, "storage.compaction.interval.seconds", 60);
+        this.writeBehindEnabled =
+                Boolean.parseBoolean(properties.getProperty("writebehind.enabled", "false"));
+        this.writeBehindBatchSize = getIntProperty(properties, "writebehind.batch.size", 1000);
+        this.writeBehindFlushIntervalMillis =
+                getIntProperty(properties, "writebehind.flush.interval.ms", 1000);
+        this.snapshotIntervalSeconds =
+                getIntProperty(properties, "persistence.snapshot.interval.seconds", 300);
+        this.walSyncCommit =
+                Boolean.parseBoolean(properties.getProperty("persistence.wal.sync", "true"));
+        this.bloomFilterEnabled =
+                Boolean.parseBoolean(properties.getProperty("bloom.enabled", "true"));
+        this.bloomFilterExpectedLinks =
+                getIntProperty(properties, "bloom.expected.links", 1_000_000);
+        this.bloomFilterFalsePositiveRate =
+                getDoubleProperty(properties, "bloom.false.positive.rate", 0.01);
+        this.linkCacheSize = getIntProperty(properties, "link.cache.size", 0);
+        this.negativeCacheSize = getIntProperty(properties, "link.negative.cache.size", 65536);
+        this.negativeCacheTtlSeconds =
+                getIntProperty(properties, "link.negative.cache.ttl.seconds", 30);
+        this.clickBufferSize = getIntProperty(properties, "analytics.buffer.size", 65536);
+        this.clickBatchSize = getIntProperty(properties, "analytics.batch.size", 1024);
+        this.statsRetentionMinutes =
+                getIntProperty(properties, "analytics.retention.minutes", 60);
+        this.statsRetentionHours = getIntProperty(properties, "analytics.retention.hours", 24);
+        this.statsRetentionDays = getIntProperty(properties, "analytics.retention.days", 30);
+        this.statsHllPrecision = getIntProperty(properties, "analytics.hll.precision", 8);
+        this.hotLinksSize = getIntProperty(properties, "analytics.hotlinks.size", 100);
+        this.hotLinksSketchWidth =
+                getIntProperty(properties, "analytics.hotlinks.sketch.width", 4096);
+        this.hotLinksHalfLifeSeconds =
+                getIntProperty(properties, "analytics.hotlinks.half.life.seconds", 300);
+        this.httpPort = getIntProperty(properties, "http.port", 8080);
+        this.httpEngine = properties.getProperty("http.engine", "jdk");
+        this.httpResponseCacheSize =
+                getIntProperty(properties, "http.response.cache.size", 16384);
+        this.importWorkers = getIntProperty(properties, "import.workers", 0);
+        this.importBatchSize = getIntProperty(properties, "import.batch.size", 256);
     }
 
     /**
@@ -68,6 +170,26 @@ public class AppConfig {
         }
     }
 
+    private static double getDoubleProperty(
+            Properties properties, String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            System.err.println(
+                    "Неверное значение для "
+                            + key
+                            + ": "
+                            + value
+                            + ", используется значение по умолчанию: "
+                            + defaultValue);
+            return defaultValue;
+        }
+    }
+
     public int getLinkTtlHours() {
         return linkTtlHours;
     }
@@ -80,6 +202,66 @@ public class AppConfig {
         return shortCodeLength;
     }
 
+    /**
+     * Способ генерации коротких кодов: {@code hash} или {@code counter}.
+     */
+    public String getShortCodeStrategy() {
+        return shortCodeStrategy;
+    }
+
+    public int getShortCodeCounterBlockSize() {
+        return shortCodeCounterBlockSize;
+    }
+
+    /**
+     * Размер пула заранее сгенерированных кодов; 0 — пул не используется.
+     */
+    public int getShortCodePoolSize() {
+        return shortCodePoolSize;
+    }
+
+    /**
+     * Откуда узел получает блоки счетчика: {@code local} — собственный счетчик,
+     * {@code file} — аренда диапазонов через общий файл с блокировкой.
+     */
+    public String getShortCodeCounterCoordinator() {
+        return shortCodeCounterCoordinator;
+    }
+
+    /**
+     * Файл координатора диапазонов; пустая строка — файл в каталоге хранилища.
+     */
+    public String getShortCodeCounterLeaseFile() {
+        return shortCodeCounterLeaseFile;
+    }
+
+    /**
+     * Идентификатор узла; пустая строка — идентификатор по номеру процесса.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getShortCodePoolRefillThreshold() {
+        return shortCodePoolRefillThreshold;
+    }
+
+    /**
+     * Ожидаемое число проверок до свободного кода, при превышении которого новые коды
+     * становятся на символ длиннее.
+     */
+    public double getShortCodeMaxExpectedProbes() {
+        return shortCodeMaxExpectedProbes;
+    }
+
+    /**
+     * Возвращать ли уже существующую активную ссылку при повторном сокращении
+     * того же URL тем же пользователем.
+     */
+    public boolean isDeduplicationEnabled() {
+        return deduplicationEnabled;
+    }
+
     public String getShortDomain() {
         return shortDomain;
     }
@@ -92,6 +274,190 @@ public class AppConfig {
         return notificationsEnabled;
     }
 
+    /**
+     * Количество секций хранилища ссылок в памяти; 1 — без разделения.
+     */
+    public int getRepositoryShards() {
+        return repositoryShards;
+    }
+
+    /**
+     * Тип хранилища ссылок: {@code memory}, {@code log} или {@code snapshot}.
+     */
+    public String getStorageType() {
+        return storageType;
+    }
+
+    public String getStorageDirectory() {
+        return storageDirectory;
+    }
+
+    public int getStorageSegmentSizeMb() {
+        return storageSegmentSizeMb;
+    }
+
+    public int getStorageCompactionIntervalSeconds() {
+        return storageCompactionIntervalSeconds;
+    }
+
+    public boolean isWriteBehindEnabled() {
+        return writeBehindEnabled;
+    }
+
+    public int getWriteBehindBatchSize() {
+        return writeBehindBatchSize;
+    }
+
+    public int getWriteBehindFlushIntervalMillis() {
+        return writeBehindFlushIntervalMillis;
+    }
+
+    public int getSnapshotIntervalSeconds() {
+        return snapshotIntervalSeconds;
+    }
+
+    /**
+     * Ждать ли синхронизации журнала с диском перед завершением записи.
+     */
+    public boolean isWalSyncCommit() {
+        return walSyncCommit;
+    }
+
+    public boolean isBloomFilterEnabled() {
+        return bloomFilterEnabled;
+    }
+
+    public int getBloomFilterExpectedLinks() {
+        return bloomFilterExpectedLinks;
+    }
+
+    public double getBloomFilterFalsePositiveRate() {
+        return bloomFilterFalsePositiveRate;
+    }
+
+    /**
+     * Число популярных ссылок в кеше перед хранилищем; 0 отключает кеш.
+     */
+    public int getLinkCacheSize() {
+        return linkCacheSize;
+    }
+
+    /**
+     * Число мест в кеше отрицательных ответов (несуществующие и мертвые коды);
+     * 0 отключает кеш.
+     */
+    public int getNegativeCacheSize() {
+        return negativeCacheSize;
+    }
+
+    /**
+     * Время жизни отрицательного ответа в кеше, в секундах.
+     */
+    public int getNegativeCacheTtlSeconds() {
+        return negativeCacheTtlSeconds;
+    }
+
+    /**
+     * Число мест в буфере событий перехода для аналитики; 0 отключает аналитику.
+     */
+    public int getClickBufferSize() {
+        return clickBufferSize;
+    }
+
+    /**
+     * Наибольшее число событий перехода в пачке для агрегаторов.
+     */
+    public int getClickBatchSize() {
+        return clickBatchSize;
+    }
+
+    /**
+     * Число хранимых минутных корзин статистики переходов.
+     */
+    public int getStatsRetentionMinutes() {
+        return statsRetentionMinutes;
+    }
+
+    /**
+     * Число хранимых часовых корзин статистики переходов.
+     */
+    public int getStatsRetentionHours() {
+        return statsRetentionHours;
+    }
+
+    /**
+     * Число хранимых суточных корзин статистики переходов.
+     */
+    public int getStatsRetentionDays() {
+        return statsRetentionDays;
+    }
+
+    /**
+     * Точность оценки уникальных посетителей: {@code 2^p} регистров HyperLogLog
+     * на корзину.
+     */
+    public int getStatsHllPrecision() {
+        return statsHllPrecision;
+    }
+
+    /**
+     * Число отслеживаемых популярных ссылок; 0 отключает отслеживание.
+     */
+    public int getHotLinksSize() {
+        return hotLinksSize;
+    }
+
+    /**
+     * Число счетчиков в строке Count-Min Sketch популярных ссылок.
+     */
+    public int getHotLinksSketchWidth() {
+        return hotLinksSketchWidth;
+    }
+
+    /**
+     * Период (в секундах), за который вес перехода в популярности ссылки уменьшается вдвое.
+     */
+    public int getHotLinksHalfLifeSeconds() {
+        return hotLinksHalfLifeSeconds;
+    }
+
+    /**
+     * Порт HTTP-сервера переходов (режим {@code --server}).
+     */
+    public int getHttpPort() {
+        return httpPort;
+    }
+
+    /**
+     * Реализация HTTP-сервера: {@code jdk} — встроенный сервер JDK, {@code nio} —
+     * собственный цикл событий на {@link java.nio.channels.Selector}.
+     */
+    public String getHttpEngine() {
+        return httpEngine;
+    }
+
+    /**
+     * Число мест в кеше готовых ответов сервера {@code nio}.
+     */
+    public int getHttpResponseCacheSize() {
+        return httpResponseCacheSize;
+    }
+
+    /**
+     * Число потоков разбора и генерации кодов при массовом импорте; 0 — по числу
+     * процессоров.
+     */
+    public int getImportWorkers() {
+        return importWorkers;
+    }
+
+    /**
+     * Наибольшее число ссылок, сохраняемых импортом за одну запись в хранилище.
+     */
+    public int getImportBatchSize() {
+        return importBatchSize;
+    }
+
     @Override
     public String toString() {
         return "AppConfig{"
@@ -101,6 +467,28 @@ public class AppConfig {
                 + defaultClickLimit
                 + ", shortCodeLength="
                 + shortCodeLength
+                + ", shortCodeStrategy='"
+                + shortCodeStrategy
+                + '\''
+                + ", shortCodeCounterBlockSize="
+                + shortCodeCounterBlockSize
+                + ", shortCodeCounterCoordinator='"
+                + shortCodeCounterCoordinator
+                + '\''
+                + ", shortCodeCounterLeaseFile='"
+                + shortCodeCounterLeaseFile
+                + '\''
+                + ", nodeId='"
+                + nodeId
+                + '\''
+                + ", shortCodePoolSize="
+                + shortCodePoolSize
+                + ", shortCodePoolRefillThreshold="
+                + shortCodePoolRefillThreshold
+                + ", shortCodeMaxExpectedProbes="
+                + shortCodeMaxExpectedProbes
+                + ", deduplicationEnabled="
+                + deduplicationEnabled
                 + ", shortDomain='"
                 + shortDomain
                 + '\''
@@ -108,6 +496,69 @@ public class AppConfig {
                 + cleanupIntervalMinutes
                 + ", notificationsEnabled="
                 + notificationsEnabled
+                + ", repositoryShards="
+                + repositoryShards
+                + ", storageType='"
+                + storageType
+                + '\''
+                + ", storageDirectory='"
+                + storageDirectory
+                + '\''
+                + ", storageSegmentSizeMb="
+                + storageSegmentSizeMb
+                + ", storageCompactionIntervalSeconds="
+                + storageCompactionIntervalSeconds
+                + ", writeBehindEnabled="
+                + writeBehindEnabled
+                + ", writeBehindBatchSize="
+                + writeBehindBatchSize
+                + ", writeBehindFlushIntervalMillis="
+                + writeBehindFlushIntervalMillis
+                + ", snapshotIntervalSeconds="
+                + snapshotIntervalSeconds
+                + ", walSyncCommit="
+                + walSyncCommit
+                + ", bloomFilterEnabled="
+                + bloomFilterEnabled
+                + ", bloomFilterExpectedLinks="
+                + bloomFilterExpectedLinks
+                + ", bloomFilterFalsePositiveRate="
+                + bloomFilterFalsePositiveRate
+                + ", linkCacheSize="
+                + linkCacheSize
+                + ", negativeCacheSize="
+                + negativeCacheSize
+                + ", negativeCacheTtlSeconds="
+                + negativeCacheTtlSeconds
+                + ", clickBufferSize="
+                + clickBufferSize
+                + ", clickBatchSize="
+                + clickBatchSize
+                + ", statsRetentionMinutes="
+                + statsRetentionMinutes
+                + ", statsRetentionHours="
+                + statsRetentionHours
+                + ", statsRetentionDays="
+                + statsRetentionDays
+                + ", statsHllPrecision="
+                + statsHllPrecision
+                + ", hotLinksSize="
+                + hotLinksSize
+                + ", hotLinksSketchWidth="
+                + hotLinksSketchWidth
+                + ", hotLinksHalfLifeSeconds="
+                + hotLinksHalfLifeSeconds
+                + ", httpPort="
+                + httpPort
+                + ", httpEngine='"
+                + httpEngine
+                + '\''
+                + ", httpResponseCacheSize="
+                + httpResponseCacheSize
+                + ", importWorkers="
+                + importWorkers
+                + ", importBatchSize="
+                + importBatchSize
                 + '}';
     }
 }
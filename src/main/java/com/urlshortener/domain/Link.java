@@ -1,21 +1,41 @@
 package com.urlshortener.domain;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Objects;
 import java.util.UUID;
 
 /**
  * Представляет сокращенную ссылку с метаданными и контролем доступа.
+ *
+ * <p>Счетчик переходов и признак активности упакованы в одно слово {@code state}
+ * ({@code счетчик << 1 | активна}) и меняются только через CAS, поэтому {@link #use()}
+ * корректен при конкурентных переходах без блокировок. Момент истечения дополнительно
+ * хранится в миллисекундах эпохи, чтобы проверка истечения на каждом переходе не
+ * создавала объектов даты.
  */
 public class Link {
+    private static final long ACTIVE_BIT = 1L;
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(Link.class, "state", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final String shortCode;
     private final String originalUrl;
     private final UUID ownerId;
     private final LocalDateTime createdAt;
     private final LocalDateTime expiresAt;
+    private final long expiresAtMillis;
     private final int clickLimit;
-    private int clickCount;
-    private boolean active;
+    private volatile long state;
 
     private Link(Builder builder) {
         this.shortCode = builder.shortCode;
@@ -23,9 +43,10 @@ public class Link {
         this.ownerId = builder.ownerId;
         this.createdAt = builder.createdAt;
         this.expiresAt = builder.expiresAt;
+        this.expiresAtMillis =
+                expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
         this.clickLimit = builder.clickLimit;
-        this.clickCount = 0;
-        this.active = true;
+        this.state = packState(builder.clickCount, builder.active);
     }
 
     public static Builder builder() {
@@ -34,34 +55,63 @@ public class Link {
 
     /**
      * Попытка использовать ссылку (увеличить счетчик переходов).
+     *
+     * <p>Неудачный CAS означает, что другой поток успешно засчитал переход или деактивировал
+     * ссылку, а успешных переходов не больше {@code clickLimit}, поэтому число повторов
+     * ограничено и лимит никогда не превышается.
+     *
      * @return true если ссылка успешно использована, false если она неактивна или достигнут лимит
      */
     public boolean use() {
-        if (!active) {
+        long current = state;
+        if ((current & ACTIVE_BIT) == 0) {
             return false;
         }
 
         if (isExpired()) {
-            active = false;
+            deactivate();
             return false;
         }
 
-        if (clickCount >= clickLimit) {
-            active = false;
-            return false;
-        }
+        while ((current & ACTIVE_BIT) != 0) {
+            int count = clickCount(current);
+            if (count >= clickLimit) {
+                deactivate();
+                return false;
+            }
 
-        clickCount++;
+            int next = count + 1;
+            long updated = packState(next, next < clickLimit);
+            long witness = (long) STATE.compareAndExchange(this, current, updated);
+            if (witness == current) {
+                return true;
+            }
+            current = witness;
+        }
+        return false;
+    }
 
-        if (clickCount >= clickLimit) {
-            active = false;
+    private void deactivate() {
+        long current = state;
+        while ((current & ACTIVE_BIT) != 0) {
+            long witness = (long) STATE.compareAndExchange(this, current, current & ~ACTIVE_BIT);
+            if (witness == current) {
+                return;
+            }
+            current = witness;
         }
+    }
 
-        return true;
+    private static long packState(int clickCount, boolean active) {
+        return ((long) clickCount << 1) | (active ? ACTIVE_BIT : 0);
+    }
+
+    private static int clickCount(long state) {
+        return (int) (state >>> 1);
     }
 
     public boolean isExpired() {
-        return LocalDateTime.now().isAfter(expiresAt);
+        return System.currentTimeMillis() > expiresAtMillis;
     }
 
     public boolean isOwnedBy(UUID userId) {
@@ -69,11 +119,11 @@ public class Link {
     }
 
     public int getRemainingClicks() {
-        return Math.max(0, clickLimit - clickCount);
+        return Math.max(0, clickLimit - getClickCount());
     }
 
     public void updateClickLimit(int newLimit) {
-        if (newLimit < clickCount) {
+        if (newLimit < getClickCount()) {
             throw new IllegalArgumentException(
                 "Новый лимит не может быть меньше текущего количества переходов");
         }
@@ -109,11 +159,11 @@ public class Link {
     }
 
     public int getClickCount() {
-        return clickCount;
+        return clickCount(state);
     }
 
     public boolean isActive() {
-        return active && !isExpired();
+        return (state & ACTIVE_BIT) != 0 && !isExpired();
     }
 
     @Override
@@ -131,6 +181,7 @@ public class Link {
 
     @Override
     public String toString() {
+        long current = state;
         return "Link{"
                 + "shortCode='"
                 + shortCode
@@ -147,9 +198,9 @@ public class Link {
                 + ", clickLimit="
                 + clickLimit
                 + ", clickCount="
-                + clickCount
+                + clickCount(current)
                 + ", active="
-                + active
+                + ((current & ACTIVE_BIT) != 0)
                 + '}';
     }
 
@@ -160,6 +211,8 @@ public class Link {
         private LocalDateTime createdAt;
         private LocalDateTime expiresAt;
         private int clickLimit;
+        private int clickCount;
+        private boolean active = true;
 
         public Builder shortCode(String shortCode) {
             this.shortCode = shortCode;
@@ -191,6 +244,23 @@ public class Link {
             return this;
         }
 
+        /**
+         * Текущее количество переходов. Используется при восстановлении ссылки из хранилища;
+         * новые ссылки создаются с нулевым счетчиком.
+         */
+        public Builder clickCount(int clickCount) {
+            this.clickCount = clickCount;
+            return this;
+        }
+
+        /**
+         * Признак активности. Используется при восстановлении ссылки из хранилища.
+         */
+        public Builder active(boolean active) {
+            this.active = active;
+            return this;
+        }
+
         public Link build() {
             Objects.requireNonNull(shortCode, "Короткий код не может быть null");
             Objects.requireNonNull(originalUrl, "Оригинальный URL не может быть null");
@@ -202,6 +272,11 @@ public class Link {
                 throw new IllegalArgumentException("Лимит переходов должен быть положительным");
             }
 
+            if (clickCount < 0 || clickCount > clickLimit) {
+                throw new IllegalArgumentException(
+                        "Количество переходов должно быть в пределах от 0 до лимита");
+            }
+
             if (expiresAt.isBefore(createdAt)) {
                 throw new IllegalArgumentException("Дата истечения должна быть после даты создания");
             }
@@ -0,0 +1,76 @@
+package com.urlshortener.domain;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Компактный отпечаток тройки (владелец, URL, лимит переходов) для поиска повторных
+ * сокращений: повторно выдаётся только ссылка с тем же лимитом, поэтому ссылки на один URL
+ * с разными лимитами индексируются независимо.
+ *
+ * <p>URL сначала нормализуется: схема и хост приводятся к нижнему регистру, порт по
+ * умолчанию отбрасывается, пустой путь заменяется на {@code /}. Путь, запрос и фрагмент
+ * сохраняются как есть, так как их регистр и порядок могут быть значимы для сервера.
+ */
+public final class LinkFingerprint {
+    private LinkFingerprint() {}
+
+    /**
+     * 64-битный отпечаток владельца, лимита переходов и нормализованного URL.
+     */
+    public static long of(UUID ownerId, String originalUrl, int clickLimit) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mixLong(hash, ownerId.getMostSignificantBits());
+        hash = mixLong(hash, ownerId.getLeastSignificantBits());
+        hash = mixLong(hash, clickLimit);
+        String url = normalizeUrl(originalUrl);
+        for (int i = 0; i < url.length(); i++) {
+            hash ^= url.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Нормализует URL для сравнения. Строки, не похожие на абсолютный URL,
+     * только обрезаются по краям.
+     */
+    public static String normalizeUrl(String url) {
+        String trimmed = url.trim();
+        int schemeEnd = trimmed.indexOf("://");
+        if (schemeEnd <= 0) {
+            return trimmed;
+        }
+        String scheme = trimmed.substring(0, schemeEnd).toLowerCase(Locale.ROOT);
+        int authorityStart = schemeEnd + 3;
+        int authorityEnd = authorityStart;
+        while (authorityEnd < trimmed.length() && "/?#".indexOf(trimmed.charAt(authorityEnd)) < 0) {
+            authorityEnd++;
+        }
+        String authority = trimmed.substring(authorityStart, authorityEnd);
+        int userInfoEnd = authority.lastIndexOf('@') + 1;
+        String host = authority.substring(userInfoEnd).toLowerCase(Locale.ROOT);
+        if ((scheme.equals("http") && host.endsWith(":80"))
+                || (scheme.equals("https") && host.endsWith(":443"))) {
+            host = host.substring(0, host.lastIndexOf(':'));
+        }
+        String rest = trimmed.substring(authorityEnd);
+        if (rest.isEmpty() || rest.charAt(0) != '/') {
+            rest = "/" + rest;
+        }
+        return scheme + "://" + authority.substring(0, userInfoEnd) + host + rest;
+    }
+
+    private static long mixLong(long hash, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,112 @@
+package com.urlshortener.domain;
+
+import java.util.Arrays;
+
+/**
+ * Взаимно однозначное преобразование коротких кодов в base62 и примитивные long-ключи.
+ *
+ * <p>Код длины {@code n} из алфавита {@link #ALPHABET} упаковывается как
+ * {@code 62 + 62^2 + ... + 62^(n-1) + значение(код)}, поэтому коды разной длины
+ * (например, {@code "a"} и {@code "aa"}) не совпадают. В long помещаются коды длиной
+ * до {@link #MAX_PACKED_LENGTH} символов; для остальных {@link #pack} возвращает -1.
+ */
+public final class ShortCodeCodec {
+    public static final String ALPHABET =
+            "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    public static final int BASE = 62;
+    public static final int MAX_PACKED_LENGTH = 10;
+
+    /** Значение, возвращаемое для кодов, которые нельзя упаковать. */
+    public static final long NOT_PACKABLE = -1L;
+
+    private static final byte[] DIGITS = new byte[128];
+    /** LENGTH_OFFSETS[n] — первый ключ кодов длины n. */
+    private static final long[] LENGTH_OFFSETS = new long[MAX_PACKED_LENGTH + 2];
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int i = 0; i < BASE; i++) {
+            DIGITS[ALPHABET.charAt(i)] = (byte) i;
+        }
+        long power = 1;
+        for (int length = 1; length <= MAX_PACKED_LENGTH + 1; length++) {
+            LENGTH_OFFSETS[length] = LENGTH_OFFSETS[length - 1] + (length == 1 ? 0 : power);
+            power *= BASE;
+        }
+    }
+
+    private ShortCodeCodec() {}
+
+    /**
+     * Упаковывает код в неотрицательный long.
+     * @param code короткий код
+     * @return ключ или {@link #NOT_PACKABLE}, если код пустой, слишком длинный
+     *     или содержит символы вне алфавита
+     */
+    public static long pack(CharSequence code) {
+        int length = code.length();
+        if (length == 0 || length > MAX_PACKED_LENGTH) {
+            return NOT_PACKABLE;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+            int digit = c < 128 ? DIGITS[c] : -1;
+            if (digit < 0) {
+                return NOT_PACKABLE;
+            }
+            value = value * BASE + digit;
+        }
+        return LENGTH_OFFSETS[length] + value;
+    }
+
+    /**
+     * Упаковывает ASCII-код, записанный в массиве байтов, без создания строки.
+     * @return ключ или {@link #NOT_PACKABLE}
+     */
+    public static long pack(byte[] bytes, int offset, int length) {
+        if (length == 0 || length > MAX_PACKED_LENGTH) {
+            return NOT_PACKABLE;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int c = bytes[i];
+            int digit = c >= 0 ? DIGITS[c] : -1;
+            if (digit < 0) {
+                return NOT_PACKABLE;
+            }
+            value = value * BASE + digit;
+        }
+        return LENGTH_OFFSETS[length] + value;
+    }
+
+    /**
+     * Восстанавливает код по ключу, полученному из {@link #pack}.
+     */
+    public static String unpack(long key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Неверный ключ короткого кода: " + key);
+        }
+        int length = 1;
+        while (length <= MAX_PACKED_LENGTH && key >= LENGTH_OFFSETS[length + 1]) {
+            length++;
+        }
+        if (length > MAX_PACKED_LENGTH) {
+            throw new IllegalArgumentException("Неверный ключ короткого кода: " + key);
+        }
+        return encode(key - LENGTH_OFFSETS[length], length);
+    }
+
+    /**
+     * Записывает число в base62 фиксированной длины (старшие разряды слева).
+     */
+    public static String encode(long value, int length) {
+        char[] chars = new char[length];
+        long rest = value;
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt((int) (rest % BASE));
+            rest /= BASE;
+        }
+        return new String(chars);
+    }
+}
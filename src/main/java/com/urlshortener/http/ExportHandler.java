@@ -0,0 +1,128 @@
+package com.urlshortener.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.urlshortener.repository.LinkFilter;
+import com.urlshortener.service.LinkExporter;
+import com.urlshortener.service.UserService;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Обработчик {@code GET /api/links/export}: потоковая выгрузка ссылок пользователя
+ * из заголовка {@code X-User-Id}.
+ *
+ * <p>Параметры запроса: {@code format} ({@code ndjson} по умолчанию или {@code csv}),
+ * {@code active} ({@code true} или {@code false}), {@code expiresFrom} и
+ * {@code expiresBefore} (ISO-8601, например {@code 2024-01-31T12:00}). Ответ передается
+ * по частям по мере форматирования, без сборки полного списка ссылок в памяти.
+ */
+public class ExportHandler implements HttpHandler {
+    public static final String PATH = "/api/links/export";
+
+    private final LinkExporter exporter;
+    private final UserService userService;
+
+    public ExportHandler(LinkExporter exporter, UserService userService) {
+        this.exporter = exporter;
+        this.userService = userService;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                RedirectServer.sendText(exchange, 405, "Метод не поддерживается");
+                return;
+            }
+            UUID ownerId = UserHeader.resolve(exchange, userService);
+            if (ownerId == null) {
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            LinkExporter.Format format;
+            LinkFilter filter;
+            try {
+                format = LinkExporter.Format.fromName(query.getOrDefault("format", "ndjson"));
+                filter = filter(ownerId, query);
+            } catch (IllegalArgumentException e) {
+                RedirectServer.sendText(exchange, 400, e.getMessage());
+                return;
+            }
+            export(exchange, filter, format);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void export(HttpExchange exchange, LinkFilter filter, LinkExporter.Format format)
+            throws IOException {
+        String contentType =
+                format == LinkExporter.Format.CSV ? "text/csv" : "application/x-ndjson";
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        // Длина ответа заранее неизвестна: ссылки передаются по частям
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out =
+                new BufferedWriter(
+                        new OutputStreamWriter(
+                                exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            exporter.export(filter, format, out, true);
+        }
+    }
+
+    private static LinkFilter filter(UUID ownerId, Map<String, String> query) {
+        LinkFilter.Builder builder = LinkFilter.builder().ownerId(ownerId);
+        String active = query.get("active");
+        if (active != null) {
+            if (!active.equals("true") && !active.equals("false")) {
+                throw new IllegalArgumentException(
+                        "Параметр active должен быть true или false: " + active);
+            }
+            builder.active(Boolean.parseBoolean(active));
+        }
+        String expiresFrom = query.get("expiresFrom");
+        if (expiresFrom != null) {
+            builder.expiresFrom(parseDateTime("expiresFrom", expiresFrom));
+        }
+        String expiresBefore = query.get("expiresBefore");
+        if (expiresBefore != null) {
+            builder.expiresBefore(parseDateTime("expiresBefore", expiresBefore));
+        }
+        return builder.build();
+    }
+
+    private static LocalDateTime parseDateTime(String name, String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(
+                    "Параметр " + name + " должен быть датой ISO-8601: " + value);
+        }
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            query.put(
+                    URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+}
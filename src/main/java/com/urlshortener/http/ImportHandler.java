@@ -0,0 +1,82 @@
+package com.urlshortener.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.urlshortener.service.LinkImporter;
+import com.urlshortener.service.UserService;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Обработчик {@code POST /api/links/import}: массовое создание ссылок из тела запроса
+ * в формате NDJSON.
+ *
+ * <p>Владелец ссылок передается заголовком {@code X-User-Id}. Ответ передается
+ * по частям: по строке NDJSON на каждую запись входа по мере ее сохранения и итоговая
+ * строка {@code {"created":..,"reused":..,"failed":..}} в конце.
+ */
+public class ImportHandler implements HttpHandler {
+    public static final String PATH = "/api/links/import";
+
+    private final LinkImporter importer;
+    private final UserService userService;
+
+    public ImportHandler(LinkImporter importer, UserService userService) {
+        this.importer = importer;
+        this.userService = userService;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                RedirectServer.sendText(exchange, 405, "Метод не поддерживается");
+                return;
+            }
+            UUID ownerId = UserHeader.resolve(exchange, userService);
+            if (ownerId == null) {
+                return;
+            }
+            importLinks(exchange, ownerId);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void importLinks(HttpExchange exchange, UUID ownerId) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+        // Длина ответа заранее неизвестна: результаты передаются по частям
+        exchange.sendResponseHeaders(200, 0);
+        try (BufferedReader in =
+                        new BufferedReader(
+                                new InputStreamReader(
+                                        exchange.getRequestBody(), StandardCharsets.UTF_8));
+                Writer out =
+                        new BufferedWriter(
+                                new OutputStreamWriter(
+                                        exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            LinkImporter.Summary summary =
+                    importer.importLinks(in, ownerId, result -> writeLine(out, result.toJson()));
+            writeLine(out, summary.toJson());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeLine(Writer out, String line) {
+        try {
+            out.write(line);
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package com.urlshortener.http;
+
+import com.urlshortener.analytics.VisitorId;
+import com.urlshortener.domain.Link;
+import com.urlshortener.domain.ShortCodeCodec;
+import com.urlshortener.metrics.MetricsRegistry;
+import com.urlshortener.service.LinkService;
+import com.urlshortener.service.LinkStatus;
+import com.urlshortener.service.UseResult;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * HTTP-сервер переходов на неблокирующем {@link Selector} для режима высокой нагрузки.
+ *
+ * <p>Все соединения обслуживает один поток цикла событий. Поддерживаются постоянные
+ * соединения HTTP/1.1 и конвейерная обработка: все полностью полученные запросы
+ * соединения разбираются сразу, а ответы на них отправляются одной записью со сбором
+ * ({@link SocketChannel#write(ByteBuffer[], int, int)}).
+ *
+ * <p>Полный ответ на переход — строка статуса и заголовки с {@code Location} — кодируется
+ * один раз в прямой {@link ByteBuffer} и хранится в кеше по упакованному коду
+ * ({@link ShortCodeCodec#pack(byte[], int, int)}). Переход по ссылке из кеша не кодирует
+ * ответ и не копирует байты: код разбирается прямо из буфера чтения, переход засчитывается
+ * {@link LinkService#tryUseCode} по коду из записи кеша, а готовый буфер передается сокету.
+ * Кеш хранит только ответ, а не экземпляр {@link Link}: ссылка каждый раз берется
+ * из хранилища, поэтому переход засчитывается тому же экземпляру, что и на других путях
+ * (CLI, статистика), даже если хранилище или кеши над ним заменили экземпляр.
+ * Кеш принадлежит потоку цикла, поэтому позиции общих буферов меняются только в нем.
+ * Удаленные владельцем ссылки вытесняются из кеша, а ссылка, переход по которой
+ * не удался, вытесняется при первой же неудаче.
+ */
+public class NioRedirectServer implements RedirectEndpoint {
+    private static final int READ_BUFFER_SIZE = 8192;
+    /** Наибольшее число ответов, ожидающих отправки в одном соединении. */
+    private static final int MAX_PIPELINED = 32;
+
+    private static final ByteBuffer NOT_FOUND = staticResponse("404 Not Found");
+    private static final ByteBuffer GONE = staticResponse("410 Gone");
+    private static final ByteBuffer BAD_REQUEST = staticResponse("400 Bad Request");
+    private static final ByteBuffer METHOD_NOT_ALLOWED =
+            staticResponse("405 Method Not Allowed\r\nAllow: GET");
+    private static final ByteBuffer HEADERS_TOO_LARGE =
+            staticResponse("431 Request Header Fields Too Large");
+    private static final byte[] CONNECTION = "connection:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CLOSE = "close".getBytes(StandardCharsets.US_ASCII);
+
+    private final LinkService linkService;
+    private final ResponseCache cache;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread loop;
+    private final Queue<String> invalidations = new ConcurrentLinkedQueue<>();
+    private final Consumer<SelectionKey> keyHandler = this::handleKey;
+    private final LongAdder requests;
+    private final LongAdder redirects;
+    private final LongAdder notFound;
+    private final LongAdder gone;
+    private final LongAdder cacheHits;
+    private final LongAdder cacheMisses;
+    private volatile boolean running = true;
+
+    /**
+     * Создает сервер и занимает порт; обработка запросов начинается после {@link #start()}.
+     *
+     * @param linkService сервис ссылок
+     * @param port порт; 0 — любой свободный
+     * @param cacheSize число мест в кеше готовых ответов
+     * @param metrics реестр, в котором регистрируются счетчики запросов
+     */
+    public NioRedirectServer(
+            LinkService linkService, int port, int cacheSize, MetricsRegistry metrics)
+            throws IOException {
+        this.linkService = linkService;
+        this.cache = new ResponseCache(cacheSize);
+        this.requests = metrics.counter("http.requests");
+        this.redirects = metrics.counter("http.redirects");
+        this.notFound = metrics.counter("http.not.found");
+        this.gone = metrics.counter("http.gone");
+        this.cacheHits = metrics.counter("http.cache.hits");
+        this.cacheMisses = metrics.counter("http.cache.misses");
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.loop = new Thread(this::run, "NioRedirectServer");
+        linkService.addDeletionListener(
+                shortCode -> {
+                    invalidations.add(shortCode);
+                    selector.wakeup();
+                });
+    }
+
+    @Override
+    public void start() {
+        loop.start();
+    }
+
+    @Override
+    public int port() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            loop.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select(keyHandler);
+                drainInvalidations();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка цикла событий HTTP-сервера", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                System.err.println("Ошибка остановки HTTP-сервера: " + e.getMessage());
+            }
+        }
+    }
+
+    private void drainInvalidations() {
+        String shortCode;
+        while ((shortCode = invalidations.poll()) != null) {
+            long key = ShortCodeCodec.pack(shortCode);
+            if (key != ShortCodeCodec.NOT_PACKABLE) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        try {
+            if (key.isAcceptable()) {
+                accept();
+                return;
+            }
+            Connection connection = (Connection) key.attachment();
+            if (key.isReadable()) {
+                read(key, connection);
+            } else if (key.isWritable() && flush(key, connection)) {
+                // Отправлены все ответы: разобрать запросы, оставшиеся в буфере
+                process(key, connection);
+            }
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(key);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+        }
+    }
+
+    private void read(SelectionKey key, Connection connection) throws IOException {
+        if (connection.channel.read(connection.in) < 0) {
+            closeQuietly(key);
+            return;
+        }
+        process(key, connection);
+    }
+
+    /**
+     * Разбирает все полностью полученные запросы, ставит ответы в очередь и отправляет их.
+     */
+    private void process(SelectionKey key, Connection connection) throws IOException {
+        ByteBuffer in = connection.in;
+        byte[] bytes = in.array();
+        boolean more = true;
+        while (more) {
+            int end = in.position();
+            int start = 0;
+            more = false;
+            while (!connection.closeAfterWrite) {
+                if (connection.outCount == MAX_PIPELINED) {
+                    // Очередь заполнена: отправить ответы и продолжить разбор
+                    more = true;
+                    break;
+                }
+                int requestEnd = headersEnd(bytes, start, end);
+                if (requestEnd < 0) {
+                    if (start == 0 && end == bytes.length) {
+                        connection.enqueue(HEADERS_TOO_LARGE);
+                        connection.closeAfterWrite = true;
+                    }
+                    break;
+                }
+                handleRequest(connection, bytes, start, requestEnd);
+                start = requestEnd;
+            }
+            if (start > 0) {
+                System.arraycopy(bytes, start, bytes, 0, end - start);
+                in.position(end - start);
+            }
+            if (!flush(key, connection)) {
+                return;
+            }
+            if (connection.closeAfterWrite) {
+                closeQuietly(key);
+                return;
+            }
+        }
+    }
+
+    private void handleRequest(Connection connection, byte[] bytes, int start, int end) {
+        requests.increment();
+        if (!startsWith(bytes, start, end, "GET ")) {
+            connection.enqueue(METHOD_NOT_ALLOWED);
+            // Тело запроса не разбирается, поэтому соединение дальше не используется
+            connection.closeAfterWrite = true;
+            return;
+        }
+        int pathStart = start + 4;
+        int pathEnd = pathStart;
+        while (pathEnd < end && bytes[pathEnd] != ' ' && bytes[pathEnd] != '\r') {
+            pathEnd++;
+        }
+        if (pathStart == pathEnd || bytes[pathStart] != '/' || bytes[pathEnd] != ' ') {
+            connection.enqueue(BAD_REQUEST);
+            connection.closeAfterWrite = true;
+            return;
+        }
+        if (startsWith(bytes, pathEnd + 1, end, "HTTP/1.0")
+                || hasConnectionClose(bytes, start, end)) {
+            connection.closeAfterWrite = true;
+        }
+        int codeStart = pathStart + 1;
+        int codeEnd = codeStart;
+        while (codeEnd < pathEnd && bytes[codeEnd] != '?') {
+            codeEnd++;
+        }
+        connection.enqueue(resolve(bytes, codeStart, codeEnd - codeStart, connection.visitor));
+    }
+
+    /**
+     * Засчитывает переход и возвращает готовый ответ.
+     */
+    private ByteBuffer resolve(byte[] bytes, int codeStart, int codeLength, long visitor) {
+        long key = ShortCodeCodec.pack(bytes, codeStart, codeLength);
+        if (key != ShortCodeCodec.NOT_PACKABLE) {
+            ResponseCache.Entry entry = cache.get(key);
+            if (entry != null) {
+                cacheHits.increment();
+                LinkStatus status = linkService.tryUseCode(entry.shortCode, visitor);
+                if (status != LinkStatus.OK) {
+                    cache.remove(key);
+                    if (status == LinkStatus.NOT_FOUND) {
+                        notFound.increment();
+                        return NOT_FOUND;
+                    }
+                    gone.increment();
+                    return GONE;
+                }
+                redirects.increment();
+                return entry.response;
+            }
+        }
+        cacheMisses.increment();
+        if (codeLength == 0 || codeLength > READ_BUFFER_SIZE) {
+            notFound.increment();
+            return NOT_FOUND;
+        }
+        UseResult result =
+                linkService.tryUseLink(
+                        new String(bytes, codeStart, codeLength, StandardCharsets.UTF_8), visitor);
+        if (result.status() == LinkStatus.NOT_FOUND) {
+            notFound.increment();
+            return NOT_FOUND;
+        }
+        if (!result.isOk()) {
+            gone.increment();
+            return GONE;
+        }
+        Link link = result.link();
+        ByteBuffer response = encodeRedirect(link.getOriginalUrl());
+        if (key != ShortCodeCodec.NOT_PACKABLE) {
+            cache.put(new ResponseCache.Entry(key, link.getShortCode(), response));
+        }
+        redirects.increment();
+        return response;
+    }
+
+    /**
+     * Отправляет ответы из очереди соединения записями со сбором.
+     *
+     * @return true, если очередь опустела; иначе соединение ждет готовности к записи
+     */
+    private boolean flush(SelectionKey key, Connection connection) throws IOException {
+        ByteBuffer[] out = connection.out;
+        while (connection.outCount > 0) {
+            // Один буфер может встретиться в очереди несколько раз, а позиция у него одна,
+            // поэтому за одну запись отправляются только ответы до первого повтора
+            int batch = 0;
+            collect:
+            for (; batch < connection.outCount; batch++) {
+                ByteBuffer buffer = out[batch];
+                for (int i = 0; i < batch; i++) {
+                    if (out[i] == buffer) {
+                        break collect;
+                    }
+                }
+                buffer.limit(buffer.capacity()).position(batch == 0 ? connection.firstOffset : 0);
+            }
+            connection.channel.write(out, 0, batch);
+            int done = 0;
+            while (done < batch && !out[done].hasRemaining()) {
+                done++;
+            }
+            connection.firstOffset = done < batch ? out[done].position() : 0;
+            connection.remove(done);
+            if (done < batch) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                return false;
+            }
+        }
+        if (!connection.closeAfterWrite) {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+        return true;
+    }
+
+    /**
+     * Кодирует ответ на переход. Символы вне печатного ASCII, включая переводы строк,
+     * записываются в процентной кодировке, поэтому URL не может добавить заголовки.
+     */
+    static ByteBuffer encodeRedirect(String url) {
+        StringBuilder response =
+                new StringBuilder(url.length() + 96).append("HTTP/1.1 302 Found\r\nLocation: ");
+        for (byte b : url.getBytes(StandardCharsets.UTF_8)) {
+            if (b > 0x20 && b < 0x7f) {
+                response.append((char) b);
+            } else {
+                response.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        response.append("\r\nCache-Control: no-store\r\nContent-Length: 0\r\n\r\n");
+        return direct(response.toString());
+    }
+
+    private static ByteBuffer staticResponse(String status) {
+        return direct("HTTP/1.1 " + status + "\r\nContent-Length: 0\r\n\r\n");
+    }
+
+    private static ByteBuffer direct(String response) {
+        byte[] bytes = response.getBytes(StandardCharsets.US_ASCII);
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    }
+
+    /**
+     * Позиция сразу после пустой строки, завершающей заголовки, или -1.
+     */
+    private static int headersEnd(byte[] bytes, int start, int end) {
+        for (int i = start; i + 3 < end; i++) {
+            if (bytes[i] == '\r'
+                    && bytes[i + 1] == '\n'
+                    && bytes[i + 2] == '\r'
+                    && bytes[i + 3] == '\n') {
+                return i + 4;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] bytes, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (bytes[start + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Есть ли среди заголовков {@code Connection: close} (без учета регистра).
+     */
+    private static boolean hasConnectionClose(byte[] bytes, int start, int end) {
+        for (int line = start; line < end; line++) {
+            if (bytes[line] != '\n' || !matchesIgnoreCase(bytes, line + 1, end, CONNECTION)) {
+                continue;
+            }
+            int value = line + 1 + CONNECTION.length;
+            while (value < end && bytes[value] == ' ') {
+                value++;
+            }
+            return matchesIgnoreCase(bytes, value, end, CLOSE);
+        }
+        return false;
+    }
+
+    private static boolean matchesIgnoreCase(byte[] bytes, int start, int end, byte[] lower) {
+        if (end - start < lower.length) {
+            return false;
+        }
+        for (int i = 0; i < lower.length; i++) {
+            int b = bytes[start + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != lower[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Соединение уже закрыто клиентом
+        }
+    }
+
+    /**
+     * Состояние одного соединения: буфер чтения и очередь готовых ответов.
+     */
+    private static final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        final ByteBuffer[] out = new ByteBuffer[MAX_PIPELINED];
+        int outCount;
+        /** Сколько байтов первого ответа очереди уже отправлено. */
+        int firstOffset;
+        boolean closeAfterWrite;
+        /** Хеш адреса клиента, вычисленный при подключении. */
+        final long visitor;
+
+        Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.visitor =
+                    VisitorId.of(((InetSocketAddress) channel.getRemoteAddress()).getAddress());
+        }
+
+        void enqueue(ByteBuffer response) {
+            out[outCount++] = response;
+        }
+
+        void remove(int count) {
+            System.arraycopy(out, count, out, 0, outCount - count);
+            for (int i = outCount - count; i < outCount; i++) {
+                out[i] = null;
+            }
+            outCount -= count;
+        }
+    }
+
+    /**
+     * Кеш прямого отображения: каждый код претендует на одно место, новый ответ вытесняет
+     * прежний. Записи неизменяемы, поэтому вытесненный ответ, еще ожидающий отправки
+     * в каком-либо соединении, остается корректным.
+     */
+    private static final class ResponseCache {
+        private final Entry[] slots;
+        private final int mask;
+
+        ResponseCache(int size) {
+            if (size <= 0) {
+                throw new IllegalArgumentException("Размер кеша ответов должен быть положительным");
+            }
+            this.slots = new Entry[Integer.highestOneBit(Math.min(size, 1 << 30) * 2 - 1)];
+            this.mask = slots.length - 1;
+        }
+
+        Entry get(long key) {
+            Entry entry = slots[index(key)];
+            return entry != null && entry.key == key ? entry : null;
+        }
+
+        void put(Entry entry) {
+            slots[index(entry.key)] = entry;
+        }
+
+        void remove(long key) {
+            int index = index(key);
+            Entry entry = slots[index];
+            if (entry != null && entry.key == key) {
+                slots[index] = null;
+            }
+        }
+
+        private int index(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+
+        record Entry(long key, String shortCode, ByteBuffer response) {}
+    }
+}
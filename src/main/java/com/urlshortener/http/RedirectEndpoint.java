@@ -0,0 +1,21 @@
+package com.urlshortener.http;
+
+import java.io.Closeable;
+
+/**
+ * HTTP-сервер переходов по коротким ссылкам.
+ */
+public interface RedirectEndpoint extends Closeable {
+    /**
+     * Начинает обработку запросов.
+     */
+    void start();
+
+    /**
+     * Порт, на котором сервер принимает соединения.
+     */
+    int port();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,175 @@
+package com.urlshortener.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.urlshortener.analytics.VisitorId;
+import com.urlshortener.metrics.MetricsRegistry;
+import com.urlshortener.service.LinkService;
+import com.urlshortener.service.LinkStatus;
+import com.urlshortener.service.UseResult;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Встроенный HTTP-сервер переходов по коротким ссылкам.
+ *
+ * <p>{@code GET /{код}} вызывает {@link LinkService#tryUseLink(String)} и отвечает
+ * {@code 302 Found} с заголовком {@code Location}; несуществующий код — {@code 404},
+ * истекшая или исчерпавшая лимит ссылка — {@code 410}. Другие методы получают
+ * {@code 405}. Каждый запрос выполняется в отдельном виртуальном потоке, если среда
+ * выполнения их поддерживает, иначе в расширяемом пуле потоков.
+ *
+ * <p>Сервер JDK пишет заголовки и тело ответа отдельно; без TCP_NODELAY тело ждет
+ * подтверждения заголовков, и каждый запрос постоянного соединения задерживается на время
+ * отложенного ACK клиента. Свойство {@link #NO_DELAY_PROPERTY} читается JDK один раз, при
+ * создании первого сервера в процессе, поэтому задается флагом запуска или до создания
+ * любого {@link HttpServer}, как в {@code Main}.
+ */
+public class RedirectServer implements RedirectEndpoint {
+    private static final int BACKLOG = 1024;
+    private static final int STOP_DELAY_SECONDS = 1;
+
+    /** Системное свойство JDK, включающее TCP_NODELAY для соединений {@link HttpServer}. */
+    public static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final LinkService linkService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LongAdder requests;
+    private final LongAdder redirects;
+    private final LongAdder notFound;
+    private final LongAdder gone;
+
+    /**
+     * Создает сервер и занимает порт; обработка запросов начинается после {@link #start()}.
+     *
+     * @param linkService сервис ссылок
+     * @param port порт; 0 — любой свободный
+     * @param metrics реестр, в котором регистрируются счетчики запросов
+     */
+    public RedirectServer(LinkService linkService, int port, MetricsRegistry metrics)
+            throws IOException {
+        this(linkService, port, metrics, Map.of());
+    }
+
+    /**
+     * @param handlers обработчики API по путям, например {@link ImportHandler#PATH}
+     *     и {@link ExportHandler#PATH}; остальные пути считаются короткими кодами
+     */
+    public RedirectServer(
+            LinkService linkService,
+            int port,
+            MetricsRegistry metrics,
+            Map<String, HttpHandler> handlers)
+            throws IOException {
+        this.linkService = linkService;
+        this.requests = metrics.counter("http.requests");
+        this.redirects = metrics.counter("http.redirects");
+        this.notFound = metrics.counter("http.not.found");
+        this.gone = metrics.counter("http.gone");
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = createExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        handlers.forEach(server::createContext);
+    }
+
+    @Override
+    public void start() {
+        server.start();
+    }
+
+    @Override
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.increment();
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendText(exchange, 405, "Метод не поддерживается");
+                return;
+            }
+            String shortCode = exchange.getRequestURI().getRawPath().substring(1);
+            if (shortCode.isEmpty() || shortCode.indexOf('/') >= 0) {
+                notFound.increment();
+                sendText(exchange, 404, "Ссылка не найдена");
+                return;
+            }
+            UseResult result =
+                    linkService.tryUseLink(
+                            shortCode, VisitorId.of(exchange.getRemoteAddress().getAddress()));
+            if (result.status() == LinkStatus.NOT_FOUND) {
+                notFound.increment();
+                sendText(exchange, 404, result.status().getMessage());
+                return;
+            }
+            if (!result.isOk()) {
+                gone.increment();
+                sendText(exchange, 410, result.status().getMessage());
+                return;
+            }
+            String location = result.url();
+            redirects.increment();
+            // Каждый переход учитывается, поэтому ответ не должен кешироваться
+            exchange.getResponseHeaders().set("Location", location);
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            // Ответ без тела закрывает соединение во встроенном сервере JDK, поэтому
+            // URL повторяется в теле и соединение остается открытым для следующих запросов
+            sendText(exchange, 302, location);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    static void sendText(HttpExchange exchange, int status, String message)
+            throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Исполнитель «поток на запрос»: виртуальные потоки доступны с Java 21 и ищутся
+     * через отражение, так как проект собирается для Java 17.
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService)
+                    Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(
+                    task -> {
+                        Thread thread = new Thread(task, "http-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.urlshortener.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.urlshortener.analytics.ClickStatistics;
+import com.urlshortener.analytics.ClickStats;
+import com.urlshortener.domain.Link;
+import com.urlshortener.service.LinkService;
+import com.urlshortener.service.UserService;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Обработчик {@code GET /api/links/stats?code={код}}: статистика переходов по ссылке
+ * пользователя из заголовка {@code X-User-Id}.
+ *
+ * <p>Ответ — JSON с числом переходов и оценкой уникальных посетителей за время хранения
+ * и корзинами {@code minutes}, {@code hours} и {@code days}. Статистика доступна только
+ * владельцу ссылки.
+ */
+public class StatsHandler implements HttpHandler {
+    public static final String PATH = "/api/links/stats";
+
+    private final ClickStatistics statistics;
+    private final LinkService linkService;
+    private final UserService userService;
+
+    public StatsHandler(
+            ClickStatistics statistics, LinkService linkService, UserService userService) {
+        this.statistics = statistics;
+        this.linkService = linkService;
+        this.userService = userService;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                RedirectServer.sendText(exchange, 405, "Метод не поддерживается");
+                return;
+            }
+            UUID userId = UserHeader.resolve(exchange, userService);
+            if (userId == null) {
+                return;
+            }
+            String shortCode =
+                    ExportHandler.parseQuery(exchange.getRequestURI().getRawQuery()).get("code");
+            if (shortCode == null || shortCode.isEmpty()) {
+                RedirectServer.sendText(exchange, 400, "Не указан параметр code");
+                return;
+            }
+            Link link;
+            try {
+                link = linkService.getLink(shortCode);
+            } catch (IllegalArgumentException e) {
+                RedirectServer.sendText(exchange, 404, e.getMessage());
+                return;
+            }
+            if (!link.isOwnedBy(userId)) {
+                RedirectServer.sendText(
+                        exchange, 403, "Статистика доступна только владельцу ссылки");
+                return;
+            }
+            ClickStats stats =
+                    statistics
+                            .stats(shortCode)
+                            .orElse(new ClickStats(0, 0, List.of(), List.of(), List.of()));
+            byte[] body = toJson(stats).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    static String toJson(ClickStats stats) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"clicks\":")
+                .append(stats.clicks())
+                .append(",\"uniqueVisitors\":")
+                .append(stats.uniqueVisitors());
+        appendBuckets(json, "minutes", stats.minutes());
+        appendBuckets(json, "hours", stats.hours());
+        appendBuckets(json, "days", stats.days());
+        return json.append('}').toString();
+    }
+
+    private static void appendBuckets(
+            StringBuilder json, String name, List<ClickStats.Bucket> buckets) {
+        json.append(",\"").append(name).append("\":[");
+        for (int i = 0; i < buckets.size(); i++) {
+            ClickStats.Bucket bucket = buckets.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"start\":\"")
+                    .append(bucket.start())
+                    .append("\",\"clicks\":")
+                    .append(bucket.clicks())
+                    .append(",\"uniqueVisitors\":")
+                    .append(bucket.uniqueVisitors())
+                    .append('}');
+        }
+        json.append(']');
+    }
+}
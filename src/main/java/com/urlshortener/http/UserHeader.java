@@ -0,0 +1,37 @@
+package com.urlshortener.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.urlshortener.service.UserService;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Определение пользователя API по заголовку {@code X-User-Id}.
+ */
+final class UserHeader {
+    static final String NAME = "X-User-Id";
+
+    private UserHeader() {}
+
+    /**
+     * Возвращает ID существующего пользователя из заголовка или отправляет {@code 400}
+     * (заголовок отсутствует или неверен) либо {@code 403} (пользователь не найден)
+     * и возвращает null.
+     */
+    static UUID resolve(HttpExchange exchange, UserService userService) throws IOException {
+        UUID userId;
+        try {
+            String header = exchange.getRequestHeaders().getFirst(NAME);
+            userId = UUID.fromString(header == null ? "" : header.trim());
+        } catch (IllegalArgumentException e) {
+            RedirectServer.sendText(
+                    exchange, 400, "Заголовок " + NAME + " должен содержать ID пользователя");
+            return null;
+        }
+        if (!userService.userExists(userId)) {
+            RedirectServer.sendText(exchange, 403, "Пользователь не найден: " + userId);
+            return null;
+        }
+        return userId;
+    }
+}
@@ -0,0 +1,45 @@
+package com.urlshortener.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Реестр метрик приложения: именованные счетчики и показатели, значения которых
+ * вычисляются в момент чтения.
+ *
+ * <p>Компоненты регистрируют метрики при создании, а CLI и другие потребители читают
+ * их через {@link #snapshot()}. Имена метрик — строки вида {@code компонент.метрика}.
+ */
+public class MetricsRegistry {
+    private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Регистрирует показатель, значение которого вычисляется при каждом чтении.
+     * Повторная регистрация с тем же именем заменяет прежний показатель.
+     */
+    public void gauge(String name, Supplier<? extends Number> value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Возвращает счетчик с указанным именем, создавая его при первом обращении.
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Текущие значения всех метрик, упорядоченные по имени.
+     */
+    public SortedMap<String, Number> snapshot() {
+        SortedMap<String, Number> result = new TreeMap<>();
+        counters.forEach((name, counter) -> result.put(name, counter.sum()));
+        gauges.forEach((name, gauge) -> result.put(name, gauge.get()));
+        return result;
+    }
+}
@@ -0,0 +1,143 @@
+package com.urlshortener.persistence;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.repository.LinkCodec;
+import com.urlshortener.repository.LinkFilter;
+import com.urlshortener.repository.LinkRepository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Декоратор LinkRepository, записывающий каждое изменение в журнал упреждающей записи.
+ *
+ * <p>Изменение сначала применяется к хранилищу, затем ставится в журнал; обе операции
+ * выполняются под блокировкой полосы ключа, поэтому порядок записей одного кода в журнале
+ * совпадает с порядком изменений, а запись содержит состояние на момент постановки.
+ * {@code save} и {@code deleteByShortCode} ждут групповой фиксации журнала при
+ * {@code syncCommit}; учет переходов никогда не ждет диска.
+ *
+ * <p>Переход журналируется компактной записью {@link WriteAheadLog#LINK_USAGE} с кодом,
+ * счетчиком и признаком активности, а не полной ссылкой: запись в несколько раз короче,
+ * и на пути перехода не кодируются URL, владелец и время.
+ */
+public class JournaledLinkRepository implements LinkRepository {
+    private static final int STRIPES = 64;
+
+    private final LinkRepository delegate;
+    private final WriteAheadLog wal;
+    private final boolean syncCommit;
+    private final Object[] stripes = new Object[STRIPES];
+
+    public JournaledLinkRepository(LinkRepository delegate, WriteAheadLog wal, boolean syncCommit) {
+        this.delegate = delegate;
+        this.wal = wal;
+        this.syncCommit = syncCommit;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    @Override
+    public void save(Link link) {
+        CompletableFuture<Long> committed;
+        synchronized (stripe(link.getShortCode())) {
+            delegate.save(link);
+            committed = wal.append(WriteAheadLog.LINK_PUT, LinkCodec.encode(link));
+        }
+        awaitCommit(committed);
+    }
+
+    /**
+     * Ставит в журнал все записи пачки и ждет только последнюю: группа фиксируется
+     * одной синхронизацией.
+     */
+    @Override
+    public void saveAll(Collection<Link> links) {
+        CompletableFuture<Long> committed = null;
+        for (Link link : links) {
+            synchronized (stripe(link.getShortCode())) {
+                delegate.save(link);
+                committed = wal.append(WriteAheadLog.LINK_PUT, LinkCodec.encode(link));
+            }
+        }
+        if (committed != null) {
+            awaitCommit(committed);
+        }
+    }
+
+    @Override
+    public void recordUsage(Link link) {
+        synchronized (stripe(link.getShortCode())) {
+            delegate.recordUsage(link);
+            wal.append(WriteAheadLog.LINK_USAGE, LinkCodec.encodeUsage(link));
+        }
+    }
+
+    @Override
+    public Optional<Link> findByShortCode(String shortCode) {
+        return delegate.findByShortCode(shortCode);
+    }
+
+    @Override
+    public List<Link> findByOwnerId(UUID userId) {
+        return delegate.findByOwnerId(userId);
+    }
+
+    @Override
+    public Optional<Link> findByOwnerAndUrl(UUID ownerId, String originalUrl, int clickLimit) {
+        return delegate.findByOwnerAndUrl(ownerId, originalUrl, clickLimit);
+    }
+
+    @Override
+    public List<Link> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Spliterator<Link> scan(LinkFilter filter) {
+        return delegate.scan(filter);
+    }
+
+    @Override
+    public List<Link> findInactive(LocalDateTime now) {
+        return delegate.findInactive(now);
+    }
+
+    @Override
+    public boolean deleteByShortCode(String shortCode) {
+        CompletableFuture<Long> committed;
+        synchronized (stripe(shortCode)) {
+            if (!delegate.deleteByShortCode(shortCode)) {
+                return false;
+            }
+            byte[] code = LinkCodec.utf8(shortCode);
+            byte[] payload = new byte[2 + code.length];
+            payload[0] = (byte) (code.length >>> 8);
+            payload[1] = (byte) code.length;
+            System.arraycopy(code, 0, payload, 2, code.length);
+            committed = wal.append(WriteAheadLog.LINK_DELETE, payload);
+        }
+        awaitCommit(committed);
+        return true;
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        return delegate.existsByShortCode(shortCode);
+    }
+
+    private Object stripe(String shortCode) {
+        return stripes[Math.floorMod(shortCode.hashCode(), STRIPES)];
+    }
+
+    private void awaitCommit(CompletableFuture<Long> committed) {
+        if (syncCommit) {
+            committed.join();
+        }
+    }
+}
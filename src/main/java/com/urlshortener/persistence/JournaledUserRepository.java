@@ -0,0 +1,53 @@
+package com.urlshortener.persistence;
+
+import com.urlshortener.domain.User;
+import com.urlshortener.repository.UserRepository;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Декоратор UserRepository, записывающий каждого нового пользователя в журнал
+ * упреждающей записи.
+ */
+public class JournaledUserRepository implements UserRepository {
+    private final UserRepository delegate;
+    private final WriteAheadLog wal;
+    private final boolean syncCommit;
+
+    public JournaledUserRepository(UserRepository delegate, WriteAheadLog wal, boolean syncCommit) {
+        this.delegate = delegate;
+        this.wal = wal;
+        this.syncCommit = syncCommit;
+    }
+
+    @Override
+    public void save(User user) {
+        delegate.save(user);
+        byte[] payload =
+                ByteBuffer.allocate(16)
+                        .putLong(user.getId().getMostSignificantBits())
+                        .putLong(user.getId().getLeastSignificantBits())
+                        .array();
+        var committed = wal.append(WriteAheadLog.USER_PUT, payload);
+        if (syncCommit) {
+            committed.join();
+        }
+    }
+
+    @Override
+    public Optional<User> findById(UUID id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public boolean existsById(UUID id) {
+        return delegate.existsById(id);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+}
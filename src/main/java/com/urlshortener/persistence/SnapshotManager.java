@@ -0,0 +1,302 @@
+package com.urlshortener.persistence;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.domain.User;
+import com.urlshortener.repository.LinkCodec;
+import com.urlshortener.repository.LinkRepository;
+import com.urlshortener.repository.UserRepository;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Сохранение хранилищ ссылок и пользователей в виде снимков и журнала упреждающей записи.
+ *
+ * <p>Снимок — компактный бинарный файл {@code snapshot-<LSN>.bin}, где LSN — номер первой
+ * записи журнала, не гарантированно вошедшей в снимок. Перед снимком журнал переключается
+ * на новый файл, поэтому после записи снимка старые файлы журнала удаляются. Снимок
+ * «нечеткий» (хранилища продолжают меняться во время обхода), но записи журнала содержат
+ * полное состояние ключа, и их повторное применение поверх снимка дает точный результат.
+ *
+ * <p>Восстановление отображает снимок в память и декодирует записи параллельно, затем читает
+ * хвост журнала, раскладывает записи по разделам по хешу ключа и применяет разделы
+ * параллельно, сохраняя порядок записей одного ключа.
+ */
+public class SnapshotManager implements Closeable {
+    private static final int MAGIC = 0x55524C53;
+    private static final int VERSION = 1;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final LinkRepository links;
+    private final UserRepository users;
+    private final WriteAheadLog wal;
+    private final Object snapshotLock = new Object();
+    private ScheduledExecutorService scheduler;
+
+    private SnapshotManager(
+            Path directory, LinkRepository links, UserRepository users, WriteAheadLog wal) {
+        this.directory = directory;
+        this.links = links;
+        this.users = users;
+        this.wal = wal;
+    }
+
+    /**
+     * Восстанавливает состояние из последнего снимка и хвоста журнала в переданные
+     * хранилища и открывает журнал для новых записей.
+     *
+     * @param directory каталог снимков и журнала
+     * @param links пустое хранилище ссылок
+     * @param users пустое хранилище пользователей
+     * @return менеджер и статистика восстановления
+     */
+    public static Restored restore(Path directory, LinkRepository links, UserRepository users)
+            throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+
+        long snapshotLsn = 0;
+        int[] counts = {0, 0};
+        Path snapshot = latestSnapshot(directory);
+        if (snapshot != null) {
+            snapshotLsn = snapshotLsn(snapshot);
+            counts = loadSnapshot(snapshot, links, users);
+        }
+
+        long[] lastLsn = {snapshotLsn - 1};
+        int partitions = Math.max(1, Runtime.getRuntime().availableProcessors() * 2);
+        List<List<WalRecord>> partitioned = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            partitioned.add(new ArrayList<>());
+        }
+        long[] walRecords = {0};
+        WriteAheadLog.read(
+                directory,
+                snapshotLsn,
+                (lsn, type, payload) -> {
+                    int hash =
+                            type == WriteAheadLog.USER_PUT
+                                    ? Long.hashCode(payload.getLong(0) ^ payload.getLong(8))
+                                    : LinkCodec.decodeShortCode(payload, 0).hashCode();
+                    partitioned
+                            .get(Math.floorMod(hash, partitions))
+                            .add(new WalRecord(type, payload));
+                    lastLsn[0] = Math.max(lastLsn[0], lsn);
+                    walRecords[0]++;
+                });
+        partitioned
+                .parallelStream()
+                .forEach(records -> records.forEach(record -> record.applyTo(links, users)));
+
+        WriteAheadLog wal = new WriteAheadLog(directory, lastLsn[0] + 1);
+        SnapshotManager manager = new SnapshotManager(directory, links, users, wal);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        return new Restored(manager, counts[0], counts[1], walRecords[0], elapsedMillis);
+    }
+
+    /**
+     * Журнал, в который должны писать декораторы хранилищ.
+     */
+    public WriteAheadLog wal() {
+        return wal;
+    }
+
+    /**
+     * Запускает периодическое создание снимков.
+     */
+    public void start(long intervalSeconds) {
+        if (scheduler != null || intervalSeconds <= 0) {
+            return;
+        }
+        scheduler =
+                Executors.newSingleThreadScheduledExecutor(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "SnapshotWriter");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        scheduler.scheduleWithFixedDelay(
+                () -> {
+                    try {
+                        snapshot();
+                    } catch (Exception e) {
+                        System.err.println("Ошибка создания снимка: " + e.getMessage());
+                    }
+                },
+                intervalSeconds,
+                intervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Создает снимок текущего состояния и удаляет покрытые им файлы журнала и старые снимки.
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long lsn = wal.rotate();
+            Path target =
+                    directory.resolve(
+                            String.format("%s%020d%s", SNAPSHOT_PREFIX, lsn, SNAPSHOT_SUFFIX));
+            Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+            List<User> allUsers = users.findAll();
+            List<Link> allLinks = links.findAll();
+            try (DataOutputStream out =
+                    new DataOutputStream(
+                            new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 20))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(lsn);
+                out.writeInt(allUsers.size());
+                out.writeInt(allLinks.size());
+                for (User user : allUsers) {
+                    out.writeLong(user.getId().getMostSignificantBits());
+                    out.writeLong(user.getId().getLeastSignificantBits());
+                }
+                for (Link link : allLinks) {
+                    byte[] encoded = LinkCodec.encode(link);
+                    out.writeInt(encoded.length);
+                    out.write(encoded);
+                }
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+
+            for (Path old : snapshots(directory)) {
+                if (!old.equals(target)) {
+                    Files.deleteIfExists(old);
+                }
+            }
+            wal.deleteFilesBefore(lsn);
+        }
+    }
+
+    /**
+     * Останавливает фоновые снимки, делает финальный снимок и закрывает журнал.
+     */
+    @Override
+    public void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        snapshot();
+        wal.close();
+    }
+
+    private static int[] loadSnapshot(Path snapshot, LinkRepository links, UserRepository users)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Неизвестный формат снимка: " + snapshot);
+            }
+            int userCount = buffer.getInt(16);
+            int linkCount = buffer.getInt(20);
+            int usersStart = 24;
+            IntStream.range(0, userCount)
+                    .parallel()
+                    .forEach(
+                            i -> {
+                                int offset = usersStart + i * 16;
+                                UUID id = new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+                                users.save(new User(id));
+                            });
+
+            // Границы записей находятся последовательным проходом, декодирование — параллельно
+            int[] offsets = new int[linkCount];
+            int offset = usersStart + userCount * 16;
+            for (int i = 0; i < linkCount; i++) {
+                offsets[i] = offset + 4;
+                offset += 4 + buffer.getInt(offset);
+            }
+            IntStream.range(0, linkCount)
+                    .parallel()
+                    .forEach(i -> links.save(LinkCodec.decode(buffer, offsets[i])));
+            return new int[] {linkCount, userCount};
+        }
+    }
+
+    private static Path latestSnapshot(Path directory) throws IOException {
+        List<Path> snapshots = snapshots(directory);
+        return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+    }
+
+    private static List<Path> snapshots(Path directory) throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream =
+                Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            stream.forEach(result::add);
+        }
+        result.sort(null);
+        return result;
+    }
+
+    private static long snapshotLsn(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(
+                name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    /**
+     * Результат восстановления.
+     *
+     * @param manager менеджер с открытым журналом
+     * @param snapshotLinks ссылок загружено из снимка
+     * @param snapshotUsers пользователей загружено из снимка
+     * @param walRecords записей журнала применено поверх снимка
+     * @param elapsedMillis длительность восстановления
+     */
+    public record Restored(
+            SnapshotManager manager,
+            int snapshotLinks,
+            int snapshotUsers,
+            long walRecords,
+            long elapsedMillis) {}
+
+    private record WalRecord(byte type, ByteBuffer payload) {
+        void applyTo(LinkRepository links, UserRepository users) {
+            switch (type) {
+                case WriteAheadLog.LINK_PUT:
+                    links.save(LinkCodec.decode(payload, 0));
+                    break;
+                case WriteAheadLog.LINK_DELETE:
+                    links.deleteByShortCode(LinkCodec.decodeShortCode(payload, 0));
+                    break;
+                case WriteAheadLog.LINK_USAGE:
+                    links.findByShortCode(LinkCodec.decodeShortCode(payload, 0))
+                            .ifPresent(link -> links.save(LinkCodec.applyUsage(link, payload, 0)));
+                    break;
+                case WriteAheadLog.USER_PUT:
+                    users.save(new User(new UUID(payload.getLong(0), payload.getLong(8))));
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
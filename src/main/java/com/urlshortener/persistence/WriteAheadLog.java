@@ -0,0 +1,346 @@
+package com.urlshortener.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал упреждающей записи с групповой фиксацией.
+ *
+ * <p>Вызывающие потоки только ставят запись в очередь. Единственный поток записи забирает
+ * все накопившиеся записи, присваивает им последовательные номера (LSN), пишет их одним
+ * проходом и выполняет один {@code fsync} на всю группу, после чего завершает ожидания.
+ * Чем выше конкуренция, тем больше записей приходится на одну синхронизацию с диском.
+ *
+ * <p>Журнал хранится в файлах {@code wal-<первый LSN>.log}. {@link #rotate()} начинает
+ * новый файл; это позволяет после снимка удалить файлы, целиком покрытые снимком.
+ * Формат записи: {@code [int длина][int CRC32][long LSN][byte тип][данные]}, где длина и CRC
+ * относятся к LSN, типу и данным.
+ *
+ * <p>Если запись группы завершилась ошибкой, ожидания группы завершаются этой ошибкой,
+ * а файл обрезается до конца последней синхронизированной группы (если обрезать
+ * не удалось — журнал продолжается в новом файле). Поэтому недописанная запись
+ * не остается перед записями следующих групп, которые иначе были бы потеряны при чтении.
+ */
+public class WriteAheadLog implements Closeable {
+    public static final byte LINK_PUT = 1;
+    public static final byte LINK_DELETE = 2;
+    public static final byte USER_PUT = 3;
+    public static final byte LINK_USAGE = 4;
+
+    static final int HEADER_SIZE = 8;
+    private static final int MAX_GROUP = 4096;
+    private static final String FILE_PREFIX = "wal-";
+    private static final String FILE_SUFFIX = ".log";
+
+    private final Path directory;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(1 << 20);
+    private final Thread writer;
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private long nextLsn;
+    /** Конец последней синхронизированной группы в текущем файле. */
+    private long committedPosition;
+    /** LSN, следующий за последней синхронизированной записью. */
+    private long committedLsn;
+    private volatile boolean closed;
+
+    /**
+     * Открывает новый файл журнала, нумерация записей которого начинается с {@code nextLsn}.
+     */
+    public WriteAheadLog(Path directory, long nextLsn) throws IOException {
+        this.directory = directory;
+        this.nextLsn = nextLsn;
+        this.committedLsn = nextLsn;
+        Files.createDirectories(directory);
+        this.channel = openFile(nextLsn);
+        this.writer = new Thread(this::writeLoop, "WriteAheadLog");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Ставит запись в очередь.
+     *
+     * @return future, завершающийся LSN записи после ее синхронизации с диском
+     */
+    public CompletableFuture<Long> append(byte type, byte[] payload) {
+        Request request = new Request(type, payload);
+        enqueue(request);
+        return request.done;
+    }
+
+    /**
+     * Начинает новый файл журнала после всех уже поставленных в очередь записей.
+     *
+     * @return LSN первой записи нового файла; все записи с меньшим LSN находятся
+     *     в предыдущих файлах
+     */
+    public long rotate() {
+        Request request = new Request((byte) 0, null);
+        enqueue(request);
+        return request.done.join();
+    }
+
+    /**
+     * Удаляет файлы журнала, все записи которых имеют LSN меньше {@code lsn}.
+     */
+    public void deleteFilesBefore(long lsn) throws IOException {
+        List<Long> starts = fileStarts(directory);
+        for (int i = 0; i + 1 < starts.size(); i++) {
+            if (starts.get(i + 1) <= lsn) {
+                Files.deleteIfExists(filePath(directory, starts.get(i)));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Request left;
+        while ((left = queue.poll()) != null) {
+            left.done.completeExceptionally(new IllegalStateException("Журнал закрыт"));
+        }
+        channel.force(false);
+        channel.close();
+    }
+
+    /**
+     * Читает записи всех файлов журнала с LSN не меньше {@code fromLsn}.
+     * Чтение файла прекращается на первой поврежденной или недописанной записи.
+     */
+    public static void read(Path directory, long fromLsn, RecordHandler handler) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Long> starts = fileStarts(directory);
+        for (int i = 0; i < starts.size(); i++) {
+            boolean coveredEntirely = i + 1 < starts.size() && starts.get(i + 1) <= fromLsn;
+            if (coveredEntirely) {
+                continue;
+            }
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(filePath(directory, starts.get(i))));
+            CRC32 checksum = new CRC32();
+            int offset = 0;
+            while (offset + HEADER_SIZE <= data.limit()) {
+                int length = data.getInt(offset);
+                if (length < 9 || offset + HEADER_SIZE + length > data.limit()) {
+                    break;
+                }
+                checksum.reset();
+                checksum.update(data.slice(offset + HEADER_SIZE, length));
+                if ((int) checksum.getValue() != data.getInt(offset + 4)) {
+                    break;
+                }
+                long lsn = data.getLong(offset + HEADER_SIZE);
+                if (lsn >= fromLsn) {
+                    handler.handle(
+                            lsn,
+                            data.get(offset + HEADER_SIZE + 8),
+                            data.slice(offset + HEADER_SIZE + 9, length - 9));
+                }
+                offset += HEADER_SIZE + length;
+            }
+        }
+    }
+
+    /**
+     * Запрос, поставленный после остановки потока записи, никто не обработал бы: после
+     * постановки флаг закрытия проверяется повторно, а {@link #close()} завершает
+     * ошибкой все, что осталось в очереди.
+     */
+    private void enqueue(Request request) {
+        if (closed) {
+            throw new IllegalStateException("Журнал закрыт");
+        }
+        queue.add(request);
+        if (closed && queue.remove(request)) {
+            throw new IllegalStateException("Журнал закрыт");
+        }
+    }
+
+    private void writeLoop() {
+        List<Request> group = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, MAX_GROUP - 1);
+                writeGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Ошибка записи журнала: " + e.getMessage());
+                discardUncommitted();
+                for (Request request : group) {
+                    request.done.completeExceptionally(e);
+                }
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void writeGroup(List<Request> group) throws IOException {
+        List<Request> pending = new ArrayList<>(group.size());
+        for (Request request : group) {
+            if (request.payload == null) {
+                commit(pending);
+                channel.close();
+                channel = openFile(nextLsn);
+                committedPosition = 0;
+                request.done.complete(nextLsn);
+            } else {
+                writeRecord(request);
+                pending.add(request);
+            }
+        }
+        commit(pending);
+    }
+
+    /** Синхронизирует записанное с диском и завершает ожидания записей. */
+    private void commit(List<Request> pending) throws IOException {
+        drainBuffer();
+        channel.force(false);
+        committedPosition = channel.position();
+        committedLsn = nextLsn;
+        for (Request request : pending) {
+            request.done.complete(request.lsn);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Отбрасывает записи неудачной группы: очищает буфер и обрезает файл до последней
+     * синхронизированной группы, а если это невозможно — начинает новый файл. Недописанный
+     * хвост старого файла при чтении отбрасывается, и чтение продолжается со следующего.
+     */
+    private void discardUncommitted() {
+        writeBuffer.clear();
+        nextLsn = committedLsn;
+        try {
+            channel.truncate(committedPosition);
+            channel.position(committedPosition);
+            return;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Не удалось обрезать журнал: " + e.getMessage());
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Канал уже непригоден, продолжаем в новом файле
+        }
+        try {
+            channel = openFile(nextLsn);
+            committedPosition = 0;
+        } catch (IOException e) {
+            System.err.println("Не удалось открыть новый файл журнала: " + e.getMessage());
+        }
+    }
+
+    private void writeRecord(Request request) throws IOException {
+        int length = 8 + 1 + request.payload.length;
+        if (writeBuffer.remaining() < HEADER_SIZE + length) {
+            drainBuffer();
+        }
+        request.lsn = nextLsn++;
+        if (writeBuffer.remaining() < HEADER_SIZE + length) {
+            // Запись больше буфера — пишем ее отдельно
+            ByteBuffer large = ByteBuffer.allocate(HEADER_SIZE + length);
+            encode(large, request, length);
+            large.flip();
+            while (large.hasRemaining()) {
+                channel.write(large);
+            }
+            return;
+        }
+        encode(writeBuffer, request, length);
+    }
+
+    private void encode(ByteBuffer target, Request request, int length) {
+        int start = target.position();
+        target.putInt(length).putInt(0).putLong(request.lsn).put(request.type).put(request.payload);
+        crc.reset();
+        crc.update(target.duplicate().position(start + HEADER_SIZE).limit(target.position()));
+        target.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private void drainBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private FileChannel openFile(long firstLsn) throws IOException {
+        return FileChannel.open(
+                filePath(directory, firstLsn),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static Path filePath(Path directory, long firstLsn) {
+        return directory.resolve(String.format("%s%020d%s", FILE_PREFIX, firstLsn, FILE_SUFFIX));
+    }
+
+    private static List<Long> fileStarts(Path directory) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        try (DirectoryStream<Path> stream =
+                Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                starts.add(
+                        Long.parseLong(
+                                name.substring(
+                                        FILE_PREFIX.length(),
+                                        name.length() - FILE_SUFFIX.length())));
+            }
+        }
+        starts.sort(null);
+        return starts;
+    }
+
+    /**
+     * Обработчик записей при чтении журнала.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void handle(long lsn, byte type, ByteBuffer payload);
+    }
+
+    private static final class Request {
+        private final byte type;
+        private final byte[] payload;
+        private final CompletableFuture<Long> done = new CompletableFuture<>();
+        private long lsn;
+
+        private Request(byte type, byte[] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.urlshortener.repository;
+
+import com.urlshortener.domain.Link;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Декоратор LinkRepository, отвечающий на запросы несуществующих кодов без обращения
+ * к основному индексу.
+ *
+ * <p>Все хранимые коды учитываются в {@link CountingBloomFilter}. Если фильтр сообщает,
+ * что кода нет, {@code findByShortCode} и {@code existsByShortCode} сразу возвращают
+ * отрицательный ответ; иначе запрос передается хранилищу. Поиск не блокируется;
+ * сохранение и удаление одного кода выполняются под блокировкой его полосы, чтобы
+ * проверка существования, изменение хранилища и изменение фильтра были согласованы
+ * и фильтр не терял хранимые коды.
+ */
+public class BloomFilteredLinkRepository implements LinkRepository, Closeable {
+    private static final int STRIPES = 64;
+
+    private final LinkRepository delegate;
+    private final CountingBloomFilter filter;
+    private final Object[] stripes = new Object[STRIPES];
+    private final LongAdder filteredLookups = new LongAdder();
+    private final LongAdder passedLookups = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * Создает фильтр и заполняет его кодами, уже находящимися в хранилище.
+     *
+     * @param delegate хранилище ссылок
+     * @param expectedInsertions ожидаемое число ссылок
+     * @param falsePositiveRate желаемая доля ложноположительных ответов
+     */
+    public BloomFilteredLinkRepository(
+            LinkRepository delegate, long expectedInsertions, double falsePositiveRate) {
+        this.delegate = delegate;
+        this.filter = new CountingBloomFilter(expectedInsertions, falsePositiveRate);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        // Потоковый обход не материализует все ссылки хранилища в список
+        delegate.scan(LinkFilter.all()).forEachRemaining(link -> filter.add(link.getShortCode()));
+    }
+
+    @Override
+    public void save(Link link) {
+        String code = link.getShortCode();
+        synchronized (stripe(code)) {
+            // Обновление уже учтенного кода не должно увеличивать счетчики повторно
+            if (!delegate.existsByShortCode(code)) {
+                filter.add(code);
+            }
+            delegate.save(link);
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<Link> links) {
+        for (Link link : links) {
+            save(link);
+        }
+    }
+
+    @Override
+    public void recordUsage(Link link) {
+        delegate.recordUsage(link);
+    }
+
+    @Override
+    public Optional<Link> findByShortCode(String shortCode) {
+        if (!mightContain(shortCode)) {
+            return Optional.empty();
+        }
+        Optional<Link> link = delegate.findByShortCode(shortCode);
+        if (link.isEmpty()) {
+            falsePositives.increment();
+        }
+        return link;
+    }
+
+    @Override
+    public List<Link> findByOwnerId(UUID userId) {
+        return delegate.findByOwnerId(userId);
+    }
+
+    @Override
+    public Optional<Link> findByOwnerAndUrl(UUID ownerId, String originalUrl, int clickLimit) {
+        return delegate.findByOwnerAndUrl(ownerId, originalUrl, clickLimit);
+    }
+
+    @Override
+    public List<Link> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Spliterator<Link> scan(LinkFilter filter) {
+        return delegate.scan(filter);
+    }
+
+    @Override
+    public List<Link> findInactive(LocalDateTime now) {
+        return delegate.findInactive(now);
+    }
+
+    @Override
+    public boolean deleteByShortCode(String shortCode) {
+        synchronized (stripe(shortCode)) {
+            boolean deleted = delegate.deleteByShortCode(shortCode);
+            if (deleted) {
+                filter.remove(shortCode);
+            }
+            return deleted;
+        }
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        if (!mightContain(shortCode)) {
+            return false;
+        }
+        boolean exists = delegate.existsByShortCode(shortCode);
+        if (!exists) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
+    /**
+     * Доля ненулевых счетчиков фильтра.
+     */
+    public double fillRatio() {
+        return filter.fillRatio();
+    }
+
+    /**
+     * Оценка доли ложноположительных ответов по текущему заполнению фильтра.
+     */
+    public double estimatedFalsePositiveRate() {
+        return filter.estimatedFalsePositiveRate();
+    }
+
+    /**
+     * Наблюдаемая доля ложноположительных ответов: запросы отсутствующих кодов,
+     * пропущенные фильтром, среди всех запросов отсутствующих кодов.
+     */
+    public double observedFalsePositiveRate() {
+        long misses = falsePositives.sum();
+        long negatives = filteredLookups.sum() + misses;
+        return negatives == 0 ? 0.0 : (double) misses / negatives;
+    }
+
+    /**
+     * Количество запросов, отклоненных фильтром без обращения к хранилищу.
+     */
+    public long filteredLookupCount() {
+        return filteredLookups.sum();
+    }
+
+    /**
+     * Количество запросов, переданных хранилищу.
+     */
+    public long passedLookupCount() {
+        return passedLookups.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+    private boolean mightContain(String shortCode) {
+        if (!filter.mightContain(shortCode)) {
+            filteredLookups.increment();
+            return false;
+        }
+        passedLookups.increment();
+        return true;
+    }
+
+    private Object stripe(String shortCode) {
+        return stripes[Math.floorMod(shortCode.hashCode(), STRIPES)];
+    }
+}
@@ -0,0 +1,420 @@
+package com.urlshortener.repository;
+
+import com.urlshortener.domain.Link;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Декоратор LinkRepository с ограниченным кешем популярных ссылок по короткому коду.
+ *
+ * <p>Политика вытеснения — W-TinyLFU. Новая ссылка попадает в небольшое окно LRU (1% емкости).
+ * Вытесненная из окна ссылка допускается в основную область, только если по оценке
+ * {@link FrequencySketch} ее запрашивали чаще, чем ссылку-жертву из головы испытательного
+ * сегмента; иначе вытесняется она сама. Основная область — сегментированный LRU: повторное
+ * обращение переводит ссылку из испытательного сегмента в защищенный (80% основной области).
+ * Поэтому поток разовых запросов редких кодов не вытесняет горячие ссылки, а новая
+ * популярная ссылка быстро набирает частоту и закрепляется.
+ *
+ * <p>Поиск в кеше не блокируется. Порядок вытеснения обновляется под блокировкой политики,
+ * которую чтение только пытается взять: при конкуренции обращение не учитывается, как
+ * в буфере чтения с потерями. Загрузка из хранилища выполняется под блокировкой полосы кода,
+ * а сохранение и удаление вытесняют код из кеша под той же блокировкой после изменения
+ * хранилища, поэтому кеш не возвращает устаревший экземпляр. Истекшие и исчерпавшие лимит
+ * ссылки в кеш не попадают и вытесняются при обращении.
+ */
+public class CachingLinkRepository implements LinkRepository, Closeable {
+    private static final int STRIPES = 64;
+    private static final double WINDOW_RATIO = 0.01;
+    private static final double PROTECTED_RATIO = 0.8;
+    /**
+     * Оценка размера записи без строк для 64-битной JVM со сжатыми указателями: узел кеша
+     * и {@link ConcurrentHashMap}, {@link Link} с двумя {@link LocalDateTime} и {@link UUID}.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 304;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private static final byte REMOVED = 0;
+    private static final byte WINDOW = 1;
+    private static final byte PROBATION = 2;
+    private static final byte PROTECTED = 3;
+
+    private final LinkRepository delegate;
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final Map<String, Node> data = new ConcurrentHashMap<>();
+    private final Object[] stripes = new Object[STRIPES];
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final AccessQueue window = new AccessQueue();
+    private final AccessQueue probation = new AccessQueue();
+    private final AccessQueue protectedQueue = new AccessQueue();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile long entriesBytes;
+
+    /**
+     * @param delegate хранилище ссылок
+     * @param maximumSize максимальное число ссылок в кеше, не меньше 2
+     */
+    public CachingLinkRepository(LinkRepository delegate, int maximumSize) {
+        if (maximumSize < 2) {
+            throw new IllegalArgumentException("Размер кеша ссылок должен быть не меньше 2");
+        }
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, (int) (maximumSize * WINDOW_RATIO));
+        this.protectedMaximum = (int) ((maximumSize - windowMaximum) * PROTECTED_RATIO);
+        this.sketch = new FrequencySketch(maximumSize);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    @Override
+    public void save(Link link) {
+        delegate.save(link);
+        invalidate(link.getShortCode());
+    }
+
+    @Override
+    public void saveAll(Collection<Link> links) {
+        delegate.saveAll(links);
+        for (Link link : links) {
+            invalidate(link.getShortCode());
+        }
+    }
+
+    /**
+     * Исчерпавшая лимит ссылка вытесняется: переходы по ней больше невозможны.
+     */
+    @Override
+    public void recordUsage(Link link) {
+        delegate.recordUsage(link);
+        if (link.getRemainingClicks() == 0) {
+            Node node = data.get(link.getShortCode());
+            if (node != null && node.link == link) {
+                invalidate(link.getShortCode());
+            }
+        }
+    }
+
+    @Override
+    public Optional<Link> findByShortCode(String shortCode) {
+        Node node = data.get(shortCode);
+        if (node != null) {
+            Link link = node.link;
+            if (link.isActive()) {
+                hits.increment();
+                onHit(node);
+                return Optional.of(link);
+            }
+            invalidate(shortCode);
+        }
+        misses.increment();
+        synchronized (stripe(shortCode)) {
+            // Код мог загрузить конкурентный промах, пока этот поток ждал блокировку
+            node = data.get(shortCode);
+            if (node != null && node.link.isActive()) {
+                return Optional.of(node.link);
+            }
+            Optional<Link> loaded = delegate.findByShortCode(shortCode);
+            if (loaded.isPresent() && loaded.get().isActive()) {
+                insert(new Node(shortCode, loaded.get()));
+            }
+            return loaded;
+        }
+    }
+
+    @Override
+    public List<Link> findByOwnerId(UUID userId) {
+        return delegate.findByOwnerId(userId);
+    }
+
+    @Override
+    public Optional<Link> findByOwnerAndUrl(UUID ownerId, String originalUrl, int clickLimit) {
+        return delegate.findByOwnerAndUrl(ownerId, originalUrl, clickLimit);
+    }
+
+    @Override
+    public List<Link> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Spliterator<Link> scan(LinkFilter filter) {
+        return delegate.scan(filter);
+    }
+
+    @Override
+    public List<Link> findInactive(LocalDateTime now) {
+        return delegate.findInactive(now);
+    }
+
+    @Override
+    public boolean deleteByShortCode(String shortCode) {
+        boolean deleted = delegate.deleteByShortCode(shortCode);
+        invalidate(shortCode);
+        return deleted;
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        return data.containsKey(shortCode) || delegate.existsByShortCode(shortCode);
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
+    /**
+     * Число ссылок в кеше.
+     */
+    public int size() {
+        return data.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Доля запросов по короткому коду, обслуженных кешем.
+     */
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long requests = hitCount + misses.sum();
+        return requests == 0 ? 0.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Количество ссылок, вытесненных политикой из-за нехватки места (без учета вытеснения
+     * при удалении, сохранении и истечении).
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Оценка памяти, занятой кешем: записи со ссылками и таблица частот.
+     */
+    public long memoryBytes() {
+        return entriesBytes + sketch.memoryBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+    /**
+     * Вытесняет код из кеша. Вызывается после изменения хранилища: загрузка, начатая
+     * до изменения, держит блокировку полосы и завершится раньше.
+     */
+    private void invalidate(String shortCode) {
+        synchronized (stripe(shortCode)) {
+            Node node = data.remove(shortCode);
+            if (node != null) {
+                policyLock.lock();
+                try {
+                    unlink(node);
+                } finally {
+                    policyLock.unlock();
+                }
+            }
+        }
+    }
+
+    private void onHit(Node node) {
+        if (!policyLock.tryLock()) {
+            return;
+        }
+        try {
+            sketch.increment(node.key);
+            switch (node.queue) {
+                case WINDOW:
+                    window.moveToTail(node);
+                    break;
+                case PROBATION:
+                    probation.remove(node);
+                    protectedQueue.add(node);
+                    node.queue = PROTECTED;
+                    while (protectedQueue.size > protectedMaximum) {
+                        Node demoted = protectedQueue.poll();
+                        probation.add(demoted);
+                        demoted.queue = PROBATION;
+                    }
+                    break;
+                case PROTECTED:
+                    protectedQueue.moveToTail(node);
+                    break;
+                default:
+                    // Узел уже вытеснен конкурентно
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /** Вызывается под блокировкой полосы кода узла. */
+    private void insert(Node node) {
+        data.put(node.key, node);
+        policyLock.lock();
+        try {
+            sketch.increment(node.key);
+            window.add(node);
+            node.queue = WINDOW;
+            entriesBytes += node.weight;
+            while (window.size > windowMaximum) {
+                admit(window.poll());
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Решает судьбу кандидата, вытесненного из окна: при свободном месте он переходит
+     * в испытательный сегмент, иначе соревнуется по частоте с жертвой из его головы.
+     */
+    private void admit(Node candidate) {
+        if (window.size + probation.size + protectedQueue.size < maximumSize) {
+            probation.add(candidate);
+            candidate.queue = PROBATION;
+            return;
+        }
+        Node victim = probation.head != null ? probation.head : protectedQueue.head;
+        if (victim != null && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            unlink(victim);
+            discard(victim);
+            probation.add(candidate);
+            candidate.queue = PROBATION;
+        } else {
+            // Кандидат уже извлечен из окна и не входит ни в одну очередь
+            candidate.queue = REMOVED;
+            entriesBytes -= candidate.weight;
+            discard(candidate);
+        }
+    }
+
+    private void discard(Node node) {
+        data.remove(node.key, node);
+        evictions.increment();
+    }
+
+    /** Вызывается под блокировкой политики. */
+    private void unlink(Node node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            case PROTECTED:
+                protectedQueue.remove(node);
+                break;
+            default:
+                return;
+        }
+        node.queue = REMOVED;
+        entriesBytes -= node.weight;
+    }
+
+    private Object stripe(String shortCode) {
+        return stripes[Math.floorMod(shortCode.hashCode(), STRIPES)];
+    }
+
+    /** Оценка размера записи в байтах. */
+    private static int weigh(Link link) {
+        return ENTRY_OVERHEAD_BYTES
+                + stringBytes(link.getShortCode())
+                + stringBytes(link.getOriginalUrl());
+    }
+
+    /** Строки ASCII занимают байт на символ; размер массива выравнивается до 8 байт. */
+    private static int stringBytes(String value) {
+        return STRING_OVERHEAD_BYTES + ((value.length() + 7) & ~7);
+    }
+
+    private static final class Node {
+        final String key;
+        final Link link;
+        final int weight;
+        Node prev;
+        Node next;
+        byte queue;
+
+        Node(String key, Link link) {
+            this.key = key;
+            this.link = link;
+            this.weight = weigh(link);
+        }
+    }
+
+    /** Двусвязная очередь узлов от давно использованных к недавним. */
+    private static final class AccessQueue {
+        Node head;
+        Node tail;
+        int size;
+
+        void add(Node node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        Node poll() {
+            Node node = head;
+            remove(node);
+            return node;
+        }
+
+        void remove(Node node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToTail(Node node) {
+            if (tail != node) {
+                remove(node);
+                add(node);
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.urlshortener.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Конкурентный считающий фильтр Блума для коротких кодов.
+ *
+ * <p>Вместо битов используются 4-битные счетчики (16 в одном long), поэтому элементы можно
+ * удалять. Счетчики меняются CAS без блокировок. Достигший 15 счетчик считается насыщенным
+ * и больше не меняется: удаление не может обнулить его ошибочно, так что ложноотрицательных
+ * ответов не бывает, если каждое {@link #remove} соответствует предшествующему {@link #add}.
+ *
+ * <p>Фильтр блочный: все счетчики одного кода лежат в одном блоке из 8 long (64 байта,
+ * одна строка кеша), который выбирается старшими битами 64-битного хеша; позиции внутри
+ * блока вычисляются двойным хешированием из младших битов. Проверка кода стоит одного
+ * промаха кеша вместо k, ценой немного большей доли ложноположительных ответов.
+ */
+public final class CountingBloomFilter {
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final int WORDS_PER_BLOCK = 8;
+    private static final int COUNTERS_PER_BLOCK = COUNTERS_PER_WORD * WORDS_PER_BLOCK;
+    private static final long COUNTER_MASK = 0xFL;
+    private static final long SATURATED = 0xFL;
+
+    private final AtomicLongArray words;
+    private final int counterCount;
+    private final int blockCount;
+    private final int hashCount;
+    private final AtomicLong nonZeroCounters = new AtomicLong();
+
+    /**
+     * @param expectedInsertions ожидаемое число элементов
+     * @param falsePositiveRate желаемая доля ложноположительных ответов при этом числе
+     */
+    public CountingBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Ожидаемое число элементов должно быть положительным");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException(
+                    "Доля ложноположительных ответов должна быть в интервале (0, 1)");
+        }
+        double ln2 = Math.log(2);
+        long counters =
+                (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        if (counters > Integer.MAX_VALUE - COUNTERS_PER_BLOCK) {
+            throw new IllegalArgumentException("Слишком большой фильтр");
+        }
+        this.blockCount = (int) ((counters + COUNTERS_PER_BLOCK - 1) / COUNTERS_PER_BLOCK);
+        this.counterCount = blockCount * COUNTERS_PER_BLOCK;
+        this.hashCount =
+                Math.max(1, (int) Math.round((double) counterCount / expectedInsertions * ln2));
+        this.words = new AtomicLongArray(blockCount * WORDS_PER_BLOCK);
+    }
+
+    public void add(String shortCode) {
+        long hash = hash(shortCode);
+        for (int i = 0; i < hashCount; i++) {
+            update(index(hash, i), 1);
+        }
+    }
+
+    public void remove(String shortCode) {
+        long hash = hash(shortCode);
+        for (int i = 0; i < hashCount; i++) {
+            update(index(hash, i), -1);
+        }
+    }
+
+    /**
+     * @return false, если код гарантированно не добавлялся
+     */
+    public boolean mightContain(String shortCode) {
+        long hash = hash(shortCode);
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(hash, i);
+            if (counter(words.get(index / COUNTERS_PER_WORD), index) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Доля ненулевых счетчиков.
+     */
+    public double fillRatio() {
+        return (double) nonZeroCounters.get() / counterCount;
+    }
+
+    /**
+     * Оценка доли ложноположительных ответов при текущем заполнении.
+     */
+    public double estimatedFalsePositiveRate() {
+        return Math.pow(fillRatio(), hashCount);
+    }
+
+    public int counterCount() {
+        return counterCount;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    private void update(int index, int delta) {
+        int word = index / COUNTERS_PER_WORD;
+        int shift = (index % COUNTERS_PER_WORD) * 4;
+        while (true) {
+            long current = words.get(word);
+            long counter = (current >>> shift) & COUNTER_MASK;
+            if (counter == SATURATED || (delta < 0 && counter == 0)) {
+                return;
+            }
+            long updated =
+                    (current & ~(COUNTER_MASK << shift)) | ((counter + delta) << shift);
+            if (words.compareAndSet(word, current, updated)) {
+                if (counter == 0) {
+                    nonZeroCounters.incrementAndGet();
+                } else if (counter + delta == 0) {
+                    nonZeroCounters.decrementAndGet();
+                }
+                return;
+            }
+        }
+    }
+
+    private int index(long hash, int i) {
+        int block = (int) (((hash >>> 32) * blockCount) >>> 32);
+        int h1 = (int) hash;
+        int h2 = ((int) hash >>> 16) | 1;
+        return block * COUNTERS_PER_BLOCK + ((h1 + i * h2) & (COUNTERS_PER_BLOCK - 1));
+    }
+
+    private static long counter(long word, int index) {
+        return (word >>> ((index % COUNTERS_PER_WORD) * 4)) & COUNTER_MASK;
+    }
+
+    /** FNV-1a по символам кода с финализатором MurmurHash3. */
+    private static long hash(String shortCode) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < shortCode.length(); i++) {
+            hash ^= shortCode.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
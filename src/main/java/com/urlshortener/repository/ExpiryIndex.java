@@ -0,0 +1,72 @@
+package com.urlshortener.repository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * Потокобезопасный индекс коротких кодов по времени истечения.
+ *
+ * <p>Коды группируются в корзины по минуте истечения. Вставка — поиск среди небольшого числа
+ * корзин и добавление в хеш-множество, без поиска по упорядоченной структуре из всех ссылок.
+ * Корзины строго раньше текущей минуты истекли целиком; ссылки корзины текущей минуты
+ * проверяются по точному времени.
+ */
+class ExpiryIndex {
+    private final NavigableMap<LocalDateTime, Set<String>> buckets = new ConcurrentSkipListMap<>();
+
+    void add(LocalDateTime expiresAt, String shortCode) {
+        buckets.compute(
+                bucketOf(expiresAt),
+                (bucket, codes) -> {
+                    Set<String> result = codes != null ? codes : ConcurrentHashMap.newKeySet();
+                    result.add(shortCode);
+                    return result;
+                });
+    }
+
+    void remove(LocalDateTime expiresAt, String shortCode) {
+        buckets.computeIfPresent(
+                bucketOf(expiresAt),
+                (bucket, codes) -> {
+                    codes.remove(shortCode);
+                    return codes.isEmpty() ? null : codes;
+                });
+    }
+
+    /**
+     * Возвращает коды, истекшие строго раньше {@code now}.
+     *
+     * @param expiresAtOf время истечения хранимой ссылки по коду или null, если ее уже нет;
+     *     используется только для корзины текущей минуты
+     */
+    List<String> expiredBefore(LocalDateTime now, Function<String, LocalDateTime> expiresAtOf) {
+        List<String> result = new ArrayList<>();
+        LocalDateTime currentBucket = bucketOf(now);
+        for (Map.Entry<LocalDateTime, Set<String>> entry :
+                buckets.headMap(currentBucket, true).entrySet()) {
+            if (entry.getKey().isBefore(currentBucket)) {
+                result.addAll(entry.getValue());
+                continue;
+            }
+            for (String code : entry.getValue()) {
+                LocalDateTime expiresAt = expiresAtOf.apply(code);
+                if (expiresAt != null && now.isAfter(expiresAt)) {
+                    result.add(code);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static LocalDateTime bucketOf(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.MINUTES);
+    }
+}
@@ -0,0 +1,114 @@
+package com.urlshortener.repository;
+
+/**
+ * Приблизительный счетчик частоты обращений к коротким кодам для политики допуска
+ * {@link CachingLinkRepository}.
+ *
+ * <p>Count-Min Sketch из 4-битных счетчиков (16 в одном long): частота кода — минимум
+ * из четырех его счетчиков, насыщенный счетчик (15) больше не растет. Как и в
+ * {@link CountingBloomFilter}, все счетчики кода лежат в одном блоке из 8 long (одна строка
+ * кеша), по одному в четырех разных словах, так что обращение стоит одного промаха кеша
+ * вместо четырех. После
+ * {@code 10 × емкость} увеличений все счетчики делятся пополам, поэтому оценка отражает
+ * недавнюю популярность, а не накопленную за все время работы. Размер таблицы — около
+ * 8 байт на элемент кеша. Не потокобезопасен: вызывается под блокировкой политики кеша.
+ */
+final class FrequencySketch {
+    private static final int WORDS_PER_BLOCK = 8;
+    private static final int HASH_COUNT = 4;
+    private static final long COUNTER_MASK = 0xFL;
+    private static final long SATURATED = 0xFL;
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final int SAMPLE_FACTOR = 10;
+
+    private final long[] table;
+    private final int blockCount;
+    private final long sampleSize;
+    private long additions;
+
+    /**
+     * @param capacity число элементов, частоты которых нужно различать
+     */
+    FrequencySketch(long capacity) {
+        int words =
+                Integer.highestOneBit((int) Math.max(2, Math.min(capacity, 1 << 26)) - 1) << 1;
+        this.blockCount = Math.max(1, words / WORDS_PER_BLOCK);
+        this.table = new long[blockCount * WORDS_PER_BLOCK];
+        this.sampleSize = SAMPLE_FACTOR * Math.max(capacity, 1);
+    }
+
+    /**
+     * Учитывает обращение к коду.
+     */
+    void increment(String shortCode) {
+        int hash = spread(shortCode.hashCode());
+        int block = block(hash);
+        boolean added = false;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int word = block + word(hash, i);
+            int shift = shift(hash, i);
+            if (((table[word] >>> shift) & COUNTER_MASK) != SATURATED) {
+                table[word] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Оценка числа недавних обращений к коду, не больше 15.
+     */
+    int frequency(String shortCode) {
+        int hash = spread(shortCode.hashCode());
+        int block = block(hash);
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            long counter =
+                    (table[block + word(hash, i)] >>> shift(hash, i)) & COUNTER_MASK;
+            frequency = Math.min(frequency, (int) counter);
+        }
+        return frequency;
+    }
+
+    /**
+     * Размер таблицы счетчиков в байтах.
+     */
+    long memoryBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    /** Делит все счетчики пополам: старая популярность постепенно забывается. */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    /** Начало блока выбирается старшими битами хеша. */
+    private int block(int hash) {
+        return (int) (((hash & 0xFFFF_FFFFL) * blockCount) >>> 32) * WORDS_PER_BLOCK;
+    }
+
+    /** i-й счетчик лежит в слове 2i или 2i + 1 блока. */
+    private static int word(int hash, int i) {
+        return (i << 1) | ((hash >>> i) & 1);
+    }
+
+    /** Позиция i-го счетчика в слове — по четыре младших бита хеша на счетчик. */
+    private static int shift(int hash, int i) {
+        return ((hash >>> (4 + 4 * i)) & 0xF) << 2;
+    }
+
+    /** Финализатор MurmurHash3: хеш строки кешируется, но плохо распределен. */
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
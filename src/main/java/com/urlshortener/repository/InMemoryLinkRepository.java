@@ -1,45 +1,222 @@
 package com.urlshortener.repository;
 
 import com.urlshortener.domain.Link;
+import com.urlshortener.domain.LinkFingerprint;
+import com.urlshortener.domain.ShortCodeCodec;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * In-memory реализация LinkRepository с использованием ConcurrentHashMap для потокобезопасности.
+ * In-memory реализация LinkRepository.
+ *
+ * <p>Основной индекс — {@link LongLinkMap}: короткие коды из алфавита base62 длиной до
+ * {@link ShortCodeCodec#MAX_PACKED_LENGTH} символов упаковываются в long, и поиск не тратит
+ * время на хеширование и сравнение строк. Коды, которые нельзя упаковать, хранятся
+ * в обычной ConcurrentHashMap.
+ *
+ * <p>Помимо основного индекса по короткому коду поддерживается вторичный индекс
+ * владелец → короткие коды, поэтому поиск ссылок пользователя стоит O(ссылок пользователя),
+ * а не O(всех ссылок), и индекс отпечатков (владелец, URL, лимит) → ссылка для поиска повторных
+ * сокращений за O(1). Для очистки ссылки дополнительно сгруппированы по минуте истечения
+ * ({@link ExpiryIndex}), а исчерпавшие лимит переходов отмечаются отдельно, так что
+ * {@link #findInactive} затрагивает только действительно неактивные ссылки. Все индексы
+ * обновляются внутри {@code compute} основного индекса, то есть под блокировкой ключа,
+ * и не расходятся с ним при конкурентных save/delete.
  */
 public class InMemoryLinkRepository implements LinkRepository {
-    private final Map<String, Link> links = new ConcurrentHashMap<>();
+    private final LongLinkMap packedLinks = new LongLinkMap();
+    private final Map<String, Link> otherLinks = new ConcurrentHashMap<>();
+    private final OwnerIndex ownerIndex = new OwnerIndex();
+    private final LongLinkMap linksByFingerprint = new LongLinkMap();
+    private final ExpiryIndex expiryIndex = new ExpiryIndex();
+    private final Set<String> exhaustedCodes = ConcurrentHashMap.newKeySet();
 
     @Override
     public void save(Link link) {
-        links.put(link.getShortCode(), link);
+        String code = link.getShortCode();
+        compute(
+                code,
+                previous -> {
+                    if (previous != null) {
+                        unindexFingerprint(previous);
+                    }
+                    linksByFingerprint.compute(fingerprintKey(link), current -> link);
+                    if (previous == null || !previous.getOwnerId().equals(link.getOwnerId())) {
+                        if (previous != null) {
+                            ownerIndex.remove(previous.getOwnerId(), code);
+                        }
+                        ownerIndex.add(link.getOwnerId(), code);
+                    }
+                    if (previous == null || !previous.getExpiresAt().equals(link.getExpiresAt())) {
+                        if (previous != null) {
+                            expiryIndex.remove(previous.getExpiresAt(), code);
+                        }
+                        expiryIndex.add(link.getExpiresAt(), code);
+                    }
+                    if (link.getRemainingClicks() == 0) {
+                        exhaustedCodes.add(code);
+                    } else {
+                        exhaustedCodes.remove(code);
+                    }
+                    return link;
+                });
+    }
+
+    /**
+     * Хранится сам экземпляр ссылки, поэтому запись на каждый переход не нужна:
+     * индекс обновляется только когда ссылка исчерпала лимит.
+     */
+    @Override
+    public void recordUsage(Link link) {
+        if (link.getRemainingClicks() > 0) {
+            return;
+        }
+        String code = link.getShortCode();
+        compute(
+                code,
+                current -> {
+                    if (current == link) {
+                        exhaustedCodes.add(code);
+                    }
+                    return current;
+                });
     }
 
     @Override
     public Optional<Link> findByShortCode(String shortCode) {
-        return Optional.ofNullable(links.get(shortCode));
+        return Optional.ofNullable(get(shortCode));
     }
 
     @Override
     public List<Link> findByOwnerId(UUID userId) {
-        return links.values().stream()
-                .filter(link -> link.getOwnerId().equals(userId))
-                .collect(Collectors.toList());
+        Set<String> codes = ownerIndex.codesOf(userId);
+        List<Link> result = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            Link link = get(code);
+            if (link != null && link.isOwnedBy(userId)) {
+                result.add(link);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<Link> findByOwnerAndUrl(UUID ownerId, String originalUrl, int clickLimit) {
+        Link link = linksByFingerprint.get(fingerprintKey(ownerId, originalUrl, clickLimit));
+        if (link == null
+                || !link.isOwnedBy(ownerId)
+                || link.getClickLimit() != clickLimit
+                || !LinkFingerprint.normalizeUrl(link.getOriginalUrl())
+                        .equals(LinkFingerprint.normalizeUrl(originalUrl))) {
+            return Optional.empty();
+        }
+        return Optional.of(link);
     }
 
     @Override
     public List<Link> findAll() {
-        return new ArrayList<>(links.values());
+        List<Link> result = new ArrayList<>(packedLinks.size() + otherLinks.size());
+        packedLinks.forEachValue(result::add);
+        result.addAll(otherLinks.values());
+        return result;
+    }
+
+    /**
+     * С фильтром по владельцу обходятся только коды из индекса владельцев, иначе —
+     * основной индекс порциями ({@link LongLinkMap#spliterator()}).
+     */
+    @Override
+    public Spliterator<Link> scan(LinkFilter filter) {
+        Stream<Link> links;
+        if (filter.getOwnerId() != null) {
+            links = ownerIndex.codesOf(filter.getOwnerId()).stream().map(this::get);
+        } else {
+            links =
+                    Stream.concat(
+                            StreamSupport.stream(packedLinks.spliterator(), false),
+                            otherLinks.values().stream());
+        }
+        return links.filter(link -> link != null && filter.matches(link)).spliterator();
+    }
+
+    @Override
+    public List<Link> findInactive(LocalDateTime now) {
+        List<Link> result = new ArrayList<>();
+        List<String> expired =
+                expiryIndex.expiredBefore(
+                        now,
+                        code -> {
+                            Link link = get(code);
+                            return link != null ? link.getExpiresAt() : null;
+                        });
+        for (String code : expired) {
+            Link link = get(code);
+            if (link != null) {
+                result.add(link);
+            }
+        }
+        for (String code : exhaustedCodes) {
+            Link link = get(code);
+            if (link != null && !now.isAfter(link.getExpiresAt())) {
+                result.add(link);
+            }
+        }
+        return result;
     }
 
     @Override
     public boolean deleteByShortCode(String shortCode) {
-        return links.remove(shortCode) != null;
+        boolean[] removed = new boolean[1];
+        compute(
+                shortCode,
+                existing -> {
+                    if (existing != null) {
+                        unindexFingerprint(existing);
+                        ownerIndex.remove(existing.getOwnerId(), shortCode);
+                        expiryIndex.remove(existing.getExpiresAt(), shortCode);
+                        exhaustedCodes.remove(shortCode);
+                        removed[0] = true;
+                    }
+                    return null;
+                });
+        return removed[0];
     }
 
     @Override
     public boolean existsByShortCode(String shortCode) {
-        return links.containsKey(shortCode);
+        return get(shortCode) != null;
+    }
+
+    /** Удаляет ссылку из индекса отпечатков, если отпечаток указывает именно на нее. */
+    private void unindexFingerprint(Link link) {
+        linksByFingerprint.compute(
+                fingerprintKey(link), current -> current == link ? null : current);
+    }
+
+    private static long fingerprintKey(Link link) {
+        return fingerprintKey(link.getOwnerId(), link.getOriginalUrl(), link.getClickLimit());
+    }
+
+    /** Ключи {@link LongLinkMap} неотрицательны, поэтому старший бит отбрасывается. */
+    private static long fingerprintKey(UUID ownerId, String originalUrl, int clickLimit) {
+        return LinkFingerprint.of(ownerId, originalUrl, clickLimit) >>> 1;
+    }
+
+    private Link get(String shortCode) {
+        long key = ShortCodeCodec.pack(shortCode);
+        return key != ShortCodeCodec.NOT_PACKABLE ? packedLinks.get(key) : otherLinks.get(shortCode);
+    }
+
+    private void compute(String shortCode, UnaryOperator<Link> function) {
+        long key = ShortCodeCodec.pack(shortCode);
+        if (key != ShortCodeCodec.NOT_PACKABLE) {
+            packedLinks.compute(key, function);
+        } else {
+            otherLinks.compute(shortCode, (code, previous) -> function.apply(previous));
+        }
     }
 }
@@ -1,6 +1,8 @@
 package com.urlshortener.repository;
 
 import com.urlshortener.domain.User;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -26,4 +28,9 @@ public class InMemoryUserRepository implements UserRepository {
     public boolean existsById(UUID id) {
         return users.containsKey(id);
     }
+
+    @Override
+    public List<User> findAll() {
+        return new ArrayList<>(users.values());
+    }
 }
@@ -0,0 +1,160 @@
+package com.urlshortener.repository;
+
+import com.urlshortener.domain.Link;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Компактное бинарное представление {@link Link} для файловых хранилищ.
+ *
+ * <p>Формат: короткий код (u16 длина + UTF-8), оригинальный URL (u16 длина + UTF-8),
+ * владелец (2 × long), создание и истечение (epoch-секунды UTC + наносекунды),
+ * лимит и счетчик переходов (int), признак активности (byte).
+ * Все чтения выполняются по абсолютным смещениям и не меняют позицию буфера, поэтому
+ * один буфер можно читать из нескольких потоков.
+ */
+public final class LinkCodec {
+    /** Размер полей фиксированной длины. */
+    private static final int FIXED_SIZE = 2 + 2 + 16 + 12 + 12 + 4 + 4 + 1;
+
+    /** Максимальный размер закодированной ссылки. */
+    public static final int MAX_ENCODED_SIZE = FIXED_SIZE + 2 * 0xFFFF;
+
+    private LinkCodec() {}
+
+    public static byte[] utf8(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Строка слишком длинная для сохранения");
+        }
+        return bytes;
+    }
+
+    /**
+     * Размер закодированной ссылки при заданных UTF-8 представлениях строк.
+     */
+    public static int encodedSize(byte[] shortCode, byte[] originalUrl) {
+        return FIXED_SIZE + shortCode.length + originalUrl.length;
+    }
+
+    /**
+     * Записывает ссылку в буфер начиная с текущей позиции.
+     */
+    public static void encode(Link link, byte[] shortCode, byte[] originalUrl, ByteBuffer buffer) {
+        buffer.putShort((short) shortCode.length).put(shortCode);
+        buffer.putShort((short) originalUrl.length).put(originalUrl);
+        buffer.putLong(link.getOwnerId().getMostSignificantBits());
+        buffer.putLong(link.getOwnerId().getLeastSignificantBits());
+        putTime(buffer, link.getCreatedAt());
+        putTime(buffer, link.getExpiresAt());
+        buffer.putInt(link.getClickLimit());
+        buffer.putInt(link.getClickCount());
+        buffer.put((byte) (link.getRemainingClicks() > 0 ? 1 : 0));
+    }
+
+    /**
+     * Кодирует ссылку в новый массив байтов.
+     */
+    public static byte[] encode(Link link) {
+        byte[] shortCode = utf8(link.getShortCode());
+        byte[] originalUrl = utf8(link.getOriginalUrl());
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(shortCode, originalUrl));
+        encode(link, shortCode, originalUrl, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Читает ссылку по абсолютному смещению.
+     */
+    public static Link decode(ByteBuffer buffer, int offset) {
+        int position = offset;
+        int codeLength = Short.toUnsignedInt(buffer.getShort(position));
+        position += 2;
+        String shortCode = readString(buffer, position, codeLength);
+        position += codeLength;
+        int urlLength = Short.toUnsignedInt(buffer.getShort(position));
+        position += 2;
+        String originalUrl = readString(buffer, position, urlLength);
+        position += urlLength;
+        UUID ownerId = new UUID(buffer.getLong(position), buffer.getLong(position + 8));
+        position += 16;
+        LocalDateTime createdAt = getTime(buffer, position);
+        position += 12;
+        LocalDateTime expiresAt = getTime(buffer, position);
+        position += 12;
+        int clickLimit = buffer.getInt(position);
+        int clickCount = buffer.getInt(position + 4);
+        boolean active = buffer.get(position + 8) != 0;
+
+        return Link.builder()
+                .shortCode(shortCode)
+                .originalUrl(originalUrl)
+                .ownerId(ownerId)
+                .createdAt(createdAt)
+                .expiresAt(expiresAt)
+                .clickLimit(clickLimit)
+                .clickCount(clickCount)
+                .active(active)
+                .build();
+    }
+
+    /**
+     * Кодирует учет переходов: короткий код (u16 длина + UTF-8), счетчик переходов (int)
+     * и признак активности (byte) — без URL, владельца и времени.
+     */
+    public static byte[] encodeUsage(Link link) {
+        byte[] shortCode = utf8(link.getShortCode());
+        return ByteBuffer.allocate(2 + shortCode.length + 4 + 1)
+                .putShort((short) shortCode.length)
+                .put(shortCode)
+                .putInt(link.getClickCount())
+                .put((byte) (link.getRemainingClicks() > 0 ? 1 : 0))
+                .array();
+    }
+
+    /**
+     * Применяет учет переходов, записанный {@link #encodeUsage}, к сохраненной ссылке.
+     *
+     * @return новая ссылка с полями {@code link} и счетчиком и признаком активности из учета
+     */
+    public static Link applyUsage(Link link, ByteBuffer buffer, int offset) {
+        int position = offset + 2 + Short.toUnsignedInt(buffer.getShort(offset));
+        return Link.builder()
+                .shortCode(link.getShortCode())
+                .originalUrl(link.getOriginalUrl())
+                .ownerId(link.getOwnerId())
+                .createdAt(link.getCreatedAt())
+                .expiresAt(link.getExpiresAt())
+                .clickLimit(link.getClickLimit())
+                .clickCount(buffer.getInt(position))
+                .active(buffer.get(position + 4) != 0)
+                .build();
+    }
+
+    /**
+     * Читает только короткий код записи, не декодируя остальные поля.
+     */
+    public static String decodeShortCode(ByteBuffer buffer, int offset) {
+        int codeLength = Short.toUnsignedInt(buffer.getShort(offset));
+        return readString(buffer, offset + 2, codeLength);
+    }
+
+    public static String readString(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putTime(ByteBuffer buffer, LocalDateTime time) {
+        buffer.putLong(time.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(time.getNano());
+    }
+
+    private static LocalDateTime getTime(ByteBuffer buffer, int offset) {
+        return LocalDateTime.ofEpochSecond(
+                buffer.getLong(offset), buffer.getInt(offset + 8), ZoneOffset.UTC);
+    }
+}
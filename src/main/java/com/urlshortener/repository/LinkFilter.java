@@ -0,0 +1,119 @@
+package com.urlshortener.repository;
+
+import com.urlshortener.domain.Link;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Условия выборки ссылок для {@link LinkRepository#scan}. Незаданное условие не
+ * ограничивает выборку.
+ */
+public final class LinkFilter {
+    private static final LinkFilter ALL = builder().build();
+
+    private final UUID ownerId;
+    private final Boolean active;
+    private final LocalDateTime expiresFrom;
+    private final LocalDateTime expiresBefore;
+
+    private LinkFilter(Builder builder) {
+        this.ownerId = builder.ownerId;
+        this.active = builder.active;
+        this.expiresFrom = builder.expiresFrom;
+        this.expiresBefore = builder.expiresBefore;
+    }
+
+    /**
+     * Фильтр, пропускающий все ссылки.
+     */
+    public static LinkFilter all() {
+        return ALL;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Владелец ссылок или null.
+     */
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    public boolean matches(Link link) {
+        if (ownerId != null && !link.isOwnedBy(ownerId)) {
+            return false;
+        }
+        if (active != null && link.isActive() != active) {
+            return false;
+        }
+        if (expiresFrom != null && link.getExpiresAt().isBefore(expiresFrom)) {
+            return false;
+        }
+        return expiresBefore == null || link.getExpiresAt().isBefore(expiresBefore);
+    }
+
+    @Override
+    public String toString() {
+        return "LinkFilter{"
+                + "ownerId="
+                + ownerId
+                + ", active="
+                + active
+                + ", expiresFrom="
+                + expiresFrom
+                + ", expiresBefore="
+                + expiresBefore
+                + '}';
+    }
+
+    public static class Builder {
+        private UUID ownerId;
+        private Boolean active;
+        private LocalDateTime expiresFrom;
+        private LocalDateTime expiresBefore;
+
+        /**
+         * Только ссылки указанного владельца.
+         */
+        public Builder ownerId(UUID ownerId) {
+            this.ownerId = ownerId;
+            return this;
+        }
+
+        /**
+         * Только активные ({@code true}) или только неактивные ({@code false}) ссылки.
+         */
+        public Builder active(boolean active) {
+            this.active = active;
+            return this;
+        }
+
+        /**
+         * Только ссылки, истекающие не раньше {@code expiresFrom}.
+         */
+        public Builder expiresFrom(LocalDateTime expiresFrom) {
+            this.expiresFrom = expiresFrom;
+            return this;
+        }
+
+        /**
+         * Только ссылки, истекающие раньше {@code expiresBefore}.
+         */
+        public Builder expiresBefore(LocalDateTime expiresBefore) {
+            this.expiresBefore = expiresBefore;
+            return this;
+        }
+
+        public LinkFilter build() {
+            if (expiresFrom != null
+                    && expiresBefore != null
+                    && !expiresFrom.isBefore(expiresBefore)) {
+                throw new IllegalArgumentException(
+                        "Начало диапазона истечения должно быть раньше его конца");
+            }
+            return new LinkFilter(this);
+        }
+    }
+}
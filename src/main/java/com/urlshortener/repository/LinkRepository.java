@@ -1,9 +1,14 @@
 package com.urlshortener.repository;
 
 import com.urlshortener.domain.Link;
+import com.urlshortener.domain.LinkFingerprint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Интерфейс репозитория для операций сохранения Link.
@@ -15,6 +20,26 @@ public interface LinkRepository {
      */
     void save(Link link);
 
+    /**
+     * Сохраняет несколько ссылок. Реализации могут выполнять запись одной пачкой.
+     * @param links ссылки для сохранения
+     */
+    default void saveAll(Collection<Link> links) {
+        for (Link link : links) {
+            save(link);
+        }
+    }
+
+    /**
+     * Фиксирует изменение счетчика переходов ссылки после {@link Link#use()}.
+     * По умолчанию ссылка просто сохраняется заново; хранилища, которые возвращают
+     * сам хранимый экземпляр, могут не выполнять запись на каждый переход.
+     * @param link использованная ссылка
+     */
+    default void recordUsage(Link link) {
+        save(link);
+    }
+
     /**
      * Находит ссылку по короткому коду.
      * @param shortCode короткий код для поиска
@@ -29,12 +54,80 @@ public interface LinkRepository {
      */
     List<Link> findByOwnerId(UUID userId);
 
+    /**
+     * Находит ссылку пользователя на тот же URL с точностью до нормализации
+     * ({@link LinkFingerprint#normalizeUrl}) и с тем же лимитом переходов. Если таких ссылок
+     * несколько, возвращается любая. Реализация по умолчанию просматривает ссылки пользователя;
+     * хранилища с индексом по отпечатку {@link LinkFingerprint} отвечают за O(1).
+     * @param ownerId ID пользователя
+     * @param originalUrl URL
+     * @param clickLimit лимит переходов
+     * @return Optional, содержащий ссылку, если найдена
+     */
+    default Optional<Link> findByOwnerAndUrl(UUID ownerId, String originalUrl, int clickLimit) {
+        String normalized = LinkFingerprint.normalizeUrl(originalUrl);
+        return findByOwnerId(ownerId).stream()
+                .filter(
+                        link ->
+                                link.getClickLimit() == clickLimit
+                                        && normalized.equals(
+                                                LinkFingerprint.normalizeUrl(
+                                                        link.getOriginalUrl())))
+                .findFirst();
+    }
+
     /**
      * Находит все ссылки в репозитории.
      * @return список всех ссылок
      */
     List<Link> findAll();
 
+    /**
+     * Обходит ссылки, удовлетворяющие фильтру, не копируя их в список. Обход слабо
+     * согласован: ссылки, добавленные или удаленные во время обхода, могут как попасть
+     * в него, так и нет. Возвращаемый {@link Spliterator} может делиться для
+     * параллельной обработки.
+     * Реализация по умолчанию фильтрует {@link #findAll()}; хранилища должны переопределять
+     * метод, чтобы расход памяти не зависел от числа ссылок.
+     * @param filter условия выборки
+     * @return обход подходящих ссылок
+     */
+    default Spliterator<Link> scan(LinkFilter filter) {
+        return findAll().stream().filter(filter::matches).spliterator();
+    }
+
+    /**
+     * Находит ссылки, подлежащие очистке: истекшие к моменту {@code now}
+     * или исчерпавшие лимит переходов.
+     * Реализация по умолчанию просматривает все ссылки; реализации с индексом по времени
+     * истечения должны переопределять метод, чтобы стоимость зависела только от числа
+     * найденных ссылок.
+     * @param now момент времени, относительно которого проверяется истечение
+     * @return список неактивных ссылок
+     */
+    default List<Link> findInactive(LocalDateTime now) {
+        return findAll().stream()
+                .filter(link -> now.isAfter(link.getExpiresAt()) || link.getRemainingClicks() == 0)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Удаляет ссылки, подлежащие очистке к моменту {@code now}.
+     * Реализация по умолчанию удаляет найденные {@link #findInactive} ссылки по одной;
+     * секционированные хранилища могут выполнять очистку секций параллельно.
+     * @param now момент времени, относительно которого проверяется истечение
+     * @return количество удаленных ссылок
+     */
+    default int deleteInactive(LocalDateTime now) {
+        int removed = 0;
+        for (Link link : findInactive(now)) {
+            if (deleteByShortCode(link.getShortCode())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
     /**
      * Удаляет ссылку по короткому коду.
      * @param shortCode короткий код ссылки для удаления
@@ -48,4 +141,10 @@ public interface LinkRepository {
      * @return true, если короткий код существует
      */
     boolean existsByShortCode(String shortCode);
+
+    /**
+     * Записывает в долговременное хранилище все отложенные изменения.
+     * Реализации без отложенной записи ничего не делают.
+     */
+    default void flush() {}
 }
@@ -0,0 +1,154 @@
+package com.urlshortener.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Файл сегмента журнала, целиком отображенный в память.
+ *
+ * <p>Запись: {@code [int длина тела][int CRC32 тела][тело]}, где тело начинается с байта типа.
+ * Нулевая длина означает конец записанных данных. Добавление выполняется только под
+ * блокировкой записи репозитория; чтение идет по абсолютным смещениям и безопасно из любых
+ * потоков.
+ */
+final class LogSegment {
+    static final int HEADER_SIZE = 8;
+
+    private final int id;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final AtomicLong garbageBytes = new AtomicLong();
+    private volatile int writePosition;
+
+    private LogSegment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Открывает существующий или создает новый сегмент. У существующего файла сохраняется
+     * его размер, у нового файл расширяется до {@code capacity}.
+     */
+    static LogSegment open(Path path, int id, int capacity) throws IOException {
+        FileChannel channel =
+                FileChannel.open(
+                        path,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), capacity);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        return new LogSegment(id, path, channel, buffer);
+    }
+
+    int id() {
+        return id;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    int writePosition() {
+        return writePosition;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    boolean hasRoom(int recordSize) {
+        // Оставляем место под нулевой заголовок-терминатор
+        return writePosition + recordSize + HEADER_SIZE <= buffer.capacity();
+    }
+
+    /**
+     * Добавляет запись с уже посчитанным телом и возвращает ее смещение.
+     */
+    int append(byte[] body, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, length);
+        int offset = writePosition;
+        buffer.put(offset + HEADER_SIZE, body, 0, length);
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        // Длина пишется последней: до этого момента запись не видна при восстановлении
+        buffer.putInt(offset, length);
+        writePosition = offset + HEADER_SIZE + length;
+        return offset;
+    }
+
+    /**
+     * Длина тела записи по смещению или -1, если записи нет либо она повреждена.
+     */
+    int validBodyLength(int offset) {
+        if (offset + HEADER_SIZE > buffer.capacity()) {
+            return -1;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || offset + HEADER_SIZE + length > buffer.capacity()) {
+            return -1;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset + HEADER_SIZE, length));
+        return (int) crc.getValue() == buffer.getInt(offset + 4) ? length : -1;
+    }
+
+    int bodyLength(int offset) {
+        return buffer.getInt(offset);
+    }
+
+    byte type(int offset) {
+        return buffer.get(offset + HEADER_SIZE);
+    }
+
+    /**
+     * Смещение полезной нагрузки записи (после заголовка и байта типа).
+     */
+    static int payloadOffset(int offset) {
+        return offset + HEADER_SIZE + 1;
+    }
+
+    /**
+     * Устанавливает позицию записи после восстановления.
+     */
+    void recoveredTo(int position) {
+        writePosition = position;
+    }
+
+    void addGarbage(int recordSize) {
+        garbageBytes.addAndGet(recordSize);
+    }
+
+    double garbageRatio() {
+        int written = writePosition;
+        return written == 0 ? 0.0 : (double) garbageBytes.get() / written;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+}
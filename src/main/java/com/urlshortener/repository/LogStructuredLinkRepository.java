@@ -0,0 +1,532 @@
+package com.urlshortener.repository;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.domain.LinkFingerprint;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Долговременная реализация LinkRepository на основе журнала из сегментов,
+ * отображенных в память.
+ *
+ * <p>Каждое сохранение и удаление последовательно дописывается в активный сегмент.
+ * В памяти хранится только хеш-индекс короткий код → позиция последней записи
+ * (номер сегмента и смещение, упакованные в long), поэтому чтение — это поиск в индексе
+ * и декодирование напрямую из {@link java.nio.MappedByteBuffer} без промежуточного копирования
+ * записи. Рядом с хеш-индексом, как в {@link InMemoryLinkRepository}, поддерживаются индексы
+ * владельцев, отпечатков (владелец, URL, лимит) → код и времени истечения ({@link ExpiryIndex}), а
+ * исчерпавшие лимит коды отмечаются отдельно, поэтому {@link #findByOwnerAndUrl} и
+ * {@link #findInactive} не декодируют все сегменты. Индексы обновляются под блокировкой записи.
+ *
+ * <p>Фоновое уплотнение переписывает живые записи из сегментов с большой долей мусора
+ * в активный сегмент и удаляет старые файлы. Надгробие хранит номер сегмента удаленной
+ * записи и переносится, только пока в более старых сегментах могут остаться записи кода.
+ *
+ * <p>При открытии индекс восстанавливается последовательным чтением сегментов; поврежденный
+ * хвост последнего сегмента (например, после аварийного завершения) отбрасывается.
+ */
+public class LogStructuredLinkRepository implements LinkRepository, Closeable {
+    private static final byte RECORD_PUT = 1;
+    private static final byte RECORD_DELETE = 2;
+    private static final double COMPACTION_GARBAGE_RATIO = 0.5;
+    private static final int MAX_BODY_SIZE = 1 + LinkCodec.MAX_ENCODED_SIZE;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ConcurrentNavigableMap<Integer, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+    private final OwnerIndex ownerIndex = new OwnerIndex();
+    private final Map<Long, String> codesByFingerprint = new ConcurrentHashMap<>();
+    private final ExpiryIndex expiryIndex = new ExpiryIndex();
+    private final Set<String> exhaustedCodes = ConcurrentHashMap.newKeySet();
+    private final Object writeLock = new Object();
+    private final byte[] scratch = new byte[MAX_BODY_SIZE];
+    private final ScheduledExecutorService compactor;
+    private LogSegment activeSegment;
+
+    /**
+     * Открывает хранилище в каталоге, восстанавливая индекс из существующих сегментов.
+     *
+     * @param directory каталог сегментов (создается при необходимости)
+     * @param segmentSize размер нового сегмента в байтах
+     * @param compactionIntervalSeconds интервал фонового уплотнения; 0 отключает его
+     */
+    public LogStructuredLinkRepository(
+            Path directory, int segmentSize, long compactionIntervalSeconds) {
+        if (segmentSize < MAX_BODY_SIZE + 2 * LogSegment.HEADER_SIZE) {
+            throw new IllegalArgumentException("Размер сегмента слишком мал");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    "Не удалось открыть хранилище ссылок: " + directory, e);
+        }
+
+        if (compactionIntervalSeconds > 0) {
+            compactor =
+                    Executors.newSingleThreadScheduledExecutor(
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "LinkLogCompactor");
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+            compactor.scheduleWithFixedDelay(
+                    this::compactQuietly,
+                    compactionIntervalSeconds,
+                    compactionIntervalSeconds,
+                    TimeUnit.SECONDS);
+        } else {
+            compactor = null;
+        }
+    }
+
+    @Override
+    public void save(Link link) {
+        synchronized (writeLock) {
+            appendPut(link);
+        }
+    }
+
+    /**
+     * Дописывает все ссылки за одно взятие блокировки записи.
+     */
+    @Override
+    public void saveAll(Collection<Link> links) {
+        synchronized (writeLock) {
+            for (Link link : links) {
+                appendPut(link);
+            }
+        }
+    }
+
+    private void appendPut(Link link) {
+        byte[] code = LinkCodec.utf8(link.getShortCode());
+        byte[] url = LinkCodec.utf8(link.getOriginalUrl());
+        ByteBuffer body = ByteBuffer.wrap(scratch);
+        body.put(RECORD_PUT);
+        LinkCodec.encode(link, code, url, body);
+        long location = append(body.position());
+
+        Long previous = index.put(link.getShortCode(), location);
+        reindex(link.getShortCode(), previous != null ? readLink(previous) : null, link);
+        if (previous != null) {
+            markGarbage(previous);
+        }
+    }
+
+    @Override
+    public Optional<Link> findByShortCode(String shortCode) {
+        while (true) {
+            Long location = index.get(shortCode);
+            if (location == null) {
+                return Optional.empty();
+            }
+            LogSegment segment = segments.get(segmentId(location));
+            if (segment != null) {
+                return Optional.of(
+                        LinkCodec.decode(
+                                segment.buffer(), LogSegment.payloadOffset(offset(location))));
+            }
+            // Сегмент удален уплотнением после чтения индекса — индекс уже указывает на копию
+        }
+    }
+
+    @Override
+    public List<Link> findByOwnerId(UUID userId) {
+        List<Link> result = new ArrayList<>();
+        for (String code : ownerIndex.codesOf(userId)) {
+            findByShortCode(code).filter(link -> link.isOwnedBy(userId)).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<Link> findByOwnerAndUrl(UUID ownerId, String originalUrl, int clickLimit) {
+        String code =
+                codesByFingerprint.get(LinkFingerprint.of(ownerId, originalUrl, clickLimit));
+        if (code == null) {
+            return Optional.empty();
+        }
+        String normalized = LinkFingerprint.normalizeUrl(originalUrl);
+        return findByShortCode(code)
+                .filter(
+                        link ->
+                                link.isOwnedBy(ownerId)
+                                        && link.getClickLimit() == clickLimit
+                                        && normalized.equals(
+                                                LinkFingerprint.normalizeUrl(
+                                                        link.getOriginalUrl())));
+    }
+
+    @Override
+    public List<Link> findAll() {
+        List<Link> result = new ArrayList<>(index.size());
+        for (String code : index.keySet()) {
+            findByShortCode(code).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * Обходит индекс кодов и читает ссылки из сегментов по одной.
+     */
+    @Override
+    public Spliterator<Link> scan(LinkFilter filter) {
+        return index.keySet().stream()
+                .map(this::findByShortCode)
+                .flatMap(Optional::stream)
+                .filter(filter::matches)
+                .spliterator();
+    }
+
+    @Override
+    public List<Link> findInactive(LocalDateTime now) {
+        List<Link> result = new ArrayList<>();
+        List<String> expired =
+                expiryIndex.expiredBefore(
+                        now, code -> findByShortCode(code).map(Link::getExpiresAt).orElse(null));
+        for (String code : expired) {
+            findByShortCode(code).ifPresent(result::add);
+        }
+        for (String code : exhaustedCodes) {
+            findByShortCode(code)
+                    .filter(link -> !now.isAfter(link.getExpiresAt()))
+                    .ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * Удаляет ссылки, найденные {@link #findInactive}, перепроверяя под блокировкой записи
+     * их текущую версию: ссылка, пересохраненная активной после поиска, не удаляется.
+     */
+    @Override
+    public int deleteInactive(LocalDateTime now) {
+        int removed = 0;
+        for (Link link : findInactive(now)) {
+            String code = link.getShortCode();
+            synchronized (writeLock) {
+                Long current = index.get(code);
+                if (current != null && isInactive(readLink(current), now)) {
+                    appendDelete(code, current);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean deleteByShortCode(String shortCode) {
+        synchronized (writeLock) {
+            Long previous = index.get(shortCode);
+            if (previous == null) {
+                return false;
+            }
+            appendDelete(shortCode, previous);
+            return true;
+        }
+    }
+
+    /**
+     * Дописывает надгробие с номером сегмента удаляемой записи. Вызывается под writeLock.
+     */
+    private void appendDelete(String shortCode, long previous) {
+        byte[] code = LinkCodec.utf8(shortCode);
+        ByteBuffer body = ByteBuffer.wrap(scratch);
+        body.put(RECORD_DELETE)
+                .putShort((short) code.length)
+                .put(code)
+                .putInt(segmentId(previous));
+        append(body.position());
+
+        index.remove(shortCode);
+        reindex(shortCode, readLink(previous), null);
+        markGarbage(previous);
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        return index.containsKey(shortCode);
+    }
+
+    /**
+     * Уплотняет все неактивные сегменты, доля мусора в которых превышает порог.
+     */
+    public void compact() throws IOException {
+        for (LogSegment segment : segments.values()) {
+            if (segment != activeSegmentSnapshot()
+                    && segment.garbageRatio() >= COMPACTION_GARBAGE_RATIO) {
+                compactSegment(segment);
+            }
+        }
+        synchronized (writeLock) {
+            activeSegment.force();
+        }
+    }
+
+    /**
+     * Количество файлов сегментов (для диагностики и тестов).
+     */
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (compactor != null) {
+            compactor.shutdownNow();
+            try {
+                compactor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (writeLock) {
+            for (LogSegment segment : segments.values()) {
+                segment.close();
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream =
+                Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            int id =
+                    Integer.parseInt(
+                            name.substring(
+                                    SEGMENT_PREFIX.length(),
+                                    name.length() - SEGMENT_SUFFIX.length()));
+            LogSegment segment = LogSegment.open(file, id, segmentSize);
+            segments.put(id, segment);
+            replay(segment);
+        }
+
+        if (segments.isEmpty()) {
+            activeSegment = createSegment(0);
+        } else {
+            activeSegment = segments.lastEntry().getValue();
+        }
+    }
+
+    private void replay(LogSegment segment) {
+        ByteBuffer buffer = segment.buffer();
+        int offset = 0;
+        int length;
+        while ((length = segment.validBodyLength(offset)) > 0) {
+            int payload = LogSegment.payloadOffset(offset);
+            String code = LinkCodec.decodeShortCode(buffer, payload);
+            if (segment.type(offset) == RECORD_PUT) {
+                Long previous = index.put(code, location(segment.id(), offset));
+                Link previousLink = previous != null ? readLink(previous) : null;
+                reindex(code, previousLink, LinkCodec.decode(buffer, payload));
+                if (previous != null) {
+                    markGarbage(previous);
+                }
+            } else {
+                Long previous = index.remove(code);
+                if (previous != null) {
+                    reindex(code, readLink(previous), null);
+                    markGarbage(previous);
+                }
+                segment.addGarbage(LogSegment.HEADER_SIZE + length);
+            }
+            offset += LogSegment.HEADER_SIZE + length;
+        }
+        segment.recoveredTo(offset);
+    }
+
+    private void compactSegment(LogSegment segment) throws IOException {
+        ByteBuffer buffer = segment.buffer();
+        int end = segment.writePosition();
+        int offset = 0;
+        while (offset < end) {
+            int length = segment.bodyLength(offset);
+            int payload = LogSegment.payloadOffset(offset);
+            String code = LinkCodec.decodeShortCode(buffer, payload);
+            long oldLocation = location(segment.id(), offset);
+
+            synchronized (writeLock) {
+                if (segment.type(offset) == RECORD_PUT) {
+                    Long current = index.get(code);
+                    if (current != null && current == oldLocation) {
+                        buffer.get(offset + LogSegment.HEADER_SIZE, scratch, 0, length);
+                        index.put(code, append(length));
+                    }
+                } else if (!index.containsKey(code)
+                        && shadowsRecords(segment, payload)) {
+                    buffer.get(offset + LogSegment.HEADER_SIZE, scratch, 0, length);
+                    append(length);
+                    activeSegment.addGarbage(LogSegment.HEADER_SIZE + length);
+                }
+            }
+            offset += LogSegment.HEADER_SIZE + length;
+        }
+
+        synchronized (writeLock) {
+            activeSegment.force();
+            segments.remove(segment.id());
+        }
+        // Читатели, успевшие получить сегмент, продолжают работать с отображением:
+        // оно остается действительным после закрытия канала и удаления файла
+        segment.delete();
+    }
+
+    /**
+     * Нужно ли надгробие после удаления его сегмента: все записи кода лежат не дальше
+     * сегмента удаленной записи, поэтому надгробие нужно, только пока остается другой сегмент
+     * не новее него.
+     */
+    private boolean shadowsRecords(LogSegment segment, int payload) {
+        ByteBuffer buffer = segment.buffer();
+        int codeLength = Short.toUnsignedInt(buffer.getShort(payload));
+        int lastPutSegment = buffer.getInt(payload + 2 + codeLength);
+        int oldest = segments.firstKey();
+        return oldest < segment.id() && oldest <= lastPutSegment;
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (Exception e) {
+            System.err.println("Ошибка уплотнения хранилища ссылок: " + e.getMessage());
+        }
+    }
+
+    private LogSegment activeSegmentSnapshot() {
+        synchronized (writeLock) {
+            return activeSegment;
+        }
+    }
+
+    /**
+     * Дописывает тело из {@link #scratch} в активный сегмент. Вызывается под writeLock.
+     */
+    private long append(int length) {
+        if (!activeSegment.hasRoom(LogSegment.HEADER_SIZE + length)) {
+            activeSegment.force();
+            try {
+                activeSegment = createSegment(activeSegment.id() + 1);
+            } catch (IOException e) {
+                throw new IllegalStateException("Не удалось создать сегмент журнала", e);
+            }
+        }
+        int offset = activeSegment.append(scratch, length);
+        return location(activeSegment.id(), offset);
+    }
+
+    private LogSegment createSegment(int id) throws IOException {
+        Path path = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        LogSegment segment = LogSegment.open(path, id, segmentSize);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private Link readLink(long location) {
+        LogSegment segment = segments.get(segmentId(location));
+        return LinkCodec.decode(segment.buffer(), LogSegment.payloadOffset(offset(location)));
+    }
+
+    /**
+     * Переносит код во вторичных индексах с прежней версии ссылки на новую; null означает
+     * отсутствие версии. Вызывается под writeLock или при восстановлении.
+     */
+    private void reindex(String code, Link previous, Link link) {
+        Long previousFingerprint = previous != null ? fingerprint(previous) : null;
+        Long fingerprint = link != null ? fingerprint(link) : null;
+        if (previousFingerprint != null && !previousFingerprint.equals(fingerprint)) {
+            codesByFingerprint.remove(previousFingerprint, code);
+        }
+        if (fingerprint != null) {
+            codesByFingerprint.put(fingerprint, code);
+        }
+
+        UUID previousOwner = previous != null ? previous.getOwnerId() : null;
+        UUID owner = link != null ? link.getOwnerId() : null;
+        if (!Objects.equals(previousOwner, owner)) {
+            if (previousOwner != null) {
+                ownerIndex.remove(previousOwner, code);
+            }
+            if (owner != null) {
+                ownerIndex.add(owner, code);
+            }
+        }
+
+        LocalDateTime previousExpiry = previous != null ? previous.getExpiresAt() : null;
+        LocalDateTime expiry = link != null ? link.getExpiresAt() : null;
+        if (!Objects.equals(previousExpiry, expiry)) {
+            if (previousExpiry != null) {
+                expiryIndex.remove(previousExpiry, code);
+            }
+            if (expiry != null) {
+                expiryIndex.add(expiry, code);
+            }
+        }
+
+        if (link != null && link.getRemainingClicks() == 0) {
+            exhaustedCodes.add(code);
+        } else {
+            exhaustedCodes.remove(code);
+        }
+    }
+
+    private static long fingerprint(Link link) {
+        return LinkFingerprint.of(link.getOwnerId(), link.getOriginalUrl(), link.getClickLimit());
+    }
+
+    private static boolean isInactive(Link link, LocalDateTime now) {
+        return now.isAfter(link.getExpiresAt()) || link.getRemainingClicks() == 0;
+    }
+
+    private void markGarbage(long location) {
+        LogSegment segment = segments.get(segmentId(location));
+        if (segment != null) {
+            segment.addGarbage(LogSegment.HEADER_SIZE + segment.bodyLength(offset(location)));
+        }
+    }
+
+    private static long location(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int segmentId(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+}
@@ -0,0 +1,383 @@
+package com.urlshortener.repository;
+
+import com.urlshortener.domain.Link;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Потокобезопасная хеш-таблица с открытой адресацией и примитивными long-ключами.
+ *
+ * <p>Ключи хранятся в {@code long[]}, значения — в параллельном массиве, без объектов-узлов
+ * и упаковки ключей. Таблица разбита на сегменты со своими {@link StampedLock}: чтение идет
+ * оптимистично без блокировки и повторяется под блокировкой чтения только при конкурентной
+ * записи. Коллизии разрешаются линейным пробированием, удаление — обратным сдвигом,
+ * поэтому надгробия не накапливаются.
+ *
+ * <p>Сегмент выбирается по старшим битам хеша, а позиция в сегменте — по следующим за ними,
+ * так что порядок ячеек повторяет порядок хешей. На этом основан {@link #spliterator()}:
+ * он обходит таблицу по диапазонам хешей небольшими порциями и не держит блокировку между
+ * порциями, а ни сдвиг при удалении, ни расширение сегмента не переносят ссылку в другой
+ * диапазон.
+ */
+public final class LongLinkMap {
+    private static final long EMPTY = -1L;
+    private static final int SEGMENT_BITS = 4;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    /** Граница пространства позиций внутри сегмента: биты хеша после номера сегмента. */
+    private static final long POSITION_END = 1L << (Long.SIZE - SEGMENT_BITS);
+    private static final long POSITION_MASK = POSITION_END - 1;
+    /** Число ячеек, просматриваемых обходом под одной блокировкой чтения. */
+    private static final int SCAN_CHUNK = 256;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    public LongLinkMap() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(INITIAL_SEGMENT_CAPACITY);
+        }
+    }
+
+    /**
+     * @param key неотрицательный ключ
+     * @return значение или null
+     */
+    public Link get(long key) {
+        long hash = mix(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    /**
+     * Атомарно вычисляет новое значение ключа под блокировкой записи его сегмента.
+     *
+     * @param key неотрицательный ключ
+     * @param function получает текущее значение (или null) и возвращает новое;
+     *     null удаляет ключ
+     * @return новое значение
+     */
+    public Link compute(long key, UnaryOperator<Link> function) {
+        long hash = mix(key);
+        return segmentFor(hash).compute(key, hash, function);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Обходит значения; каждый сегмент просматривается под блокировкой чтения.
+     */
+    public void forEachValue(Consumer<Link> action) {
+        for (Segment segment : segments) {
+            segment.forEachValue(action);
+        }
+    }
+
+    /**
+     * Слабо согласованный обход значений с постоянным расходом памяти. Каждое значение,
+     * присутствовавшее в таблице на протяжении всего обхода, выдается ровно один раз;
+     * значения, добавленные или удаленные во время обхода, могут как выдаваться, так и нет.
+     * Обход делится по сегментам, а внутри сегмента — по диапазонам хешей.
+     */
+    public Spliterator<Link> spliterator() {
+        return new ValueSpliterator(0, 0, segments.length - 1, POSITION_END, size());
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    /**
+     * Идеальная ячейка ключа: старшие биты позиции, сколько их нужно для длины сегмента.
+     */
+    private static int slot(long hash, int length) {
+        int shift = Long.SIZE - SEGMENT_BITS - Integer.numberOfTrailingZeros(length);
+        return (int) ((hash & POSITION_MASK) >>> shift);
+    }
+
+    /** Финализатор MurmurHash3: равномерно распределяет последовательные ключи. */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private long[] keys;
+        private Link[] values;
+        private int size;
+
+        Segment(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            values = new Link[capacity];
+        }
+
+        Link get(long key, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                Link value = find(key, hash);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return find(key, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private Link find(long key, long hash) {
+            long[] currentKeys = keys;
+            Link[] currentValues = values;
+            if (currentKeys.length != currentValues.length) {
+                // Несогласованное чтение во время расширения; будет отброшено при validate
+                return null;
+            }
+            int mask = currentKeys.length - 1;
+            int index = slot(hash, currentKeys.length);
+            for (int probes = 0; probes <= mask; probes++) {
+                long current = currentKeys[index];
+                if (current == key) {
+                    return currentValues[index];
+                }
+                if (current == EMPTY) {
+                    return null;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        Link compute(long key, long hash, UnaryOperator<Link> function) {
+            long stamp = lock.writeLock();
+            try {
+                int mask = keys.length - 1;
+                int index = slot(hash, keys.length);
+                while (keys[index] != EMPTY && keys[index] != key) {
+                    index = (index + 1) & mask;
+                }
+                Link previous = keys[index] == key ? values[index] : null;
+                Link updated = function.apply(previous);
+
+                if (updated == null) {
+                    if (previous != null) {
+                        removeAt(index);
+                    }
+                } else if (previous != null) {
+                    values[index] = updated;
+                } else {
+                    values[index] = updated;
+                    keys[index] = key;
+                    size++;
+                    if (size * 2 > keys.length) {
+                        resize();
+                    }
+                }
+                return updated;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void forEachValue(Consumer<Link> action) {
+            long stamp = lock.readLock();
+            try {
+                for (Link value : values) {
+                    if (value != null) {
+                        action.accept(value);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Добавляет в {@code out} значения с позициями хеша из {@code [from, to)},
+         * просматривая не больше {@link #SCAN_CHUNK} идеальных ячеек.
+         *
+         * @return позиция, с которой следует продолжить; {@code to}, если диапазон пройден
+         */
+        long collect(long from, long to, List<Link> out) {
+            long stamp = lock.readLock();
+            try {
+                int length = keys.length;
+                int shift = Long.SIZE - SEGMENT_BITS - Integer.numberOfTrailingZeros(length);
+                int first = (int) (from >>> shift);
+                int last = Math.min((int) ((to - 1) >>> shift), first + SCAN_CHUNK - 1);
+                long next = Math.min(to, (long) (last + 1) << shift);
+                // Ключ лежит не раньше своей идеальной ячейки и без пустых ячеек между
+                // ними, поэтому после последней идеальной ячейки достаточно дойти до пустой
+                int mask = length - 1;
+                int index = first;
+                for (int scanned = 0; scanned < length; scanned++) {
+                    long key = keys[index];
+                    if (key == EMPTY) {
+                        if (scanned > last - first) {
+                            break;
+                        }
+                    } else {
+                        long position = mix(key) & POSITION_MASK;
+                        if (position >= from && position < next) {
+                            out.add(values[index]);
+                        }
+                    }
+                    index = (index + 1) & mask;
+                }
+                return next;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Удаление с обратным сдвигом: элементы цепочки пробирования за дыркой сдвигаются
+         * назад, если дырка лежит между их идеальной позицией и текущей.
+         */
+        private void removeAt(int index) {
+            int mask = keys.length - 1;
+            int hole = index;
+            keys[hole] = EMPTY;
+            values[hole] = null;
+            size--;
+
+            int current = hole;
+            while (true) {
+                current = (current + 1) & mask;
+                long key = keys[current];
+                if (key == EMPTY) {
+                    return;
+                }
+                int ideal = slot(mix(key), keys.length);
+                if (((current - ideal) & mask) >= ((current - hole) & mask)) {
+                    keys[hole] = key;
+                    values[hole] = values[current];
+                    keys[current] = EMPTY;
+                    values[current] = null;
+                    hole = current;
+                }
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Link[] oldValues = values;
+            long[] newKeys = new long[oldKeys.length * 2];
+            Arrays.fill(newKeys, EMPTY);
+            Link[] newValues = new Link[newKeys.length];
+            int mask = newKeys.length - 1;
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                long key = oldKeys[i];
+                if (key != EMPTY) {
+                    int index = slot(mix(key), newKeys.length);
+                    while (newKeys[index] != EMPTY) {
+                        index = (index + 1) & mask;
+                    }
+                    newKeys[index] = key;
+                    newValues[index] = oldValues[i];
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+    }
+
+    /**
+     * Обход сегментов с {@code segment} по {@code lastSegment}: первый — с позиции
+     * {@code position}, последний — до позиции {@code lastEnd}.
+     */
+    private final class ValueSpliterator implements Spliterator<Link> {
+        private final List<Link> buffer = new ArrayList<>();
+        private int bufferIndex;
+        private int segment;
+        private long position;
+        private final int lastSegment;
+        private long lastEnd;
+        private long estimate;
+
+        ValueSpliterator(int segment, long position, int lastSegment, long lastEnd, long estimate) {
+            this.segment = segment;
+            this.position = position;
+            this.lastSegment = lastSegment;
+            this.lastEnd = lastEnd;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Link> action) {
+            while (bufferIndex == buffer.size()) {
+                if (segment > lastSegment) {
+                    return false;
+                }
+                buffer.clear();
+                bufferIndex = 0;
+                long end = segment == lastSegment ? lastEnd : POSITION_END;
+                position = segments[segment].collect(position, end, buffer);
+                if (position == end) {
+                    segment++;
+                    position = 0;
+                }
+            }
+            action.accept(buffer.get(bufferIndex++));
+            return true;
+        }
+
+        @Override
+        public Spliterator<Link> trySplit() {
+            if (bufferIndex < buffer.size() || segment > lastSegment) {
+                return null;
+            }
+            ValueSpliterator prefix;
+            if (segment < lastSegment) {
+                int middle = (segment + lastSegment + 1) >>> 1;
+                prefix = new ValueSpliterator(segment, position, middle - 1, POSITION_END, 0);
+                segment = middle;
+                position = 0;
+            } else if (lastEnd - position > POSITION_END / SCAN_CHUNK) {
+                long middle = position + (lastEnd - position) / 2;
+                prefix = new ValueSpliterator(segment, position, segment, middle, 0);
+                position = middle;
+            } else {
+                return null;
+            }
+            estimate -= estimate / 2;
+            prefix.estimate = estimate;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.CONCURRENT;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.urlshortener.repository;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Потокобезопасный вторичный индекс владелец → короткие коды.
+ * Пустые множества удаляются, поэтому размер индекса пропорционален числу владельцев
+ * с хотя бы одной ссылкой.
+ */
+class OwnerIndex {
+    private final Map<UUID, Set<String>> codesByOwner = new ConcurrentHashMap<>();
+
+    void add(UUID ownerId, String shortCode) {
+        codesByOwner.compute(
+                ownerId,
+                (owner, codes) -> {
+                    Set<String> result = codes != null ? codes : ConcurrentHashMap.newKeySet();
+                    result.add(shortCode);
+                    return result;
+                });
+    }
+
+    void remove(UUID ownerId, String shortCode) {
+        codesByOwner.computeIfPresent(
+                ownerId,
+                (owner, codes) -> {
+                    codes.remove(shortCode);
+                    return codes.isEmpty() ? null : codes;
+                });
+    }
+
+    /**
+     * Возвращает живое представление кодов владельца или пустое множество.
+     */
+    Set<String> codesOf(UUID ownerId) {
+        Set<String> codes = codesByOwner.get(ownerId);
+        return codes != null ? codes : Set.of();
+    }
+}
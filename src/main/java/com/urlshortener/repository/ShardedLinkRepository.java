@@ -0,0 +1,195 @@
+package com.urlshortener.repository;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.domain.ShortCodeCodec;
+import java.io.Closeable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * LinkRepository, разделенный на независимые секции по хешу короткого кода.
+ *
+ * <p>Каждая секция — отдельный {@link InMemoryLinkRepository} со своим основным индексом,
+ * индексом владельцев и индексом истечения, поэтому операции с разными кодами почти
+ * не конкурируют за общие структуры. Операции с одним кодом направляются в его секцию;
+ * поиск по владельцу, полный обход и очистка выполняются по всем секциям параллельно
+ * в собственном {@link ForkJoinPool}.
+ */
+public class ShardedLinkRepository implements LinkRepository, Closeable {
+    private final InMemoryLinkRepository[] shards;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param shardCount количество секций
+     */
+    public ShardedLinkRepository(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Количество секций должно быть положительным");
+        }
+        this.shards = new InMemoryLinkRepository[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new InMemoryLinkRepository();
+        }
+        this.pool =
+                new ForkJoinPool(Math.min(shardCount, Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Override
+    public void save(Link link) {
+        shardOf(link.getShortCode()).save(link);
+    }
+
+    @Override
+    public void saveAll(Collection<Link> links) {
+        if (links.size() < shards.length) {
+            LinkRepository.super.saveAll(links);
+            return;
+        }
+        List<List<Link>> byShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (Link link : links) {
+            byShard.get(shardIndex(link.getShortCode())).add(link);
+        }
+        pool.submit(
+                        () ->
+                                IntStream.range(0, shards.length)
+                                        .parallel()
+                                        .forEach(i -> shards[i].saveAll(byShard.get(i))))
+                .join();
+    }
+
+    @Override
+    public void recordUsage(Link link) {
+        shardOf(link.getShortCode()).recordUsage(link);
+    }
+
+    @Override
+    public Optional<Link> findByShortCode(String shortCode) {
+        return shardOf(shortCode).findByShortCode(shortCode);
+    }
+
+    @Override
+    public List<Link> findByOwnerId(UUID userId) {
+        return scan(shard -> shard.findByOwnerId(userId));
+    }
+
+    /**
+     * Ссылки пользователя лежат в разных секциях, поэтому опрашиваются все секции;
+     * в каждой поиск по отпечатку стоит O(1).
+     */
+    @Override
+    public Optional<Link> findByOwnerAndUrl(UUID ownerId, String originalUrl, int clickLimit) {
+        for (InMemoryLinkRepository shard : shards) {
+            Optional<Link> link = shard.findByOwnerAndUrl(ownerId, originalUrl, clickLimit);
+            if (link.isPresent()) {
+                return link;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public List<Link> findAll() {
+        return scan(InMemoryLinkRepository::findAll);
+    }
+
+    /**
+     * Обходы секций объединяются сбалансированным деревом, поэтому параллельный обход
+     * сначала делится по секциям, а затем внутри них.
+     */
+    @Override
+    public Spliterator<Link> scan(LinkFilter filter) {
+        return concat(0, shards.length, filter).spliterator();
+    }
+
+    @Override
+    public List<Link> findInactive(LocalDateTime now) {
+        return scan(shard -> shard.findInactive(now));
+    }
+
+    @Override
+    public int deleteInactive(LocalDateTime now) {
+        return pool.submit(
+                        () ->
+                                Arrays.stream(shards)
+                                        .parallel()
+                                        .mapToInt(shard -> shard.deleteInactive(now))
+                                        .sum())
+                .join();
+    }
+
+    @Override
+    public boolean deleteByShortCode(String shortCode) {
+        return shardOf(shortCode).deleteByShortCode(shortCode);
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        return shardOf(shortCode).existsByShortCode(shortCode);
+    }
+
+    /**
+     * Количество секций.
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<Link> scan(Function<InMemoryLinkRepository, List<Link>> query) {
+        if (shards.length == 1) {
+            return query.apply(shards[0]);
+        }
+        return pool.submit(
+                        () ->
+                                Arrays.stream(shards)
+                                        .parallel()
+                                        .map(query)
+                                        .flatMap(List::stream)
+                                        .collect(Collectors.toList()))
+                .join();
+    }
+
+    private Stream<Link> concat(int from, int to, LinkFilter filter) {
+        if (to - from == 1) {
+            return StreamSupport.stream(shards[from].scan(filter), false);
+        }
+        int middle = (from + to) >>> 1;
+        return Stream.concat(concat(from, middle, filter), concat(middle, to, filter));
+    }
+
+    private InMemoryLinkRepository shardOf(String shortCode) {
+        return shards[shardIndex(shortCode)];
+    }
+
+    private int shardIndex(String shortCode) {
+        long key = ShortCodeCodec.pack(shortCode);
+        long hash = key != ShortCodeCodec.NOT_PACKABLE ? key : shortCode.hashCode();
+        // Старшие биты произведения хорошо перемешаны даже для последовательных кодов
+        return (int) (((hash * 0x9E3779B97F4A7C15L) >>> 32) % shards.length);
+    }
+}
@@ -1,6 +1,7 @@
 package com.urlshortener.repository;
 
 import com.urlshortener.domain.User;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -27,4 +28,10 @@ public interface UserRepository {
      * @return true, если пользователь существует
      */
     boolean existsById(UUID id);
+
+    /**
+     * Находит всех пользователей.
+     * @return список всех пользователей
+     */
+    List<User> findAll();
 }
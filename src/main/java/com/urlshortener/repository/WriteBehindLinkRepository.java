@@ -0,0 +1,329 @@
+package com.urlshortener.repository;
+
+import com.urlshortener.domain.Link;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.StreamSupport;
+
+/**
+ * Декоратор LinkRepository с отложенной пакетной записью переходов.
+ *
+ * <p>{@link #recordUsage} не пишет в хранилище, а только отмечает ссылку как измененную.
+ * Накопленные изменения сбрасываются в нижележащий репозиторий одной пачкой через
+ * {@link LinkRepository#saveAll}, когда их число достигает {@code batchSize} или по таймеру.
+ *
+ * <p>Чтобы лимит переходов соблюдался точно, для каждого кода, прошедшего через декоратор,
+ * используется один и тот же экземпляр {@link Link}: атомарный {@link Link#use()} работает
+ * на общем счетчике, даже если хранилище при каждом чтении декодирует новый объект.
+ * Экземпляр вытесняется после удаления ссылки или после записи ее неактивного состояния —
+ * дальнейшие переходы по ней невозможны, так что копия из хранилища уже согласована.
+ * Загрузка экземпляра из хранилища, полная запись и удаление выполняются под блокировкой
+ * полосы кода, поэтому чтение, начатое до удаления, не вернет удаленную ссылку
+ * в резидентные и не воскресит ее при сбросе.
+ *
+ * <p>Резидентные экземпляры без переходов в течение целого периода сброса вытесняются
+ * по таймеру: их состояние уже записано, и следующее чтение снова загрузит ссылку
+ * из хранилища. Так число резидентных ссылок ограничено недавно использованными.
+ * В очередь записи попадает только резидентный экземпляр: переход по вытесненному
+ * экземпляру, который вызывающий успел прочитать, повторяется на резидентном.
+ */
+public class WriteBehindLinkRepository implements LinkRepository, Closeable {
+    private static final int STRIPES = 64;
+
+    private final LinkRepository delegate;
+    private final int batchSize;
+    private final Map<String, Link> resident = new ConcurrentHashMap<>();
+    private final Map<String, Link> dirty = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong flushedBatches = new AtomicLong();
+    private final ScheduledExecutorService flusher;
+    private final Object[] stripes = new Object[STRIPES];
+    /**
+     * Резидентные ссылки, чистые на момент прошлого обхода: код → счетчик переходов.
+     * Изменяется только под {@code flushLock}.
+     */
+    private Map<String, Integer> idle = Map.of();
+
+    /**
+     * @param delegate репозиторий, в который сбрасываются изменения
+     * @param batchSize число измененных ссылок, при котором запускается сброс
+     * @param flushIntervalMillis период сброса по таймеру
+     */
+    public WriteBehindLinkRepository(
+            LinkRepository delegate, int batchSize, long flushIntervalMillis) {
+        if (batchSize <= 0 || flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException(
+                    "Размер пачки и интервал сброса должны быть положительными");
+        }
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        this.flusher =
+                Executors.newSingleThreadScheduledExecutor(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "LinkWriteBehind");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        flusher.scheduleWithFixedDelay(
+                () -> {
+                    flushQuietly();
+                    evictIdle();
+                },
+                flushIntervalMillis,
+                flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Полная запись выполняется сразу. Блокировка сброса не дает пачке, собранной до вызова,
+     * перезаписать новое состояние устаревшим.
+     */
+    @Override
+    public void save(Link link) {
+        String code = link.getShortCode();
+        synchronized (flushLock) {
+            synchronized (stripe(code)) {
+                dirty.remove(code);
+                delegate.save(link);
+                resident.replace(code, link);
+            }
+        }
+    }
+
+    @Override
+    public void recordUsage(Link link) {
+        String code = link.getShortCode();
+        Link current = resident.get(code);
+        if (current != link) {
+            current = transferUsage(link);
+            if (current == null) {
+                return;
+            }
+        }
+        dirty.put(code, current);
+        if (dirty.size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(
+                    () -> {
+                        flushScheduled.set(false);
+                        flushQuietly();
+                    });
+        }
+    }
+
+    @Override
+    public Optional<Link> findByShortCode(String shortCode) {
+        Link link = resident.get(shortCode);
+        return Optional.ofNullable(link != null ? link : load(shortCode));
+    }
+
+    @Override
+    public List<Link> findByOwnerId(UUID userId) {
+        return withResidentState(delegate.findByOwnerId(userId));
+    }
+
+    @Override
+    public Optional<Link> findByOwnerAndUrl(UUID ownerId, String originalUrl, int clickLimit) {
+        return delegate.findByOwnerAndUrl(ownerId, originalUrl, clickLimit)
+                .map(link -> resident.getOrDefault(link.getShortCode(), link));
+    }
+
+    @Override
+    public List<Link> findAll() {
+        return withResidentState(delegate.findAll());
+    }
+
+    /**
+     * Ссылки хранилища заменяются резидентными экземплярами и проверяются повторно:
+     * несброшенные переходы могли сделать ссылку неактивной.
+     */
+    @Override
+    public Spliterator<Link> scan(LinkFilter filter) {
+        return StreamSupport.stream(delegate.scan(filter), false)
+                .map(link -> resident.getOrDefault(link.getShortCode(), link))
+                .filter(filter::matches)
+                .spliterator();
+    }
+
+    @Override
+    public List<Link> findInactive(LocalDateTime now) {
+        // Исчерпание лимита видно хранилищу только после сброса
+        flush();
+        return withResidentState(delegate.findInactive(now));
+    }
+
+    @Override
+    public boolean deleteByShortCode(String shortCode) {
+        synchronized (flushLock) {
+            synchronized (stripe(shortCode)) {
+                dirty.remove(shortCode);
+                boolean wasResident = resident.remove(shortCode) != null;
+                return delegate.deleteByShortCode(shortCode) || wasResident;
+            }
+        }
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        return resident.containsKey(shortCode) || delegate.existsByShortCode(shortCode);
+    }
+
+    /**
+     * Синхронно записывает все накопленные изменения одной пачкой.
+     */
+    @Override
+    public void flush() {
+        synchronized (flushLock) {
+            if (dirty.isEmpty()) {
+                return;
+            }
+            List<Link> batch = new ArrayList<>(dirty.size());
+            for (String code : dirty.keySet()) {
+                // Переход после удаления из dirty снова пометит ссылку и попадет в следующую пачку
+                Link link = dirty.remove(code);
+                // Ссылка, удаленная или замененная после перехода, не должна воскреснуть
+                if (link != null && resident.get(code) == link) {
+                    batch.add(link);
+                }
+            }
+            delegate.saveAll(batch);
+            flushedBatches.incrementAndGet();
+
+            for (Link link : batch) {
+                if (link.getRemainingClicks() == 0 && !dirty.containsKey(link.getShortCode())) {
+                    resident.remove(link.getShortCode(), link);
+                }
+            }
+        }
+    }
+
+    /**
+     * Количество ссылок, ожидающих записи.
+     */
+    public int pendingCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Количество записанных пачек.
+     */
+    public long flushedBatchCount() {
+        return flushedBatches.get();
+    }
+
+    /**
+     * Количество резидентных ссылок.
+     */
+    public int residentCount() {
+        return resident.size();
+    }
+
+    /**
+     * Вытесняет резидентные ссылки, которые были чистыми при прошлом обходе и с тех пор
+     * не получили переходов, и запоминает остальные чистые ссылки для следующего обхода.
+     */
+    void evictIdle() {
+        synchronized (flushLock) {
+            Map<String, Integer> next = new HashMap<>();
+            for (Map.Entry<String, Link> entry : resident.entrySet()) {
+                String code = entry.getKey();
+                Link link = entry.getValue();
+                if (dirty.containsKey(code)) {
+                    continue;
+                }
+                Integer seen = idle.get(code);
+                if (seen != null && seen == link.getClickCount()) {
+                    resident.remove(code, link);
+                } else {
+                    next.put(code, link.getClickCount());
+                }
+            }
+            idle = next;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+    /**
+     * Возвращает резидентный экземпляр, загружая его из хранилища при необходимости,
+     * или null, если ссылки нет.
+     */
+    private Link load(String shortCode) {
+        synchronized (stripe(shortCode)) {
+            Link link = resident.get(shortCode);
+            if (link == null) {
+                link = delegate.findByShortCode(shortCode).orElse(null);
+                if (link != null) {
+                    resident.put(shortCode, link);
+                }
+            }
+            return link;
+        }
+    }
+
+    /**
+     * Повторяет на резидентном экземпляре переход, выполненный на экземпляре, вытесненном
+     * между чтением и переходом: каждый вызов {@link #recordUsage} соответствует одному
+     * успешному {@link Link#use()}. Сам вытесненный экземпляр в очередь не попадает —
+     * иначе он затер бы переходы резидентного или был бы пропущен сбросом.
+     *
+     * @return резидентный экземпляр для записи или null, если ссылка удалена либо
+     *     резидентный экземпляр уже исчерпал лимит
+     */
+    private Link transferUsage(Link link) {
+        Link current = load(link.getShortCode());
+        if (current == null) {
+            return null;
+        }
+        return current == link || current.use() ? current : null;
+    }
+
+    private Object stripe(String shortCode) {
+        return stripes[Math.floorMod(shortCode.hashCode(), STRIPES)];
+    }
+
+    private List<Link> withResidentState(List<Link> links) {
+        List<Link> result = new ArrayList<>(links.size());
+        for (Link link : links) {
+            result.add(resident.getOrDefault(link.getShortCode(), link));
+        }
+        return result;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Ошибка отложенной записи ссылок: " + e.getMessage());
+        }
+    }
+}
@@ -45,7 +45,7 @@ public class CleanupService {
     }
 
     /**
-     * Останавливает сервис очистки.
+     * Останавливает сервис очистки и сбрасывает отложенные изменения ссылок.
      */
     public void stop() {
         if (timer != null) {
@@ -53,6 +53,7 @@ public class CleanupService {
             timer = null;
             System.out.println("Сервис очистки остановлен");
         }
+        linkService.flushPendingUpdates();
     }
 
     /**
@@ -0,0 +1,91 @@
+package com.urlshortener.service;
+
+/**
+ * Обратимая ключевая перестановка чисел {@code [0, domain)}.
+ *
+ * <p>Сбалансированная сеть Фейстеля на 2·h битах, где 2<sup>2h</sup> — наименьшая четная
+ * степень двойки не меньше {@code domain}. Результаты, выходящие за {@code domain},
+ * повторно прогоняются через сеть (cycle walking): перестановка на большем множестве,
+ * ограниченная циклами, остается перестановкой на {@code [0, domain)}. Так как
+ * 2<sup>2h</sup> меньше 4·domain, в среднем требуется не больше четырех проходов.
+ */
+final class CodePermutation {
+    private static final int ROUNDS = 6;
+
+    private final long domain;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    CodePermutation(long domain, long key) {
+        if (domain < 2) {
+            throw new IllegalArgumentException("Размер области перестановки должен быть не меньше 2");
+        }
+        this.domain = domain;
+        int bits = Long.SIZE - Long.numberOfLeadingZeros(domain - 1);
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+        long state = key;
+        for (int i = 0; i < ROUNDS; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            roundKeys[i] = mix(state);
+        }
+    }
+
+    long permute(long value) {
+        checkRange(value);
+        long result = value;
+        do {
+            result = encrypt(result);
+        } while (result >= domain);
+        return result;
+    }
+
+    long inverse(long value) {
+        checkRange(value);
+        long result = value;
+        do {
+            result = decrypt(result);
+        } while (result >= domain);
+        return result;
+    }
+
+    private long encrypt(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (int i = 0; i < ROUNDS; i++) {
+            long next = left ^ round(right, i);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private long decrypt(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (int i = ROUNDS - 1; i >= 0; i--) {
+            long previous = right ^ round(left, i);
+            right = left;
+            left = previous;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private long round(long half, int i) {
+        return mix(half ^ roundKeys[i]) & halfMask;
+    }
+
+    private void checkRange(long value) {
+        if (value < 0 || value >= domain) {
+            throw new IllegalArgumentException("Значение вне области перестановки: " + value);
+        }
+    }
+
+    /** Финализатор SplitMix64. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
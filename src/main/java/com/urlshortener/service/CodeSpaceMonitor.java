@@ -0,0 +1,158 @@
+package com.urlshortener.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Следит за заполненностью пространства коротких кодов и выбирает длину новых кодов.
+ *
+ * <p>Каждая проверка кода на занятость — случайная выборка из пространства кодов своей
+ * длины, поэтому доля занятых кодов среди проверенных оценивает заполненность этого
+ * пространства. Оценка обновляется по окнам из {@link #WINDOW} проверок. Ожидаемое число
+ * проверок до свободного кода — {@code 1 / (1 - заполненность)}; когда оно для текущей
+ * длины превышает порог, новые коды начинают генерироваться на символ длиннее.
+ * Уже выданные коды остаются действительными, так что длина только растет.
+ *
+ * <p>Дополнительно ведется гистограмма числа повторных попыток при создании ссылки.
+ */
+public class CodeSpaceMonitor {
+    /** Число проверок, по которым оценивается заполненность. */
+    public static final int WINDOW = 256;
+    /** Последняя корзина гистограммы учитывает это и большее число повторов. */
+    public static final int MAX_RETRIES_BUCKET = 15;
+    public static final double DEFAULT_MAX_EXPECTED_PROBES = 2.0;
+
+    private static final long HIT = 1L << 32;
+    private static final long PROBES_MASK = HIT - 1;
+
+    private final int maxLength;
+    private final double maxExpectedProbes;
+    private final AtomicInteger currentLength;
+    /** Для каждой длины: занятые (старшие 32 бита) и все проверки (младшие) текущего окна. */
+    private final AtomicLongArray windows;
+    /** Для каждой длины: биты double с оценкой по последнему завершенному окну или -1. */
+    private final AtomicLongArray occupancy;
+    private final AtomicLongArray retries = new AtomicLongArray(MAX_RETRIES_BUCKET + 1);
+
+    /**
+     * @param initialLength начальная длина кода
+     * @param maxLength наибольшая длина кода
+     * @param maxExpectedProbes ожидаемое число проверок, при превышении которого
+     *     длина кода увеличивается
+     */
+    public CodeSpaceMonitor(int initialLength, int maxLength, double maxExpectedProbes) {
+        if (initialLength <= 0 || initialLength > maxLength) {
+            throw new IllegalArgumentException(
+                    "Длина кода должна быть в пределах (0, " + maxLength + "]");
+        }
+        if (maxExpectedProbes <= 1) {
+            throw new IllegalArgumentException(
+                    "Порог ожидаемого числа проверок должен быть больше 1");
+        }
+        this.maxLength = maxLength;
+        this.maxExpectedProbes = maxExpectedProbes;
+        this.currentLength = new AtomicInteger(initialLength);
+        this.windows = new AtomicLongArray(maxLength + 1);
+        this.occupancy = new AtomicLongArray(maxLength + 1);
+        for (int length = 0; length <= maxLength; length++) {
+            occupancy.set(length, Double.doubleToRawLongBits(-1));
+        }
+    }
+
+    /**
+     * Монитор, начинающий с длины кода генератора по умолчанию.
+     */
+    public static CodeSpaceMonitor forGenerator(
+            ShortCodeGenerator generator, double maxExpectedProbes) {
+        int maxLength = generator.maxCodeLength();
+        return new CodeSpaceMonitor(
+                Math.min(generator.getCodeLength(), maxLength), maxLength, maxExpectedProbes);
+    }
+
+    /**
+     * Длина, с которой следует начинать генерацию нового кода.
+     */
+    public int currentLength() {
+        return currentLength.get();
+    }
+
+    /**
+     * Наибольшая длина кода.
+     */
+    public int maxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Учитывает проверку кода на занятость.
+     *
+     * @param length длина проверенного кода
+     * @param occupied занят ли код
+     */
+    public void recordProbe(int length, boolean occupied) {
+        long window = windows.addAndGet(length, occupied ? HIT + 1 : 1);
+        if ((window & PROBES_MASK) != WINDOW) {
+            return;
+        }
+        // Окно завершил ровно один поток: он публикует оценку и начинает новое окно
+        windows.addAndGet(length, -window);
+        double ratio = (double) (window >>> 32) / WINDOW;
+        occupancy.set(length, Double.doubleToRawLongBits(ratio));
+        if (expectedProbes(ratio) > maxExpectedProbes) {
+            escalate(length);
+        }
+    }
+
+    /**
+     * Учитывает создание кода после указанного числа повторных попыток.
+     */
+    public void recordRetries(int count) {
+        retries.incrementAndGet(Math.min(count, MAX_RETRIES_BUCKET));
+    }
+
+    /**
+     * Переходит к следующей длине, если текущая все еще равна {@code length}. Вызывается
+     * только по оценке заполненности: неудача одного создания общую длину не меняет.
+     *
+     * @return длина, с которой следует продолжать
+     */
+    public int escalate(int length) {
+        if (length < maxLength) {
+            currentLength.compareAndSet(length, length + 1);
+        }
+        return Math.min(length + 1, maxLength);
+    }
+
+    /**
+     * Оценка доли занятых кодов указанной длины: по последнему завершенному окну,
+     * а до его завершения — по проверкам текущего окна.
+     */
+    public double occupancy(int length) {
+        double estimate = Double.longBitsToDouble(occupancy.get(length));
+        if (estimate >= 0) {
+            return estimate;
+        }
+        long window = windows.get(length);
+        long probes = window & PROBES_MASK;
+        return probes == 0 ? 0.0 : (double) (window >>> 32) / probes;
+    }
+
+    /**
+     * Ожидаемое число проверок до свободного кода указанной длины.
+     */
+    public double expectedProbes(int length) {
+        return expectedProbes(occupancy(length));
+    }
+
+    /**
+     * Сколько кодов создано после {@code retries} повторных попыток; последняя корзина
+     * учитывает {@link #MAX_RETRIES_BUCKET} и больше повторов.
+     */
+    public long retryCount(int retries) {
+        return this.retries.get(Math.min(retries, MAX_RETRIES_BUCKET));
+    }
+
+    private static double expectedProbes(double occupancy) {
+        return occupancy >= 1 ? Double.POSITIVE_INFINITY : 1 / (1 - occupancy);
+    }
+}
@@ -0,0 +1,23 @@
+package com.urlshortener.service;
+
+/**
+ * Источник блоков значений монотонного счетчика для генерации коротких кодов.
+ *
+ * <p>Каждый вызов {@link #allocate} резервирует непересекающийся диапазон; значения,
+ * выданные однажды, больше никогда не выдаются, даже если блок использован не целиком.
+ */
+public interface CounterBlockAllocator {
+    /**
+     * Резервирует блок значений.
+     *
+     * @param blockSize размер блока
+     * @return первое значение блока; блок — {@code [результат, результат + blockSize)}
+     */
+    long allocate(int blockSize);
+
+    /**
+     * Ключ перестановки, с которым значения счетчика превращаются в коды. Должен быть
+     * постоянным для всех блоков одного счетчика, иначе коды разных блоков могут совпасть.
+     */
+    long permutationKey();
+}
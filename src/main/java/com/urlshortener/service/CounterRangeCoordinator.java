@@ -0,0 +1,31 @@
+package com.urlshortener.service;
+
+/**
+ * Координатор, выдающий узлам непересекающиеся диапазоны общего счетчика.
+ *
+ * <p>Несколько экземпляров сервиса с общим пространством коротких кодов получают
+ * у координатора аренды диапазонов и генерируют коды из них без обращения к общему
+ * хранилищу. Выданный однажды диапазон больше никому не выдается, даже если узел
+ * использовал его не целиком, а все узлы используют один ключ перестановки, поэтому
+ * коды разных узлов не совпадают.
+ */
+public interface CounterRangeCoordinator {
+    /**
+     * Выдает узлу следующий свободный диапазон.
+     *
+     * @param nodeId идентификатор узла
+     * @param size размер диапазона
+     * @return аренда диапазона
+     */
+    Lease lease(String nodeId, int size);
+
+    /**
+     * Общий для всех узлов ключ перестановки значений счетчика в коды.
+     */
+    long permutationKey();
+
+    /**
+     * Диапазон {@code [start, end)}, выданный узлу.
+     */
+    record Lease(String nodeId, long start, long end) {}
+}
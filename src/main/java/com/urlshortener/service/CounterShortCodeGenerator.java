@@ -0,0 +1,90 @@
+package com.urlshortener.service;
+
+import com.urlshortener.domain.ShortCodeCodec;
+import java.util.UUID;
+
+/**
+ * Генератор коротких кодов на основе монотонного счетчика.
+ *
+ * <p>Значения счетчика берутся блоками из {@link CounterBlockAllocator}, проходят через
+ * ключевую перестановку {@link CodePermutation} пространства base62-кодов заданной длины
+ * и записываются в base62. Перестановка биективна, поэтому разные значения счетчика дают
+ * разные коды: коллизии невозможны, и проверять существование кода не нужно. Соседние
+ * значения счетчика дают несвязанные коды, так что по одному коду нельзя угадать другие.
+ *
+ * <p>Коды не зависят от URL и пользователя: повторное сокращение одного URL дает новый код.
+ */
+public class CounterShortCodeGenerator extends ShortCodeGenerator {
+    private final CounterBlockAllocator allocator;
+    private final int blockSize;
+    private final int codeLength;
+    private final long codeSpace;
+    private final CodePermutation permutation;
+    private long next;
+    private long blockEnd;
+
+    /**
+     * @param codeLength длина кода
+     * @param allocator источник блоков счетчика
+     * @param blockSize число значений, резервируемых за одно обращение к источнику
+     */
+    public CounterShortCodeGenerator(
+            int codeLength, CounterBlockAllocator allocator, int blockSize) {
+        super(codeLength);
+        if (codeLength > ShortCodeCodec.MAX_PACKED_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Длина кода не должна превышать " + ShortCodeCodec.MAX_PACKED_LENGTH);
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Размер блока должен быть положительным");
+        }
+        this.allocator = allocator;
+        this.blockSize = blockSize;
+        this.codeLength = codeLength;
+        long space = 1;
+        for (int i = 0; i < codeLength; i++) {
+            space *= ShortCodeCodec.BASE;
+        }
+        this.codeSpace = space;
+        this.permutation = new CodePermutation(codeSpace, allocator.permutationKey());
+    }
+
+    @Override
+    public String generate(String originalUrl, UUID userId) {
+        return ShortCodeCodec.encode(permutation.permute(nextCounter()), codeLength);
+    }
+
+    /**
+     * Счетчик переставляется в пространстве кодов одной длины, поэтому другая длина
+     * не поддерживается.
+     */
+    @Override
+    public String generate(String originalUrl, UUID userId, int length) {
+        if (length != codeLength) {
+            throw new IllegalArgumentException("Недопустимая длина кода: " + length);
+        }
+        return generate(originalUrl, userId);
+    }
+
+    @Override
+    public int maxCodeLength() {
+        return codeLength;
+    }
+
+    @Override
+    public boolean isCollisionFree() {
+        return true;
+    }
+
+    private synchronized long nextCounter() {
+        if (next == blockEnd) {
+            next = allocator.allocate(blockSize);
+            blockEnd = next + blockSize;
+        }
+        if (next >= codeSpace) {
+            throw new IllegalStateException(
+                    "Исчерпано пространство коротких кодов длины " + codeLength);
+        }
+        return next++;
+    }
+}
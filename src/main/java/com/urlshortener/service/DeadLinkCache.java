@@ -0,0 +1,215 @@
+package com.urlshortener.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограниченный кеш отрицательных ответов: несуществующих коротких кодов и «надгробий»
+ * ссылок, переход по которым уже невозможен.
+ *
+ * <p>Надгробие хранит {@link LinkStatus} отказа и готовое исключение без стека вызовов,
+ * поэтому повторный запрос мертвого кода не обращается к хранилищу и не создает объектов.
+ * Кеш прямого отображения: каждый код претендует на одно место, новое надгробие вытесняет
+ * прежнее, так что размер ограничен, а поиск не блокируется. Надгробия неизменяемы
+ * и публикуются через final-поля.
+ *
+ * <p>Создание ссылки и удаление вытесняют надгробие кода и увеличивают версию его места.
+ * Отметка {@link #stamp(String)}, взятая до поиска в хранилище, не дает записать устаревший
+ * отрицательный ответ, если код был создан во время поиска; создание других кодов, в том
+ * числе массовое при импорте, затрагивает только их места и не мешает кешировать остальные.
+ * Изменения, которых этот процесс не видит (ссылки,
+ * созданные другим узлом с общим пространством кодов, очистка истекших ссылок),
+ * учитываются не позже чем через время жизни надгробия.
+ */
+final class DeadLinkCache {
+    // Сообщения не зависят от ссылки, поэтому исключения создаются один раз
+    private static final RuntimeException EXPIRED =
+            new GoneException(LinkStatus.EXPIRED.getMessage());
+    private static final RuntimeException LIMIT_REACHED =
+            new GoneException(LinkStatus.LIMIT_REACHED.getMessage());
+    private static final RuntimeException INACTIVE =
+            new GoneException(LinkStatus.INACTIVE.getMessage());
+
+    private final AtomicReferenceArray<Tombstone> slots;
+    private final AtomicLongArray versions;
+    private final int mask;
+    private final long ttlMillis;
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Отрицательный ответ для кода.
+     *
+     * @param status исход перехода, отличный от {@link LinkStatus#OK}
+     * @param failure исключение для API, сообщающего об отказе исключениями
+     */
+    record Tombstone(
+            String shortCode, LinkStatus status, RuntimeException failure, long expiresAtMillis) {
+
+        boolean missing() {
+            return status == LinkStatus.NOT_FOUND;
+        }
+    }
+
+    /**
+     * @param size число мест; 0 отключает кеш
+     * @param ttlMillis время жизни надгробия
+     */
+    DeadLinkCache(int size, long ttlMillis) {
+        if (size < 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException(
+                    "Размер и время жизни кеша отрицательных ответов не могут быть отрицательными");
+        }
+        int length = size == 0 ? 0 : Integer.highestOneBit(Math.min(size, 1 << 30) * 2 - 1);
+        this.slots = new AtomicReferenceArray<>(length);
+        this.versions = new AtomicLongArray(length);
+        this.mask = length - 1;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Действующее надгробие кода или null.
+     */
+    Tombstone get(String shortCode) {
+        if (slots.length() == 0) {
+            return null;
+        }
+        Tombstone tombstone = slots.get(index(shortCode));
+        if (tombstone == null
+                || !tombstone.shortCode.equals(shortCode)
+                || System.currentTimeMillis() > tombstone.expiresAtMillis) {
+            return null;
+        }
+        hits.increment();
+        return tombstone;
+    }
+
+    /**
+     * Отметка для {@link #remember}: версия места кода, берется до поиска кода в хранилище.
+     */
+    long stamp(String shortCode) {
+        return slots.length() == 0 ? 0 : versions.get(index(shortCode));
+    }
+
+    /**
+     * Запоминает отрицательный ответ, если после {@code stamp} место кода не вытеснялось.
+     * Версия проверяется повторно после записи: если вытеснение пришлось между проверкой
+     * и записью, надгробие снимается.
+     *
+     * @return {@code status} для немедленного возврата
+     */
+    LinkStatus remember(String shortCode, LinkStatus status, long stamp) {
+        if (slots.length() == 0) {
+            return status;
+        }
+        int index = index(shortCode);
+        if (versions.get(index) == stamp) {
+            Tombstone tombstone =
+                    new Tombstone(
+                            shortCode,
+                            status,
+                            newFailure(status, shortCode),
+                            System.currentTimeMillis() + ttlMillis);
+            slots.set(index, tombstone);
+            if (versions.get(index) != stamp) {
+                slots.compareAndSet(index, tombstone, null);
+            }
+        }
+        return status;
+    }
+
+    /**
+     * Вытесняет надгробие кода: ссылка создана, изменена или удалена.
+     */
+    void invalidate(String shortCode) {
+        if (slots.length() == 0) {
+            return;
+        }
+        int index = index(shortCode);
+        versions.incrementAndGet(index);
+        Tombstone tombstone = slots.get(index);
+        if (tombstone != null && tombstone.shortCode.equals(shortCode)) {
+            slots.compareAndSet(index, tombstone, null);
+        }
+    }
+
+    /**
+     * Количество запросов, на которые ответило надгробие.
+     */
+    long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Исключение для отказа: запомненное надгробием кода, если оно есть, чтобы повторные
+     * отказы выбрасывали один и тот же экземпляр. Не учитывается как попадание.
+     */
+    RuntimeException failure(String shortCode, LinkStatus status) {
+        if (slots.length() > 0) {
+            Tombstone tombstone = slots.get(index(shortCode));
+            if (tombstone != null
+                    && tombstone.status == status
+                    && tombstone.shortCode.equals(shortCode)) {
+                return tombstone.failure;
+            }
+        }
+        return newFailure(status, shortCode);
+    }
+
+    /**
+     * Исключение без стека вызовов, соответствующее отказу.
+     */
+    private static RuntimeException newFailure(LinkStatus status, String shortCode) {
+        switch (status) {
+            case NOT_FOUND:
+                return new NotFoundException(status.getMessage() + ": " + shortCode);
+            case EXPIRED:
+                return EXPIRED;
+            case LIMIT_REACHED:
+                return LIMIT_REACHED;
+            case INACTIVE:
+                return INACTIVE;
+            default:
+                throw new IllegalArgumentException("Переход выполнен, отказа нет: " + shortCode);
+        }
+    }
+
+    private int index(String shortCode) {
+        int hash = shortCode.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Ссылка не найдена. Исключение без стека вызовов: его создание не обходит стек,
+     * а надгробие выбрасывает один и тот же экземпляр.
+     */
+    static final class NotFoundException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        NotFoundException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * Ссылка существует, но переход по ней невозможен. Без стека вызовов, как
+     * {@link NotFoundException}.
+     */
+    static final class GoneException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        GoneException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
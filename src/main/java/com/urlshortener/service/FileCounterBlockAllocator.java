@@ -0,0 +1,88 @@
+package com.urlshortener.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+
+/**
+ * Счетчик, граница которого хранится в файле.
+ *
+ * <p>Файл содержит ключ перестановки и первое еще не выданное значение. Перед выдачей
+ * блока новая граница записывается во временный файл, синхронизируется с диском и атомарно
+ * заменяет прежний, поэтому после перезапуска или сбоя значения не выдаются повторно.
+ * Неиспользованный остаток блока при перезапуске теряется.
+ */
+public class FileCounterBlockAllocator implements CounterBlockAllocator {
+    private static final int FILE_SIZE = 16;
+
+    private final Path file;
+    private final long permutationKey;
+    private long next;
+
+    /**
+     * Открывает файл счетчика или создает его со случайным ключом перестановки.
+     */
+    public FileCounterBlockAllocator(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            ByteBuffer state = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (state.limit() != FILE_SIZE) {
+                throw new IOException("Поврежден файл счетчика: " + file);
+            }
+            this.permutationKey = state.getLong(0);
+            this.next = state.getLong(8);
+        } else {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.permutationKey = new SecureRandom().nextLong();
+            this.next = 0;
+            write(next);
+        }
+    }
+
+    @Override
+    public synchronized long allocate(int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Размер блока должен быть положительным");
+        }
+        long start = next;
+        try {
+            write(start + blockSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось зарезервировать блок счетчика", e);
+        }
+        next = start + blockSize;
+        return start;
+    }
+
+    @Override
+    public long permutationKey() {
+        return permutationKey;
+    }
+
+    private void write(long boundary) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer state = ByteBuffer.allocate(FILE_SIZE).putLong(permutationKey).putLong(boundary);
+        state.flip();
+        try (FileChannel channel =
+                FileChannel.open(
+                        temporary,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (state.hasRemaining()) {
+                channel.write(state);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
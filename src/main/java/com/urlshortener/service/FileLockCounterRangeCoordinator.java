@@ -0,0 +1,110 @@
+package com.urlshortener.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+
+/**
+ * Координатор на общем файле для нескольких процессов на одной машине; локальная замена
+ * сетевого координатора.
+ *
+ * <p>Файл содержит ключ перестановки и первое еще не выданное значение счетчика. Каждая
+ * аренда читает и сдвигает границу под исключительной блокировкой файла и синхронизирует
+ * его с диском до выдачи диапазона, поэтому процессы, открывшие файл независимо, получают
+ * непересекающиеся диапазоны, а после сбоя значения не выдаются повторно.
+ */
+public class FileLockCounterRangeCoordinator implements CounterRangeCoordinator {
+    private static final int FILE_SIZE = 16;
+    /** Блокировки файлов принадлежат процессу, поэтому потоки одного процесса ждут здесь. */
+    private static final Object PROCESS_LOCK = new Object();
+
+    private final Path file;
+    private final long permutationKey;
+
+    /**
+     * Открывает файл координатора или создает его со случайным ключом перестановки.
+     */
+    public FileLockCounterRangeCoordinator(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.permutationKey = locked(state -> state.getLong(0));
+    }
+
+    @Override
+    public Lease lease(String nodeId, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Размер диапазона должен быть положительным");
+        }
+        try {
+            long start =
+                    locked(
+                            state -> {
+                                long boundary = state.getLong(8);
+                                state.putLong(8, boundary + size);
+                                return boundary;
+                            });
+            return new Lease(nodeId, start, start + size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось арендовать диапазон счетчика", e);
+        }
+    }
+
+    @Override
+    public long permutationKey() {
+        return permutationKey;
+    }
+
+    /**
+     * Выполняет действие над состоянием файла под блокировкой и записывает состояние
+     * обратно. Пустой файл инициализируется случайным ключом и нулевой границей.
+     */
+    private long locked(StateAction action) throws IOException {
+        synchronized (PROCESS_LOCK) {
+            try (FileChannel channel =
+                    FileChannel.open(
+                            file,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.READ,
+                            StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    ByteBuffer state = ByteBuffer.allocate(FILE_SIZE);
+                    long size = channel.size();
+                    if (size == 0) {
+                        state.putLong(0, new SecureRandom().nextLong()).putLong(8, 0);
+                    } else if (size == FILE_SIZE) {
+                        while (state.hasRemaining()) {
+                            if (channel.read(state, state.position()) < 0) {
+                                throw new IOException("Поврежден файл координатора: " + file);
+                            }
+                        }
+                    } else {
+                        throw new IOException("Поврежден файл координатора: " + file);
+                    }
+                    long result = action.apply(state);
+                    state.clear();
+                    while (state.hasRemaining()) {
+                        channel.write(state, state.position());
+                    }
+                    channel.force(true);
+                    return result;
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    private interface StateAction {
+        long apply(ByteBuffer state);
+    }
+}
@@ -0,0 +1,31 @@
+package com.urlshortener.service;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчик в памяти со случайным ключом перестановки; подходит для хранилища ссылок
+ * в памяти, которое тоже не переживает перезапуск.
+ */
+public class InMemoryCounterBlockAllocator implements CounterBlockAllocator {
+    private final AtomicLong next = new AtomicLong();
+    private final long permutationKey;
+
+    public InMemoryCounterBlockAllocator() {
+        this(new SecureRandom().nextLong());
+    }
+
+    public InMemoryCounterBlockAllocator(long permutationKey) {
+        this.permutationKey = permutationKey;
+    }
+
+    @Override
+    public long allocate(int blockSize) {
+        return next.getAndAdd(blockSize);
+    }
+
+    @Override
+    public long permutationKey() {
+        return permutationKey;
+    }
+}
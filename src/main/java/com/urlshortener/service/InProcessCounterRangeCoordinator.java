@@ -0,0 +1,48 @@
+package com.urlshortener.service;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Координатор в памяти для узлов, работающих в одном процессе.
+ *
+ * <p>Запоминает последнюю аренду каждого узла, чтобы ее можно было посмотреть
+ * при диагностике.
+ */
+public class InProcessCounterRangeCoordinator implements CounterRangeCoordinator {
+    private final long permutationKey;
+    private final Map<String, Lease> currentLeases = new ConcurrentHashMap<>();
+    private long next;
+
+    public InProcessCounterRangeCoordinator() {
+        this(new SecureRandom().nextLong());
+    }
+
+    public InProcessCounterRangeCoordinator(long permutationKey) {
+        this.permutationKey = permutationKey;
+    }
+
+    @Override
+    public synchronized Lease lease(String nodeId, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Размер диапазона должен быть положительным");
+        }
+        Lease lease = new Lease(nodeId, next, next + size);
+        next = lease.end();
+        currentLeases.put(nodeId, lease);
+        return lease;
+    }
+
+    @Override
+    public long permutationKey() {
+        return permutationKey;
+    }
+
+    /**
+     * Последние аренды узлов.
+     */
+    public Map<String, Lease> currentLeases() {
+        return Map.copyOf(currentLeases);
+    }
+}
@@ -0,0 +1,212 @@
+package com.urlshortener.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Разбор и запись строк NDJSON — по одному плоскому JSON-объекту в строке.
+ *
+ * <p>Поддерживаются только значения, встречающиеся в записях импорта: строки, целые
+ * числа, {@code true}, {@code false} и {@code null}. Вложенные объекты и массивы
+ * отклоняются.
+ */
+final class JsonLines {
+    private JsonLines() {}
+
+    /**
+     * Разбирает строку с одним JSON-объектом.
+     *
+     * @return поля объекта; строки — {@link String}, числа — {@link Long}
+     * @throws IllegalArgumentException если строка не является плоским JSON-объектом
+     */
+    static Map<String, Object> parseObject(String line) {
+        Parser parser = new Parser(line);
+        Map<String, Object> fields = new HashMap<>();
+        parser.expect('{');
+        if (!parser.consume('}')) {
+            do {
+                String name = parser.string();
+                parser.expect(':');
+                fields.put(name, parser.value());
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.skipWhitespace();
+        if (parser.pos != line.length()) {
+            throw parser.error("лишние символы после объекта");
+        }
+        return fields;
+    }
+
+    /**
+     * Дописывает строку в кавычках, экранируя кавычки, обратную косую черту
+     * и управляющие символы.
+     */
+    static StringBuilder appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Object value() {
+            skipWhitespace();
+            if (pos >= text.length()) {
+                throw error("ожидалось значение");
+            }
+            char c = text.charAt(pos);
+            if (c == '"') {
+                return string();
+            }
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                return number();
+            }
+            if (text.startsWith("true", pos)) {
+                pos += 4;
+                return Boolean.TRUE;
+            }
+            if (text.startsWith("false", pos)) {
+                pos += 5;
+                return Boolean.FALSE;
+            }
+            if (text.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            throw error("неподдерживаемое значение");
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw error("незакрытая строка");
+                }
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    throw error("незакрытая строка");
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        value.append(escaped);
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("неполная последовательность \\u");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("неверная последовательность \\u");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        throw error("неверная escape-последовательность");
+                }
+            }
+        }
+
+        Long number() {
+            int start = pos;
+            if (text.charAt(pos) == '-') {
+                pos++;
+            }
+            while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                pos++;
+            }
+            if (pos < text.length() && ".eE".indexOf(text.charAt(pos)) >= 0) {
+                throw error("ожидалось целое число");
+            }
+            try {
+                return Long.parseLong(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("неверное число");
+            }
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw error("ожидался символ '" + c + "'");
+            }
+        }
+
+        boolean consume(char c) {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(
+                    "Неверный JSON в позиции " + (pos + 1) + ": " + message);
+        }
+    }
+}
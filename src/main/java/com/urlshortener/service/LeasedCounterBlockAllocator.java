@@ -0,0 +1,53 @@
+package com.urlshortener.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Источник блоков счетчика, арендующий их у {@link CounterRangeCoordinator}.
+ *
+ * <p>Позволяет нескольким узлам использовать {@link CounterShortCodeGenerator} с общим
+ * пространством кодов: блок каждого узла — аренда, не пересекающаяся с арендами других
+ * узлов, поэтому коды узлов не совпадают и создание ссылки не проверяет общее хранилище.
+ */
+public class LeasedCounterBlockAllocator implements CounterBlockAllocator {
+    private final CounterRangeCoordinator coordinator;
+    private final String nodeId;
+    private final AtomicLong leaseCount = new AtomicLong();
+    private volatile CounterRangeCoordinator.Lease currentLease;
+
+    /**
+     * @param coordinator координатор диапазонов
+     * @param nodeId идентификатор этого узла
+     */
+    public LeasedCounterBlockAllocator(CounterRangeCoordinator coordinator, String nodeId) {
+        this.coordinator = coordinator;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public long allocate(int blockSize) {
+        CounterRangeCoordinator.Lease lease = coordinator.lease(nodeId, blockSize);
+        currentLease = lease;
+        leaseCount.incrementAndGet();
+        return lease.start();
+    }
+
+    @Override
+    public long permutationKey() {
+        return coordinator.permutationKey();
+    }
+
+    /**
+     * Последняя полученная аренда или null, если аренд еще не было.
+     */
+    public CounterRangeCoordinator.Lease currentLease() {
+        return currentLease;
+    }
+
+    /**
+     * Число полученных аренд.
+     */
+    public long leaseCount() {
+        return leaseCount.get();
+    }
+}
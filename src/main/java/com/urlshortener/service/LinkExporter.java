@@ -0,0 +1,275 @@
+package com.urlshortener.service;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.repository.LinkFilter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Потоковая выгрузка ссылок в CSV или NDJSON.
+ *
+ * <p>Ссылки читаются через {@link LinkService#scanLinks}, форматируются в буфер размером
+ * {@link #CHUNK_CHARS} и записываются порциями, поэтому расход памяти не зависит от числа
+ * ссылок. При параллельной выгрузке обход делится на части ({@link Spliterator#trySplit()}),
+ * которые форматируются в общем пуле {@link ForkJoinPool}; готовые порции записываются
+ * под блокировкой получателя, так что строки разных частей не перемешиваются, но их порядок
+ * не определен.
+ */
+public class LinkExporter {
+    private static final int CHUNK_CHARS = 64 * 1024;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final String CSV_HEADER =
+            "shortCode,originalUrl,ownerId,createdAt,expiresAt,clickCount,clickLimit,active\n";
+
+    /**
+     * Формат выгрузки.
+     */
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        /**
+         * Формат по имени без учета регистра.
+         *
+         * @throws IllegalArgumentException если формат неизвестен
+         */
+        public static Format fromName(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Неизвестный формат выгрузки: " + name);
+            }
+        }
+
+        /**
+         * Формат по расширению файла: {@code .csv} — CSV, иначе NDJSON.
+         */
+        public static Format forFile(String fileName) {
+            return fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : NDJSON;
+        }
+    }
+
+    private final LinkService linkService;
+
+    public LinkExporter(LinkService linkService) {
+        this.linkService = linkService;
+    }
+
+    /**
+     * Выгружает ссылки, удовлетворяющие фильтру.
+     *
+     * @param filter условия выборки
+     * @param format формат
+     * @param out получатель; не закрывается
+     * @param parallel форматировать ли части обхода параллельно
+     * @return число выгруженных ссылок
+     */
+    public long export(LinkFilter filter, Format format, Writer out, boolean parallel)
+            throws IOException {
+        if (format == Format.CSV) {
+            out.write(CSV_HEADER);
+        }
+        Spliterator<Link> links = linkService.scanLinks(filter);
+        try {
+            if (!parallel) {
+                return writePartition(links, format, out);
+            }
+            int target = ForkJoinPool.getCommonPoolParallelism() * 4;
+            return split(links, target).parallelStream()
+                    .mapToLong(partition -> writePartition(partition, format, out))
+                    .sum();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Делит обход на части, пока их меньше {@code target} и обход делится.
+     */
+    private static List<Spliterator<Link>> split(Spliterator<Link> root, int target) {
+        List<Spliterator<Link>> partitions = new ArrayList<>();
+        Deque<Spliterator<Link>> pending = new ArrayDeque<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Spliterator<Link> current = pending.poll();
+            Spliterator<Link> prefix =
+                    partitions.size() + pending.size() + 1 < target ? current.trySplit() : null;
+            if (prefix == null) {
+                partitions.add(current);
+            } else {
+                pending.add(prefix);
+                pending.add(current);
+            }
+        }
+        return partitions;
+    }
+
+    private static long writePartition(Spliterator<Link> links, Format format, Writer out) {
+        StringBuilder chunk = new StringBuilder(CHUNK_CHARS + 1024);
+        char[] buffer = new char[CHUNK_CHARS + 1024];
+        long[] count = new long[1];
+        links.forEachRemaining(
+                link -> {
+                    if (format == Format.CSV) {
+                        appendCsv(chunk, link);
+                    } else {
+                        appendJson(chunk, link);
+                    }
+                    count[0]++;
+                    if (chunk.length() >= CHUNK_CHARS) {
+                        write(out, chunk, buffer);
+                    }
+                });
+        write(out, chunk, buffer);
+        return count[0];
+    }
+
+    /**
+     * Записывает порцию через массив символов: {@link Writer#append(CharSequence)} копирует
+     * ее в новую строку.
+     */
+    private static void write(Writer out, StringBuilder chunk, char[] buffer) {
+        int length = chunk.length();
+        if (length == 0) {
+            return;
+        }
+        if (buffer.length < length) {
+            buffer = new char[length];
+        }
+        chunk.getChars(0, length, buffer, 0);
+        try {
+            synchronized (out) {
+                out.write(buffer, 0, length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        chunk.setLength(0);
+    }
+
+    private static void appendCsv(StringBuilder out, Link link) {
+        out.append(link.getShortCode()).append(',');
+        appendCsvField(out, link.getOriginalUrl());
+        appendUuid(out.append(','), link.getOwnerId());
+        appendDateTime(out.append(','), link.getCreatedAt());
+        appendDateTime(out.append(','), link.getExpiresAt());
+        out.append(',')
+                .append(link.getClickCount())
+                .append(',')
+                .append(link.getClickLimit())
+                .append(',')
+                .append(link.isActive())
+                .append('\n');
+    }
+
+    private static void appendJson(StringBuilder out, Link link) {
+        JsonLines.appendString(out.append("{\"shortCode\":"), link.getShortCode());
+        JsonLines.appendString(out.append(",\"originalUrl\":"), link.getOriginalUrl());
+        appendUuid(out.append(",\"ownerId\":\""), link.getOwnerId());
+        appendDateTime(out.append("\",\"createdAt\":\""), link.getCreatedAt());
+        appendDateTime(out.append("\",\"expiresAt\":\""), link.getExpiresAt());
+        out.append("\",\"clickCount\":")
+                .append(link.getClickCount())
+                .append(",\"clickLimit\":")
+                .append(link.getClickLimit())
+                .append(",\"active\":")
+                .append(link.isActive())
+                .append("}\n");
+    }
+
+    /**
+     * Дописывает {@code value.toString()} без промежуточных строк: при выгрузке это
+     * основной источник выделений памяти на ссылку.
+     */
+    static void appendDateTime(StringBuilder out, LocalDateTime value) {
+        int year = value.getYear();
+        if (year < 1000 || year > 9999) {
+            out.append(value);
+            return;
+        }
+        out.append(year).append('-');
+        appendPadded(out, value.getMonthValue(), 2);
+        appendPadded(out.append('-'), value.getDayOfMonth(), 2);
+        appendPadded(out.append('T'), value.getHour(), 2);
+        appendPadded(out.append(':'), value.getMinute(), 2);
+        int second = value.getSecond();
+        int nano = value.getNano();
+        if (second == 0 && nano == 0) {
+            return;
+        }
+        appendPadded(out.append(':'), second, 2);
+        if (nano == 0) {
+            return;
+        }
+        out.append('.');
+        if (nano % 1_000_000 == 0) {
+            appendPadded(out, nano / 1_000_000, 3);
+        } else if (nano % 1000 == 0) {
+            appendPadded(out, nano / 1000, 6);
+        } else {
+            appendPadded(out, nano, 9);
+        }
+    }
+
+    /**
+     * Дописывает {@code value.toString()} без промежуточных строк.
+     */
+    static void appendUuid(StringBuilder out, UUID value) {
+        long most = value.getMostSignificantBits();
+        long least = value.getLeastSignificantBits();
+        appendHex(out, most >>> 32, 8);
+        appendHex(out.append('-'), most >>> 16, 4);
+        appendHex(out.append('-'), most, 4);
+        appendHex(out.append('-'), least >>> 48, 4);
+        appendHex(out.append('-'), least, 12);
+    }
+
+    private static void appendPadded(StringBuilder out, int value, int digits) {
+        for (int bound = 10; bound < 1_000_000_000 && --digits > 0; bound *= 10) {
+            if (value < bound) {
+                out.append('0');
+            }
+        }
+        out.append(value);
+    }
+
+    private static void appendHex(StringBuilder out, long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            out.append(HEX_DIGITS[(int) (value >>> shift) & 0xF]);
+        }
+    }
+
+    /**
+     * Поле CSV по RFC 4180: в кавычках, если содержит запятую, кавычку или перевод строки.
+     */
+    private static void appendCsvField(StringBuilder out, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,476 @@
+package com.urlshortener.service;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.metrics.MetricsRegistry;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Массовое создание ссылок из потока NDJSON.
+ *
+ * <p>Каждая строка входа — объект {@code {"url": "...", "clickLimit": 20}}; лимит
+ * необязателен. Импорт выполняется конвейером: вызывающий поток читает строки и
+ * передает их через ограниченную очередь работникам, которые разбирают и проверяют
+ * запись и генерируют код; готовые ссылки через вторую ограниченную очередь получает
+ * поток записи, сохраняющий их пакетами через {@link
+ * com.urlshortener.repository.LinkRepository#saveAll}. Ограниченные очереди
+ * удерживают в памяти лишь небольшую часть входа, а медленная стадия притормаживает
+ * предыдущие.
+ *
+ * <p>Повторы кодов и URL ищутся в текущем пакете и в хранилище, куда уже записаны
+ * предыдущие пакеты, поэтому память импорта не растет с числом строк.
+ *
+ * <p>Результаты передаются получателю по мере сохранения пакетов, всегда из потока
+ * записи. Порядок результатов может отличаться от порядка строк, поэтому каждый
+ * результат содержит номер строки.
+ */
+public class LinkImporter {
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Line END_OF_INPUT = new Line(-1, null);
+    private static final Prepared WORKER_DONE = new Prepared(-1, null, null, false, null);
+
+    private final LinkService linkService;
+    private final int workers;
+    private final int batchSize;
+    private final LongAdder created;
+    private final LongAdder reused;
+    private final LongAdder failed;
+
+    /**
+     * @param linkService сервис ссылок
+     * @param workers число потоков разбора и генерации кодов; 0 — по числу процессоров
+     * @param batchSize наибольшее число ссылок в одной записи в хранилище
+     * @param metrics реестр, в котором регистрируются счетчики импорта
+     */
+    public LinkImporter(
+            LinkService linkService, int workers, int batchSize, MetricsRegistry metrics) {
+        if (workers < 0) {
+            throw new IllegalArgumentException("Число потоков импорта не может быть отрицательным");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер пакета импорта должен быть положительным");
+        }
+        this.linkService = linkService;
+        this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.batchSize = batchSize;
+        this.created = metrics.counter("import.created");
+        this.reused = metrics.counter("import.reused");
+        this.failed = metrics.counter("import.failed");
+    }
+
+    /**
+     * Создает ссылки по строкам NDJSON. Пустые строки пропускаются.
+     *
+     * @param reader источник строк; не закрывается
+     * @param ownerId владелец создаваемых ссылок
+     * @param sink получатель результатов; вызывается только из потока записи
+     * @return итоги импорта
+     * @throws IOException если чтение входа завершилось ошибкой; ссылки, созданные
+     *     до ошибки, остаются сохраненными
+     */
+    public Summary importLinks(BufferedReader reader, UUID ownerId, Consumer<Result> sink)
+            throws IOException {
+        return pipeline(ownerId, sink).run(reader);
+    }
+
+    /**
+     * Создает состояние импорта, не запуская его.
+     */
+    Pipeline pipeline(UUID ownerId, Consumer<Result> sink) {
+        return new Pipeline(ownerId, sink);
+    }
+
+    /**
+     * Результат обработки одной строки входа.
+     *
+     * @param line номер строки, начиная с 1
+     * @param url URL из записи или null, если запись не удалось разобрать
+     * @param shortCode код ссылки или null при ошибке
+     * @param created true, если ссылка создана, и false, если возвращена существующая
+     * @param error описание ошибки или null
+     */
+    public record Result(long line, String url, String shortCode, boolean created, String error) {
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        /**
+         * Результат в виде строки NDJSON без завершающего перевода строки.
+         */
+        public String toJson() {
+            StringBuilder json = new StringBuilder(64).append("{\"line\":").append(line);
+            if (url != null) {
+                JsonLines.appendString(json.append(",\"url\":"), url);
+            }
+            if (error != null) {
+                return JsonLines.appendString(json.append(",\"error\":"), error)
+                        .append('}')
+                        .toString();
+            }
+            JsonLines.appendString(json.append(",\"shortCode\":"), shortCode);
+            return json.append(",\"created\":").append(created).append('}').toString();
+        }
+    }
+
+    /**
+     * Итоги импорта: число созданных, возвращенных существующих и отклоненных записей.
+     */
+    public record Summary(long created, long reused, long failed) {
+        public String toJson() {
+            return "{\"created\":"
+                    + created
+                    + ",\"reused\":"
+                    + reused
+                    + ",\"failed\":"
+                    + failed
+                    + '}';
+        }
+    }
+
+    private record Line(long number, String text) {}
+
+    /**
+     * Запись после стадии работников: новая несохраненная ссылка, существующая ссылка
+     * или ошибка. Для новой ссылки {@code generation} — число сохраненных пакетов
+     * до того, как работник искал повтор URL в хранилище.
+     */
+    private record Prepared(
+            long line, String url, Link link, boolean created, String error, long generation) {
+        Prepared(long line, String url, Link link, boolean created, String error) {
+            this(line, url, link, created, error, 0);
+        }
+    }
+
+    /**
+     * Состояние одного импорта.
+     */
+    final class Pipeline {
+        private final UUID ownerId;
+        private final Consumer<Result> sink;
+        private final BlockingQueue<Line> input = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final BlockingQueue<Prepared> output = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        /** Первая ошибка получателя результатов или потока записи. */
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private final List<Prepared> batch = new ArrayList<>();
+        /**
+         * Коды и ссылки по лимиту и URL текущего пакета: работник не видит еще не
+         * сохраненные ссылки, поэтому совпадения внутри пакета находит поток записи.
+         */
+        private final Set<String> batchCodes = new HashSet<>();
+        private final Map<String, Link> batchByUrl = new HashMap<>();
+        private final List<Thread> threads = new ArrayList<>();
+        private long createdCount;
+        private long reusedCount;
+        private long failedCount;
+        /** Число сохраненных пакетов; изменяется только потоком записи. */
+        private volatile long generation;
+        /** После ошибки получателя или потока записи стадии только опустошают очереди. */
+        private volatile boolean aborted;
+
+        Pipeline(UUID ownerId, Consumer<Result> sink) {
+            this.ownerId = ownerId;
+            this.sink = sink;
+        }
+
+        Summary run(BufferedReader reader) throws IOException {
+            for (int i = 0; i < workers; i++) {
+                threads.add(startThread(this::work, "link-import-worker-" + (i + 1)));
+            }
+            threads.add(startThread(this::write, "link-import-writer"));
+            try {
+                long number = 0;
+                String text;
+                while (!aborted && (text = reader.readLine()) != null) {
+                    number++;
+                    if (!text.isBlank()) {
+                        input.put(new Line(number, text));
+                    }
+                }
+            } catch (InterruptedException e) {
+                aborted = true;
+                threads.forEach(Thread::interrupt);
+                Thread.currentThread().interrupt();
+            } finally {
+                finish();
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Импорт прерван");
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            return new Summary(createdCount, reusedCount, failedCount);
+        }
+
+        /**
+         * Сообщает работникам о конце входа и дожидается завершения всех стадий.
+         */
+        private void finish() {
+            boolean interrupted = Thread.interrupted();
+            for (int i = 0; i < workers && !interrupted; i++) {
+                try {
+                    input.put(END_OF_INPUT);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    threads.forEach(Thread::interrupt);
+                }
+            }
+            for (Thread thread : threads) {
+                while (true) {
+                    try {
+                        thread.join();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void work() {
+            try {
+                while (true) {
+                    Line line = input.take();
+                    if (line == END_OF_INPUT) {
+                        break;
+                    }
+                    if (!aborted) {
+                        output.put(prepare(line));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // Поток записи ждет отметки от каждого работника; после прерывания
+                // прерван и он, и отметка не нужна
+                try {
+                    output.put(WORKER_DONE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private Prepared prepare(Line line) {
+            String url = null;
+            try {
+                Map<String, Object> fields = JsonLines.parseObject(line.text());
+                if (!(fields.get("url") instanceof String)) {
+                    throw new IllegalArgumentException(
+                            "Поле url обязательно и должно быть строкой");
+                }
+                url = (String) fields.get("url");
+                int clickLimit = clickLimit(fields.get("clickLimit"));
+                long seen = generation;
+                Optional<Link> existing = linkService.findReusableLink(url, ownerId, clickLimit);
+                if (existing.isPresent()) {
+                    return new Prepared(line.number(), url, existing.get(), false, null);
+                }
+                Link link = linkService.newLink(url, ownerId, clickLimit);
+                return new Prepared(line.number(), url, link, true, null, seen);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                return new Prepared(line.number(), url, null, false, e.getMessage());
+            } catch (RuntimeException e) {
+                return new Prepared(line.number(), url, null, false, processingError(e));
+            }
+        }
+
+        private int clickLimit(Object value) {
+            if (value == null) {
+                return linkService.defaultClickLimit();
+            }
+            if (!(value instanceof Long) || (Long) value <= 0 || (Long) value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        "Поле clickLimit должно быть положительным целым числом");
+            }
+            return ((Long) value).intValue();
+        }
+
+        private void write() {
+            int finishedWorkers = 0;
+            try {
+                while (finishedWorkers < workers) {
+                    Prepared prepared = output.poll();
+                    if (prepared == null) {
+                        // Работники отстают: сохранить накопленное, чтобы результаты
+                        // не ждали заполнения пакета
+                        flush();
+                        prepared = output.take();
+                    }
+                    if (prepared == WORKER_DONE) {
+                        finishedWorkers++;
+                    } else if (!aborted) {
+                        try {
+                            accept(prepared);
+                        } catch (RuntimeException e) {
+                            emit(failedAs(prepared, processingError(e)));
+                        }
+                    }
+                }
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // Работники не должны остаться ждать места в очереди результатов
+                failure.compareAndSet(null, e);
+                aborted = true;
+                drain(finishedWorkers);
+            }
+        }
+
+        /**
+         * Забирает записи из очереди результатов, пока не завершатся все работники.
+         */
+        private void drain(int finishedWorkers) {
+            try {
+                while (finishedWorkers < workers) {
+                    if (output.take() == WORKER_DONE) {
+                        finishedWorkers++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void accept(Prepared prepared) {
+            if (!prepared.created()) {
+                emit(prepared);
+                return;
+            }
+            Link link = prepared.link();
+            String urlKey = link.getClickLimit() + " " + link.getOriginalUrl();
+            if (linkService.isDeduplicationEnabled()) {
+                Link previous = batchByUrl.get(urlKey);
+                if (previous == null && prepared.generation() != generation) {
+                    // Пакет, сохраненный после начала проверки работником, мог содержать
+                    // ссылку на тот же URL
+                    previous =
+                            linkService
+                                    .findReusableLink(
+                                            link.getOriginalUrl(), ownerId, link.getClickLimit())
+                                    .orElse(null);
+                }
+                if (previous != null) {
+                    emit(new Prepared(prepared.line(), prepared.url(), previous, false, null));
+                    return;
+                }
+            }
+            if (!batchCodes.contains(link.getShortCode())
+                    && !linkService.isShortCodeTaken(link.getShortCode())) {
+                batch.add(prepared);
+                batchCodes.add(link.getShortCode());
+                batchByUrl.put(urlKey, link);
+                if (batch.size() >= batchSize) {
+                    flush();
+                }
+                return;
+            }
+            // Два работника получили один код, не видя несохраненных ссылок друг друга:
+            // после сохранения пакета код генерируется заново с проверкой по хранилищу
+            flush();
+            Link recreated;
+            try {
+                recreated =
+                        linkService.newLink(link.getOriginalUrl(), ownerId, link.getClickLimit());
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                emit(failedAs(prepared, e.getMessage()));
+                return;
+            }
+            accept(
+                    new Prepared(
+                            prepared.line(), prepared.url(), recreated, true, null, generation));
+        }
+
+        /**
+         * Число ссылок, которые импорт удерживает для поиска повторов; не больше размера
+         * пакета. Вызывается из потока записи, например из получателя результатов.
+         */
+        int trackedLinks() {
+            return batchCodes.size();
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Link> links = new ArrayList<>(batch.size());
+            for (Prepared prepared : batch) {
+                links.add(prepared.link());
+            }
+            String error = null;
+            try {
+                linkService.saveLinks(links);
+            } catch (RuntimeException e) {
+                error = "Не удалось сохранить ссылку: " + e.getMessage();
+            }
+            generation++;
+            batchCodes.clear();
+            batchByUrl.clear();
+            for (Prepared prepared : batch) {
+                emit(error == null ? prepared : failedAs(prepared, error));
+            }
+            batch.clear();
+        }
+
+        private String processingError(RuntimeException e) {
+            return "Не удалось обработать запись: " + e.getMessage();
+        }
+
+        private Prepared failedAs(Prepared prepared, String error) {
+            return new Prepared(prepared.line(), prepared.url(), null, false, error);
+        }
+
+        private void emit(Prepared prepared) {
+            Result result =
+                    new Result(
+                            prepared.line(),
+                            prepared.url(),
+                            prepared.link() != null ? prepared.link().getShortCode() : null,
+                            prepared.created(),
+                            prepared.error());
+            if (!result.isSuccess()) {
+                failedCount++;
+                failed.increment();
+            } else if (result.created()) {
+                createdCount++;
+                created.increment();
+            } else {
+                reusedCount++;
+                reused.increment();
+            }
+            if (aborted) {
+                return;
+            }
+            try {
+                sink.accept(result);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+                aborted = true;
+            }
+        }
+
+        private Thread startThread(Runnable task, String name) {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            thread.start();
+            return thread;
+        }
+    }
+}
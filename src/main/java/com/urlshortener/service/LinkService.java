@@ -1,30 +1,85 @@
 package com.urlshortener.service;
 
+import com.urlshortener.analytics.ClickSink;
 import com.urlshortener.config.AppConfig;
 import com.urlshortener.domain.Link;
+import com.urlshortener.repository.LinkFilter;
 import com.urlshortener.repository.LinkRepository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Сервис для управления короткими ссылками.
  */
 public class LinkService {
+    private static final int ATTEMPTS_PER_LENGTH = 11;
+
     private final LinkRepository linkRepository;
     private final ShortCodeGenerator codeGenerator;
     private final NotificationService notificationService;
     private final AppConfig config;
+    private final ShortCodePool codePool;
+    private final CodeSpaceMonitor codeSpace;
+    private final DeadLinkCache deadLinks;
+    private final List<Consumer<String>> deletionListeners = new CopyOnWriteArrayList<>();
+    private volatile ClickSink clickSink;
 
     public LinkService(
             LinkRepository linkRepository,
             ShortCodeGenerator codeGenerator,
             NotificationService notificationService,
             AppConfig config) {
+        this(linkRepository, codeGenerator, notificationService, config, null);
+    }
+
+    /**
+     * @param codePool пул заранее сгенерированных кодов или null, если коды генерируются
+     *     при создании ссылки
+     */
+    public LinkService(
+            LinkRepository linkRepository,
+            ShortCodeGenerator codeGenerator,
+            NotificationService notificationService,
+            AppConfig config,
+            ShortCodePool codePool) {
+        this(
+                linkRepository,
+                codeGenerator,
+                notificationService,
+                config,
+                codePool,
+                CodeSpaceMonitor.forGenerator(
+                        codeGenerator, CodeSpaceMonitor.DEFAULT_MAX_EXPECTED_PROBES));
+    }
+
+    /**
+     * @param codePool пул заранее сгенерированных кодов или null, если коды генерируются
+     *     при создании ссылки
+     * @param codeSpace монитор заполненности пространства кодов, выбирающий их длину
+     */
+    public LinkService(
+            LinkRepository linkRepository,
+            ShortCodeGenerator codeGenerator,
+            NotificationService notificationService,
+            AppConfig config,
+            ShortCodePool codePool,
+            CodeSpaceMonitor codeSpace) {
         this.linkRepository = linkRepository;
         this.codeGenerator = codeGenerator;
         this.notificationService = notificationService;
         this.config = config;
+        this.codePool = codePool;
+        this.codeSpace = codeSpace;
+        this.deadLinks =
+                new DeadLinkCache(
+                        config.getNegativeCacheSize(),
+                        config.getNegativeCacheTtlSeconds() * 1000L);
     }
 
     /**
@@ -41,30 +96,84 @@ public class LinkService {
     /**
      * Создает новую сокращенную ссылку с пользовательским лимитом кликов.
      *
+     * <p>Если включена дедупликация и у пользователя уже есть активная ссылка на тот же URL
+     * с тем же лимитом, возвращается она, а новый код не генерируется.
+     *
      * @param originalUrl URL для сокращения
      * @param userId пользователь, создающий ссылку
      * @param clickLimit пользовательский лимит кликов
      * @return созданная ссылка
      */
     public Link createLink(String originalUrl, UUID userId, int clickLimit) {
+        Optional<Link> existing = findReusableLink(originalUrl, userId, clickLimit);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        Link link = newLink(originalUrl, userId, clickLimit);
+        linkRepository.save(link);
+        deadLinks.invalidate(link.getShortCode());
+        return link;
+    }
+
+    /**
+     * Проверяет URL и, если включена дедупликация, ищет активную ссылку пользователя
+     * на тот же URL с тем же лимитом, которую следует вернуть вместо новой.
+     *
+     * @throws IllegalArgumentException если URL некорректен
+     */
+    Optional<Link> findReusableLink(String originalUrl, UUID userId, int clickLimit) {
         validateUrl(originalUrl);
+        if (!config.isDeduplicationEnabled()) {
+            return Optional.empty();
+        }
+        return linkRepository
+                .findByOwnerAndUrl(userId, originalUrl, clickLimit)
+                .filter(Link::isActive);
+    }
+
+    boolean isDeduplicationEnabled() {
+        return config.isDeduplicationEnabled();
+    }
 
-        String shortCode = generateUniqueShortCode(originalUrl, userId);
+    boolean isShortCodeTaken(String shortCode) {
+        return linkRepository.existsByShortCode(shortCode);
+    }
+
+    /**
+     * Создает ссылку с новым уникальным кодом, не сохраняя ее. URL должен быть уже
+     * проверен {@link #findReusableLink}.
+     */
+    Link newLink(String originalUrl, UUID userId, int clickLimit) {
+        String shortCode = codePool != null ? codePool.take() : null;
+        if (shortCode == null) {
+            shortCode = generateUniqueShortCode(originalUrl, userId);
+        }
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime expiresAt = now.plusHours(config.getLinkTtlHours());
-
-        Link link =
-                Link.builder()
-                        .shortCode(shortCode)
-                        .originalUrl(originalUrl)
-                        .ownerId(userId)
-                        .createdAt(now)
-                        .expiresAt(expiresAt)
-                        .clickLimit(clickLimit)
-                        .build();
+        return Link.builder()
+                .shortCode(shortCode)
+                .originalUrl(originalUrl)
+                .ownerId(userId)
+                .createdAt(now)
+                .expiresAt(now.plusHours(config.getLinkTtlHours()))
+                .clickLimit(clickLimit)
+                .build();
+    }
 
-        linkRepository.save(link);
-        return link;
+    /**
+     * Сохраняет пакет ссылок, подготовленных {@link #newLink}, одной операцией хранилища.
+     */
+    void saveLinks(Collection<Link> links) {
+        linkRepository.saveAll(links);
+        for (Link link : links) {
+            deadLinks.invalidate(link.getShortCode());
+        }
+    }
+
+    /**
+     * Лимит кликов для ссылок, создаваемых без явного лимита.
+     */
+    public int defaultClickLimit() {
+        return config.getDefaultClickLimit();
     }
 
     /**
@@ -75,9 +184,15 @@ public class LinkService {
      * @throws IllegalArgumentException если ссылка не найдена
      */
     public Link getLink(String shortCode) {
-        return linkRepository
-                .findByShortCode(shortCode)
-                .orElseThrow(() -> new IllegalArgumentException("Ссылка не найдена: " + shortCode));
+        DeadLinkCache.Tombstone tombstone = deadLinks.get(shortCode);
+        if (tombstone != null && tombstone.missing()) {
+            throw tombstone.failure();
+        }
+        Link link = findLink(shortCode);
+        if (link == null) {
+            throw deadLinks.failure(shortCode, LinkStatus.NOT_FOUND);
+        }
+        return link;
     }
 
     /**
@@ -88,25 +203,152 @@ public class LinkService {
      * @throws IllegalStateException если ссылка неактивна или достигнут лимит
      */
     public String useLink(String shortCode) {
-        Link link = getLink(shortCode);
+        return followLink(shortCode).getOriginalUrl();
+    }
 
+    /**
+     * Находит ссылку по коду и засчитывает переход по ней.
+     *
+     * <p>Отрицательный ответ запоминается: повторные запросы несуществующего или мертвого
+     * кода в течение {@code link.negative.cache.ttl.seconds} не обращаются к хранилищу
+     * и получают тот же экземпляр исключения без стека вызовов. Уведомление владельцу
+     * об истечении или исчерпании лимита отправляется только при первом таком запросе.
+     *
+     * @param shortCode короткий код
+     * @return использованная ссылка
+     * @throws IllegalArgumentException если ссылка не найдена
+     * @throws IllegalStateException если ссылка неактивна или достигнут лимит
+     * @see #tryUseLink(String)
+     */
+    public Link followLink(String shortCode) {
+        DeadLinkCache.Tombstone tombstone = deadLinks.get(shortCode);
+        if (tombstone != null) {
+            throw tombstone.failure();
+        }
+        Link link = findLink(shortCode);
+        LinkStatus status = link == null ? LinkStatus.NOT_FOUND : tryUseLink(link);
+        if (status != LinkStatus.OK) {
+            throw deadLinks.failure(shortCode, status);
+        }
+        return link;
+    }
+
+    /**
+     * Использует уже найденную ссылку без повторного поиска в хранилище. Успешный переход
+     * не создает объектов. Вызывающий не должен хранить экземпляр между переходами:
+     * хранилище может заменить его, и переходы разойдутся (см. {@link #tryUseCode}).
+     *
+     * @param link ссылка
+     * @throws IllegalStateException если ссылка неактивна или достигнут лимит
+     * @see #tryUseLink(Link)
+     */
+    public void useLink(Link link) {
+        LinkStatus status = tryUseLink(link);
+        if (status != LinkStatus.OK) {
+            throw deadLinks.failure(link.getShortCode(), status);
+        }
+    }
+
+    /**
+     * Переход по короткому коду без исключений: отказ возвращается заранее созданным
+     * результатом и не создает объектов. Поведение совпадает с {@link #followLink(String)},
+     * включая кеш отрицательных ответов и уведомления владельцу.
+     *
+     * @param shortCode короткий код
+     * @return результат со статусом и, при успехе, использованной ссылкой
+     */
+    public UseResult tryUseLink(String shortCode) {
+        return tryUseLink(shortCode, ClickSink.UNKNOWN_VISITOR);
+    }
+
+    /**
+     * То же, что {@link #tryUseLink(String)}, с указанием посетителя для аналитики.
+     *
+     * @param shortCode короткий код
+     * @param visitor хеш идентификатора посетителя
+     * @return результат со статусом и, при успехе, использованной ссылкой
+     */
+    public UseResult tryUseLink(String shortCode, long visitor) {
+        DeadLinkCache.Tombstone tombstone = deadLinks.get(shortCode);
+        if (tombstone != null) {
+            return UseResult.failure(tombstone.status());
+        }
+        Link link = findLink(shortCode);
+        if (link == null) {
+            return UseResult.failure(LinkStatus.NOT_FOUND);
+        }
+        LinkStatus status = tryUseLink(link, visitor);
+        return status == LinkStatus.OK ? UseResult.ok(link) : UseResult.failure(status);
+    }
+
+    /**
+     * Переход по коду, ответ для которого вызывающий уже подготовил (например, из кеша
+     * ответов). Ссылка каждый раз ищется в хранилище, как в {@link #tryUseLink(String)},
+     * но возвращается только исход, поэтому успешный переход не создает результата.
+     *
+     * @param shortCode короткий код
+     * @param visitor хеш идентификатора посетителя
+     * @return {@link LinkStatus#OK} или причина, по которой переход невозможен
+     */
+    public LinkStatus tryUseCode(String shortCode, long visitor) {
+        DeadLinkCache.Tombstone tombstone = deadLinks.get(shortCode);
+        if (tombstone != null) {
+            return tombstone.status();
+        }
+        Link link = findLink(shortCode);
+        return link == null ? LinkStatus.NOT_FOUND : tryUseLink(link, visitor);
+    }
+
+    /**
+     * Использует уже найденную ссылку без исключений и без создания объектов.
+     *
+     * @param link ссылка
+     * @return {@link LinkStatus#OK} или причина, по которой переход невозможен
+     */
+    public LinkStatus tryUseLink(Link link) {
+        return tryUseLink(link, ClickSink.UNKNOWN_VISITOR);
+    }
+
+    /**
+     * То же, что {@link #tryUseLink(Link)}, с указанием посетителя для аналитики.
+     * Успешный переход публикуется в получатель событий, если он задан.
+     *
+     * @param link ссылка
+     * @param visitor хеш идентификатора посетителя
+     * @return {@link LinkStatus#OK} или причина, по которой переход невозможен
+     */
+    public LinkStatus tryUseLink(Link link, long visitor) {
+        String shortCode = link.getShortCode();
+        long stamp = deadLinks.stamp(shortCode);
         if (link.isExpired()) {
             notificationService.notifyLinkExpired(
                     link.getOwnerId(), shortCode, link.getOriginalUrl());
-            throw new IllegalStateException("Срок действия ссылки истек");
+            return deadLinks.remember(shortCode, LinkStatus.EXPIRED, stamp);
         }
 
         if (!link.use()) {
             if (link.getClickCount() >= link.getClickLimit()) {
                 notificationService.notifyLinkLimitReached(
                         link.getOwnerId(), shortCode, link.getOriginalUrl());
-                throw new IllegalStateException("Достигнут лимит кликов по ссылке");
+                return deadLinks.remember(shortCode, LinkStatus.LIMIT_REACHED, stamp);
             }
-            throw new IllegalStateException("Ссылка неактивна");
+            return deadLinks.remember(shortCode, LinkStatus.INACTIVE, stamp);
         }
 
-        linkRepository.save(link);
-        return link.getOriginalUrl();
+        linkRepository.recordUsage(link);
+        ClickSink sink = clickSink;
+        if (sink != null) {
+            sink.publish(shortCode, visitor);
+        }
+        return LinkStatus.OK;
+    }
+
+    /**
+     * Количество запросов несуществующих и мертвых кодов, отклоненных без обращения
+     * к хранилищу.
+     */
+    public long deadLinkHitCount() {
+        return deadLinks.hitCount();
     }
 
     /**
@@ -119,6 +361,15 @@ public class LinkService {
         return linkRepository.findByOwnerId(userId);
     }
 
+    /**
+     * Обходит ссылки, удовлетворяющие фильтру, без копирования в список.
+     *
+     * @see LinkRepository#scan(LinkFilter)
+     */
+    public Spliterator<Link> scanLinks(LinkFilter filter) {
+        return linkRepository.scan(filter);
+    }
+
     /**
      * Удаляет ссылку, если пользователь является владельцем.
      *
@@ -135,6 +386,26 @@ public class LinkService {
         }
 
         linkRepository.deleteByShortCode(shortCode);
+        deadLinks.invalidate(shortCode);
+        for (Consumer<String> listener : deletionListeners) {
+            listener.accept(shortCode);
+        }
+    }
+
+    /**
+     * Регистрирует обработчик, получающий код каждой ссылки, удаленной владельцем.
+     * Используется кешами, которые должны забыть удаленную ссылку.
+     */
+    public void addDeletionListener(Consumer<String> listener) {
+        deletionListeners.add(listener);
+    }
+
+    /**
+     * Задает получатель событий успешных переходов для аналитики. Получатель вызывается
+     * в потоке перехода и не должен блокироваться.
+     */
+    public void setClickSink(ClickSink clickSink) {
+        this.clickSink = clickSink;
     }
 
     /**
@@ -143,17 +414,30 @@ public class LinkService {
      * @return количество удаленных ссылок
      */
     public int cleanupExpiredLinks() {
-        List<Link> allLinks = linkRepository.findAll();
-        int removedCount = 0;
+        return linkRepository.deleteInactive(LocalDateTime.now());
+    }
 
-        for (Link link : allLinks) {
-            if (link.isExpired() || !link.isActive()) {
-                linkRepository.deleteByShortCode(link.getShortCode());
-                removedCount++;
-            }
-        }
+    /**
+     * Записывает в хранилище отложенные изменения счетчиков переходов.
+     * Вызывается при остановке сервиса, чтобы не потерять накопленные переходы.
+     */
+    public void flushPendingUpdates() {
+        linkRepository.flush();
+    }
 
-        return removedCount;
+    /**
+     * Ищет ссылку в хранилище и запоминает отрицательный ответ.
+     *
+     * @return ссылка или null, если ее нет
+     */
+    private Link findLink(String shortCode) {
+        long stamp = deadLinks.stamp(shortCode);
+        Optional<Link> link = linkRepository.findByShortCode(shortCode);
+        if (link.isEmpty()) {
+            deadLinks.remember(shortCode, LinkStatus.NOT_FOUND, stamp);
+            return null;
+        }
+        return link.get();
     }
 
     /**
@@ -177,21 +461,54 @@ public class LinkService {
 
     /**
      * Генерирует уникальный короткий код, обрабатывая коллизии.
+     *
+     * <p>Код генерируется с длиной, выбранной {@link CodeSpaceMonitor}. Если все
+     * {@link #ATTEMPTS_PER_LENGTH} попыток для одной длины заняты, поиск продолжается
+     * с кодами на символ длиннее, так что число проверок ограничено, а создание не
+     * завершается ошибкой из-за заполненного пространства кодов. Более длинные коды
+     * используются только в этом вызове: общую длину меняет лишь оценка заполненности
+     * по окнам проверок.
+     *
+     * <p>Цепочка кандидатов детерминирована для пары (пользователь, URL), поэтому коды,
+     * занятые ссылками того же пользователя на тот же URL, заняты заведомо и не говорят
+     * о заполненности пространства: такие проверки в оценку не попадают.
      */
     private String generateUniqueShortCode(String originalUrl, UUID userId) {
-        String shortCode = codeGenerator.generate(originalUrl, userId);
-
-        int attempts = 0;
-        while (linkRepository.existsByShortCode(shortCode) && attempts < 10) {
-            shortCode = codeGenerator.generate(originalUrl + attempts, userId);
-            attempts++;
+        if (codeGenerator.isCollisionFree()) {
+            return codeGenerator.generate(originalUrl, userId);
         }
 
-        if (linkRepository.existsByShortCode(shortCode)) {
-            throw new IllegalStateException(
-                    "Невозможно сгенерировать уникальный короткий код после нескольких попыток");
+        int length = codeSpace.currentLength();
+        int retries = 0;
+        while (true) {
+            for (int attempt = 0; attempt < ATTEMPTS_PER_LENGTH; attempt++) {
+                // Первый код совпадает с кодом без повторов, далее к URL добавляется номер
+                String salted = retries == 0 ? originalUrl : originalUrl + (retries - 1);
+                String shortCode = codeGenerator.generate(salted, userId, length);
+                boolean occupied = linkRepository.existsByShortCode(shortCode);
+                if (!occupied || !isOwnCandidate(shortCode, originalUrl, userId)) {
+                    codeSpace.recordProbe(length, occupied);
+                }
+                if (!occupied) {
+                    codeSpace.recordRetries(retries);
+                    return shortCode;
+                }
+                retries++;
+            }
+            if (length == codeSpace.maxLength()) {
+                throw new IllegalStateException(
+                        "Невозможно сгенерировать уникальный короткий код после нескольких попыток");
+            }
+            length++;
         }
+    }
 
-        return shortCode;
+    /** Занят ли код ссылкой того же пользователя на тот же URL. */
+    private boolean isOwnCandidate(String shortCode, String originalUrl, UUID userId) {
+        return linkRepository
+                .findByShortCode(shortCode)
+                .filter(link -> link.isOwnedBy(userId))
+                .filter(link -> link.getOriginalUrl().equals(originalUrl))
+                .isPresent();
     }
 }
@@ -0,0 +1,29 @@
+package com.urlshortener.service;
+
+/**
+ * Исход перехода по короткой ссылке.
+ */
+public enum LinkStatus {
+    OK("Переход выполнен"),
+    NOT_FOUND("Ссылка не найдена"),
+    EXPIRED("Срок действия ссылки истек"),
+    LIMIT_REACHED("Достигнут лимит кликов по ссылке"),
+    INACTIVE("Ссылка неактивна");
+
+    private final String message;
+
+    LinkStatus(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Ссылка существует, но переход по ней невозможен.
+     */
+    public boolean isGone() {
+        return this == EXPIRED || this == LIMIT_REACHED || this == INACTIVE;
+    }
+}
@@ -1,9 +1,10 @@
 package com.urlshortener.service;
 
+import com.urlshortener.domain.ShortCodeCodec;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
 import java.util.UUID;
 
 /**
@@ -11,8 +12,25 @@ import java.util.UUID;
  * Объединяет ID пользователя и оригинальный URL для обеспечения уникальности для каждого пользователя.
  */
 public class ShortCodeGenerator {
-    private static final String ALPHABET =
-            "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final String ALPHABET = ShortCodeCodec.ALPHABET;
+    private static final int HASH_SIZE = 32;
+    private static final int MAX_HASH_CODE_LENGTH = (HASH_SIZE * 8 + 5) / 6;
+    /**
+     * Символ кода для каждого значения Base64-цифры: символ Base64url, переведенный
+     * в алфавит base62 по остатку от деления его кода на 62.
+     */
+    private static final byte[] CODE_CHARS = new byte[64];
+
+    static {
+        String base64Url = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < CODE_CHARS.length; i++) {
+            CODE_CHARS[i] = (byte) ALPHABET.charAt(base64Url.charAt(i) % ALPHABET.length());
+        }
+    }
+
+    private static final ThreadLocal<HashState> HASH_STATE =
+            ThreadLocal.withInitial(HashState::create);
+
     private final int codeLength;
 
     public ShortCodeGenerator(int codeLength) {
@@ -26,52 +44,185 @@ public class ShortCodeGenerator {
      * Генерирует уникальный короткий код для комбинации URL и пользователя.
      * Разные пользователи получат разные короткие коды для одного и того же URL.
      *
+     * <p>Код — первые символы Base64url от SHA-256 строки {@code "<userId>|<originalUrl>"},
+     * переведенные в алфавит base62. Вход кодируется в UTF-8 и хешируется в буферах потока,
+     * символы кода вычисляются прямо из байтов хеша, так что единственное выделение памяти —
+     * строка результата.
+     *
      * @param originalUrl оригинальный URL
      * @param userId ID пользователя
      * @return уникальный короткий код
      */
     public String generate(String originalUrl, UUID userId) {
+        return generate(originalUrl, userId, Math.min(codeLength, MAX_HASH_CODE_LENGTH));
+    }
+
+    /**
+     * Генерирует код заданной длины тем же способом, что и {@link #generate(String, UUID)}.
+     * Код длины n совпадает с первыми n символами более длинного кода для тех же данных.
+     *
+     * @param originalUrl оригинальный URL
+     * @param userId ID пользователя
+     * @param length длина кода, не больше {@link #maxCodeLength()}
+     * @return короткий код
+     */
+    public String generate(String originalUrl, UUID userId, int length) {
+        if (length <= 0 || length > maxCodeLength()) {
+            throw new IllegalArgumentException("Недопустимая длина кода: " + length);
+        }
+        HashState state = HASH_STATE.get();
+        if (state == null) {
+            // Запасной вариант: SHA-256 недоступен
+            return generateRandom(length);
+        }
+        int inputLength = state.encode(userId, originalUrl);
+        state.digest.update(state.input, 0, inputLength);
+        byte[] hash = state.hash;
         try {
-            // Объединяем ID пользователя и URL для обеспечения уникальности для каждого пользователя
-            String input = userId.toString() + "|" + originalUrl;
+            state.digest.digest(hash, 0, hash.length);
+        } catch (DigestException e) {
+            state.digest.reset();
+            return generateRandom(length);
+        }
 
-            // Хешируем объединенную строку
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
+        byte[] code = state.code;
+        for (int i = 0; i < length; i++) {
+            code[i] = CODE_CHARS[base64Digit(hash, i)];
+        }
+        return new String(code, 0, length, StandardCharsets.ISO_8859_1);
+    }
 
-            // Преобразуем в Base64 и очищаем
-            String base64 = Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    /**
+     * Длина кода по умолчанию.
+     */
+    public int getCodeLength() {
+        return codeLength;
+    }
 
-            // Берем первые N символов и преобразуем в пользовательский алфавит
-            return convertToCustomAlphabet(base64.substring(0, Math.min(base64.length(), codeLength * 2)));
-        } catch (NoSuchAlgorithmException e) {
-            // Запасной вариант: простая случайная генерация
-            return generateRandom();
-        }
+    /**
+     * Наибольшая длина кода, которую может выдать {@link #generate(String, UUID, int)}:
+     * столько символов Base64 дает хеш SHA-256.
+     */
+    public int maxCodeLength() {
+        return MAX_HASH_CODE_LENGTH;
     }
 
     /**
-     * Преобразует строку Base64 для использования пользовательского алфавита для лучшей читаемости.
+     * i-я 6-битная группа байтов хеша, то есть значение i-го символа его Base64-записи.
      */
-    private String convertToCustomAlphabet(String base64) {
-        StringBuilder result = new StringBuilder();
-        for (int i = 0; i < Math.min(codeLength, base64.length()); i++) {
-            char c = base64.charAt(i);
-            int index = Math.abs(c) % ALPHABET.length();
-            result.append(ALPHABET.charAt(index));
+    private static int base64Digit(byte[] hash, int i) {
+        int bit = i * 6;
+        int index = bit >>> 3;
+        int window = (hash[index] & 0xff) << 8;
+        if (index + 1 < hash.length) {
+            window |= hash[index + 1] & 0xff;
         }
-        return result.toString();
+        return (window >>> (10 - (bit & 7))) & 0x3f;
+    }
+
+    /**
+     * Гарантирует ли генератор, что разные вызовы {@link #generate} никогда не возвращают
+     * одинаковый код. Тогда проверка существования кода перед созданием ссылки не нужна.
+     */
+    public boolean isCollisionFree() {
+        return false;
     }
 
     /**
      * Генерирует случайный короткий код в качестве запасного варианта.
      */
-    private String generateRandom() {
+    private String generateRandom(int length) {
         StringBuilder result = new StringBuilder();
-        for (int i = 0; i < codeLength; i++) {
+        for (int i = 0; i < length; i++) {
             int index = (int) (Math.random() * ALPHABET.length());
             result.append(ALPHABET.charAt(index));
         }
         return result.toString();
     }
+
+    /**
+     * Переиспользуемое состояние хеширования одного потока.
+     */
+    private static final class HashState {
+        private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        private static final int UUID_LENGTH = 36;
+
+        private final MessageDigest digest;
+        private final byte[] hash = new byte[HASH_SIZE];
+        private final byte[] code = new byte[MAX_HASH_CODE_LENGTH];
+        private byte[] input = new byte[256];
+
+        private HashState(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        static HashState create() {
+            try {
+                return new HashState(MessageDigest.getInstance("SHA-256"));
+            } catch (NoSuchAlgorithmException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Записывает {@code "<userId>|<url>"} в UTF-8 во входной буфер.
+         *
+         * @return длина записанных данных
+         */
+        int encode(UUID userId, String url) {
+            // Не больше 3 байтов UTF-8 на символ UTF-16
+            int required = UUID_LENGTH + 1 + url.length() * 3;
+            if (input.length < required) {
+                input = new byte[Math.max(required, input.length * 2)];
+            }
+            byte[] out = input;
+            long most = userId.getMostSignificantBits();
+            long least = userId.getLeastSignificantBits();
+            int position = hex(out, 0, most >>> 32, 8);
+            out[position++] = '-';
+            position = hex(out, position, most >>> 16, 4);
+            out[position++] = '-';
+            position = hex(out, position, most, 4);
+            out[position++] = '-';
+            position = hex(out, position, least >>> 48, 4);
+            out[position++] = '-';
+            position = hex(out, position, least, 12);
+            out[position++] = '|';
+
+            int length = url.length();
+            for (int i = 0; i < length; i++) {
+                char c = url.charAt(i);
+                if (c < 0x80) {
+                    out[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    out[position++] = (byte) (0xc0 | (c >> 6));
+                    out[position++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c)
+                        && i + 1 < length
+                        && Character.isLowSurrogate(url.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, url.charAt(++i));
+                    out[position++] = (byte) (0xf0 | (codePoint >> 18));
+                    out[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    out[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    out[position++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    // Непарный суррогат кодируется как '?', как в String.getBytes
+                    out[position++] = '?';
+                } else {
+                    out[position++] = (byte) (0xe0 | (c >> 12));
+                    out[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    out[position++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            return position;
+        }
+
+        private static int hex(byte[] out, int position, long value, int digits) {
+            for (int i = digits - 1; i >= 0; i--) {
+                out[position + i] = HEX[(int) (value & 0xf)];
+                value >>>= 4;
+            }
+            return position + digits;
+        }
+    }
 }
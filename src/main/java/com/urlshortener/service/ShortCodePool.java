@@ -0,0 +1,222 @@
+package com.urlshortener.service;
+
+import com.urlshortener.repository.LinkRepository;
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Пул заранее сгенерированных коротких кодов, проверенных на отсутствие в хранилище.
+ *
+ * <p>Создание ссылки берет код из неблокирующей очереди и не тратит время на хеширование
+ * и проверку коллизий. Фоновый поток пополняет пул до {@code capacity}, когда в нем
+ * остается меньше {@code refillThreshold} кодов. Коды не зависят от URL: генератор
+ * получает вместо URL номер кода в пуле, а вместо пользователя — случайный идентификатор
+ * пула.
+ *
+ * <p>Для генераторов без гарантии уникальности каждый код проверяется по хранилищу при
+ * пополнении, а одинаковые коды не попадают в пул дважды. Код, который после проверки
+ * успели занять в обход пула, отбрасывается при выдаче повторной проверкой. Длину таких
+ * кодов выбирает {@link CodeSpaceMonitor}, которому сообщается результат каждой проверки.
+ */
+public class ShortCodePool implements Closeable {
+    private final ShortCodeGenerator generator;
+    private final LinkRepository linkRepository;
+    private final CodeSpaceMonitor codeSpace;
+    private final int capacity;
+    private final int refillThreshold;
+    private final UUID poolId = UUID.randomUUID();
+    private final Queue<String> codes = new ConcurrentLinkedQueue<>();
+    private final Set<String> pooled = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger lowWaterMark;
+    private final LongAdder emptyCount = new LongAdder();
+    private final LongAdder refilledCount = new LongAdder();
+    private final AtomicLong refillRate = new AtomicLong();
+    private final Thread refiller;
+    private long sequence;
+    private volatile boolean running = true;
+
+    /**
+     * Создает пул, заполняет его и запускает фоновое пополнение.
+     *
+     * @param generator генератор кодов
+     * @param linkRepository хранилище для проверки занятости кодов
+     * @param capacity размер пула
+     * @param refillThreshold число кодов, ниже которого начинается пополнение
+     */
+    public ShortCodePool(
+            ShortCodeGenerator generator,
+            LinkRepository linkRepository,
+            int capacity,
+            int refillThreshold) {
+        this(
+                generator,
+                linkRepository,
+                capacity,
+                refillThreshold,
+                CodeSpaceMonitor.forGenerator(
+                        generator, CodeSpaceMonitor.DEFAULT_MAX_EXPECTED_PROBES));
+    }
+
+    /**
+     * Создает пул, заполняет его и запускает фоновое пополнение.
+     *
+     * @param generator генератор кодов
+     * @param linkRepository хранилище для проверки занятости кодов
+     * @param capacity размер пула
+     * @param refillThreshold число кодов, ниже которого начинается пополнение
+     * @param codeSpace монитор заполненности пространства кодов, общий с сервисом ссылок
+     */
+    public ShortCodePool(
+            ShortCodeGenerator generator,
+            LinkRepository linkRepository,
+            int capacity,
+            int refillThreshold,
+            CodeSpaceMonitor codeSpace) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер пула должен быть положительным");
+        }
+        if (refillThreshold <= 0 || refillThreshold > capacity) {
+            throw new IllegalArgumentException("Порог пополнения должен быть в пределах (0, размер пула]");
+        }
+        this.generator = generator;
+        this.linkRepository = linkRepository;
+        this.codeSpace = codeSpace;
+        this.capacity = capacity;
+        this.refillThreshold = refillThreshold;
+        refill();
+        this.lowWaterMark = new AtomicInteger(size.get());
+        this.refiller = new Thread(this::refillLoop, "ShortCodePoolRefill");
+        refiller.setDaemon(true);
+        refiller.start();
+    }
+
+    /**
+     * Выдает свободный код.
+     *
+     * @return код или null, если пул пуст
+     */
+    public String take() {
+        while (true) {
+            String code = codes.poll();
+            if (code == null) {
+                emptyCount.increment();
+                LockSupport.unpark(refiller);
+                return null;
+            }
+            int remaining = size.decrementAndGet();
+            lowWaterMark.accumulateAndGet(remaining, Math::min);
+            if (remaining < refillThreshold) {
+                LockSupport.unpark(refiller);
+            }
+            if (generator.isCollisionFree()) {
+                return code;
+            }
+            boolean occupied = linkRepository.existsByShortCode(code);
+            pooled.remove(code);
+            if (!occupied) {
+                return code;
+            }
+        }
+    }
+
+    /**
+     * Текущее число кодов в пуле.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Наименьшее число кодов, остававшееся в пуле после выдачи.
+     */
+    public int lowWaterMark() {
+        return lowWaterMark.get();
+    }
+
+    /**
+     * Сколько раз пул оказался пуст и код пришлось генерировать при создании ссылки.
+     */
+    public long emptyCount() {
+        return emptyCount.sum();
+    }
+
+    /**
+     * Общее число кодов, добавленных в пул.
+     */
+    public long refilledCount() {
+        return refilledCount.sum();
+    }
+
+    /**
+     * Скорость последнего пополнения, кодов в секунду.
+     */
+    public long refillRate() {
+        return refillRate.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(refiller);
+        try {
+            refiller.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void refillLoop() {
+        while (running) {
+            if (size.get() < refillThreshold) {
+                try {
+                    refill();
+                } catch (RuntimeException e) {
+                    System.err.println("Ошибка пополнения пула кодов: " + e.getMessage());
+                }
+            }
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    private void refill() {
+        long started = System.nanoTime();
+        int added = 0;
+        while (running && size.get() < capacity) {
+            String code;
+            if (generator.isCollisionFree()) {
+                try {
+                    code = generator.generate(Long.toString(sequence++), poolId);
+                } catch (IllegalStateException e) {
+                    // Пространство кодов исчерпано: создание ссылки получит ошибку от генератора
+                    break;
+                }
+            } else {
+                int length = codeSpace.currentLength();
+                code = generator.generate(Long.toString(sequence++), poolId, length);
+                boolean occupied = linkRepository.existsByShortCode(code);
+                codeSpace.recordProbe(length, occupied);
+                if (occupied || !pooled.add(code)) {
+                    continue;
+                }
+            }
+            codes.add(code);
+            size.incrementAndGet();
+            added++;
+        }
+        long elapsed = System.nanoTime() - started;
+        if (added > 0) {
+            refilledCount.add(added);
+            refillRate.set(added * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed));
+        }
+    }
+}
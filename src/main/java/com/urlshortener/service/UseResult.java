@@ -0,0 +1,46 @@
+package com.urlshortener.service;
+
+import com.urlshortener.domain.Link;
+
+/**
+ * Результат перехода по короткому коду: исход и, при успехе, использованная ссылка.
+ *
+ * <p>Неудачные результаты не зависят от кода и создаются один раз, поэтому отказ
+ * не создает объектов.
+ *
+ * @param status исход перехода
+ * @param link использованная ссылка при {@link LinkStatus#OK}, иначе null
+ */
+public record UseResult(LinkStatus status, Link link) {
+    private static final UseResult[] FAILURES = new UseResult[LinkStatus.values().length];
+
+    static {
+        for (LinkStatus status : LinkStatus.values()) {
+            if (status != LinkStatus.OK) {
+                FAILURES[status.ordinal()] = new UseResult(status, null);
+            }
+        }
+    }
+
+    static UseResult ok(Link link) {
+        return new UseResult(LinkStatus.OK, link);
+    }
+
+    static UseResult failure(LinkStatus status) {
+        if (status == LinkStatus.OK) {
+            throw new IllegalArgumentException("Неудачный результат не может иметь статус OK");
+        }
+        return FAILURES[status.ordinal()];
+    }
+
+    public boolean isOk() {
+        return status == LinkStatus.OK;
+    }
+
+    /**
+     * Оригинальный URL для перенаправления или null, если переход не удался.
+     */
+    public String url() {
+        return link == null ? null : link.getOriginalUrl();
+    }
+}
@@ -0,0 +1,132 @@
+package com.urlshortener.analytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ClickEventBufferTest {
+    private ClickEventBuffer buffer;
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+
+    @Test
+    void testConcurrentProducersDeliverEveryAcceptedEventInOrder() throws Exception {
+        buffer = new ClickEventBuffer(1024, 64);
+        Map<Long, Long> lastSequence = new HashMap<>();
+        long[] delivered = new long[1];
+        boolean[] outOfOrder = new boolean[1];
+        buffer.addAggregator(
+                batch -> {
+                    assertTrue(batch.size() <= 64);
+                    assertTrue(batch.timestampMillis() > 0);
+                    for (int i = 0; i < batch.size(); i++) {
+                        // Посетитель кодирует номер производителя и номер его события
+                        long producer = batch.visitor(i) >>> 32;
+                        long sequence = batch.visitor(i) & 0xFFFF_FFFFL;
+                        Long previous = lastSequence.put(producer, sequence);
+                        if (previous != null && previous >= sequence) {
+                            outOfOrder[0] = true;
+                        }
+                        assertEquals("code" + producer, batch.shortCode(i));
+                    }
+                    delivered[0] += batch.size();
+                });
+        buffer.start();
+
+        int producers = 4;
+        int eventsPerProducer = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 1; p <= producers; p++) {
+            long producer = p;
+            String code = "code" + p;
+            Thread thread =
+                    new Thread(
+                            () -> {
+                                try {
+                                    start.await();
+                                } catch (InterruptedException e) {
+                                    return;
+                                }
+                                for (int i = 0; i < eventsPerProducer; i++) {
+                                    buffer.publish(code, producer << 32 | i);
+                                }
+                            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(buffer.awaitConsumed(10_000));
+        assertEquals(
+                producers * eventsPerProducer, buffer.publishedCount() + buffer.droppedCount());
+        assertEquals(buffer.publishedCount(), buffer.consumedCount());
+        assertEquals(buffer.consumedCount(), delivered[0]);
+        assertEquals(0, buffer.backlog());
+        assertFalse(outOfOrder[0], "события одного производителя переставлены");
+    }
+
+    @Test
+    void testFullBufferDropsEventsWithoutBlocking() throws Exception {
+        buffer = new ClickEventBuffer(3, 16);
+        List<String> codes = new ArrayList<>();
+        buffer.addAggregator(
+                batch -> {
+                    for (int i = 0; i < batch.size(); i++) {
+                        codes.add(batch.shortCode(i));
+                    }
+                });
+
+        // Потребитель еще не запущен: емкость округлена до 4 мест
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i < 4, buffer.publish("c" + i, ClickSink.UNKNOWN_VISITOR));
+        }
+        assertEquals(4, buffer.publishedCount());
+        assertEquals(6, buffer.droppedCount());
+        assertEquals(4, buffer.backlog());
+
+        buffer.start();
+        assertTrue(buffer.awaitConsumed(5000));
+        assertEquals(List.of("c0", "c1", "c2", "c3"), codes);
+
+        assertTrue(buffer.publish("c10", ClickSink.UNKNOWN_VISITOR));
+        buffer.close();
+        assertEquals(List.of("c0", "c1", "c2", "c3", "c10"), codes);
+        assertEquals(6, buffer.droppedCount());
+    }
+
+    @Test
+    void testFailingAggregatorDoesNotStopOthers() throws Exception {
+        buffer = new ClickEventBuffer(16, 4);
+        long[] delivered = new long[1];
+        buffer.addAggregator(
+                batch -> {
+                    throw new IllegalStateException("сбой");
+                });
+        buffer.addAggregator(batch -> delivered[0] += batch.size());
+        buffer.start();
+
+        for (int i = 0; i < 10; i++) {
+            buffer.publish("abc", i);
+        }
+
+        assertTrue(buffer.awaitConsumed(5000));
+        assertEquals(10, delivered[0]);
+        assertTrue(buffer.failureCount() >= 3);
+        assertTrue(buffer.batchCount() >= 3);
+    }
+}
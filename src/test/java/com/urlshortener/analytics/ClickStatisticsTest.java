@@ -0,0 +1,117 @@
+package com.urlshortener.analytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+class ClickStatisticsTest {
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    /** 2024-03-10T12:00Z. */
+    private static final long NOON =
+            LocalDateTime.of(2024, 3, 10, 12, 0).toEpochSecond(ZoneOffset.UTC) * 1000;
+
+    private final ClickStatistics statistics =
+            new ClickStatistics(60, 24, 7, 8, ZoneOffset.UTC);
+
+    private void click(long timestampMillis, String shortCode, long... visitors) {
+        ClickBatch batch = new ClickBatch(visitors.length);
+        for (long visitor : visitors) {
+            batch.add(shortCode, visitorId(visitor));
+        }
+        batch.setTimestampMillis(timestampMillis);
+        statistics.onBatch(batch);
+    }
+
+    /** Номер посетителя в тесте превращается в равномерный хеш, как в {@link VisitorId}. */
+    private static long visitorId(long visitor) {
+        return visitor == ClickSink.UNKNOWN_VISITOR ? visitor : VisitorId.mix(visitor);
+    }
+
+    @Test
+    void testClicksAreCountedPerMinuteHourAndDay() {
+        click(NOON, "abc", 1, 2, 1);
+        click(NOON + 5 * MINUTE, "abc", 3);
+        click(NOON + HOUR, "abc", 1, ClickSink.UNKNOWN_VISITOR);
+        click(NOON, "other", 9);
+
+        ClickStats stats = statistics.stats("abc", NOON + HOUR + MINUTE).orElseThrow();
+
+        assertEquals(6, stats.clicks());
+        assertEquals(3, stats.uniqueVisitors());
+        // Минутные корзины за последний час: 12:05 и 13:00; корзина 12:00 уже вытеснена
+        assertEquals(2, stats.minutes().size());
+        assertEquals(LocalDateTime.of(2024, 3, 10, 12, 5), stats.minutes().get(0).start());
+        assertEquals(1, stats.minutes().get(0).clicks());
+        assertEquals(2, stats.minutes().get(1).clicks());
+        assertEquals(1, stats.minutes().get(1).uniqueVisitors());
+        assertEquals(2, stats.hours().size());
+        assertEquals(4, stats.hours().get(0).clicks());
+        assertEquals(3, stats.hours().get(0).uniqueVisitors());
+        assertEquals(1, stats.days().size());
+        assertEquals(LocalDateTime.of(2024, 3, 10, 0, 0), stats.days().get(0).start());
+        assertEquals(6, stats.days().get(0).clicks());
+
+        assertEquals(1, statistics.stats("other", NOON).orElseThrow().clicks());
+        assertTrue(statistics.stats("missing", NOON).isEmpty());
+    }
+
+    @Test
+    void testOldBucketsExpireAndMemoryStaysFixed() {
+        click(NOON, "abc", 1);
+        long memory = 0;
+        // Две недели переходов каждые 10 минут от разных посетителей
+        for (long t = NOON; t < NOON + 14 * DAY; t += 10 * MINUTE) {
+            long[] visitors = new long[50];
+            for (int i = 0; i < visitors.length; i++) {
+                visitors[i] = t + i;
+            }
+            click(t, "abc", visitors);
+            if (t == NOON + 7 * DAY) {
+                memory = statistics.memoryBytes();
+            }
+        }
+        long now = NOON + 14 * DAY;
+
+        ClickStats stats = statistics.stats("abc", now).orElseThrow();
+
+        assertEquals(7, stats.days().size());
+        // Текущий час еще без переходов, последний переход был в 11:50
+        assertEquals(23, stats.hours().size());
+        assertEquals(5, stats.minutes().size());
+        assertTrue(stats.days().get(0).start().isAfter(LocalDateTime.of(2024, 3, 17, 0, 0)));
+        // Все корзины уже созданы к концу первой недели: память больше не растет
+        assertEquals(memory, statistics.memoryBytes());
+        assertTrue(memory < (60 + 24 + 7) * (256 + 128), "память: " + memory);
+    }
+
+    @Test
+    void testInactiveAndRemovedLinksAreForgotten() {
+        click(NOON, "stale", 1);
+        click(NOON, "deleted", 1);
+        statistics.remove("deleted");
+        assertEquals(1, statistics.trackedLinks());
+
+        click(NOON + 8 * DAY, "fresh", 1);
+
+        assertEquals(1, statistics.trackedLinks());
+        assertTrue(statistics.stats("stale", NOON + 8 * DAY).isEmpty());
+        assertTrue(statistics.stats("fresh", NOON + 8 * DAY).isPresent());
+    }
+
+    @Test
+    void testRejectsInvalidRetention() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new ClickStatistics(0, 0, 0, 8, ZoneOffset.UTC));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new ClickStatistics(-1, 24, 7, 8, ZoneOffset.UTC));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new ClickStatistics(60, 24, 7, 20, ZoneOffset.UTC));
+    }
+}
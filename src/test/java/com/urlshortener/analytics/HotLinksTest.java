@@ -0,0 +1,126 @@
+package com.urlshortener.analytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class HotLinksTest {
+    private static final long HALF_LIFE = 60_000L;
+    private static final long START = 1_700_000_000_000L;
+
+    private final HotLinks hotLinks = new HotLinks(10, 1024, HALF_LIFE);
+
+    private void click(long timestampMillis, List<String> shortCodes) {
+        ClickBatch batch = new ClickBatch(shortCodes.size());
+        for (String shortCode : shortCodes) {
+            batch.add(shortCode, ClickSink.UNKNOWN_VISITOR);
+        }
+        batch.setTimestampMillis(timestampMillis);
+        hotLinks.onBatch(batch);
+    }
+
+    private void click(long timestampMillis, String shortCode, int times) {
+        click(timestampMillis, Collections.nCopies(times, shortCode));
+    }
+
+    private static List<String> codes(List<HotLink> hot) {
+        return hot.stream().map(HotLink::shortCode).toList();
+    }
+
+    @Test
+    void testFindsHeaviestHittersInSkewedStream() {
+        // Код c{i} получает 2000 / (i + 1) переходов, всего около 15 000 в перемешанном потоке
+        List<String> stream = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            stream.addAll(Collections.nCopies(2000 / (i + 1), "c" + i));
+        }
+        Collections.shuffle(stream, new Random(42));
+        for (int from = 0; from < stream.size(); from += 256) {
+            click(START, stream.subList(from, Math.min(from + 256, stream.size())));
+        }
+
+        List<HotLink> top = hotLinks.top(5);
+
+        assertEquals(List.of("c0", "c1", "c2", "c3", "c4"), codes(top));
+        for (int i = 0; i < top.size(); i++) {
+            long actual = 2000 / (i + 1);
+            assertTrue(top.get(i).clicks() >= actual, "оценка не занижается: " + top.get(i));
+            assertTrue(top.get(i).clicks() <= actual + 50, "погрешность: " + top.get(i));
+        }
+        assertEquals(10, hotLinks.trackedLinks());
+        assertEquals(10, hotLinks.top(100).size());
+    }
+
+    @Test
+    void testCodesWithEqualStringHashDoNotShareCounters() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        // Неупаковываемые коды хешируются по символам
+        assertEquals("Aa-".hashCode(), "BB-".hashCode());
+
+        click(START, "Aa", 1000);
+        click(START, "Aa-", 1000);
+
+        assertEquals(1000, hotLinks.estimate("Aa"));
+        assertEquals(0, hotLinks.estimate("BB"));
+        assertEquals(1000, hotLinks.estimate("Aa-"));
+        assertEquals(0, hotLinks.estimate("BB-"));
+    }
+
+    @Test
+    void testOldPopularityDecays() {
+        click(START, "old", 1000);
+        click(START + HALF_LIFE, "new", 300);
+
+        // Прошел один период полураспада: вес прежних переходов уменьшился вдвое
+        assertEquals(500, hotLinks.estimate("old"));
+        assertEquals(List.of("old", "new"), codes(hotLinks.top(2)));
+
+        click(START + 3 * HALF_LIFE, "new", 300);
+
+        assertEquals(List.of("new", "old"), codes(hotLinks.top(2)));
+        assertEquals(125, hotLinks.top(2).get(1).clicks());
+
+        // После долгого простоя все оценки обнуляются
+        click(START + 100 * HALF_LIFE, List.of());
+        assertTrue(hotLinks.top(10).isEmpty());
+        assertEquals(0, hotLinks.estimate("new"));
+    }
+
+    @Test
+    void testNewHotLinkDisplacesColdestCandidate() {
+        for (int i = 0; i < 10; i++) {
+            click(START, "c" + i, i + 1);
+        }
+
+        click(START, "hot", 5);
+
+        List<String> top = codes(hotLinks.top(10));
+        assertTrue(top.contains("hot"));
+        assertFalse(top.contains("c0"));
+        assertEquals(10, top.size());
+    }
+
+    @Test
+    void testRemovedLinkLeavesTop() {
+        for (int i = 0; i < 5; i++) {
+            click(START, "c" + i, 10 * (i + 1));
+        }
+
+        hotLinks.remove("c2");
+        hotLinks.remove("missing");
+
+        assertEquals(List.of("c4", "c3", "c1", "c0"), codes(hotLinks.top(10)));
+        assertEquals(4, hotLinks.trackedLinks());
+    }
+
+    @Test
+    void testRejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new HotLinks(0, 1024, HALF_LIFE));
+        assertThrows(IllegalArgumentException.class, () -> new HotLinks(10, 0, HALF_LIFE));
+        assertThrows(IllegalArgumentException.class, () -> new HotLinks(10, 1024, 0));
+    }
+}
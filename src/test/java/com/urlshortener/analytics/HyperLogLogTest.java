@@ -0,0 +1,62 @@
+package com.urlshortener.analytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTest {
+
+    @Test
+    void testSmallCardinalitiesAreNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog(8);
+        assertEquals(0, sketch.estimate());
+
+        for (int i = 1; i <= 20; i++) {
+            sketch.add(VisitorId.mix(i));
+            sketch.add(VisitorId.mix(i));
+        }
+
+        assertEquals(20, sketch.estimate(), 1);
+        // 20 регистров в разреженном виде занимают меньше плотного массива
+        assertTrue(sketch.memoryBytes() < 256, "память: " + sketch.memoryBytes());
+    }
+
+    @Test
+    void testLargeCardinalityWithinErrorAndFixedMemory() {
+        HyperLogLog sketch = new HyperLogLog(8);
+        int visitors = 1_000_000;
+        for (int i = 0; i < visitors; i++) {
+            sketch.add(VisitorId.mix(i));
+        }
+
+        // Три стандартные ошибки: 3 × 1.04 / sqrt(256) ≈ 19.5%
+        double error = Math.abs(sketch.estimate() - visitors) / (double) visitors;
+        assertTrue(error < 0.195, "ошибка: " + error);
+        assertEquals(256, sketch.memoryBytes());
+    }
+
+    @Test
+    void testMergeEstimatesUnion() {
+        HyperLogLog first = new HyperLogLog(10);
+        HyperLogLog second = new HyperLogLog(10);
+        for (int i = 0; i < 30_000; i++) {
+            first.add(VisitorId.mix(i));
+            second.add(VisitorId.mix(i + 20_000));
+        }
+        byte[] union = new byte[1 << 10];
+        first.mergeInto(union);
+        second.mergeInto(union);
+
+        double error = Math.abs(HyperLogLog.estimate(union) - 50_000) / 50_000.0;
+        assertTrue(error < 0.1, "ошибка: " + error);
+
+        first.clear();
+        assertEquals(0, first.estimate());
+    }
+
+    @Test
+    void testRejectsInvalidPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(17));
+    }
+}
@@ -0,0 +1,99 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.config.AppConfig;
+import com.urlshortener.metrics.MetricsRegistry;
+import com.urlshortener.persistence.JournaledLinkRepository;
+import com.urlshortener.persistence.WriteAheadLog;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import com.urlshortener.service.LinkImporter;
+import com.urlshortener.service.LinkService;
+import com.urlshortener.service.NotificationService;
+import com.urlshortener.service.ShortCodeGenerator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Время создания {@code links} ссылок в журналируемом хранилище с синхронной фиксацией:
+ * по одной через {@code LinkService.createLink} и массовым импортом NDJSON через
+ * {@link LinkImporter}, который сохраняет ссылки пакетами с одной синхронизацией
+ * журнала на пакет.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class BulkImportBenchmark {
+    @Param({"20000"})
+    private int links;
+
+    @Param({"create", "import"})
+    private String mode;
+
+    private Path directory;
+    private WriteAheadLog wal;
+    private LinkService linkService;
+    private LinkImporter importer;
+    private String input;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("import-benchmark");
+        wal = new WriteAheadLog(directory, 1);
+        AppConfig config = AppConfig.load();
+        linkService =
+                new LinkService(
+                        new JournaledLinkRepository(new InMemoryLinkRepository(), wal, true),
+                        new ShortCodeGenerator(8),
+                        new NotificationService(false),
+                        config);
+        importer =
+                new LinkImporter(
+                        linkService,
+                        config.getImportWorkers(),
+                        config.getImportBatchSize(),
+                        new MetricsRegistry());
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < links; i++) {
+            ndjson.append("{\"url\": \"https://example.com/campaign/").append(i).append("\"}\n");
+        }
+        input = ndjson.toString();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        wal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long createLinks() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        if (mode.equals("import")) {
+            return importer.importLinks(
+                            new BufferedReader(new StringReader(input)), ownerId, result -> {})
+                    .created();
+        }
+        BufferedReader reader = new BufferedReader(new StringReader(input));
+        long created = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            // Упрощенный разбор строки: сравнивается путь записи, а не разбор JSON
+            String url = line.substring(9, line.length() - 2);
+            linkService.createLink(url, ownerId);
+            created++;
+        }
+        return created;
+    }
+}
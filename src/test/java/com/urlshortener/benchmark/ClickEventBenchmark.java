@@ -0,0 +1,83 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.analytics.ClickAggregator;
+import com.urlshortener.analytics.ClickEventBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Стоимость учета перехода для аналитики в потоке перехода: публикация события
+ * в {@link ClickEventBuffer} с агрегацией в потоке-потребителе ({@code ring}) против
+ * синхронного обновления общей таблицы счетчиков под блокировкой ({@code locked}).
+ * Режим {@code publish} — публикация без агрегаторов: стоимость, которую платит поток
+ * перехода, когда у потребителя есть свое ядро. Число производителей задается
+ * параметром {@code -t}.
+ *
+ * <p>После измерений печатается число принятых и отброшенных событий.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class ClickEventBenchmark {
+    private static final int CODES = 1 << 14;
+
+    @Param({"ring", "locked", "publish"})
+    private String mode;
+
+    private final Map<String, long[]> counts = new HashMap<>();
+    private final ClickAggregator counter =
+            batch -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    count(batch.shortCode(i));
+                }
+            };
+    private ClickEventBuffer buffer;
+    private String[] codes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        codes = new String[CODES];
+        for (int i = 0; i < CODES; i++) {
+            codes[i] = "c" + i;
+        }
+        buffer = new ClickEventBuffer(65536, 1024);
+        if (mode.equals("ring")) {
+            buffer.addAggregator(counter);
+        }
+        buffer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        buffer.close();
+        System.out.printf(
+                "%n[%s] принято: %d, отброшено: %d%n",
+                mode, buffer.publishedCount(), buffer.droppedCount());
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public boolean recordClick(Cursor cursor) {
+        String code = codes[cursor.next++ & (CODES - 1)];
+        if (!mode.equals("locked")) {
+            return buffer.publish(code, cursor.next);
+        }
+        synchronized (counts) {
+            count(code);
+        }
+        return true;
+    }
+
+    private void count(String code) {
+        counts.computeIfAbsent(code, key -> new long[1])[0]++;
+    }
+}
@@ -0,0 +1,63 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.config.AppConfig;
+import com.urlshortener.domain.Link;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import com.urlshortener.repository.LinkRepository;
+import com.urlshortener.service.LinkService;
+import com.urlshortener.service.NotificationService;
+import com.urlshortener.service.ShortCodeGenerator;
+import com.urlshortener.service.ShortCodePool;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Задержка {@code LinkService.createLink} с генерацией кода при создании и с пулом
+ * заранее сгенерированных кодов. Пул достаточно велик, чтобы за итерацию не опустеть
+ * при пополнении в фоне.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class CreateLinkBenchmark {
+    @Param({"none", "pool"})
+    private String codeSource;
+
+    private LinkRepository repository;
+    private ShortCodePool pool;
+    private LinkService linkService;
+    private UUID userId;
+    private long sequence;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        AppConfig config = AppConfig.load();
+        repository = new InMemoryLinkRepository();
+        ShortCodeGenerator generator = new ShortCodeGenerator(8);
+        if (codeSource.equals("pool")) {
+            pool = new ShortCodePool(generator, repository, 200_000, 100_000);
+        }
+        linkService =
+                new LinkService(repository, generator, new NotificationService(false), config, pool);
+        userId = UUID.randomUUID();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (pool != null) {
+            System.out.printf(
+                    "%n[pool] нижняя граница: %d, пуст: %d раз, скорость пополнения: %d кодов/с%n",
+                    pool.lowWaterMark(), pool.emptyCount(), pool.refillRate());
+            pool.close();
+        }
+    }
+
+    @Benchmark
+    public Link createLink() {
+        return linkService.createLink("https://example.com/articles/" + sequence++, userId);
+    }
+}
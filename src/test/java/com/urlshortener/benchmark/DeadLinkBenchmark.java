@@ -0,0 +1,78 @@
+package com.urlshortener.benchmark;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import com.urlshortener.config.AppConfig;
+import com.urlshortener.domain.Link;
+import com.urlshortener.repository.BloomFilteredLinkRepository;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import com.urlshortener.service.LinkService;
+import com.urlshortener.service.NotificationService;
+import com.urlshortener.service.ShortCodeGenerator;
+import com.urlshortener.service.UseResult;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Поток переходов по мертвым кодам: половина запросов — несуществующие коды, половина —
+ * ссылки, исчерпавшие лимит. Сравнивается обработка с кешем отрицательных ответов
+ * и без него ({@code link.negative.cache.size=0}), а также API с исключениями
+ * ({@link LinkService#useLink(String)}) и с результатом ({@link LinkService#tryUseLink(String)});
+ * с {@code -prof gc} видно, что с кешем отказ не создает объектов.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class DeadLinkBenchmark {
+    private static final int DEAD_CODES = 1 << 12;
+
+    @Param({"off", "on"})
+    private String negativeCache;
+
+    private LinkService linkService;
+    private String[] codes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AppConfig config = spy(AppConfig.load());
+        if (negativeCache.equals("off")) {
+            doReturn(0).when(config).getNegativeCacheSize();
+        }
+        linkService =
+                new LinkService(
+                        new BloomFilteredLinkRepository(
+                                new InMemoryLinkRepository(), 1_000_000, 0.01),
+                        new ShortCodeGenerator(8),
+                        new NotificationService(false),
+                        config);
+        UUID owner = UUID.randomUUID();
+        codes = new String[DEAD_CODES];
+        for (int i = 0; i < DEAD_CODES; i += 2) {
+            Link link = linkService.createLink("https://example.com/" + i, owner, 1);
+            linkService.useLink(link.getShortCode());
+            codes[i] = link.getShortCode();
+            codes[i + 1] = "missing" + i;
+        }
+    }
+
+    @Benchmark
+    public RuntimeException useDeadLink() {
+        try {
+            linkService.useLink(codes[cursor++ & (DEAD_CODES - 1)]);
+            throw new AssertionError("Переход по мертвой ссылке");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public UseResult tryUseDeadLink() {
+        return linkService.tryUseLink(codes[cursor++ & (DEAD_CODES - 1)]);
+    }
+}
@@ -0,0 +1,84 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.config.AppConfig;
+import com.urlshortener.domain.Link;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import com.urlshortener.repository.LinkFilter;
+import com.urlshortener.service.LinkExporter;
+import com.urlshortener.service.LinkService;
+import com.urlshortener.service.NotificationService;
+import com.urlshortener.service.ShortCodeGenerator;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Выгрузка всех ссылок в NDJSON: через копию {@code findAll()} (прежний путь, {@code copy}),
+ * потоковым обходом хранилища в одном потоке ({@code scan}) и параллельно
+ * ({@code parallel}). С {@code -prof gc} видно, что потоковая выгрузка не выделяет память
+ * пропорционально числу ссылок.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+    @Param({"1000000"})
+    private int links;
+
+    @Param({"copy", "scan", "parallel"})
+    private String mode;
+
+    private LinkExporter exporter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryLinkRepository repository =
+                mode.equals("copy")
+                        ? new InMemoryLinkRepository() {
+                            @Override
+                            public Spliterator<Link> scan(LinkFilter filter) {
+                                return findAll().stream().filter(filter::matches).spliterator();
+                            }
+                        }
+                        : new InMemoryLinkRepository();
+        LocalDateTime now = LocalDateTime.now();
+        UUID owner = UUID.randomUUID();
+        for (int i = 0; i < links; i++) {
+            if (i % 10 == 0) {
+                owner = UUID.randomUUID();
+            }
+            repository.save(
+                    Link.builder()
+                            .shortCode("c" + i)
+                            .originalUrl("https://example.com/" + i)
+                            .ownerId(owner)
+                            .createdAt(now)
+                            .expiresAt(now.plusHours(24))
+                            .clickLimit(10)
+                            .build());
+        }
+        exporter =
+                new LinkExporter(
+                        new LinkService(
+                                repository,
+                                new ShortCodeGenerator(8),
+                                new NotificationService(false),
+                                AppConfig.load()));
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        return exporter.export(
+                LinkFilter.all(),
+                LinkExporter.Format.NDJSON,
+                Writer.nullWriter(),
+                mode.equals("parallel"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.analytics.ClickEventBuffer;
+import com.urlshortener.analytics.ClickSink;
+import com.urlshortener.analytics.HotLinks;
+import com.urlshortener.domain.Link;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Запрос десяти самых популярных ссылок: сортировка {@code findAll()} по
+ * {@code getClickCount()} ({@code scan}) против чтения кучи {@link HotLinks}
+ * ({@code sketch}). Переходы распределены по ссылкам с тяжелым хвостом: номер ссылки —
+ * {@code links^u - 1} для равномерного {@code u}.
+ *
+ * <p>В режиме {@code sketch} переходы при подготовке проходят через
+ * {@link ClickEventBuffer}; печатается время их учета в расчете на переход.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class HotLinksBenchmark {
+    private static final int TOP = 10;
+    private static final int CLICKS = 10_000_000;
+
+    @Param({"1000000"})
+    private int links;
+
+    @Param({"scan", "sketch"})
+    private String mode;
+
+    private InMemoryLinkRepository repository;
+    private HotLinks hotLinks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        String[] codes = new String[links];
+        for (int i = 0; i < links; i++) {
+            codes[i] = "c" + i;
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        if (mode.equals("scan")) {
+            int[] clicks = new int[links];
+            for (int i = 0; i < CLICKS; i++) {
+                clicks[nextLink(random)]++;
+            }
+            repository = new InMemoryLinkRepository();
+            LocalDateTime now = LocalDateTime.now();
+            UUID owner = UUID.randomUUID();
+            for (int i = 0; i < links; i++) {
+                repository.save(
+                        Link.builder()
+                                .shortCode(codes[i])
+                                .originalUrl("https://example.com/" + i)
+                                .ownerId(owner)
+                                .createdAt(now)
+                                .expiresAt(now.plusHours(24))
+                                .clickLimit(Integer.MAX_VALUE)
+                                .clickCount(clicks[i])
+                                .build());
+            }
+            return;
+        }
+        hotLinks = new HotLinks(100, 4096, TimeUnit.MINUTES.toMillis(5));
+        try (ClickEventBuffer buffer = new ClickEventBuffer(65536, 1024)) {
+            buffer.addAggregator(hotLinks);
+            buffer.start();
+            long started = System.nanoTime();
+            for (int i = 0; i < CLICKS; i++) {
+                String code = codes[nextLink(random)];
+                while (!buffer.publish(code, ClickSink.UNKNOWN_VISITOR)) {
+                    Thread.onSpinWait();
+                }
+            }
+            buffer.awaitConsumed(60_000);
+            System.out.printf(
+                    "%nУчет перехода в HotLinks: %.1f нс (с публикацией в буфер)%n",
+                    (System.nanoTime() - started) / (double) CLICKS);
+        }
+    }
+
+    private int nextLink(SplittableRandom random) {
+        return (int) Math.pow(links, random.nextDouble()) - 1;
+    }
+
+    @Benchmark
+    public List<?> topLinks() {
+        if (mode.equals("sketch")) {
+            return hotLinks.top(TOP);
+        }
+        return repository.findAll().stream()
+                .sorted(Comparator.comparingInt(Link::getClickCount).reversed())
+                .limit(TOP)
+                .toList();
+    }
+}
@@ -0,0 +1,111 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.repository.CachingLinkRepository;
+import com.urlshortener.repository.LinkRepository;
+import com.urlshortener.repository.LogStructuredLinkRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Поиск по короткому коду в журнальном хранилище с кешем популярных ссылок и без него.
+ * Коды запрашиваются по закону Ципфа (s = 1): небольшая доля ссылок получает большую
+ * часть переходов, как в реальном трафике. Кеш вмещает 1% ссылок.
+ *
+ * <p>После измерений печатаются доля попаданий, число вытеснений и оценка памяти кеша.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class LinkCacheBenchmark {
+    private static final int LOOKUP_KEYS = 1 << 20;
+
+    @Param({"500000"})
+    private int totalLinks;
+
+    @Param({"none", "tinylfu"})
+    private String cache;
+
+    private Path directory;
+    private LogStructuredLinkRepository store;
+    private LinkRepository repository;
+    private String[] lookupCodes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("link-cache-benchmark");
+        store = new LogStructuredLinkRepository(directory, 64 * 1024 * 1024, 0);
+        LocalDateTime now = LocalDateTime.now();
+        UUID owner = UUID.randomUUID();
+        List<Link> batch = new ArrayList<>();
+        for (int i = 0; i < totalLinks; i++) {
+            batch.add(
+                    Link.builder()
+                            .shortCode("c" + i)
+                            .originalUrl("https://example.com/campaign/" + i)
+                            .ownerId(owner)
+                            .createdAt(now)
+                            .expiresAt(now.plusHours(24))
+                            .clickLimit(Integer.MAX_VALUE)
+                            .build());
+            if (batch.size() == 10_000) {
+                store.saveAll(batch);
+                batch.clear();
+            }
+        }
+        store.saveAll(batch);
+
+        double[] cumulative = new double[totalLinks];
+        double sum = 0;
+        for (int rank = 0; rank < totalLinks; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+        Random random = new Random(42);
+        lookupCodes = new String[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            lookupCodes[i] = "c" + (rank < 0 ? -rank - 1 : rank);
+        }
+        repository =
+                cache.equals("tinylfu")
+                        ? new CachingLinkRepository(store, totalLinks / 100)
+                        : store;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (repository instanceof CachingLinkRepository) {
+            CachingLinkRepository cached = (CachingLinkRepository) repository;
+            System.out.printf(
+                    "%n[tinylfu] попадания: %.3f, вытеснений: %d, память: %d КБ%n",
+                    cached.hitRate(), cached.evictionCount(), cached.memoryBytes() / 1024);
+        }
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Link findByShortCode() {
+        return repository
+                .findByShortCode(lookupCodes[cursor++ & (LOOKUP_KEYS - 1)])
+                .orElseThrow();
+    }
+}
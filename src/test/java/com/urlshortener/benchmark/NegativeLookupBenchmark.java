@@ -0,0 +1,75 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.domain.ShortCodeCodec;
+import com.urlshortener.repository.BloomFilteredLinkRepository;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import com.urlshortener.repository.LinkRepository;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Поиск несуществующих коротких кодов (боты, опечатки) с фильтром Блума и без него.
+ *
+ * <p>После подготовки печатаются заполнение фильтра и оценка доли ложноположительных ответов.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class NegativeLookupBenchmark {
+    private static final int LOOKUP_KEYS = 1 << 16;
+    private static final long CODE_SPACE = 56_800_235_584L; // 62^6
+
+    @Param({"1000000"})
+    private int totalLinks;
+
+    @Param({"none", "bloom"})
+    private String filter;
+
+    private LinkRepository repository;
+    private String[] missingCodes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryLinkRepository links = new InMemoryLinkRepository();
+        LocalDateTime now = LocalDateTime.now();
+        UUID owner = UUID.randomUUID();
+        for (int i = 0; i < totalLinks; i++) {
+            // Четные позиции пространства кодов заняты, нечетные — нет
+            links.save(
+                    Link.builder()
+                            .shortCode(ShortCodeCodec.encode(2L * i * 7919 % CODE_SPACE, 6))
+                            .originalUrl("https://example.com/")
+                            .ownerId(owner)
+                            .createdAt(now)
+                            .expiresAt(now.plusHours(24))
+                            .clickLimit(10)
+                            .build());
+        }
+        missingCodes = new String[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            missingCodes[i] = ShortCodeCodec.encode((2L * i * 104729 + 1) % CODE_SPACE, 6);
+        }
+        if (filter.equals("bloom")) {
+            BloomFilteredLinkRepository filtered =
+                    new BloomFilteredLinkRepository(links, totalLinks, 0.01);
+            System.out.printf(
+                    "%n[bloom] заполнение: %.3f, оценка доли ложноположительных: %.4f%n",
+                    filtered.fillRatio(), filtered.estimatedFalsePositiveRate());
+            repository = filtered;
+        } else {
+            repository = links;
+        }
+    }
+
+    @Benchmark
+    public boolean existsMissing() {
+        return repository.existsByShortCode(missingCodes[cursor++ & (LOOKUP_KEYS - 1)]);
+    }
+}
@@ -0,0 +1,57 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Стоимость {@code findByOwnerId} в зависимости от общего числа ссылок в репозитории.
+ * У искомого пользователя всегда одно и то же число ссылок, поэтому время поиска
+ * должно оставаться постоянным при росте {@code totalLinks}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OwnerLookupBenchmark {
+    private static final int LINKS_PER_OWNER = 10;
+
+    @Param({"10000", "100000", "1000000"})
+    private int totalLinks;
+
+    private InMemoryLinkRepository repository;
+    private UUID targetOwner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new InMemoryLinkRepository();
+        LocalDateTime now = LocalDateTime.now();
+        UUID owner = UUID.randomUUID();
+        for (int i = 0; i < totalLinks; i++) {
+            if (i % LINKS_PER_OWNER == 0) {
+                owner = UUID.randomUUID();
+            }
+            repository.save(
+                    Link.builder()
+                            .shortCode("c" + i)
+                            .originalUrl("https://example.com/" + i)
+                            .ownerId(owner)
+                            .createdAt(now)
+                            .expiresAt(now.plusHours(24))
+                            .clickLimit(10)
+                            .build());
+        }
+        targetOwner = owner;
+    }
+
+    @Benchmark
+    public List<Link> findByOwnerId() {
+        return repository.findByOwnerId(targetOwner);
+    }
+}
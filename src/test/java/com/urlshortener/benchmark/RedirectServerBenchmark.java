@@ -0,0 +1,156 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.config.AppConfig;
+import com.urlshortener.domain.Link;
+import com.urlshortener.http.NioRedirectServer;
+import com.urlshortener.http.RedirectEndpoint;
+import com.urlshortener.http.RedirectServer;
+import com.urlshortener.metrics.MetricsRegistry;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import com.urlshortener.service.LinkService;
+import com.urlshortener.service.NotificationService;
+import com.urlshortener.service.ShortCodeGenerator;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Пропускная способность HTTP-сервера переходов: каждый поток бенчмарка держит
+ * постоянное соединение и отправляет {@code GET /{код}} случайной ссылки, дожидаясь
+ * ответа. Число клиентов задается параметром JMH {@code -t}, реализация сервера —
+ * параметром {@code engine}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g", "-Dsun.net.httpserver.nodelay=true"})
+@Threads(4)
+public class RedirectServerBenchmark {
+    private static final int LINKS = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        @Param({"jdk", "nio"})
+        String engine;
+
+        RedirectEndpoint server;
+        byte[][] requests;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            InMemoryLinkRepository repository = new InMemoryLinkRepository();
+            LinkService linkService =
+                    new LinkService(
+                            repository,
+                            new ShortCodeGenerator(6),
+                            new NotificationService(false),
+                            AppConfig.load());
+            LocalDateTime now = LocalDateTime.now();
+            UUID ownerId = UUID.randomUUID();
+            requests = new byte[LINKS][];
+            for (int i = 0; i < LINKS; i++) {
+                String shortCode = "r" + i;
+                repository.save(
+                        Link.builder()
+                                .shortCode(shortCode)
+                                .originalUrl("https://example.com/" + i)
+                                .ownerId(ownerId)
+                                .createdAt(now)
+                                .expiresAt(now.plusDays(1))
+                                .clickLimit(Integer.MAX_VALUE)
+                                .build());
+                requests[i] =
+                        ("GET /" + shortCode + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                                .getBytes(StandardCharsets.US_ASCII);
+            }
+            MetricsRegistry metrics = new MetricsRegistry();
+            server =
+                    "nio".equals(engine)
+                            ? new NioRedirectServer(linkService, 0, LINKS * 2, metrics)
+                            : new RedirectServer(linkService, 0, metrics);
+            server.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            server.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        Socket socket;
+        OutputStream out;
+        InputStream in;
+
+        @Setup(Level.Trial)
+        public void connect(Server server) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.server.port());
+            socket.setTcpNoDelay(true);
+            out = socket.getOutputStream();
+            in = new BufferedInputStream(socket.getInputStream());
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            socket.close();
+        }
+
+        /**
+         * Читает заголовки ответа до пустой строки, пропускает тело длины
+         * {@code Content-length} и возвращает код статуса.
+         */
+        int readResponse() throws IOException {
+            StringBuilder headers = new StringBuilder();
+            int last = 0;
+            while (last != 0x0d0a0d0a) {
+                int b = read();
+                headers.append((char) b);
+                last = (last << 8) | b;
+            }
+            // "HTTP/1.1 302 ...": код статуса — символы 9-11
+            int status = Integer.parseInt(headers.substring(9, 12));
+            String lower = headers.toString().toLowerCase(Locale.ROOT);
+            int header = lower.indexOf("content-length:");
+            if (header >= 0) {
+                int end = lower.indexOf('\r', header);
+                long length = Long.parseLong(lower.substring(header + 15, end).trim());
+                for (long i = 0; i < length; i++) {
+                    read();
+                }
+            }
+            return status;
+        }
+
+        private int read() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Соединение закрыто сервером");
+            }
+            return b;
+        }
+    }
+
+    @Benchmark
+    public int redirect(Server server, Client client) throws IOException {
+        byte[] request = server.requests[ThreadLocalRandom.current().nextInt(LINKS)];
+        client.out.write(request);
+        client.out.flush();
+        int status = client.readResponse();
+        if (status != 302) {
+            throw new IllegalStateException("Неожиданный статус: " + status);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,121 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.domain.ShortCodeCodec;
+import com.urlshortener.domain.User;
+import com.urlshortener.persistence.JournaledLinkRepository;
+import com.urlshortener.persistence.SnapshotManager;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import com.urlshortener.repository.InMemoryUserRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Время восстановления при старте: загрузка снимка с {@code snapshotLinks} ссылками
+ * и применение хвоста журнала из {@code walTail} записей.
+ *
+ * <p>После каждой итерации печатается пропускная способность восстановления: записи снимка
+ * и журнала в секунду.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class RestoreBenchmark {
+    private static final long CODE_SPACE = 56_800_235_584L; // 62^6
+
+    @Param({"1000000"})
+    private int snapshotLinks;
+
+    @Param({"100000"})
+    private int walTail;
+
+    private Path directory;
+    private SnapshotManager.Restored lastRestored;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("restore-benchmark");
+        InMemoryLinkRepository links = new InMemoryLinkRepository();
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        SnapshotManager manager = SnapshotManager.restore(directory, links, users).manager();
+        JournaledLinkRepository journaled = new JournaledLinkRepository(links, manager.wal(), false);
+
+        LocalDateTime now = LocalDateTime.now();
+        UUID[] owners = new UUID[1000];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = UUID.randomUUID();
+            users.save(new User(owners[i]));
+        }
+        for (int i = 0; i < snapshotLinks; i++) {
+            links.save(createLink(i, owners[i % owners.length], now));
+        }
+        manager.snapshot();
+
+        // Хвост журнала: новые ссылки вперемешку с переходами по существующим
+        for (int i = 0; i < walTail; i++) {
+            if (i % 2 == 0) {
+                journaled.save(createLink(snapshotLinks + i, owners[i % owners.length], now));
+            } else {
+                Link link = links.findByShortCode(code(i)).orElseThrow();
+                link.use();
+                journaled.recordUsage(link);
+            }
+        }
+        manager.wal().close();
+    }
+
+    @Benchmark
+    public SnapshotManager.Restored restore() throws IOException {
+        SnapshotManager.Restored restored =
+                SnapshotManager.restore(
+                        directory, new InMemoryLinkRepository(), new InMemoryUserRepository());
+        restored.manager().wal().close();
+        lastRestored = restored;
+        return restored;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        if (lastRestored != null && lastRestored.elapsedMillis() > 0) {
+            double seconds = lastRestored.elapsedMillis() / 1000.0;
+            System.out.printf(
+                    "%n[restore] ссылок из снимка: %d, записей журнала: %d, %.0f записей/с%n",
+                    lastRestored.snapshotLinks(),
+                    lastRestored.walRecords(),
+                    (lastRestored.snapshotLinks() + lastRestored.walRecords()) / seconds);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static Link createLink(int index, UUID owner, LocalDateTime now) {
+        return Link.builder()
+                .shortCode(code(index))
+                .originalUrl("https://example.com/articles/" + index)
+                .ownerId(owner)
+                .createdAt(now)
+                .expiresAt(now.plusHours(24))
+                .clickLimit(100)
+                .build();
+    }
+
+    private static String code(int index) {
+        // Псевдослучайный 6-символьный код, детерминированный по индексу
+        return ShortCodeCodec.encode(Math.floorMod(index * 0x9E3779B97F4A7C15L, CODE_SPACE), 6);
+    }
+}
@@ -0,0 +1,93 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.domain.ShortCodeCodec;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import com.urlshortener.repository.LinkRepository;
+import com.urlshortener.repository.ShardedLinkRepository;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Пропускная способность хранилища в памяти без разделения и с разделением на секции:
+ * конкурентные создание, поиск и удаление ссылок, а также полный обход неактивных ссылок.
+ *
+ * <p>Число потоков задается параметром JMH {@code -t}; масштабирование заметно только
+ * при числе ядер больше одного.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class ShardedRepositoryBenchmark {
+    private static final long CODE_SPACE = 56_800_235_584L; // 62^6
+    private static final int PRELOADED = 1 << 20;
+
+    @Param({"1", "16"})
+    private int shards;
+
+    private LinkRepository repository;
+    private String[] codes;
+    private UUID owner;
+    private LocalDateTime expiresAt;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = shards > 1 ? new ShardedLinkRepository(shards) : new InMemoryLinkRepository();
+        owner = UUID.randomUUID();
+        expiresAt = LocalDateTime.now().plusHours(24);
+        codes = new String[PRELOADED];
+        for (int i = 0; i < PRELOADED; i++) {
+            codes[i] = ShortCodeCodec.encode(Math.floorMod(i * 0x9E3779B97F4A7C15L, CODE_SPACE), 6);
+            repository.save(createLink(codes[i]));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (repository instanceof Closeable) {
+            ((Closeable) repository).close();
+        }
+    }
+
+    @Benchmark
+    public boolean lookup() {
+        return repository.findByShortCode(codes[ThreadLocalRandom.current().nextInt(PRELOADED)])
+                .isPresent();
+    }
+
+    @Benchmark
+    public boolean saveAndDelete() {
+        String code =
+                ShortCodeCodec.encode(ThreadLocalRandom.current().nextLong(CODE_SPACE), 6);
+        repository.save(createLink(code));
+        return repository.deleteByShortCode(code);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<Link> scanInactive() {
+        return repository.findInactive(expiresAt.plusMinutes(1));
+    }
+
+    private Link createLink(String code) {
+        return Link.builder()
+                .shortCode(code)
+                .originalUrl("https://example.com/")
+                .ownerId(owner)
+                .createdAt(expiresAt.minusHours(24))
+                .expiresAt(expiresAt)
+                .clickLimit(10)
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.domain.ShortCodeCodec;
+import com.urlshortener.service.CounterShortCodeGenerator;
+import com.urlshortener.service.InMemoryCounterBlockAllocator;
+import com.urlshortener.service.ShortCodeGenerator;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Стоимость генерации одного короткого кода в разных режимах генератора.
+ *
+ * <p>{@code legacy} — прежняя строковая реализация режима {@code hash} (новый
+ * MessageDigest, конкатенация, Base64, StringBuilder), оставленная как точка отсчета.
+ * Запуск с {@code -prof gc} показывает объем выделяемой памяти на операцию
+ * ({@code gc.alloc.rate.norm}); для {@code hash} и {@code counter} это только строка кода.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShortCodeGeneratorBenchmark {
+    private static final int URLS = 1024;
+
+    @Param({"legacy", "hash", "counter"})
+    private String strategy;
+
+    private ShortCodeGenerator generator;
+    private String[] urls;
+    private UUID userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (strategy) {
+            case "legacy":
+                generator = new LegacyShortCodeGenerator(6);
+                break;
+            case "counter":
+                generator =
+                        new CounterShortCodeGenerator(6, new InMemoryCounterBlockAllocator(), 1000);
+                break;
+            default:
+                generator = new ShortCodeGenerator(6);
+        }
+        urls = new String[URLS];
+        for (int i = 0; i < URLS; i++) {
+            urls[i] = "https://example.com/articles/" + i + "?utm_source=newsletter";
+        }
+        userId = UUID.randomUUID();
+    }
+
+    /**
+     * Курсор по URL у каждого потока свой, чтобы не мерить конкуренцию за общий счетчик.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public String generate(Cursor cursor) {
+        return generator.generate(urls[cursor.next++ & (URLS - 1)], userId);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Threads(4)
+    public String generateConcurrent(Cursor cursor) {
+        return generator.generate(urls[cursor.next++ & (URLS - 1)], userId);
+    }
+
+    /**
+     * Прежняя реализация режима {@code hash}.
+     */
+    private static final class LegacyShortCodeGenerator extends ShortCodeGenerator {
+        private final int codeLength;
+
+        LegacyShortCodeGenerator(int codeLength) {
+            super(codeLength);
+            this.codeLength = codeLength;
+        }
+
+        @Override
+        public String generate(String originalUrl, UUID userId) {
+            try {
+                String input = userId.toString() + "|" + originalUrl;
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
+                String base64 = Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+                String prefix = base64.substring(0, Math.min(base64.length(), codeLength * 2));
+                StringBuilder result = new StringBuilder();
+                for (int i = 0; i < Math.min(codeLength, prefix.length()); i++) {
+                    char c = prefix.charAt(i);
+                    result.append(ShortCodeCodec.ALPHABET.charAt(Math.abs(c) % ShortCodeCodec.BASE));
+                }
+                return result.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
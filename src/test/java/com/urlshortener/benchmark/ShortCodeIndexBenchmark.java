@@ -0,0 +1,101 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.domain.ShortCodeCodec;
+import com.urlshortener.repository.LongLinkMap;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Сравнение основного индекса по короткому коду: {@code ConcurrentHashMap<String, Link>}
+ * против {@link LongLinkMap} с упакованными через {@link ShortCodeCodec} long-ключами.
+ *
+ * <p>Помимо задержки поиска при подготовке печатается объем кучи, занимаемый самим индексом
+ * в пересчете на миллион ссылок (объекты Link создаются заранее и в замер не входят).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class ShortCodeIndexBenchmark {
+    private static final int LOOKUP_KEYS = 1 << 16;
+    private static final long CODE_SPACE = 56_800_235_584L; // 62^6
+
+    @Param({"1000000"})
+    private int totalLinks;
+
+    @Param({"ConcurrentHashMap", "LongLinkMap"})
+    private String index;
+
+    private Map<String, Link> stringIndex;
+    private LongLinkMap packedIndex;
+    private String[] lookupCodes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        UUID owner = UUID.randomUUID();
+        Link[] links = new Link[totalLinks];
+        for (int i = 0; i < totalLinks; i++) {
+            links[i] =
+                    Link.builder()
+                            .shortCode(ShortCodeCodec.encode(Math.floorMod(random.nextLong(), CODE_SPACE), 6))
+                            .originalUrl("https://example.com/")
+                            .ownerId(owner)
+                            .createdAt(now)
+                            .expiresAt(now.plusHours(24))
+                            .clickLimit(10)
+                            .build();
+        }
+
+        long before = usedHeap();
+        if (index.equals("ConcurrentHashMap")) {
+            stringIndex = new ConcurrentHashMap<>();
+            for (Link link : links) {
+                stringIndex.put(link.getShortCode(), link);
+            }
+        } else {
+            packedIndex = new LongLinkMap();
+            for (Link link : links) {
+                packedIndex.compute(ShortCodeCodec.pack(link.getShortCode()), previous -> link);
+            }
+        }
+        long after = usedHeap();
+        System.out.printf(
+                "%n[%s] heap per million links: %.1f MB%n",
+                index, (after - before) * (1_000_000.0 / totalLinks) / (1024 * 1024));
+
+        lookupCodes = new String[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            // Отдельные экземпляры строк, как после разбора входящего запроса
+            String code = links[random.nextInt(totalLinks)].getShortCode();
+            lookupCodes[i] = new String(code.toCharArray());
+        }
+    }
+
+    @Benchmark
+    public Object lookup() {
+        String code = lookupCodes[cursor++ & (LOOKUP_KEYS - 1)];
+        if (stringIndex != null) {
+            return stringIndex.get(code);
+        }
+        return packedIndex.get(ShortCodeCodec.pack(code));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
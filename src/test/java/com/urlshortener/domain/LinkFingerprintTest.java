@@ -0,0 +1,48 @@
+package com.urlshortener.domain;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class LinkFingerprintTest {
+
+    @Test
+    void testNormalizeUrl() {
+        assertEquals("https://example.com/", normalize("HTTPS://Example.COM"));
+        assertEquals("http://example.com/a", normalize("http://example.com:80/a"));
+        assertEquals("https://example.com/?q=1", normalize(" https://example.com:443?q=1 "));
+        assertEquals("https://example.com:8443/", normalize("https://example.com:8443"));
+        assertEquals("https://User@example.com/", normalize("https://User@EXAMPLE.com/"));
+        assertEquals("not a url", normalize(" not a url "));
+    }
+
+    @Test
+    void testPathCaseIsPreserved() {
+        UUID ownerId = UUID.randomUUID();
+
+        assertEquals("https://example.com/Path?Q=A#F", normalize("https://example.com/Path?Q=A#F"));
+        assertNotEquals(
+                LinkFingerprint.of(ownerId, "https://example.com/Path", 10),
+                LinkFingerprint.of(ownerId, "https://example.com/path", 10));
+    }
+
+    @Test
+    void testFingerprintDependsOnOwnerLimitAndNormalizedUrl() {
+        UUID ownerId = UUID.randomUUID();
+
+        assertEquals(
+                LinkFingerprint.of(ownerId, "https://example.com", 10),
+                LinkFingerprint.of(ownerId, "https://EXAMPLE.com:443/", 10));
+        assertNotEquals(
+                LinkFingerprint.of(ownerId, "https://example.com", 10),
+                LinkFingerprint.of(UUID.randomUUID(), "https://example.com", 10));
+        assertNotEquals(
+                LinkFingerprint.of(ownerId, "https://example.com", 10),
+                LinkFingerprint.of(ownerId, "https://example.com", 20));
+    }
+
+    private static String normalize(String url) {
+        return LinkFingerprint.normalizeUrl(url);
+    }
+}
@@ -4,6 +4,11 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 class LinkTest {
@@ -174,4 +179,52 @@ class LinkTest {
                             .build();
                 });
     }
+
+    @Test
+    void testConcurrentUseNeverExceedsLimit() throws InterruptedException {
+        int threads = 8;
+        int attemptsPerThread = 5_000;
+        int clickLimit = 10_000;
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int round = 0; round < 20; round++) {
+            Link link =
+                    Link.builder()
+                            .shortCode("abc123")
+                            .originalUrl("https://example.com")
+                            .ownerId(UUID.randomUUID())
+                            .createdAt(now)
+                            .expiresAt(now.plusHours(24))
+                            .clickLimit(clickLimit)
+                            .build();
+            AtomicInteger successes = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+            for (int t = 0; t < threads; t++) {
+                executor.execute(
+                        () -> {
+                            try {
+                                start.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return;
+                            }
+                            for (int i = 0; i < attemptsPerThread; i++) {
+                                if (link.use()) {
+                                    successes.incrementAndGet();
+                                }
+                            }
+                        });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+            assertEquals(clickLimit, successes.get());
+            assertEquals(clickLimit, link.getClickCount());
+            assertFalse(link.isActive());
+            assertFalse(link.use());
+        }
+    }
 }
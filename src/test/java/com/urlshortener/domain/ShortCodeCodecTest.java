@@ -0,0 +1,49 @@
+package com.urlshortener.domain;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ShortCodeCodecTest {
+
+    @Test
+    void testPackUnpackRoundTrip() {
+        for (String code : new String[] {"a", "9", "aa", "3DZHeG", "zzzzzz", "9999999999"}) {
+            long key = ShortCodeCodec.pack(code);
+            assertTrue(key >= 0);
+            assertEquals(code, ShortCodeCodec.unpack(key));
+        }
+    }
+
+    @Test
+    void testDifferentLengthsDoNotCollide() {
+        Set<Long> keys = new HashSet<>();
+        assertTrue(keys.add(ShortCodeCodec.pack("a")));
+        assertTrue(keys.add(ShortCodeCodec.pack("aa")));
+        assertTrue(keys.add(ShortCodeCodec.pack("aaa")));
+        assertEquals(0, ShortCodeCodec.pack("a"));
+        assertEquals(62, ShortCodeCodec.pack("aa"));
+    }
+
+    @Test
+    void testPackFromBytesMatchesString() {
+        byte[] bytes = "GET /3DZHeG".getBytes();
+        assertEquals(ShortCodeCodec.pack("3DZHeG"), ShortCodeCodec.pack(bytes, 5, 6));
+    }
+
+    @Test
+    void testNotPackable() {
+        assertEquals(ShortCodeCodec.NOT_PACKABLE, ShortCodeCodec.pack(""));
+        assertEquals(ShortCodeCodec.NOT_PACKABLE, ShortCodeCodec.pack("abc-12"));
+        assertEquals(ShortCodeCodec.NOT_PACKABLE, ShortCodeCodec.pack("абв"));
+        assertEquals(ShortCodeCodec.NOT_PACKABLE, ShortCodeCodec.pack("aaaaaaaaaaa"));
+    }
+
+    @Test
+    void testEncodeFixedLength() {
+        assertEquals("aaab", ShortCodeCodec.encode(1, 4));
+        assertEquals("9", ShortCodeCodec.encode(61, 1));
+    }
+}
@@ -0,0 +1,229 @@
+package com.urlshortener.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.urlshortener.config.AppConfig;
+import com.urlshortener.domain.Link;
+import com.urlshortener.metrics.MetricsRegistry;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import com.urlshortener.service.LinkService;
+import com.urlshortener.service.NotificationService;
+import com.urlshortener.service.ShortCodeGenerator;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NioRedirectServerTest {
+    private InMemoryLinkRepository repository;
+    private LinkService linkService;
+    private MetricsRegistry metrics;
+    private NioRedirectServer server;
+    private Socket socket;
+    private OutputStream out;
+    private InputStream in;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        repository = new InMemoryLinkRepository();
+        AppConfig config = mock(AppConfig.class);
+        lenient().when(config.getDefaultClickLimit()).thenReturn(10);
+        lenient().when(config.getLinkTtlHours()).thenReturn(24);
+        linkService =
+                new LinkService(
+                        repository,
+                        new ShortCodeGenerator(6),
+                        new NotificationService(false),
+                        config);
+        metrics = new MetricsRegistry();
+        server = new NioRedirectServer(linkService, 0, 64, metrics);
+        server.start();
+        socket = new Socket(InetAddress.getLoopbackAddress(), server.port());
+        socket.setSoTimeout(5000);
+        out = socket.getOutputStream();
+        in = new BufferedInputStream(socket.getInputStream());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        socket.close();
+        server.close();
+    }
+
+    @Test
+    void testRedirectsOverKeepAliveConnectionFromCache() throws Exception {
+        Link link = linkService.createLink("https://example.com/page", UUID.randomUUID());
+
+        for (int i = 0; i < 3; i++) {
+            send("GET /" + link.getShortCode() + " HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            String response = readResponse();
+            assertTrue(response.startsWith("HTTP/1.1 302 Found\r\n"), response);
+            assertTrue(response.contains("Location: https://example.com/page\r\n"), response);
+            assertTrue(response.contains("Cache-Control: no-store\r\n"), response);
+        }
+
+        assertEquals(3, link.getClickCount());
+        assertEquals(3L, metrics.snapshot().get("http.redirects"));
+        assertEquals(1L, metrics.snapshot().get("http.cache.misses"));
+        assertEquals(2L, metrics.snapshot().get("http.cache.hits"));
+    }
+
+    @Test
+    void testPipelinedRequestsAnsweredInOrder() throws Exception {
+        Link first = linkService.createLink("https://example.com/1", UUID.randomUUID());
+        Link second = linkService.createLink("https://example.com/2", UUID.randomUUID());
+
+        send(
+                "GET /"
+                        + first.getShortCode()
+                        + " HTTP/1.1\r\n\r\nGET /missing HTTP/1.1\r\n\r\nGET /"
+                        + second.getShortCode()
+                        + "?utm=x HTTP/1.1\r\n\r\nGET /"
+                        + first.getShortCode()
+                        + " HTTP/1.1\r\n\r\n");
+
+        assertTrue(readResponse().contains("Location: https://example.com/1\r\n"));
+        assertTrue(readResponse().startsWith("HTTP/1.1 404 "));
+        assertTrue(readResponse().contains("Location: https://example.com/2\r\n"));
+        assertTrue(readResponse().contains("Location: https://example.com/1\r\n"));
+        assertEquals(2, first.getClickCount());
+    }
+
+    @Test
+    void testExhaustedLinkReturnsGoneAndLeavesCache() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        repository.save(
+                Link.builder()
+                        .shortCode("once")
+                        .originalUrl("https://example.com")
+                        .ownerId(UUID.randomUUID())
+                        .createdAt(now)
+                        .expiresAt(now.plusHours(1))
+                        .clickLimit(1)
+                        .build());
+
+        send("GET /once HTTP/1.1\r\n\r\nGET /once HTTP/1.1\r\n\r\n");
+
+        assertTrue(readResponse().startsWith("HTTP/1.1 302 "));
+        assertTrue(readResponse().startsWith("HTTP/1.1 410 "));
+        assertEquals(1L, metrics.snapshot().get("http.gone"));
+    }
+
+    @Test
+    void testCachedResponseCountsClicksOnStoredInstance() throws Exception {
+        Link link = linkService.createLink("https://example.com/page", UUID.randomUUID(), 3);
+        String request = "GET /" + link.getShortCode() + " HTTP/1.1\r\n\r\n";
+        send(request);
+        assertTrue(readResponse().startsWith("HTTP/1.1 302 "));
+
+        // Другой путь заменил хранимый экземпляр, как это делает хранилище, декодирующее
+        // ссылку при каждом чтении
+        Link reloaded =
+                Link.builder()
+                        .shortCode(link.getShortCode())
+                        .originalUrl(link.getOriginalUrl())
+                        .ownerId(link.getOwnerId())
+                        .createdAt(link.getCreatedAt())
+                        .expiresAt(link.getExpiresAt())
+                        .clickLimit(3)
+                        .clickCount(1)
+                        .build();
+        repository.save(reloaded);
+        reloaded.use();
+
+        send(request + request);
+        assertTrue(readResponse().startsWith("HTTP/1.1 302 "));
+        assertTrue(readResponse().startsWith("HTTP/1.1 410 "));
+        assertEquals(3, reloaded.getClickCount());
+        assertEquals(1L, metrics.snapshot().get("http.cache.misses"));
+    }
+
+    @Test
+    void testDeletedLinkIsEvictedFromCache() throws Exception {
+        UUID ownerId = UUID.randomUUID();
+        Link link = linkService.createLink("https://example.com/page", ownerId);
+        String request = "GET /" + link.getShortCode() + " HTTP/1.1\r\n\r\n";
+        send(request);
+        assertTrue(readResponse().startsWith("HTTP/1.1 302 "));
+
+        linkService.deleteLink(link.getShortCode(), ownerId);
+        // Запрос после удаления может обогнать сброс кеша в цикле событий, поэтому
+        // ответ проверяется до тех пор, пока сервер не перестанет отдавать переход
+        String response = "";
+        for (int i = 0; i < 50 && !response.startsWith("HTTP/1.1 404 "); i++) {
+            send(request);
+            response = readResponse();
+            Thread.sleep(10);
+        }
+
+        assertTrue(response.startsWith("HTTP/1.1 404 "), response);
+    }
+
+    @Test
+    void testUnsupportedMethodAndConnectionCloseCloseConnection() throws Exception {
+        send("POST / HTTP/1.1\r\nContent-Length: 0\r\n\r\n");
+        String response = readResponse();
+        assertTrue(response.startsWith("HTTP/1.1 405 "), response);
+        assertTrue(response.contains("Allow: GET\r\n"), response);
+        assertEquals(-1, in.read());
+
+        reconnect();
+        send("GET /missing HTTP/1.1\r\nconnection: Close\r\n\r\n");
+        assertTrue(readResponse().startsWith("HTTP/1.1 404 "));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void testEncodeRedirectEscapesControlAndNonAsciiCharacters() {
+        String response =
+                StandardCharsets.US_ASCII
+                        .decode(NioRedirectServer.encodeRedirect("https://пример.рф/a b\r\nX: y"))
+                        .toString();
+
+        assertTrue(
+                response.contains(
+                        "Location: https://%D0%BF%D1%80%D0%B8%D0%BC%D0%B5%D1%80.%D1%80%D1%84"
+                                + "/a%20b%0D%0AX:%20y\r\n"),
+                response);
+        assertTrue(response.endsWith("Content-Length: 0\r\n\r\n"));
+    }
+
+    private void reconnect() throws IOException {
+        socket.close();
+        socket = new Socket(InetAddress.getLoopbackAddress(), server.port());
+        socket.setSoTimeout(5000);
+        out = socket.getOutputStream();
+        in = new BufferedInputStream(socket.getInputStream());
+    }
+
+    private void send(String request) throws IOException {
+        out.write(request.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * Читает заголовки одного ответа; все ответы сервера имеют пустое тело.
+     */
+    private String readResponse() throws IOException {
+        StringBuilder response = new StringBuilder();
+        int last = 0;
+        while (last != 0x0d0a0d0a) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Соединение закрыто сервером: " + response);
+            }
+            response.append((char) b);
+            last = (last << 8) | b;
+        }
+        return response.toString();
+    }
+}
@@ -0,0 +1,258 @@
+package com.urlshortener.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.urlshortener.analytics.ClickEventBuffer;
+import com.urlshortener.analytics.ClickStatistics;
+import com.urlshortener.config.AppConfig;
+import com.urlshortener.domain.Link;
+import com.urlshortener.metrics.MetricsRegistry;
+import com.urlshortener.domain.User;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import com.urlshortener.repository.InMemoryUserRepository;
+import com.urlshortener.service.LinkExporter;
+import com.urlshortener.service.LinkImporter;
+import com.urlshortener.service.LinkService;
+import com.urlshortener.service.NotificationService;
+import com.urlshortener.service.ShortCodeGenerator;
+import com.urlshortener.service.UserService;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RedirectServerTest {
+    private InMemoryLinkRepository repository;
+    private LinkService linkService;
+    private MetricsRegistry metrics;
+    private UserService userService;
+    private ClickEventBuffer clickEvents;
+    private RedirectServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        repository = new InMemoryLinkRepository();
+        AppConfig config = mock(AppConfig.class);
+        lenient().when(config.getDefaultClickLimit()).thenReturn(10);
+        lenient().when(config.getLinkTtlHours()).thenReturn(24);
+        linkService =
+                new LinkService(
+                        repository,
+                        new ShortCodeGenerator(6),
+                        new NotificationService(false),
+                        config);
+        metrics = new MetricsRegistry();
+        userService = new UserService(new InMemoryUserRepository());
+        LinkImporter importer = new LinkImporter(linkService, 2, 16, metrics);
+        clickEvents = new ClickEventBuffer(1024, 64);
+        ClickStatistics statistics = new ClickStatistics(60, 24, 30, 8, ZoneId.systemDefault());
+        clickEvents.addAggregator(statistics);
+        clickEvents.start();
+        linkService.setClickSink(clickEvents);
+        server =
+                new RedirectServer(
+                        linkService,
+                        0,
+                        metrics,
+                        Map.of(
+                                ImportHandler.PATH,
+                                new ImportHandler(importer, userService),
+                                ExportHandler.PATH,
+                                new ExportHandler(new LinkExporter(linkService), userService),
+                                StatsHandler.PATH,
+                                new StatsHandler(statistics, linkService, userService)));
+        server.start();
+        client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        clickEvents.close();
+    }
+
+    @Test
+    void testRedirectsActiveLink() throws Exception {
+        Link link = linkService.createLink("https://example.com/page", UUID.randomUUID());
+
+        HttpResponse<String> response = get("/" + link.getShortCode());
+
+        assertEquals(302, response.statusCode());
+        assertEquals(
+                "https://example.com/page", response.headers().firstValue("Location").orElse(null));
+        assertEquals(1, link.getClickCount());
+        assertEquals(1L, metrics.snapshot().get("http.redirects"));
+    }
+
+    @Test
+    void testMissingLinkReturnsNotFound() throws Exception {
+        assertEquals(404, get("/unknown").statusCode());
+        assertEquals(404, get("/").statusCode());
+        assertEquals(404, get("/a/b").statusCode());
+        assertEquals(3L, metrics.snapshot().get("http.not.found"));
+    }
+
+    @Test
+    void testExpiredAndExhaustedLinksReturnGone() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        repository.save(
+                Link.builder()
+                        .shortCode("expired")
+                        .originalUrl("https://example.com")
+                        .ownerId(UUID.randomUUID())
+                        .createdAt(now.minusHours(2))
+                        .expiresAt(now.minusHours(1))
+                        .clickLimit(10)
+                        .build());
+        Link limited = linkService.createLink("https://example.com", UUID.randomUUID(), 1);
+
+        assertEquals(410, get("/expired").statusCode());
+        assertEquals(302, get("/" + limited.getShortCode()).statusCode());
+        assertEquals(410, get("/" + limited.getShortCode()).statusCode());
+    }
+
+    @Test
+    void testRejectsOtherMethods() throws Exception {
+        Link link = linkService.createLink("https://example.com", UUID.randomUUID());
+        HttpRequest request =
+                HttpRequest.newBuilder(uri("/" + link.getShortCode()))
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(405, response.statusCode());
+        assertEquals(0, link.getClickCount());
+    }
+
+    @Test
+    void testImportsNdjsonBody() throws Exception {
+        User user = userService.createUser();
+        String body =
+                "{\"url\": \"https://example.com/a\", \"clickLimit\": 2}\n"
+                        + "{\"url\": \"bad\"}\n"
+                        + "{\"url\": \"https://example.com/b\"}\n";
+
+        HttpResponse<String> response = importBody(user.getId().toString(), body);
+
+        assertEquals(200, response.statusCode());
+        String[] lines = response.body().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("{\"created\":2,\"reused\":0,\"failed\":1}", lines[3]);
+        assertTrue(response.body().contains("\"line\":2,\"url\":\"bad\",\"error\":"));
+        assertEquals(2, linkService.getUserLinks(user.getId()).size());
+    }
+
+    @Test
+    void testImportRequiresKnownUser() throws Exception {
+        String body = "{\"url\": \"https://example.com/a\"}\n";
+
+        assertEquals(400, importBody("not-a-uuid", body).statusCode());
+        assertEquals(403, importBody(UUID.randomUUID().toString(), body).statusCode());
+        assertEquals(405, get(ImportHandler.PATH).statusCode());
+    }
+
+    @Test
+    void testExportsOwnLinksAsCsv() throws Exception {
+        User user = userService.createUser();
+        Link own = linkService.createLink("https://example.com/own", user.getId());
+        linkService.createLink("https://example.com/foreign", UUID.randomUUID());
+
+        HttpResponse<String> response =
+                client.send(
+                        HttpRequest.newBuilder(uri(ExportHandler.PATH + "?format=csv&active=true"))
+                                .header(UserHeader.NAME, user.getId().toString())
+                                .GET()
+                                .build(),
+                        HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/csv"));
+        String[] lines = response.body().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith(own.getShortCode() + ",https://example.com/own,"));
+    }
+
+    @Test
+    void testExportRejectsInvalidParameters() throws Exception {
+        User user = userService.createUser();
+
+        for (String query : new String[] {"format=xml", "active=yes", "expiresFrom=завтра"}) {
+            HttpResponse<String> response =
+                    client.send(
+                            HttpRequest.newBuilder(uri(ExportHandler.PATH + "?" + query))
+                                    .header(UserHeader.NAME, user.getId().toString())
+                                    .GET()
+                                    .build(),
+                            HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode(), query);
+        }
+        assertEquals(400, get(ExportHandler.PATH).statusCode());
+    }
+
+    @Test
+    void testStatsCountClicksAndUniqueVisitorsForOwner() throws Exception {
+        User owner = userService.createUser();
+        Link link = linkService.createLink("https://example.com/stats", owner.getId());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(302, get("/" + link.getShortCode()).statusCode());
+        }
+        assertTrue(clickEvents.awaitConsumed(5000));
+
+        HttpResponse<String> response = stats(owner.getId(), link.getShortCode());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(
+                response.headers()
+                        .firstValue("Content-Type")
+                        .orElse("")
+                        .startsWith("application/json"));
+        String body = response.body();
+        assertTrue(body.startsWith("{\"clicks\":3,\"uniqueVisitors\":1,\"minutes\":[{"), body);
+        assertTrue(body.contains("\"hours\":[{\"start\":\""), body);
+        assertTrue(body.contains("\"days\":[{\"start\":\""), body);
+
+        UUID stranger = userService.createUser().getId();
+        assertEquals(403, stats(stranger, link.getShortCode()).statusCode());
+        assertEquals(404, stats(owner.getId(), "unknown").statusCode());
+        assertEquals(400, stats(owner.getId(), "").statusCode());
+    }
+
+    private HttpResponse<String> stats(UUID userId, String shortCode) throws Exception {
+        return client.send(
+                HttpRequest.newBuilder(uri(StatsHandler.PATH + "?code=" + shortCode))
+                        .header(UserHeader.NAME, userId.toString())
+                        .GET()
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> importBody(String userId, String body) throws Exception {
+        return client.send(
+                HttpRequest.newBuilder(uri(ImportHandler.PATH))
+                        .header(UserHeader.NAME, userId)
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(
+                HttpRequest.newBuilder(uri(path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.port() + path);
+    }
+}
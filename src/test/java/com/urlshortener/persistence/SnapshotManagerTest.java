@@ -0,0 +1,174 @@
+package com.urlshortener.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.domain.User;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import com.urlshortener.repository.InMemoryUserRepository;
+import com.urlshortener.repository.LinkRepository;
+import com.urlshortener.repository.UserRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotManagerTest {
+    @TempDir Path directory;
+
+    private Link createTestLink(String shortCode, UUID ownerId) {
+        LocalDateTime now = LocalDateTime.now();
+        return Link.builder()
+                .shortCode(shortCode)
+                .originalUrl("https://example.com/" + shortCode)
+                .ownerId(ownerId)
+                .createdAt(now)
+                .expiresAt(now.plusHours(24))
+                .clickLimit(10)
+                .build();
+    }
+
+    @Test
+    void testRestoreFromSnapshotWrittenOnClose() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        Store store = open();
+        store.users.save(new User(ownerId));
+        store.links.save(createTestLink("abc123", ownerId));
+        store.links.save(createTestLink("def456", ownerId));
+        Link used = store.links.findByShortCode("abc123").orElseThrow();
+        used.use();
+        store.links.recordUsage(used);
+        store.links.deleteByShortCode("def456");
+        store.manager.close();
+
+        Store reopened = open();
+        assertEquals(1, reopened.restored.snapshotLinks());
+        assertEquals(1, reopened.restored.snapshotUsers());
+        assertEquals(0, reopened.restored.walRecords());
+
+        Optional<Link> found = reopened.links.findByShortCode("abc123");
+        assertTrue(found.isPresent());
+        assertEquals(1, found.get().getClickCount());
+        assertEquals(ownerId, found.get().getOwnerId());
+        assertFalse(reopened.links.existsByShortCode("def456"));
+        assertTrue(reopened.users.existsById(ownerId));
+        reopened.manager.close();
+    }
+
+    @Test
+    void testReplaysWalTailAfterSnapshot() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        Store store = open();
+        store.links.save(createTestLink("abc123", ownerId));
+        store.links.save(createTestLink("def456", ownerId));
+        store.manager.snapshot();
+
+        // Изменения после снимка есть только в журнале
+        store.links.save(createTestLink("ghi789", ownerId));
+        store.links.deleteByShortCode("abc123");
+        Link used = store.links.findByShortCode("def456").orElseThrow();
+        used.use();
+        used.use();
+        store.links.recordUsage(used);
+        store.users.save(new User(ownerId));
+        // Имитация аварийной остановки: журнал закрывается без финального снимка
+        store.manager.wal().close();
+
+        Store reopened = open();
+        assertEquals(2, reopened.restored.snapshotLinks());
+        assertEquals(4, reopened.restored.walRecords());
+        assertFalse(reopened.links.existsByShortCode("abc123"));
+        assertTrue(reopened.links.existsByShortCode("ghi789"));
+        assertEquals(2, reopened.links.findByShortCode("def456").orElseThrow().getClickCount());
+        assertTrue(reopened.users.existsById(ownerId));
+        assertEquals(2, reopened.links.findByOwnerId(ownerId).size());
+        reopened.manager.close();
+    }
+
+    @Test
+    void testSnapshotRemovesCoveredWalFiles() throws IOException {
+        Store store = open();
+        for (int i = 0; i < 100; i++) {
+            store.links.save(createTestLink("code" + i, UUID.randomUUID()));
+        }
+        store.manager.snapshot();
+        store.manager.snapshot();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(
+                    1, files.filter(f -> f.getFileName().toString().startsWith("snapshot-")).count());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(f -> f.getFileName().toString().startsWith("wal-")).count());
+        }
+        store.manager.close();
+
+        Store reopened = open();
+        assertEquals(100, reopened.restored.snapshotLinks());
+        assertEquals(100, reopened.links.findAll().size());
+        reopened.manager.close();
+    }
+
+    @Test
+    void testUsageIsJournaledCompactly() throws IOException {
+        Store store = open();
+        LocalDateTime now = LocalDateTime.now();
+        Link link =
+                Link.builder()
+                        .shortCode("hot123")
+                        .originalUrl("https://example.com/" + "a".repeat(500))
+                        .ownerId(UUID.randomUUID())
+                        .createdAt(now)
+                        .expiresAt(now.plusHours(24))
+                        .clickLimit(1000)
+                        .build();
+        store.links.save(link);
+        long before = walBytes();
+        for (int i = 0; i < 100; i++) {
+            link.use();
+            store.links.recordUsage(link);
+        }
+        store.manager.wal().close();
+
+        // Заголовок, LSN и тип (17 байт) плюс код, счетчик и признак активности (13 байт)
+        assertEquals(100 * 30, walBytes() - before);
+        Store reopened = open();
+        assertEquals(100, reopened.links.findByShortCode("hot123").orElseThrow().getClickCount());
+        reopened.manager.close();
+    }
+
+    private long walBytes() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            long total = 0;
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().startsWith("wal-")) {
+                    total += Files.size(file);
+                }
+            }
+            return total;
+        }
+    }
+
+    private Store open() throws IOException {
+        InMemoryLinkRepository links = new InMemoryLinkRepository();
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        SnapshotManager.Restored restored = SnapshotManager.restore(directory, links, users);
+        WriteAheadLog wal = restored.manager().wal();
+        return new Store(
+                restored,
+                restored.manager(),
+                new JournaledLinkRepository(links, wal, true),
+                new JournaledUserRepository(users, wal, true));
+    }
+
+    private record Store(
+            SnapshotManager.Restored restored,
+            SnapshotManager manager,
+            LinkRepository links,
+            UserRepository users) {}
+}
@@ -0,0 +1,87 @@
+package com.urlshortener.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WriteAheadLogTest {
+    @TempDir Path directory;
+
+    @Test
+    void testAppendedRecordsAreReadBackAcrossFiles() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, 1);
+        assertEquals(1, wal.append(WriteAheadLog.LINK_PUT, new byte[] {1}).join());
+        assertEquals(2, wal.rotate());
+        assertEquals(2, wal.append(WriteAheadLog.LINK_DELETE, new byte[] {2, 3}).join());
+        wal.close();
+
+        List<Long> lsns = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        WriteAheadLog.read(
+                directory,
+                1,
+                (lsn, type, payload) -> {
+                    lsns.add(lsn);
+                    sizes.add(payload.remaining());
+                });
+
+        assertEquals(List.of(1L, 2L), lsns);
+        assertEquals(List.of(1, 2), sizes);
+    }
+
+    @Test
+    void testAppendAfterCloseFails() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, 1);
+        wal.close();
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> wal.append(WriteAheadLog.LINK_PUT, new byte[] {1}));
+        assertThrows(IllegalStateException.class, wal::rotate);
+    }
+
+    @Test
+    void testAppendsRacingCloseNeverHang() throws Exception {
+        WriteAheadLog wal = new WriteAheadLog(directory, 1);
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        Thread appender =
+                new Thread(
+                        () -> {
+                            while (true) {
+                                try {
+                                    CompletableFuture<Long> future =
+                                            wal.append(WriteAheadLog.LINK_PUT, new byte[8]);
+                                    synchronized (futures) {
+                                        futures.add(future);
+                                    }
+                                } catch (IllegalStateException e) {
+                                    return;
+                                }
+                            }
+                        });
+        appender.start();
+        Thread.sleep(50);
+        wal.close();
+        appender.join();
+
+        // Каждая поставленная запись либо записана, либо завершена ошибкой закрытия
+        synchronized (futures) {
+            assertFalse(futures.isEmpty());
+            for (CompletableFuture<Long> future : futures) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertInstanceOf(IllegalStateException.class, e.getCause());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.urlshortener.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.urlshortener.domain.Link;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BloomFilteredLinkRepositoryTest {
+    private InMemoryLinkRepository delegate;
+    private BloomFilteredLinkRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new InMemoryLinkRepository();
+        repository = new BloomFilteredLinkRepository(delegate, 10_000, 0.01);
+    }
+
+    private Link createTestLink(String shortCode) {
+        LocalDateTime now = LocalDateTime.now();
+        return Link.builder()
+                .shortCode(shortCode)
+                .originalUrl("https://example.com/" + shortCode)
+                .ownerId(UUID.randomUUID())
+                .createdAt(now)
+                .expiresAt(now.plusHours(24))
+                .clickLimit(10)
+                .build();
+    }
+
+    @Test
+    void testFindsSavedLinks() {
+        for (int i = 0; i < 1000; i++) {
+            repository.save(createTestLink("code" + i));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(repository.existsByShortCode("code" + i));
+            assertTrue(repository.findByShortCode("code" + i).isPresent());
+        }
+    }
+
+    @Test
+    void testAbsentCodesAreFilteredWithoutDelegate() {
+        for (int i = 0; i < 1000; i++) {
+            repository.save(createTestLink("code" + i));
+        }
+
+        int lookups = 10_000;
+        for (int i = 0; i < lookups; i++) {
+            assertEquals(Optional.empty(), repository.findByShortCode("missing" + i));
+        }
+
+        assertTrue(repository.filteredLookupCount() > lookups * 0.95);
+        assertTrue(repository.observedFalsePositiveRate() < 0.05);
+        assertTrue(repository.estimatedFalsePositiveRate() < 0.05);
+        assertTrue(repository.fillRatio() > 0 && repository.fillRatio() < 1);
+    }
+
+    @Test
+    void testDeleteRemovesCodeFromFilter() {
+        repository.save(createTestLink("abc123"));
+        repository.save(createTestLink("abc123"));
+        double filled = repository.fillRatio();
+
+        assertTrue(repository.deleteByShortCode("abc123"));
+
+        assertFalse(repository.existsByShortCode("abc123"));
+        assertEquals(0.0, repository.fillRatio());
+        assertTrue(filled > 0);
+        assertEquals(1, repository.filteredLookupCount());
+    }
+
+    @Test
+    void testPopulatesFromExistingLinks() {
+        delegate.save(createTestLink("existing"));
+
+        BloomFilteredLinkRepository filtered = new BloomFilteredLinkRepository(delegate, 100, 0.01);
+
+        assertTrue(filtered.existsByShortCode("existing"));
+    }
+
+    @Test
+    void testSaturatedCountersAreNeverCleared() {
+        CountingBloomFilter filter = new CountingBloomFilter(16, 0.5);
+        for (int i = 0; i < 100; i++) {
+            filter.add("same");
+        }
+        for (int i = 0; i < 100; i++) {
+            filter.remove("same");
+        }
+
+        assertTrue(filter.mightContain("same"));
+    }
+}
@@ -0,0 +1,126 @@
+package com.urlshortener.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.urlshortener.domain.Link;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CachingLinkRepositoryTest {
+    private final AtomicInteger delegateLookups = new AtomicInteger();
+    private InMemoryLinkRepository delegate;
+
+    @BeforeEach
+    void setUp() {
+        delegate =
+                new InMemoryLinkRepository() {
+                    @Override
+                    public Optional<Link> findByShortCode(String shortCode) {
+                        delegateLookups.incrementAndGet();
+                        return super.findByShortCode(shortCode);
+                    }
+                };
+    }
+
+    private Link createTestLink(String shortCode, LocalDateTime expiresAt, int clickLimit) {
+        return Link.builder()
+                .shortCode(shortCode)
+                .originalUrl("https://example.com/" + shortCode)
+                .ownerId(UUID.randomUUID())
+                .createdAt(LocalDateTime.now().minusHours(1))
+                .expiresAt(expiresAt)
+                .clickLimit(clickLimit)
+                .build();
+    }
+
+    private Link createTestLink(String shortCode) {
+        return createTestLink(shortCode, LocalDateTime.now().plusHours(24), 10);
+    }
+
+    @Test
+    void testHitsDoNotReachDelegate() {
+        CachingLinkRepository repository = new CachingLinkRepository(delegate, 100);
+        Link link = createTestLink("abc123");
+        repository.save(link);
+
+        for (int i = 0; i < 100; i++) {
+            assertSame(link, repository.findByShortCode("abc123").orElseThrow());
+        }
+
+        assertEquals(1, delegateLookups.get());
+        assertEquals(99, repository.hitCount());
+        assertEquals(1, repository.missCount());
+        assertEquals(0.99, repository.hitRate(), 1e-9);
+        assertEquals(1, repository.size());
+        assertTrue(repository.memoryBytes() > 0);
+    }
+
+    @Test
+    void testSaveAndDeleteInvalidate() {
+        CachingLinkRepository repository = new CachingLinkRepository(delegate, 100);
+        repository.save(createTestLink("abc123"));
+        repository.findByShortCode("abc123");
+        long occupied = repository.memoryBytes();
+
+        Link replacement = createTestLink("abc123");
+        repository.save(replacement);
+        assertSame(replacement, repository.findByShortCode("abc123").orElseThrow());
+
+        assertTrue(repository.deleteByShortCode("abc123"));
+        assertEquals(0, repository.size());
+        assertTrue(repository.memoryBytes() < occupied);
+        assertEquals(Optional.empty(), repository.findByShortCode("abc123"));
+        assertFalse(repository.existsByShortCode("abc123"));
+    }
+
+    @Test
+    void testExpiredAndExhaustedLinksAreNotCached() {
+        CachingLinkRepository repository = new CachingLinkRepository(delegate, 100);
+        repository.save(createTestLink("expired", LocalDateTime.now().minusMinutes(1), 10));
+        Link single = createTestLink("single", LocalDateTime.now().plusHours(1), 1);
+        repository.save(single);
+
+        assertTrue(repository.findByShortCode("expired").isPresent());
+        assertSame(single, repository.findByShortCode("single").orElseThrow());
+        assertEquals(1, repository.size());
+
+        assertTrue(single.use());
+        repository.recordUsage(single);
+
+        assertEquals(0, repository.size());
+        assertSame(single, repository.findByShortCode("single").orElseThrow());
+        assertEquals(0, repository.size());
+    }
+
+    @Test
+    void testFrequentLinksSurviveScanOfRareCodes() {
+        int capacity = 100;
+        CachingLinkRepository repository = new CachingLinkRepository(delegate, capacity);
+        for (int i = 0; i < 50; i++) {
+            repository.save(createTestLink("hot" + i));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            repository.save(createTestLink("cold" + i));
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                repository.findByShortCode("hot" + i);
+            }
+        }
+
+        delegateLookups.set(0);
+        for (int i = 0; i < 20_000; i++) {
+            repository.findByShortCode("cold" + i);
+            repository.findByShortCode("hot" + (i % 50));
+        }
+
+        // Почти все промахи приходятся на редкие коды: горячие ссылки остаются в кеше
+        assertTrue(delegateLookups.get() < 20_000 + 500, "обращений: " + delegateLookups.get());
+        assertTrue(repository.size() <= capacity);
+        assertTrue(repository.evictionCount() >= 20_000 - capacity);
+    }
+}
@@ -124,4 +124,148 @@ class InMemoryLinkRepositoryTest {
         assertTrue(updated.isPresent());
         assertEquals(1, updated.get().getClickCount());
     }
+
+    @Test
+    void testFindByOwnerIdAfterDelete() {
+        UUID ownerId = UUID.randomUUID();
+
+        repository.save(createTestLink("abc1", ownerId));
+        repository.save(createTestLink("abc2", ownerId));
+        repository.deleteByShortCode("abc1");
+
+        List<Link> links = repository.findByOwnerId(ownerId);
+        assertEquals(1, links.size());
+        assertEquals("abc2", links.get(0).getShortCode());
+
+        repository.deleteByShortCode("abc2");
+        assertTrue(repository.findByOwnerId(ownerId).isEmpty());
+    }
+
+    @Test
+    void testFindByOwnerIdAfterOwnerChange() {
+        UUID owner1 = UUID.randomUUID();
+        UUID owner2 = UUID.randomUUID();
+
+        repository.save(createTestLink("abc123", owner1));
+        repository.save(createTestLink("abc123", owner2));
+
+        assertTrue(repository.findByOwnerId(owner1).isEmpty());
+        assertEquals(1, repository.findByOwnerId(owner2).size());
+    }
+
+    @Test
+    void testFindInactive() {
+        UUID ownerId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+
+        Link expired =
+                Link.builder()
+                        .shortCode("expired")
+                        .originalUrl("https://example.com")
+                        .ownerId(ownerId)
+                        .createdAt(now.minusHours(2))
+                        .expiresAt(now.minusHours(1))
+                        .clickLimit(10)
+                        .build();
+        Link exhausted =
+                Link.builder()
+                        .shortCode("exhausted")
+                        .originalUrl("https://example.com")
+                        .ownerId(ownerId)
+                        .createdAt(now)
+                        .expiresAt(now.plusHours(24))
+                        .clickLimit(1)
+                        .build();
+        exhausted.use();
+
+        repository.save(expired);
+        repository.save(exhausted);
+        repository.save(createTestLink("active", ownerId));
+
+        List<Link> inactive = repository.findInactive(now);
+        assertEquals(2, inactive.size());
+        assertTrue(inactive.contains(expired));
+        assertTrue(inactive.contains(exhausted));
+
+        repository.deleteByShortCode("expired");
+        repository.deleteByShortCode("exhausted");
+        assertTrue(repository.findInactive(now).isEmpty());
+    }
+
+    @Test
+    void testCodesOutsideBase62() {
+        UUID ownerId = UUID.randomUUID();
+
+        repository.save(createTestLink("abc-123", ownerId));
+        repository.save(createTestLink("abc123", ownerId));
+
+        assertTrue(repository.existsByShortCode("abc-123"));
+        assertEquals(2, repository.findAll().size());
+        assertTrue(repository.deleteByShortCode("abc-123"));
+        assertFalse(repository.existsByShortCode("abc-123"));
+        assertTrue(repository.existsByShortCode("abc123"));
+    }
+
+    @Test
+    void testFindByOwnerAndUrl() {
+        UUID ownerId = UUID.randomUUID();
+        Link link = createTestLink("abc123", ownerId);
+        repository.save(link);
+
+        assertEquals(
+                Optional.of(link),
+                repository.findByOwnerAndUrl(ownerId, "https://EXAMPLE.com/", 10));
+        assertTrue(
+                repository
+                        .findByOwnerAndUrl(UUID.randomUUID(), "https://example.com", 10)
+                        .isEmpty());
+        assertTrue(repository.findByOwnerAndUrl(ownerId, "https://example.org", 10).isEmpty());
+
+        assertTrue(repository.findByOwnerAndUrl(ownerId, "https://example.com", 20).isEmpty());
+
+        repository.deleteByShortCode("abc123");
+        assertTrue(repository.findByOwnerAndUrl(ownerId, "https://example.com", 10).isEmpty());
+    }
+
+    @Test
+    void testFindByOwnerAndUrlIndexesEachClickLimitSeparately() {
+        UUID ownerId = UUID.randomUUID();
+        repository.save(createTestLink("limit1", ownerId));
+        Link other =
+                Link.builder()
+                        .shortCode("limit2")
+                        .originalUrl("https://example.com")
+                        .ownerId(ownerId)
+                        .createdAt(LocalDateTime.now())
+                        .expiresAt(LocalDateTime.now().plusHours(24))
+                        .clickLimit(20)
+                        .build();
+        repository.save(other);
+
+        assertEquals("limit1", findCode(ownerId, "https://example.com"));
+        assertEquals(
+                Optional.of(other),
+                repository.findByOwnerAndUrl(ownerId, "https://example.com", 20));
+
+        // Удаление более новой ссылки не должно снимать с индекса прежнюю с другим лимитом
+        repository.deleteByShortCode("limit2");
+        assertEquals("limit1", findCode(ownerId, "https://example.com"));
+    }
+
+    @Test
+    void testFindByOwnerAndUrlReturnsLatestLink() {
+        UUID ownerId = UUID.randomUUID();
+        repository.save(createTestLink("first1", ownerId));
+        repository.save(createTestLink("second", ownerId));
+
+        assertEquals("second", findCode(ownerId, "https://example.com"));
+
+        // Удаление прежней ссылки не должно снимать с индекса более новую
+        repository.deleteByShortCode("first1");
+        assertEquals("second", findCode(ownerId, "https://example.com"));
+    }
+
+    private String findCode(UUID ownerId, String url) {
+        return repository.findByOwnerAndUrl(ownerId, url, 10).map(Link::getShortCode).orElse(null);
+    }
 }
@@ -0,0 +1,225 @@
+package com.urlshortener.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.urlshortener.domain.Link;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogStructuredLinkRepositoryTest {
+    private static final int SEGMENT_SIZE = 256 * 1024;
+
+    @TempDir Path directory;
+
+    private LogStructuredLinkRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new LogStructuredLinkRepository(directory, SEGMENT_SIZE, 0);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        repository.close();
+    }
+
+    private Link createTestLink(String shortCode, UUID ownerId) {
+        LocalDateTime now = LocalDateTime.now();
+        return Link.builder()
+                .shortCode(shortCode)
+                .originalUrl("https://example.com/" + shortCode)
+                .ownerId(ownerId)
+                .createdAt(now)
+                .expiresAt(now.plusHours(24))
+                .clickLimit(10)
+                .build();
+    }
+
+    @Test
+    void testSaveAndFindByShortCode() {
+        UUID ownerId = UUID.randomUUID();
+        Link link = createTestLink("abc123", ownerId);
+        link.use();
+
+        repository.save(link);
+
+        Optional<Link> found = repository.findByShortCode("abc123");
+        assertTrue(found.isPresent());
+        assertEquals("https://example.com/abc123", found.get().getOriginalUrl());
+        assertEquals(ownerId, found.get().getOwnerId());
+        assertEquals(link.getExpiresAt(), found.get().getExpiresAt());
+        assertEquals(1, found.get().getClickCount());
+    }
+
+    @Test
+    void testDeleteAndOwnerIndex() {
+        UUID ownerId = UUID.randomUUID();
+        repository.save(createTestLink("abc1", ownerId));
+        repository.save(createTestLink("abc2", ownerId));
+
+        assertTrue(repository.deleteByShortCode("abc1"));
+        assertFalse(repository.deleteByShortCode("abc1"));
+        assertFalse(repository.existsByShortCode("abc1"));
+        assertEquals(1, repository.findByOwnerId(ownerId).size());
+    }
+
+    @Test
+    void testRecoverAfterReopen() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        Link link = createTestLink("abc1", ownerId);
+        repository.save(link);
+        link.use();
+        link.use();
+        repository.save(link);
+        repository.save(createTestLink("abc2", ownerId));
+        repository.deleteByShortCode("abc2");
+        repository.close();
+
+        repository = new LogStructuredLinkRepository(directory, SEGMENT_SIZE, 0);
+
+        assertEquals(2, repository.findByShortCode("abc1").orElseThrow().getClickCount());
+        assertFalse(repository.existsByShortCode("abc2"));
+        assertEquals(1, repository.findByOwnerId(ownerId).size());
+    }
+
+    @Test
+    void testCompactionKeepsLatestVersions() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        Link link = createTestLink("hot", ownerId);
+        for (int i = 0; i < 5000; i++) {
+            repository.save(link);
+        }
+        for (int i = 0; i < 100; i++) {
+            repository.save(createTestLink("c" + i, ownerId));
+        }
+        repository.deleteByShortCode("c0");
+        int before = repository.segmentCount();
+        assertTrue(before > 1);
+
+        repository.compact();
+
+        assertTrue(repository.segmentCount() < before);
+        assertTrue(repository.existsByShortCode("hot"));
+        assertFalse(repository.existsByShortCode("c0"));
+        assertEquals(100, repository.findAll().size());
+
+        repository.close();
+        repository = new LogStructuredLinkRepository(directory, SEGMENT_SIZE, 0);
+        assertEquals(100, repository.findAll().size());
+        assertFalse(repository.existsByShortCode("c0"));
+    }
+
+    @Test
+    void testFindByOwnerAndUrlSurvivesReopen() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        repository.save(createTestLink("abc1", ownerId));
+        repository.save(createTestLink("abc2", ownerId));
+        repository.deleteByShortCode("abc2");
+
+        assertEquals(
+                "abc1",
+                repository
+                        .findByOwnerAndUrl(ownerId, "https://example.com/abc1", 10)
+                        .orElseThrow()
+                        .getShortCode());
+        assertTrue(repository.findByOwnerAndUrl(ownerId, "https://example.com/abc2", 10).isEmpty());
+        assertTrue(
+                repository
+                        .findByOwnerAndUrl(UUID.randomUUID(), "https://example.com/abc1", 10)
+                        .isEmpty());
+
+        repository.close();
+        repository = new LogStructuredLinkRepository(directory, SEGMENT_SIZE, 0);
+        assertTrue(
+                repository.findByOwnerAndUrl(ownerId, "https://example.com/abc1", 10).isPresent());
+        assertTrue(repository.findByOwnerAndUrl(ownerId, "https://example.com/abc2", 10).isEmpty());
+    }
+
+    @Test
+    void testFindAndDeleteInactive() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        Link expired =
+                Link.builder()
+                        .shortCode("old1")
+                        .originalUrl("https://example.com/old1")
+                        .ownerId(ownerId)
+                        .createdAt(now.minusHours(2))
+                        .expiresAt(now.minusHours(1))
+                        .clickLimit(10)
+                        .build();
+        Link exhausted = createTestLink("used1", ownerId);
+        repository.save(expired);
+        repository.save(exhausted);
+        repository.save(createTestLink("live1", ownerId));
+        for (int i = 0; i < 10; i++) {
+            exhausted.use();
+        }
+        repository.recordUsage(exhausted);
+
+        repository.close();
+        repository = new LogStructuredLinkRepository(directory, SEGMENT_SIZE, 0);
+        assertEquals(2, repository.findInactive(now).size());
+
+        assertEquals(2, repository.deleteInactive(now));
+        assertFalse(repository.existsByShortCode("old1"));
+        assertFalse(repository.existsByShortCode("used1"));
+        assertTrue(repository.existsByShortCode("live1"));
+        assertTrue(repository.findInactive(now).isEmpty());
+    }
+
+    @Test
+    void testCompactionDropsTombstonesOfCompactedRecords() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        Link hot = createTestLink("hot", ownerId);
+        repository.save(createTestLink("gone42", ownerId));
+        fillSegment(hot);
+        for (int i = 0; repository.segmentCount() < 3; i++) {
+            repository.save(createTestLink("live" + i, ownerId));
+        }
+        int live = repository.findAll().size();
+        repository.deleteByShortCode("gone42");
+        fillSegment(hot);
+
+        // Первый сегмент с записью кода уплотняется раньше сегмента с надгробием,
+        // а второй сегмент из живых ссылок остается — надгробие больше ничего не скрывает
+        repository.compact();
+
+        assertEquals(2, repository.segmentCount());
+        assertFalse(segmentsContain("gone42"));
+        repository.close();
+        repository = new LogStructuredLinkRepository(directory, SEGMENT_SIZE, 0);
+        assertFalse(repository.existsByShortCode("gone42"));
+        assertEquals(live - 1, repository.findAll().size());
+    }
+
+    /** Перезаписывает ссылку, пока не начнется новый сегмент. */
+    private void fillSegment(Link link) {
+        int segments = repository.segmentCount();
+        while (repository.segmentCount() == segments) {
+            repository.save(link);
+        }
+    }
+
+    private boolean segmentsContain(String text) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String content = new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1);
+                if (content.contains(text)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.urlshortener.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.urlshortener.domain.Link;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class LongLinkMapTest {
+
+    private Link createTestLink(String shortCode) {
+        LocalDateTime now = LocalDateTime.now();
+        return Link.builder()
+                .shortCode(shortCode)
+                .originalUrl("https://example.com")
+                .ownerId(UUID.randomUUID())
+                .createdAt(now)
+                .expiresAt(now.plusHours(24))
+                .clickLimit(10)
+                .build();
+    }
+
+    @Test
+    void testPutGetRemoveWithResize() {
+        LongLinkMap map = new LongLinkMap();
+        List<Link> links = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Link link = createTestLink("c" + i);
+            links.add(link);
+            map.compute(i, previous -> link);
+        }
+        assertEquals(10_000, map.size());
+
+        for (int i = 0; i < 10_000; i += 2) {
+            map.compute(i, previous -> null);
+        }
+        assertEquals(5_000, map.size());
+
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 2 == 0) {
+                assertNull(map.get(i));
+            } else {
+                assertSame(links.get(i), map.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testComputeSeesPreviousValue() {
+        LongLinkMap map = new LongLinkMap();
+        Link first = createTestLink("a");
+        Link second = createTestLink("a");
+
+        map.compute(42, previous -> first);
+        map.compute(
+                42,
+                previous -> {
+                    assertSame(first, previous);
+                    return second;
+                });
+
+        assertSame(second, map.get(42));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testSpliteratorSplitsIntoDisjointParts() {
+        LongLinkMap map = new LongLinkMap();
+        for (int i = 0; i < 20_000; i++) {
+            Link link = createTestLink("c" + i);
+            map.compute(i * 7919L, previous -> link);
+        }
+
+        List<Spliterator<Link>> parts = new ArrayList<>();
+        parts.add(map.spliterator());
+        for (int round = 0; round < 6; round++) {
+            List<Spliterator<Link>> next = new ArrayList<>();
+            for (Spliterator<Link> part : parts) {
+                Spliterator<Link> prefix = part.trySplit();
+                if (prefix != null) {
+                    next.add(prefix);
+                }
+                next.add(part);
+            }
+            parts = next;
+        }
+        assertTrue(parts.size() > 16);
+
+        Set<String> codes = new HashSet<>();
+        for (Spliterator<Link> part : parts) {
+            part.forEachRemaining(link -> assertTrue(codes.add(link.getShortCode())));
+        }
+        assertEquals(20_000, codes.size());
+    }
+
+    @Test
+    void testSpliteratorReturnsRetainedLinksOnceDespiteConcurrentChanges() {
+        LongLinkMap map = new LongLinkMap();
+        for (int i = 0; i < 10_000; i++) {
+            Link link = createTestLink("c" + i);
+            map.compute(i, previous -> link);
+        }
+
+        Set<String> seen = new HashSet<>();
+        Spliterator<Link> links = map.spliterator();
+        int[] step = new int[1];
+        while (links.tryAdvance(link -> assertTrue(seen.add(link.getShortCode())))) {
+            // Удаляются нечетные ключи, добавляются новые с расширением таблицы
+            int i = step[0]++;
+            if (i < 5_000) {
+                map.compute(2 * i + 1, previous -> null);
+                Link added = createTestLink("n" + i);
+                map.compute(10_000 + i, previous -> added);
+            }
+        }
+
+        for (int i = 0; i < 10_000; i += 2) {
+            assertTrue(seen.contains("c" + i), "пропущена ссылка c" + i);
+        }
+    }
+}
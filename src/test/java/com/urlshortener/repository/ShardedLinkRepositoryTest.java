@@ -0,0 +1,87 @@
+package com.urlshortener.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.urlshortener.domain.Link;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ShardedLinkRepositoryTest {
+    private ShardedLinkRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ShardedLinkRepository(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    private Link createTestLink(String shortCode, UUID ownerId, LocalDateTime expiresAt) {
+        return Link.builder()
+                .shortCode(shortCode)
+                .originalUrl("https://example.com/" + shortCode)
+                .ownerId(ownerId)
+                .createdAt(expiresAt.minusHours(24))
+                .expiresAt(expiresAt)
+                .clickLimit(10)
+                .build();
+    }
+
+    @Test
+    void testRoutesCodesToShards() {
+        UUID ownerId = UUID.randomUUID();
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(24);
+        for (int i = 0; i < 1000; i++) {
+            repository.save(createTestLink("code" + i, ownerId, expiresAt));
+        }
+        repository.save(createTestLink("код-1", ownerId, expiresAt));
+
+        assertEquals(1001, repository.findAll().size());
+        assertEquals(1001, repository.findByOwnerId(ownerId).size());
+        assertTrue(repository.existsByShortCode("code500"));
+        assertTrue(repository.findByShortCode("код-1").isPresent());
+        assertTrue(repository.deleteByShortCode("code500"));
+        assertFalse(repository.existsByShortCode("code500"));
+        assertEquals(1000, repository.findByOwnerId(ownerId).size());
+    }
+
+    @Test
+    void testSaveAllDistributesBatch() {
+        UUID ownerId = UUID.randomUUID();
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(24);
+        List<Link> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(createTestLink("batch" + i, ownerId, expiresAt));
+        }
+
+        repository.saveAll(batch);
+
+        assertEquals(100, repository.findAll().size());
+        for (Link link : batch) {
+            assertSame(link, repository.findByShortCode(link.getShortCode()).orElseThrow());
+        }
+    }
+
+    @Test
+    void testDeleteInactiveAcrossShards() {
+        UUID ownerId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 100; i++) {
+            LocalDateTime expiresAt = i % 2 == 0 ? now.minusMinutes(5) : now.plusHours(1);
+            repository.save(createTestLink("code" + i, ownerId, expiresAt));
+        }
+
+        assertEquals(50, repository.findInactive(now).size());
+        assertEquals(50, repository.deleteInactive(now));
+        assertEquals(50, repository.findAll().size());
+        assertTrue(repository.findInactive(now).isEmpty());
+    }
+}
@@ -0,0 +1,243 @@
+package com.urlshortener.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.urlshortener.domain.Link;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WriteBehindLinkRepositoryTest {
+
+    @TempDir Path directory;
+
+    private LogStructuredLinkRepository storage;
+    private WriteBehindLinkRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LogStructuredLinkRepository(directory, 1024 * 1024, 0);
+        repository = new WriteBehindLinkRepository(storage, 100, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        repository.close();
+    }
+
+    private Link createTestLink(String shortCode, int clickLimit) {
+        LocalDateTime now = LocalDateTime.now();
+        return Link.builder()
+                .shortCode(shortCode)
+                .originalUrl("https://example.com")
+                .ownerId(UUID.randomUUID())
+                .createdAt(now)
+                .expiresAt(now.plusHours(24))
+                .clickLimit(clickLimit)
+                .build();
+    }
+
+    @Test
+    void testUsageIsDeferredUntilFlush() {
+        repository.save(createTestLink("abc123", 10));
+
+        Link link = repository.findByShortCode("abc123").orElseThrow();
+        link.use();
+        repository.recordUsage(link);
+
+        assertEquals(1, repository.pendingCount());
+        assertEquals(0, storage.findByShortCode("abc123").orElseThrow().getClickCount());
+        assertEquals(1, repository.findByShortCode("abc123").orElseThrow().getClickCount());
+
+        repository.flush();
+
+        assertEquals(0, repository.pendingCount());
+        assertEquals(1, storage.findByShortCode("abc123").orElseThrow().getClickCount());
+    }
+
+    @Test
+    void testBatchSizeTriggersFlush() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            repository.save(createTestLink("c" + i, 10));
+        }
+        for (int i = 0; i < 100; i++) {
+            Link link = repository.findByShortCode("c" + i).orElseThrow();
+            link.use();
+            repository.recordUsage(link);
+        }
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (repository.flushedBatchCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(repository.flushedBatchCount() > 0);
+        assertEquals(1, storage.findByShortCode("c99").orElseThrow().getClickCount());
+    }
+
+    @Test
+    void testClickLimitEnforcedExactlyUnderContention() throws InterruptedException {
+        int clickLimit = 500;
+        repository.save(createTestLink("hot", clickLimit));
+        AtomicInteger successes = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        for (int t = 0; t < 4; t++) {
+            executor.execute(
+                    () -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        for (int i = 0; i < 400; i++) {
+                            Link link = repository.findByShortCode("hot").orElseThrow();
+                            if (link.use()) {
+                                successes.incrementAndGet();
+                                repository.recordUsage(link);
+                            }
+                            if (i % 50 == 0) {
+                                repository.flush();
+                            }
+                        }
+                    });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        repository.flush();
+
+        assertEquals(clickLimit, successes.get());
+        assertEquals(clickLimit, storage.findByShortCode("hot").orElseThrow().getClickCount());
+    }
+
+    @Test
+    void testDeleteDropsPendingUpdates() {
+        repository.save(createTestLink("abc123", 10));
+        Link link = repository.findByShortCode("abc123").orElseThrow();
+        link.use();
+        repository.recordUsage(link);
+
+        assertTrue(repository.deleteByShortCode("abc123"));
+        repository.flush();
+
+        assertFalse(repository.existsByShortCode("abc123"));
+        assertFalse(storage.existsByShortCode("abc123"));
+    }
+
+    @Test
+    void testLookupRacingDeleteDoesNotResurrectLink() throws Exception {
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryLinkRepository slow =
+                new InMemoryLinkRepository() {
+                    @Override
+                    public Optional<Link> findByShortCode(String shortCode) {
+                        Optional<Link> link = super.findByShortCode(shortCode);
+                        loaded.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return link;
+                    }
+                };
+        slow.save(createTestLink("abc123", 10));
+        WriteBehindLinkRepository racing = new WriteBehindLinkRepository(slow, 100, 60_000);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Чтение загрузило ссылку из хранилища, удаление начинается до ее публикации
+            Future<Link> lookup =
+                    executor.submit(() -> racing.findByShortCode("abc123").orElseThrow());
+            assertTrue(loaded.await(5, TimeUnit.SECONDS));
+            Future<Boolean> delete = executor.submit(() -> racing.deleteByShortCode("abc123"));
+            release.countDown();
+            Link link = lookup.get(5, TimeUnit.SECONDS);
+            assertTrue(delete.get(5, TimeUnit.SECONDS));
+
+            link.use();
+            racing.recordUsage(link);
+            racing.flush();
+
+            assertFalse(racing.existsByShortCode("abc123"));
+            assertFalse(slow.existsByShortCode("abc123"));
+            assertEquals(0, racing.residentCount());
+        } finally {
+            executor.shutdownNow();
+            racing.close();
+        }
+    }
+
+    @Test
+    void testIdleResidentLinksAreEvicted() {
+        for (int i = 0; i < 10; i++) {
+            repository.save(createTestLink("code" + i, 10));
+            repository.findByShortCode("code" + i).orElseThrow();
+        }
+        Link busy = repository.findByShortCode("code0").orElseThrow();
+        assertEquals(10, repository.residentCount());
+
+        repository.evictIdle();
+        busy.use();
+        repository.recordUsage(busy);
+        repository.flush();
+        repository.evictIdle();
+
+        // Осталась только ссылка с переходом после первого обхода
+        assertEquals(1, repository.residentCount());
+        assertSame(busy, repository.findByShortCode("code0").orElseThrow());
+        assertEquals(1, storage.findByShortCode("code0").orElseThrow().getClickCount());
+        assertEquals(0, repository.findByShortCode("code5").orElseThrow().getClickCount());
+    }
+
+    @Test
+    void testUsageOfEvictedInstanceIsNotLost() {
+        repository.save(createTestLink("abc123", 10));
+        Link link = repository.findByShortCode("abc123").orElseThrow();
+        repository.evictIdle();
+        repository.evictIdle();
+        assertEquals(0, repository.residentCount());
+
+        link.use();
+        repository.recordUsage(link);
+        repository.flush();
+
+        assertEquals(1, storage.findByShortCode("abc123").orElseThrow().getClickCount());
+        assertEquals(1, repository.findByShortCode("abc123").orElseThrow().getClickCount());
+    }
+
+    @Test
+    void testUsageOfEvictedAndReloadedInstancesIsCombined() {
+        repository.save(createTestLink("abc123", 10));
+        Link evicted = repository.findByShortCode("abc123").orElseThrow();
+        repository.evictIdle();
+        repository.evictIdle();
+        Link reloaded = repository.findByShortCode("abc123").orElseThrow();
+        assertNotSame(evicted, reloaded);
+
+        for (int i = 0; i < 3; i++) {
+            evicted.use();
+            repository.recordUsage(evicted);
+            reloaded.use();
+            repository.recordUsage(reloaded);
+        }
+        repository.flush();
+
+        assertEquals(6, storage.findByShortCode("abc123").orElseThrow().getClickCount());
+        assertSame(reloaded, repository.findByShortCode("abc123").orElseThrow());
+    }
+}
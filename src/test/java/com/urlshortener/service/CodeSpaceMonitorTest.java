@@ -0,0 +1,67 @@
+package com.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class CodeSpaceMonitorTest {
+
+    @Test
+    void testOccupancyEstimatedFromProbes() {
+        CodeSpaceMonitor monitor = new CodeSpaceMonitor(6, 10, 2.0);
+
+        for (int i = 0; i < CodeSpaceMonitor.WINDOW; i++) {
+            monitor.recordProbe(6, i % 4 == 0);
+        }
+
+        assertEquals(0.25, monitor.occupancy(6), 1e-9);
+        assertEquals(4.0 / 3, monitor.expectedProbes(6), 1e-9);
+        assertEquals(0.0, monitor.occupancy(7));
+        assertEquals(6, monitor.currentLength());
+    }
+
+    @Test
+    void testEscalatesWhenExpectedProbesExceedThreshold() {
+        CodeSpaceMonitor monitor = new CodeSpaceMonitor(6, 10, 2.0);
+
+        for (int i = 0; i < CodeSpaceMonitor.WINDOW; i++) {
+            monitor.recordProbe(6, i % 4 != 0);
+        }
+
+        assertEquals(0.75, monitor.occupancy(6), 1e-9);
+        assertEquals(7, monitor.currentLength());
+    }
+
+    @Test
+    void testEscalateStopsAtMaxLength() {
+        CodeSpaceMonitor monitor = new CodeSpaceMonitor(9, 10, 2.0);
+
+        assertEquals(10, monitor.escalate(9));
+        assertEquals(10, monitor.escalate(10));
+        assertEquals(10, monitor.currentLength());
+        // Устаревшая длина не сдвигает текущую повторно
+        assertEquals(10, monitor.escalate(9));
+    }
+
+    @Test
+    void testRetryHistogram() {
+        CodeSpaceMonitor monitor = new CodeSpaceMonitor(6, 10, 2.0);
+
+        monitor.recordRetries(0);
+        monitor.recordRetries(0);
+        monitor.recordRetries(3);
+        monitor.recordRetries(100);
+
+        assertEquals(2, monitor.retryCount(0));
+        assertEquals(1, monitor.retryCount(3));
+        assertEquals(1, monitor.retryCount(CodeSpaceMonitor.MAX_RETRIES_BUCKET));
+        assertEquals(1, monitor.retryCount(1000));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new CodeSpaceMonitor(0, 10, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> new CodeSpaceMonitor(11, 10, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> new CodeSpaceMonitor(6, 10, 1.0));
+    }
+}
@@ -0,0 +1,90 @@
+package com.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CounterShortCodeGeneratorTest {
+    @TempDir Path directory;
+
+    @Test
+    void testGeneratesDistinctCodesOfConfiguredLength() {
+        CounterShortCodeGenerator generator =
+                new CounterShortCodeGenerator(6, new InMemoryCounterBlockAllocator(), 1000);
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            String code = generator.generate("https://example.com", UUID.randomUUID());
+            assertEquals(6, code.length());
+            assertTrue(codes.add(code), "Код повторился: " + code);
+        }
+        assertTrue(generator.isCollisionFree());
+    }
+
+    @Test
+    void testCodesAreNotSequential() {
+        CounterShortCodeGenerator generator =
+                new CounterShortCodeGenerator(6, new InMemoryCounterBlockAllocator(42), 1000);
+        String first = generator.generate("https://example.com", UUID.randomUUID());
+        String second = generator.generate("https://example.com", UUID.randomUUID());
+
+        assertNotEquals(first.substring(0, 4), second.substring(0, 4));
+    }
+
+    @Test
+    void testExhaustsCodeSpace() {
+        CounterShortCodeGenerator generator =
+                new CounterShortCodeGenerator(1, new InMemoryCounterBlockAllocator(), 10);
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 62; i++) {
+            codes.add(generator.generate("https://example.com", UUID.randomUUID()));
+        }
+
+        assertEquals(62, codes.size());
+        assertThrows(
+                IllegalStateException.class,
+                () -> generator.generate("https://example.com", UUID.randomUUID()));
+    }
+
+    @Test
+    void testPermutationIsReversible() {
+        CodePermutation permutation = new CodePermutation(56_800_235_584L, 7);
+        for (long value = 0; value < 10_000; value++) {
+            long permuted = permutation.permute(value);
+            assertTrue(permuted >= 0 && permuted < 56_800_235_584L);
+            assertEquals(value, permutation.inverse(permuted));
+        }
+    }
+
+    @Test
+    void testFileAllocatorDoesNotReuseValuesAfterReopen() throws IOException {
+        Path file = directory.resolve("counter");
+        FileCounterBlockAllocator allocator = new FileCounterBlockAllocator(file);
+        long key = allocator.permutationKey();
+        assertEquals(0, allocator.allocate(100));
+        assertEquals(100, allocator.allocate(100));
+
+        FileCounterBlockAllocator reopened = new FileCounterBlockAllocator(file);
+
+        assertEquals(key, reopened.permutationKey());
+        assertEquals(200, reopened.allocate(100));
+    }
+
+    @Test
+    void testGeneratorsOverSameFileProduceDistinctCodes() throws IOException {
+        Path file = directory.resolve("counter");
+        Set<String> codes = new HashSet<>();
+        for (int restart = 0; restart < 3; restart++) {
+            CounterShortCodeGenerator generator =
+                    new CounterShortCodeGenerator(6, new FileCounterBlockAllocator(file), 50);
+            for (int i = 0; i < 120; i++) {
+                assertTrue(codes.add(generator.generate("https://example.com", UUID.randomUUID())));
+            }
+        }
+    }
+}
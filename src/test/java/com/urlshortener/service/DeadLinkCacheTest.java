@@ -0,0 +1,46 @@
+package com.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class DeadLinkCacheTest {
+    private final DeadLinkCache cache = new DeadLinkCache(1024, 60_000);
+
+    @Test
+    void testCreatingOtherCodesDoesNotBlockRemember() {
+        long stamp = cache.stamp("missing");
+        // Массовое создание ссылок во время поиска не должно мешать кешировать отказ
+        for (int i = 0; i < 100; i++) {
+            cache.invalidate("new" + i);
+        }
+
+        cache.remember("missing", LinkStatus.NOT_FOUND, stamp);
+
+        DeadLinkCache.Tombstone tombstone = cache.get("missing");
+        assertNotNull(tombstone);
+        assertTrue(tombstone.missing());
+    }
+
+    @Test
+    void testCodeCreatedDuringLookupIsNotRemembered() {
+        long stamp = cache.stamp("fresh");
+        cache.invalidate("fresh");
+
+        cache.remember("fresh", LinkStatus.NOT_FOUND, stamp);
+
+        assertNull(cache.get("fresh"));
+        assertEquals(LinkStatus.NOT_FOUND, cache.remember("fresh", LinkStatus.NOT_FOUND, stamp));
+    }
+
+    @Test
+    void testInvalidateRemovesTombstone() {
+        cache.remember("gone", LinkStatus.EXPIRED, cache.stamp("gone"));
+        assertEquals(LinkStatus.EXPIRED, cache.get("gone").status());
+
+        cache.invalidate("gone");
+
+        assertNull(cache.get("gone"));
+        assertEquals(1, cache.hitCount());
+    }
+}
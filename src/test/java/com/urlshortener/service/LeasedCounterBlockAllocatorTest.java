@@ -0,0 +1,114 @@
+package com.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LeasedCounterBlockAllocatorTest {
+    @TempDir Path directory;
+
+    @Test
+    void testNodesOfInProcessCoordinatorProduceDistinctCodes() {
+        InProcessCounterRangeCoordinator coordinator = new InProcessCounterRangeCoordinator();
+        List<CounterShortCodeGenerator> nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            nodes.add(
+                    new CounterShortCodeGenerator(
+                            6, new LeasedCounterBlockAllocator(coordinator, "node-" + i), 100));
+        }
+
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        for (int round = 0; round < 1000; round++) {
+            for (CounterShortCodeGenerator node : nodes) {
+                String code = node.generate("https://example.com", UUID.randomUUID());
+                assertTrue(codes.add(code), "Код повторился: " + code);
+            }
+        }
+        assertEquals(3, coordinator.currentLeases().size());
+        assertEquals(3000, coordinator.currentLeases().get("node-2").end());
+    }
+
+    @Test
+    void testInProcessLeasesAreDisjoint() {
+        InProcessCounterRangeCoordinator coordinator = new InProcessCounterRangeCoordinator(7);
+        LeasedCounterBlockAllocator first = new LeasedCounterBlockAllocator(coordinator, "a");
+        LeasedCounterBlockAllocator second = new LeasedCounterBlockAllocator(coordinator, "b");
+
+        assertEquals(0, first.allocate(10));
+        assertEquals(10, second.allocate(5));
+        assertEquals(15, first.allocate(10));
+        assertEquals(new CounterRangeCoordinator.Lease("a", 15, 25), first.currentLease());
+        assertEquals(2, first.leaseCount());
+        assertEquals(7, second.permutationKey());
+    }
+
+    @Test
+    void testFileCoordinatorsOverSameFileLeaseDisjointRanges() throws Exception {
+        Path file = directory.resolve("leases");
+        // Два координатора над одним файлом моделируют два процесса
+        FileLockCounterRangeCoordinator first = new FileLockCounterRangeCoordinator(file);
+        FileLockCounterRangeCoordinator second = new FileLockCounterRangeCoordinator(file);
+        assertEquals(first.permutationKey(), second.permutationKey());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                FileLockCounterRangeCoordinator coordinator = i % 2 == 0 ? first : second;
+                String nodeId = "node-" + i;
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    List<Long> starts = new ArrayList<>();
+                                    for (int j = 0; j < 50; j++) {
+                                        starts.add(coordinator.lease(nodeId, 10).start());
+                                    }
+                                    return starts;
+                                }));
+            }
+            Set<Long> starts = ConcurrentHashMap.newKeySet();
+            for (Future<List<Long>> future : futures) {
+                for (long start : future.get()) {
+                    assertEquals(0, start % 10);
+                    assertTrue(starts.add(start), "Диапазон выдан повторно: " + start);
+                }
+            }
+            assertEquals(200, starts.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFileCoordinatorSurvivesReopen() throws IOException {
+        Path file = directory.resolve("leases");
+        FileLockCounterRangeCoordinator coordinator = new FileLockCounterRangeCoordinator(file);
+        long key = coordinator.permutationKey();
+        assertEquals(0, coordinator.lease("a", 100).start());
+
+        FileLockCounterRangeCoordinator reopened = new FileLockCounterRangeCoordinator(file);
+
+        assertEquals(key, reopened.permutationKey());
+        assertEquals(100, reopened.lease("b", 100).start());
+    }
+
+    @Test
+    void testFileCoordinatorRejectsCorruptedFile() throws IOException {
+        Path file = directory.resolve("leases");
+        Files.write(file, new byte[] {1, 2, 3});
+
+        assertThrows(IOException.class, () -> new FileLockCounterRangeCoordinator(file));
+    }
+}
@@ -0,0 +1,165 @@
+package com.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.urlshortener.config.AppConfig;
+import com.urlshortener.domain.Link;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import com.urlshortener.repository.LinkFilter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LinkExporterTest {
+    private InMemoryLinkRepository repository;
+    private LinkService linkService;
+    private LinkExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryLinkRepository();
+        AppConfig config = mock(AppConfig.class);
+        lenient().when(config.getDefaultClickLimit()).thenReturn(10);
+        lenient().when(config.getLinkTtlHours()).thenReturn(24);
+        linkService =
+                new LinkService(
+                        repository,
+                        new ShortCodeGenerator(6),
+                        new NotificationService(false),
+                        config);
+        exporter = new LinkExporter(linkService);
+    }
+
+    @Test
+    void testParallelExportWritesEveryLinkOnce() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            linkService.createLink("https://example.com/" + i, ownerId);
+        }
+        StringWriter out = new StringWriter();
+
+        long exported = exporter.export(LinkFilter.all(), LinkExporter.Format.NDJSON, out, true);
+
+        assertEquals(count, exported);
+        String[] lines = out.toString().split("\n");
+        assertEquals(count, lines.length);
+        Set<String> codes = new HashSet<>();
+        for (String line : lines) {
+            Map<String, Object> fields = JsonLines.parseObject(line);
+            assertTrue(codes.add((String) fields.get("shortCode")));
+            assertEquals(ownerId.toString(), fields.get("ownerId"));
+            assertEquals(10L, fields.get("clickLimit"));
+        }
+    }
+
+    @Test
+    void testCsvExportAppliesFilterAndQuotesFields() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        Link quoted = linkService.createLink("https://example.com/?a=1,2&b=\"x\"", ownerId);
+        linkService.createLink("https://example.com/other", UUID.randomUUID());
+        LocalDateTime now = LocalDateTime.now();
+        repository.save(
+                Link.builder()
+                        .shortCode("expired")
+                        .originalUrl("https://example.com/old")
+                        .ownerId(ownerId)
+                        .createdAt(now.minusDays(2))
+                        .expiresAt(now.minusDays(1))
+                        .clickLimit(5)
+                        .build());
+        StringWriter out = new StringWriter();
+
+        long exported =
+                exporter.export(
+                        LinkFilter.builder().ownerId(ownerId).active(true).build(),
+                        LinkExporter.Format.CSV,
+                        out,
+                        false);
+
+        assertEquals(1, exported);
+        List<String> lines = Arrays.asList(out.toString().split("\n"));
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("shortCode,originalUrl,ownerId"));
+        assertTrue(
+                lines.get(1)
+                        .startsWith(
+                                quoted.getShortCode()
+                                        + ",\"https://example.com/?a=1,2&b=\"\"x\"\"\","
+                                        + ownerId));
+        assertTrue(lines.get(1).endsWith(",0,10,true"));
+    }
+
+    @Test
+    void testExpiryRangeFilter() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+        for (int day = 0; day < 10; day++) {
+            repository.save(
+                    Link.builder()
+                            .shortCode("d" + day)
+                            .originalUrl("https://example.com/" + day)
+                            .ownerId(ownerId)
+                            .createdAt(base.minusDays(1))
+                            .expiresAt(base.plusDays(day))
+                            .clickLimit(5)
+                            .build());
+        }
+        StringWriter out = new StringWriter();
+
+        long exported =
+                exporter.export(
+                        LinkFilter.builder()
+                                .expiresFrom(base.plusDays(3))
+                                .expiresBefore(base.plusDays(6))
+                                .build(),
+                        LinkExporter.Format.NDJSON,
+                        out,
+                        true);
+
+        assertEquals(3, exported);
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> LinkFilter.builder().expiresFrom(base).expiresBefore(base).build());
+    }
+
+    @Test
+    void testFieldFormattingMatchesToString() {
+        LocalDateTime[] values = {
+            LocalDateTime.of(2024, 1, 2, 3, 4),
+            LocalDateTime.of(2024, 12, 31, 23, 59, 1),
+            LocalDateTime.of(2024, 5, 6, 7, 8, 0, 120_000_000),
+            LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123_456_000),
+            LocalDateTime.of(2024, 5, 6, 7, 8, 9, 5),
+            LocalDateTime.of(12024, 5, 6, 7, 8),
+            LocalDateTime.now()
+        };
+        for (LocalDateTime value : values) {
+            StringBuilder out = new StringBuilder();
+            LinkExporter.appendDateTime(out, value);
+            assertEquals(value.toString(), out.toString());
+        }
+        for (UUID value : new UUID[] {new UUID(0, 0), new UUID(-1, -1), UUID.randomUUID()}) {
+            StringBuilder out = new StringBuilder();
+            LinkExporter.appendUuid(out, value);
+            assertEquals(value.toString(), out.toString());
+        }
+    }
+
+    @Test
+    void testFormatSelection() {
+        assertEquals(LinkExporter.Format.CSV, LinkExporter.Format.forFile("links.CSV"));
+        assertEquals(LinkExporter.Format.NDJSON, LinkExporter.Format.forFile("links.ndjson"));
+        assertEquals(LinkExporter.Format.CSV, LinkExporter.Format.fromName("csv"));
+        assertThrows(IllegalArgumentException.class, () -> LinkExporter.Format.fromName("xml"));
+    }
+}
@@ -0,0 +1,264 @@
+package com.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.urlshortener.config.AppConfig;
+import com.urlshortener.domain.Link;
+import com.urlshortener.metrics.MetricsRegistry;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LinkImporterTest {
+    private InMemoryLinkRepository repository;
+    private LinkService linkService;
+    private MetricsRegistry metrics;
+    private AppConfig config;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryLinkRepository();
+        config = mock(AppConfig.class);
+        lenient().when(config.getDefaultClickLimit()).thenReturn(10);
+        lenient().when(config.getLinkTtlHours()).thenReturn(24);
+        lenient().when(config.isDeduplicationEnabled()).thenReturn(true);
+        linkService =
+                new LinkService(
+                        repository,
+                        new ShortCodeGenerator(6),
+                        new NotificationService(false),
+                        config);
+        metrics = new MetricsRegistry();
+    }
+
+    @Test
+    void testImportsLargeInputThroughBoundedPipeline() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        StringBuilder input = new StringBuilder();
+        int count = 5000;
+        for (int i = 0; i < count; i++) {
+            input.append("{\"url\": \"https://example.com/").append(i).append("\"}\n");
+        }
+        List<LinkImporter.Result> results = Collections.synchronizedList(new ArrayList<>());
+
+        LinkImporter.Summary summary =
+                new LinkImporter(linkService, 4, 64, metrics)
+                        .importLinks(reader(input.toString()), ownerId, results::add);
+
+        assertEquals(new LinkImporter.Summary(count, 0, 0), summary);
+        assertEquals(count, results.size());
+        Set<Long> lines = new HashSet<>();
+        for (LinkImporter.Result result : results) {
+            assertTrue(result.isSuccess());
+            lines.add(result.line());
+            Link link = repository.findByShortCode(result.shortCode()).orElseThrow();
+            assertEquals(result.url(), link.getOriginalUrl());
+            assertEquals(10, link.getClickLimit());
+        }
+        assertEquals(count, lines.size());
+        assertEquals(count, linkService.getUserLinks(ownerId).size());
+        assertEquals((long) count, metrics.snapshot().get("import.created"));
+    }
+
+    @Test
+    void testReportsInvalidLinesAndReusesExistingLinks() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        Link existing = linkService.createLink("https://example.com/old", ownerId, 5);
+        String input =
+                "{\"url\": \"https://example.com/new\", \"clickLimit\": 3}\n"
+                        + "\n"
+                        + "{\"url\": \"ftp://example.com\"}\n"
+                        + "not json\n"
+                        + "{\"url\": \"https://example.com/x\", \"clickLimit\": 0}\n"
+                        + "{\"url\": \"https://example.com/old\", \"clickLimit\": 5}\n";
+        List<LinkImporter.Result> results = new ArrayList<>();
+
+        LinkImporter.Summary summary =
+                new LinkImporter(linkService, 2, 16, metrics)
+                        .importLinks(reader(input), ownerId, results::add);
+
+        assertEquals(new LinkImporter.Summary(1, 1, 3), summary);
+        Map<Long, LinkImporter.Result> byLine = new HashMap<>();
+        results.forEach(result -> byLine.put(result.line(), result));
+        assertTrue(byLine.get(1L).created());
+        assertEquals(3, linkService.getLink(byLine.get(1L).shortCode()).getClickLimit());
+        assertFalse(byLine.get(3L).isSuccess());
+        assertFalse(byLine.get(4L).isSuccess());
+        assertNull(byLine.get(4L).url());
+        assertFalse(byLine.get(5L).isSuccess());
+        assertEquals(existing.getShortCode(), byLine.get(6L).shortCode());
+        assertFalse(byLine.get(6L).created());
+    }
+
+    @Test
+    void testDuplicateUrlsInOneImportCreateSingleLink() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            input.append("{\"url\": \"https://example.com/same\"}\n");
+        }
+        List<LinkImporter.Result> results = Collections.synchronizedList(new ArrayList<>());
+
+        LinkImporter.Summary summary =
+                new LinkImporter(linkService, 4, 8, metrics)
+                        .importLinks(reader(input.toString()), ownerId, results::add);
+
+        assertEquals(1, summary.created());
+        assertEquals(199, summary.reused());
+        assertEquals(1, linkService.getUserLinks(ownerId).size());
+        String shortCode = linkService.getUserLinks(ownerId).get(0).getShortCode();
+        assertTrue(results.stream().allMatch(result -> shortCode.equals(result.shortCode())));
+    }
+
+    @Test
+    void testTrackedLinksDoNotGrowAcrossBatches() throws IOException {
+        UUID ownerId = UUID.randomUUID();
+        StringBuilder input = new StringBuilder();
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            // Каждый URL встречается дважды подряд, первая ссылка — еще и в конце входа
+            input.append("{\"url\": \"https://example.com/").append(i / 2).append("\"}\n");
+        }
+        input.append("{\"url\": \"https://example.com/0\"}\n");
+        int batchSize = 16;
+        AtomicReference<LinkImporter.Pipeline> pipeline = new AtomicReference<>();
+        AtomicInteger maxTracked = new AtomicInteger();
+        pipeline.set(
+                new LinkImporter(linkService, 4, batchSize, metrics)
+                        .pipeline(
+                                ownerId,
+                                result ->
+                                        maxTracked.accumulateAndGet(
+                                                pipeline.get().trackedLinks(), Math::max)));
+
+        LinkImporter.Summary summary = pipeline.get().run(reader(input.toString()));
+
+        assertEquals(new LinkImporter.Summary(count / 2, count / 2 + 1, 0), summary);
+        assertTrue(maxTracked.get() <= batchSize);
+        assertEquals(count / 2, linkService.getUserLinks(ownerId).size());
+    }
+
+    @Test
+    void testRepositoryFailuresMidImportAreReportedPerLine() {
+        AtomicInteger calls = new AtomicInteger();
+        InMemoryLinkRepository failing =
+                new InMemoryLinkRepository() {
+                    @Override
+                    public Optional<Link> findByOwnerAndUrl(
+                            UUID ownerId, String originalUrl, int clickLimit) {
+                        failEvery(7);
+                        return super.findByOwnerAndUrl(ownerId, originalUrl, clickLimit);
+                    }
+
+                    @Override
+                    public boolean existsByShortCode(String shortCode) {
+                        failEvery(7);
+                        return super.existsByShortCode(shortCode);
+                    }
+
+                    private void failEvery(int period) {
+                        if (calls.incrementAndGet() % period == 0) {
+                            throw new UncheckedIOException(new IOException("диск недоступен"));
+                        }
+                    }
+                };
+        linkService =
+                new LinkService(
+                        failing, new ShortCodeGenerator(6), new NotificationService(false), config);
+        UUID ownerId = UUID.randomUUID();
+        StringBuilder input = new StringBuilder();
+        int count = 5000;
+        for (int i = 0; i < count; i++) {
+            input.append("{\"url\": \"https://example.com/").append(i / 2).append("\"}\n");
+        }
+        List<LinkImporter.Result> results = Collections.synchronizedList(new ArrayList<>());
+
+        LinkImporter.Summary summary =
+                assertTimeoutPreemptively(
+                        Duration.ofSeconds(30),
+                        () ->
+                                new LinkImporter(linkService, 4, 16, metrics)
+                                        .importLinks(
+                                                reader(input.toString()), ownerId, results::add));
+
+        assertEquals(count, summary.created() + summary.reused() + summary.failed());
+        assertEquals(count, results.size());
+        assertTrue(summary.failed() > 0);
+        for (LinkImporter.Result result : results) {
+            if (result.isSuccess()) {
+                assertTrue(failing.findByShortCode(result.shortCode()).isPresent());
+            } else {
+                assertTrue(result.error().contains("диск недоступен"));
+            }
+        }
+    }
+
+    @Test
+    void testSinkFailureStopsImport() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            input.append("{\"url\": \"https://example.com/").append(i).append("\"}\n");
+        }
+        LinkImporter importer = new LinkImporter(linkService, 2, 4, metrics);
+
+        assertThrows(
+                UncheckedIOException.class,
+                () ->
+                        importer.importLinks(
+                                reader(input.toString()),
+                                UUID.randomUUID(),
+                                result -> {
+                                    throw new UncheckedIOException(new IOException("закрыто"));
+                                }));
+    }
+
+    @Test
+    void testResultJson() {
+        LinkImporter.Result created =
+                new LinkImporter.Result(2, "https://example.com/\"q\"", "abc", true, null);
+        assertEquals(
+                "{\"line\":2,\"url\":\"https://example.com/\\\"q\\\"\",\"shortCode\":\"abc\","
+                        + "\"created\":true}",
+                created.toJson());
+        assertEquals(
+                "{\"line\":3,\"error\":\"Неверный\\nJSON\"}",
+                new LinkImporter.Result(3, null, null, false, "Неверный\nJSON").toJson());
+    }
+
+    @Test
+    void testJsonLinesParsesFlatObjects() {
+        Map<String, Object> fields =
+                JsonLines.parseObject(
+                        " { \"url\" : \"https://e.com/\\u0061\\\\\", \"clickLimit\": 20,"
+                                + " \"tag\": null, \"ok\": true } ");
+
+        assertEquals("https://e.com/a\\", fields.get("url"));
+        assertEquals(20L, fields.get("clickLimit"));
+        assertNull(fields.get("tag"));
+        assertEquals(Boolean.TRUE, fields.get("ok"));
+        assertThrows(IllegalArgumentException.class, () -> JsonLines.parseObject("{\"a\": [1]}"));
+        assertThrows(IllegalArgumentException.class, () -> JsonLines.parseObject("{\"a\": 1.5}"));
+        assertThrows(IllegalArgumentException.class, () -> JsonLines.parseObject("{\"a\": 1} x"));
+    }
+
+    private static BufferedReader reader(String text) {
+        return new BufferedReader(new StringReader(text));
+    }
+}
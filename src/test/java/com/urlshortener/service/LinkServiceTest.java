@@ -4,10 +4,12 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import com.urlshortener.analytics.ClickSink;
 import com.urlshortener.config.AppConfig;
 import com.urlshortener.domain.Link;
 import com.urlshortener.repository.InMemoryLinkRepository;
 import com.urlshortener.repository.LinkRepository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
@@ -63,6 +65,126 @@ class LinkServiceTest {
         assertEquals(20, link.getClickLimit());
     }
 
+    @Test
+    void testCreateLinkWithCounterGeneratorSkipsExistenceCheck() {
+        LinkRepository repository = spy(new InMemoryLinkRepository());
+        LinkService service =
+                new LinkService(
+                        repository,
+                        new CounterShortCodeGenerator(6, new InMemoryCounterBlockAllocator(), 100),
+                        notificationService,
+                        config);
+        UUID userId = UUID.randomUUID();
+
+        Link first = service.createLink("https://example.com", userId);
+        Link second = service.createLink("https://example.com", userId);
+
+        assertNotEquals(first.getShortCode(), second.getShortCode());
+        verify(repository, never()).existsByShortCode(any());
+    }
+
+    @Test
+    void testCreateLinkTakesCodeFromPool() {
+        try (ShortCodePool pool = new ShortCodePool(codeGenerator, linkRepository, 10, 5)) {
+            LinkService service =
+                    new LinkService(
+                            linkRepository, codeGenerator, notificationService, config, pool);
+
+            service.createLink("https://example.com", UUID.randomUUID());
+
+            assertEquals(9, pool.size());
+        }
+    }
+
+    @Test
+    void testCreateLinkReturnsExistingLinkWhenDeduplicationEnabled() {
+        lenient().when(config.isDeduplicationEnabled()).thenReturn(true);
+        UUID userId = UUID.randomUUID();
+
+        Link first = linkService.createLink("https://example.com", userId);
+        Link second = linkService.createLink("https://EXAMPLE.com/", userId);
+        Link otherLimit = linkService.createLink("https://example.com", userId, 20);
+        Link otherUser = linkService.createLink("https://example.com", UUID.randomUUID());
+
+        assertSame(first, second);
+        assertNotEquals(first.getShortCode(), otherLimit.getShortCode());
+        assertNotEquals(first.getShortCode(), otherUser.getShortCode());
+    }
+
+    @Test
+    void testCreateLinkReusesLinksWithAlternatingLimits() {
+        lenient().when(config.isDeduplicationEnabled()).thenReturn(true);
+        UUID userId = UUID.randomUUID();
+        Link ten = linkService.createLink("https://example.com", userId, 10);
+        Link twenty = linkService.createLink("https://example.com", userId, 20);
+
+        assertSame(ten, linkService.createLink("https://example.com", userId, 10));
+        assertSame(twenty, linkService.createLink("https://example.com", userId, 20));
+        assertEquals(2, linkService.getUserLinks(userId).size());
+    }
+
+    @Test
+    void testCreateLinkDoesNotReuseExhaustedLink() {
+        lenient().when(config.isDeduplicationEnabled()).thenReturn(true);
+        UUID userId = UUID.randomUUID();
+        Link first = linkService.createLink("https://example.com", userId, 1);
+        linkService.useLink(first.getShortCode());
+
+        Link second = linkService.createLink("https://example.com", userId, 1);
+
+        assertNotEquals(first.getShortCode(), second.getShortCode());
+    }
+
+    @Test
+    void testCreateLinkGrowsCodeLengthWhenCodeSpaceIsFull() {
+        CodeSpaceMonitor codeSpace = new CodeSpaceMonitor(1, 43, 2.0);
+        LinkService service =
+                new LinkService(
+                        linkRepository,
+                        new ShortCodeGenerator(1),
+                        notificationService,
+                        config,
+                        null,
+                        codeSpace);
+        UUID userId = UUID.randomUUID();
+
+        // Однобуквенных кодов не больше 62, прежде создание завершалось ошибкой
+        for (int i = 0; i < 500; i++) {
+            service.createLink("https://example.com/" + i, userId);
+        }
+
+        assertEquals(500, linkRepository.findByOwnerId(userId).size());
+        assertTrue(codeSpace.currentLength() > 1);
+        assertTrue(codeSpace.occupancy(1) > 0);
+        assertTrue(codeSpace.retryCount(0) < 500);
+    }
+
+    @Test
+    void testRepeatedUrlOfOneOwnerDoesNotGrowCodeLengthForEveryone() {
+        CodeSpaceMonitor codeSpace = new CodeSpaceMonitor(6, 16, 2.0);
+        LinkService service =
+                new LinkService(
+                        linkRepository,
+                        new ShortCodeGenerator(6),
+                        notificationService,
+                        config,
+                        null,
+                        codeSpace);
+        UUID userId = UUID.randomUUID();
+
+        // Цепочка кандидатов одного URL детерминирована: после 11 ссылок все коды
+        // длины 6 заняты самим пользователем
+        for (int i = 0; i < 40; i++) {
+            service.createLink("https://example.com", userId, 1);
+        }
+
+        assertEquals(40, linkRepository.findByOwnerId(userId).size());
+        assertEquals(6, codeSpace.currentLength());
+        assertEquals(0.0, codeSpace.occupancy(6));
+        Link other = service.createLink("https://example.org", UUID.randomUUID(), 1);
+        assertEquals(6, other.getShortCode().length());
+    }
+
     @Test
     void testCreateLinkInvalidUrl() {
         UUID userId = UUID.randomUUID();
@@ -122,6 +244,56 @@ class LinkServiceTest {
                         eq(userId), eq(link.getShortCode()), eq("https://example.com"));
     }
 
+    @Test
+    void testTryUseLinkReportsOutcomeWithoutExceptions() {
+        UUID userId = UUID.randomUUID();
+        Link link = linkService.createLink("https://example.com", userId, 1);
+        Link expired =
+                Link.builder()
+                        .shortCode("expired")
+                        .originalUrl("https://example.com/old")
+                        .ownerId(userId)
+                        .createdAt(LocalDateTime.now().minusHours(2))
+                        .expiresAt(LocalDateTime.now().minusHours(1))
+                        .clickLimit(5)
+                        .build();
+        linkRepository.save(expired);
+
+        UseResult ok = linkService.tryUseLink(link.getShortCode());
+        assertTrue(ok.isOk());
+        assertSame(link, ok.link());
+        assertEquals("https://example.com", ok.url());
+
+        UseResult exhausted = linkService.tryUseLink(link.getShortCode());
+        assertEquals(LinkStatus.LIMIT_REACHED, exhausted.status());
+        assertNull(exhausted.url());
+        assertSame(exhausted, linkService.tryUseLink(link.getShortCode()));
+        assertEquals(LinkStatus.EXPIRED, linkService.tryUseLink("expired").status());
+        assertEquals(LinkStatus.NOT_FOUND, linkService.tryUseLink("nonexistent").status());
+        assertSame(
+                linkService.tryUseLink("nonexistent"), linkService.tryUseLink("unknown"));
+        assertEquals(LinkStatus.LIMIT_REACHED, linkService.tryUseLink(link));
+
+        verify(notificationService)
+                .notifyLinkExpired(userId, "expired", "https://example.com/old");
+        assertEquals(1, link.getClickCount());
+    }
+
+    @Test
+    void testSuccessfulClicksArePublished() {
+        ClickSink sink = mock(ClickSink.class);
+        linkService.setClickSink(sink);
+        UUID userId = UUID.randomUUID();
+        Link link = linkService.createLink("https://example.com", userId, 1);
+
+        assertTrue(linkService.tryUseLink(link.getShortCode(), 42).isOk());
+        assertFalse(linkService.tryUseLink(link.getShortCode(), 42).isOk());
+        assertFalse(linkService.tryUseLink("nonexistent", 42).isOk());
+
+        verify(sink).publish(link.getShortCode(), 42L);
+        verifyNoMoreInteractions(sink);
+    }
+
     @Test
     void testGetUserLinks() {
         UUID userId1 = UUID.randomUUID();
@@ -182,4 +354,72 @@ class LinkServiceTest {
                 link2.getShortCode(),
                 "Different users should get different short codes");
     }
+
+    @Test
+    void testUnknownCodeIsAnsweredFromNegativeCache() {
+        LinkRepository repository = spy(new InMemoryLinkRepository());
+        when(config.getNegativeCacheSize()).thenReturn(1024);
+        when(config.getNegativeCacheTtlSeconds()).thenReturn(60);
+        LinkService service =
+                new LinkService(repository, codeGenerator, notificationService, config);
+
+        RuntimeException first =
+                assertThrows(IllegalArgumentException.class, () -> service.useLink("missing"));
+        for (int i = 0; i < 10; i++) {
+            assertSame(
+                    first,
+                    assertThrows(IllegalArgumentException.class, () -> service.useLink("missing")));
+            assertSame(
+                    first,
+                    assertThrows(IllegalArgumentException.class, () -> service.getLink("missing")));
+        }
+
+        assertEquals(0, first.getStackTrace().length);
+        assertEquals("Ссылка не найдена: missing", first.getMessage());
+        verify(repository, times(1)).findByShortCode("missing");
+        assertEquals(20, service.deadLinkHitCount());
+
+        LocalDateTime now = LocalDateTime.now();
+        service.saveLinks(
+                List.of(
+                        Link.builder()
+                                .shortCode("missing")
+                                .originalUrl("https://example.com")
+                                .ownerId(UUID.randomUUID())
+                                .createdAt(now)
+                                .expiresAt(now.plusHours(1))
+                                .clickLimit(5)
+                                .build()));
+        assertEquals("https://example.com", service.useLink("missing"));
+    }
+
+    @Test
+    void testExhaustedLinkBecomesTombstone() {
+        LinkRepository repository = spy(new InMemoryLinkRepository());
+        when(config.getNegativeCacheSize()).thenReturn(1024);
+        when(config.getNegativeCacheTtlSeconds()).thenReturn(60);
+        LinkService service =
+                new LinkService(repository, codeGenerator, notificationService, config);
+        UUID owner = UUID.randomUUID();
+        Link link = service.createLink("https://example.com", owner, 1);
+        String code = link.getShortCode();
+
+        service.useLink(code);
+        RuntimeException first =
+                assertThrows(IllegalStateException.class, () -> service.useLink(code));
+        for (int i = 0; i < 10; i++) {
+            assertSame(first, assertThrows(IllegalStateException.class, () -> service.useLink(code)));
+        }
+
+        assertEquals(0, first.getStackTrace().length);
+        assertEquals(LinkStatus.LIMIT_REACHED, service.tryUseLink(code).status());
+        verify(repository, times(2)).findByShortCode(code);
+        verify(notificationService, times(1))
+                .notifyLinkLimitReached(owner, code, "https://example.com");
+        // Информация о мертвой ссылке по-прежнему доступна
+        assertSame(link, service.getLink(code));
+
+        service.deleteLink(code, owner);
+        assertThrows(IllegalArgumentException.class, () -> service.useLink(code));
+    }
 }
@@ -2,6 +2,10 @@ package com.urlshortener.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.urlshortener.domain.ShortCodeCodec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
@@ -68,9 +72,59 @@ class ShortCodeGeneratorTest {
         assertEquals(100, codes.size(), "All generated codes should be unique");
     }
 
+    @Test
+    void testGenerateWithLengthExtendsDefaultCode() {
+        ShortCodeGenerator generator = new ShortCodeGenerator(6);
+        UUID userId = UUID.randomUUID();
+        String code = generator.generate("https://example.com", userId);
+
+        String longer = generator.generate("https://example.com", userId, 8);
+
+        assertEquals(8, longer.length());
+        assertTrue(longer.startsWith(code));
+        int tooLong = generator.maxCodeLength() + 1;
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> generator.generate("https://example.com", userId, tooLong));
+    }
+
     @Test
     void testInvalidCodeLength() {
         assertThrows(IllegalArgumentException.class, () -> new ShortCodeGenerator(0));
         assertThrows(IllegalArgumentException.class, () -> new ShortCodeGenerator(-1));
     }
+
+    @Test
+    void testMatchesStringBasedEncoding() throws Exception {
+        String[] urls = {
+            "https://example.com",
+            "https://пример.рф/путь?q=значение",
+            "https://example.com/emoji/\uD83D\uDE00",
+            "https://example.com/broken/\uD83D",
+            "https://example.com/" + "x".repeat(1000)
+        };
+        for (int length : new int[] {1, 6, 12, 43, 50}) {
+            ShortCodeGenerator generator = new ShortCodeGenerator(length);
+            for (String url : urls) {
+                UUID userId = UUID.randomUUID();
+                assertEquals(referenceCode(url, userId, length), generator.generate(url, userId));
+            }
+        }
+    }
+
+    /**
+     * Прежняя реализация на строках: SHA-256, Base64url, перевод символов в base62.
+     */
+    private static String referenceCode(String url, UUID userId, int codeLength)
+            throws Exception {
+        byte[] hash =
+                MessageDigest.getInstance("SHA-256")
+                        .digest((userId + "|" + url).getBytes(StandardCharsets.UTF_8));
+        String base64 = Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < Math.min(codeLength, base64.length()); i++) {
+            result.append(ShortCodeCodec.ALPHABET.charAt(base64.charAt(i) % 62));
+        }
+        return result.toString();
+    }
 }
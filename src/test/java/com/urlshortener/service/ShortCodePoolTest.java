@@ -0,0 +1,106 @@
+package com.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.urlshortener.domain.Link;
+import com.urlshortener.repository.InMemoryLinkRepository;
+import com.urlshortener.repository.LinkRepository;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ShortCodePoolTest {
+
+    private Link createTestLink(String shortCode) {
+        LocalDateTime now = LocalDateTime.now();
+        return Link.builder()
+                .shortCode(shortCode)
+                .originalUrl("https://example.com")
+                .ownerId(UUID.randomUUID())
+                .createdAt(now)
+                .expiresAt(now.plusHours(24))
+                .clickLimit(10)
+                .build();
+    }
+
+    @Test
+    void testPoolIsFilledOnCreation() {
+        try (ShortCodePool pool =
+                new ShortCodePool(new ShortCodeGenerator(6), new InMemoryLinkRepository(), 100, 50)) {
+            assertEquals(100, pool.size());
+            assertEquals(100, pool.refilledCount());
+        }
+    }
+
+    @Test
+    void testHandsOutDistinctUnusedCodes() {
+        LinkRepository repository = new InMemoryLinkRepository();
+        try (ShortCodePool pool = new ShortCodePool(new ShortCodeGenerator(6), repository, 1000, 500)) {
+            Set<String> codes = new HashSet<>();
+            for (int i = 0; i < 1000; i++) {
+                String code = pool.take();
+                assertNotNull(code);
+                assertFalse(repository.existsByShortCode(code));
+                assertTrue(codes.add(code));
+                repository.save(createTestLink(code));
+            }
+        }
+    }
+
+    @Test
+    void testSkipsCodesOccupiedAfterRefill() {
+        LinkRepository repository = new InMemoryLinkRepository();
+        try (ShortCodePool pool = new ShortCodePool(new ShortCodeGenerator(6), repository, 10, 1)) {
+            // Первый код пула занимают в обход пула
+            String first = pool.take();
+            repository.save(createTestLink(first));
+            String second = pool.take();
+
+            assertNotEquals(first, second);
+            assertFalse(repository.existsByShortCode(second));
+        }
+    }
+
+    @Test
+    void testRefillsInBackgroundAndTracksLowWaterMark() throws InterruptedException {
+        try (ShortCodePool pool =
+                new ShortCodePool(
+                        new CounterShortCodeGenerator(6, new InMemoryCounterBlockAllocator(), 100),
+                        new InMemoryLinkRepository(),
+                        100,
+                        50)) {
+            for (int i = 0; i < 80; i++) {
+                assertNotNull(pool.take());
+            }
+            // Пополнение могло начаться на 51-м коде, до окончания выборки
+            assertTrue(pool.lowWaterMark() >= 20 && pool.lowWaterMark() < 50);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (pool.size() < 100 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(100, pool.size());
+            assertEquals(180, pool.refilledCount());
+            assertTrue(pool.refillRate() > 0);
+        }
+    }
+
+    @Test
+    void testCountsEmptyPool() {
+        try (ShortCodePool pool =
+                new ShortCodePool(
+                        new CounterShortCodeGenerator(1, new InMemoryCounterBlockAllocator(), 10),
+                        new InMemoryLinkRepository(),
+                        62,
+                        1)) {
+            for (int i = 0; i < 62; i++) {
+                assertNotNull(pool.take());
+            }
+            assertNull(pool.take());
+            assertEquals(1, pool.emptyCount());
+        }
+    }
+}